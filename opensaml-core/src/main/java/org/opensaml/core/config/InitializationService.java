@@ -17,23 +17,44 @@
 
 package org.opensaml.core.config;
 
+import java.util.ArrayList;
 import java.util.Iterator;
+import java.util.List;
+import java.util.Properties;
 import java.util.ServiceLoader;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 
+import org.opensaml.core.config.provider.ThreadLocalConfigurationPropertiesHolder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
 /**
  * Service which initializes OpenSAML library modules using the Java Services API.
  * 
  * <p>
  * See also {@link Initializer}.
  * </p>
+ * 
+ * <p>
+ * If the configuration property {@link #CONFIG_PROPERTY_CONCURRENT} is set to <code>true</code>, adjacent
+ * {@link IndependentInitializer}s are run concurrently. Any other initializer is only run once all the initializers
+ * located before it have completed.
+ * </p>
  */
 public class InitializationService {
     
+    /** Configuration property determining whether independent initializers are run concurrently. */
+    public static final String CONFIG_PROPERTY_CONCURRENT = "opensaml.config.initialization.concurrent";
+
     /** Constructor.*/
     protected InitializationService() { }
     
@@ -47,18 +68,98 @@ public class InitializationService {
         
         log.info("Initializing OpenSAML using the Java Services API");
         
-        ServiceLoader<Initializer> serviceLoader = getServiceLoader();
-        Iterator<Initializer> iter = serviceLoader.iterator();
-        while (iter.hasNext()) {
-            Initializer initializer  = iter.next();
-            log.debug("Initializing module initializer implementation: {}", initializer.getClass().getName());
-            try {
-                initializer.init();
-            } catch (InitializationException e) {
-                log.error("Error initializing module", e);
-                throw e;
+        final ExecutorService executor = isConcurrentInitialization() ? createExecutor() : null;
+        final List<Future<Void>> pending = new ArrayList<>();
+        try {
+            ServiceLoader<Initializer> serviceLoader = getServiceLoader();
+            Iterator<Initializer> iter = serviceLoader.iterator();
+            while (iter.hasNext()) {
+                Initializer initializer  = iter.next();
+                if (executor != null && initializer instanceof IndependentInitializer) {
+                    log.debug("Submitting independent module initializer implementation: {}",
+                            initializer.getClass().getName());
+                    pending.add(executor.submit(new InitializerTask(initializer)));
+                } else {
+                    awaitCompletion(pending);
+                    log.debug("Initializing module initializer implementation: {}", initializer.getClass().getName());
+                    runInitializer(initializer);
+                }
+            }
+            awaitCompletion(pending);
+        } finally {
+            if (executor != null) {
+                executor.shutdownNow();
+            }
+        }
+    }
+
+    /**
+     * Run an initializer.
+     * 
+     * @param initializer the initializer to run
+     * 
+     * @throws InitializationException if initialization did not complete successfully
+     */
+    private static void runInitializer(@Nonnull final Initializer initializer) throws InitializationException {
+        try {
+            initializer.init();
+        } catch (InitializationException e) {
+            getLogger().error("Error initializing module", e);
+            throw e;
+        }
+    }
+
+    /**
+     * Wait for the completion of the initializers which have been submitted for concurrent execution.
+     * 
+     * @param pending the results of the submitted initializers, cleared once they have all completed
+     * 
+     * @throws InitializationException if initialization of any of the initializers did not complete successfully
+     */
+    private static void awaitCompletion(@Nonnull final List<Future<Void>> pending) throws InitializationException {
+        try {
+            for (final Future<Void> result : pending) {
+                result.get();
+            }
+            pending.clear();
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InitializationException("Interrupted while waiting for module initialization", e);
+        } catch (final ExecutionException e) {
+            final Throwable cause = e.getCause();
+            if (cause instanceof InitializationException) {
+                throw (InitializationException) cause;
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
             }
+            throw new InitializationException("Error initializing module", cause);
+        }
+    }
+
+    /**
+     * Get whether independent initializers are run concurrently.
+     * 
+     * @return true if independent initializers are run concurrently
+     */
+    private static boolean isConcurrentInitialization() {
+        final Properties props = ConfigurationService.getConfigurationProperties();
+        if (props == null) {
+            return false;
         }
+        final String concurrent = props.getProperty(CONFIG_PROPERTY_CONCURRENT, "false");
+        return "true".equalsIgnoreCase(concurrent) || "1".equals(concurrent);
+    }
+
+    /**
+     * Create the executor used to run independent initializers concurrently.
+     * 
+     * @return the executor
+     */
+    @Nonnull private static ExecutorService createExecutor() {
+        return Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(),
+                new ThreadFactoryBuilder().setNameFormat("opensaml-initializer-%d").setDaemon(true).build());
     }
 
     /**
@@ -83,4 +184,50 @@ public class InitializationService {
         return LoggerFactory.getLogger(InitializationService.class);
     }
 
+    /**
+     * Task running an initializer on behalf of the thread which submitted it, in the same class loader and
+     * configuration properties context.
+     */
+    private static final class InitializerTask implements Callable<Void> {
+
+        /** The initializer to run. */
+        @Nonnull private final Initializer initializer;
+
+        /** The context class loader of the submitting thread. */
+        @Nullable private final ClassLoader contextClassLoader;
+
+        /** The thread-local configuration properties of the submitting thread. */
+        @Nullable private final Properties configurationProperties;
+
+        /**
+         * Constructor.
+         * 
+         * @param init the initializer to run
+         */
+        private InitializerTask(@Nonnull final Initializer init) {
+            initializer = init;
+            contextClassLoader = Thread.currentThread().getContextClassLoader();
+            configurationProperties = ThreadLocalConfigurationPropertiesHolder.getProperties();
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public Void call() throws InitializationException {
+            final Thread thread = Thread.currentThread();
+            final ClassLoader originalClassLoader = thread.getContextClassLoader();
+            thread.setContextClassLoader(contextClassLoader);
+            ThreadLocalConfigurationPropertiesHolder.setProperties(configurationProperties);
+            try {
+                getLogger().debug("Initializing module initializer implementation: {}",
+                        initializer.getClass().getName());
+                runInitializer(initializer);
+                return null;
+            } finally {
+                ThreadLocalConfigurationPropertiesHolder.clear();
+                thread.setContextClassLoader(originalClassLoader);
+            }
+        }
+
+    }
+
 }
\ No newline at end of file
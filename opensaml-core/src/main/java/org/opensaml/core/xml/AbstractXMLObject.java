@@ -32,6 +32,8 @@ import net.shibboleth.utilities.java.support.primitive.StringSupport;
 import net.shibboleth.utilities.java.support.xml.QNameSupport;
 import net.shibboleth.utilities.java.support.xml.XMLConstants;
 
+import org.opensaml.core.xml.io.DeferredChildElements;
+import org.opensaml.core.xml.io.UnmarshallingException;
 import org.opensaml.core.xml.schema.XSBooleanValue;
 import org.opensaml.core.xml.util.IDIndex;
 import org.slf4j.Logger;
@@ -43,6 +45,12 @@ import org.w3c.dom.Element;
  */
 public abstract class AbstractXMLObject implements XMLObject {
 
+    /**
+     * Whether the release of cached DOMs is suppressed on the current thread, while deferred child elements already
+     * present in the cached DOM are resolved.
+     */
+    @Nonnull private static final ThreadLocal<Boolean> DOM_RELEASE_SUPPRESSED = new ThreadLocal<>();
+
     /** Class logger. */
     @Nonnull private final Logger log = LoggerFactory.getLogger(AbstractXMLObject.class);
 
@@ -67,17 +75,26 @@ public abstract class AbstractXMLObject implements XMLObject {
     /** The value of the <code>xsi:nil</code> attribute. */
     private  XSBooleanValue nil;
     
-    /** The namespace manager for this XML object. */
-    private NamespaceManager nsManager;
+    /** The namespace manager for this XML object, created on first use. */
+    @Nullable private NamespaceManager nsManager;
     
-    /** The multimap holding class-indexed instances of additional info associated with this XML object. */
-    @Nonnull private final LockableClassToInstanceMultiMap<Object> objectMetadata;
+    /**
+     * The multimap holding class-indexed instances of additional info associated with this XML object, created on
+     * first use. Unlike the rest of the object this may be accessed concurrently, hence volatile.
+     */
+    @Nullable private volatile LockableClassToInstanceMultiMap<Object> objectMetadata;
 
     /**
      * Mapping of ID attributes to XMLObjects in the subtree rooted at this object. This allows constant-time
-     * dereferencing of ID-typed attributes within the subtree.
+     * dereferencing of ID-typed attributes within the subtree. Created on first use.
+     */
+    @Nullable private IDIndex idIndex;
+
+    /**
+     * Child elements whose unmarshalling was deferred, if any. Resolution may be triggered concurrently by readers of
+     * an otherwise unmodified object, hence volatile.
      */
-    private final IDIndex idIndex;
+    @Nullable private volatile DeferredChildElements deferredChildElements;
 
     /**
      * Constructor.
@@ -88,18 +105,16 @@ public abstract class AbstractXMLObject implements XMLObject {
      */
     protected AbstractXMLObject(@Nullable final String namespaceURI, @Nonnull @NotEmpty final String elementLocalName,
             @Nullable final String namespacePrefix) {
-        nsManager = new NamespaceManager(this);
-        idIndex = new IDIndex(this);
         elementQname = QNameSupport.constructQName(namespaceURI, elementLocalName, namespacePrefix);
         if(namespaceURI != null){
             setElementNamespacePrefix(namespacePrefix);
         }
-        objectMetadata = new LockableClassToInstanceMultiMap<>(true);
     }
 
     /** {@inheritDoc} */
     public void detach(){
         releaseParentDOM(true);
+        NamespaceManager.invalidateSubtreeNamespaces(parent);
         parent = null;
     }
 
@@ -115,11 +130,36 @@ public abstract class AbstractXMLObject implements XMLObject {
 
     /** {@inheritDoc} */
     @Nonnull public IDIndex getIDIndex() {
+        if (idIndex == null) {
+            idIndex = new IDIndex(this);
+        }
         return idIndex;
     }
+
+    /**
+     * Get whether the ID index of this object contains any mappings, without creating the index if it has not been
+     * used yet.
+     * 
+     * @return true if the ID index contains any mappings
+     */
+    public boolean hasIDMappings() {
+        return idIndex != null && !idIndex.isEmpty();
+    }
     
     /** {@inheritDoc} */
     @Nonnull public NamespaceManager getNamespaceManager() {
+        if (nsManager == null) {
+            nsManager = new NamespaceManager(this);
+        }
+        return nsManager;
+    }
+
+    /**
+     * Get the namespace manager for this XML object, without creating it if it has not been used yet.
+     * 
+     * @return the namespace manager, or null
+     */
+    @Nullable NamespaceManager getExistingNamespaceManager() {
         return nsManager;
     }
 
@@ -169,8 +209,8 @@ public abstract class AbstractXMLObject implements XMLObject {
     protected void manageQualifiedAttributeNamespace(@Nonnull final QName attributeName, boolean hasValue) {
         if (hasValue) {
             getNamespaceManager().registerAttributeName(attributeName);
-        } else {
-            getNamespaceManager().deregisterAttributeName(attributeName);
+        } else if (nsManager != null) {
+            nsManager.deregisterAttributeName(attributeName);
         }
     }
     
@@ -345,7 +385,9 @@ public abstract class AbstractXMLObject implements XMLObject {
             if (newValue != null) {
                 releaseThisandParentDOM();
                 newValue.setParent(this);
-                idIndex.registerIDMappings(newValue.getIDIndex());
+                if (IDIndex.hasIDMappings(newValue)) {
+                    getIDIndex().registerIDMappings(newValue.getIDIndex());
+                }
                 return newValue;
 
             } else {
@@ -356,10 +398,14 @@ public abstract class AbstractXMLObject implements XMLObject {
         if (!oldValue.equals(newValue)) {
             oldValue.setParent(null);
             releaseThisandParentDOM();
-            idIndex.deregisterIDMappings(oldValue.getIDIndex());
+            if (IDIndex.hasIDMappings(oldValue)) {
+                getIDIndex().deregisterIDMappings(oldValue.getIDIndex());
+            }
             if (newValue != null) {
                 newValue.setParent(this);
-                idIndex.registerIDMappings(newValue.getIDIndex());
+                if (IDIndex.hasIDMappings(newValue)) {
+                    getIDIndex().registerIDMappings(newValue.getIDIndex());
+                }
             }
         }
 
@@ -378,16 +424,93 @@ public abstract class AbstractXMLObject implements XMLObject {
         String newString = StringSupport.trimOrNull(newID);
 
         if (!Objects.equals(oldID, newString)) {
-            if (oldID != null) {
+            if (oldID != null && idIndex != null) {
                 idIndex.deregisterIDMapping(oldID);
             }
 
             if (newString != null) {
-                idIndex.registerIDMapping(newString, this);
+                getIDIndex().registerIDMapping(newString, this);
+            }
+        }
+    }
+
+    /**
+     * Set the child elements of this object whose unmarshalling was deferred. For use by unmarshallers.
+     * 
+     * @param children the deferred child elements, or null
+     */
+    public void setDeferredChildElements(@Nullable final DeferredChildElements children) {
+        deferredChildElements = children;
+    }
+
+    /**
+     * Get whether this object has child elements whose unmarshalling was deferred and has not been resolved yet.
+     * 
+     * @return true if this object has unresolved deferred child elements
+     */
+    public boolean hasDeferredChildElements() {
+        return deferredChildElements != null;
+    }
+
+    /**
+     * Unmarshall the child elements of this object whose unmarshalling was deferred, if any, and add them to this
+     * object.
+     * 
+     * <p>
+     * Implementations of {@link DeferrableChildrenXMLObject} call this at the start of the getters for the children
+     * they accept as deferred and of {@link #getOrderedChildren()}. Resolution only materializes content already
+     * present in the cached DOM, so the release of cached DOMs which the setters would otherwise cause is suppressed
+     * while it runs: neither this object nor its ancestors ever lose their cached DOM, and concurrent readers of a
+     * shared tree do not observe it changing.
+     * </p>
+     * 
+     * <p>
+     * If unmarshalling fails, the elements remain deferred and every later call throws again.
+     * </p>
+     * 
+     * @throws XMLRuntimeException if the deferred child elements can not be unmarshalled
+     */
+    public void resolveDeferredChildElements() {
+        final DeferredChildElements children = deferredChildElements;
+        if (children == null) {
+            return;
+        }
+
+        synchronized (children) {
+            // Either another thread got here first, or this is a getter called back during resolution.
+            if (deferredChildElements != children || children.isUnmarshalling()) {
+                return;
+            }
+
+            log.trace("Unmarshalling {} deferred child elements of {}", children.getElements().size(),
+                    getElementQName());
+            final Boolean suppressed = DOM_RELEASE_SUPPRESSED.get();
+            DOM_RELEASE_SUPPRESSED.set(Boolean.TRUE);
+            try {
+                children.unmarshall(this);
+                deferredChildElements = null;
+            } catch (final UnmarshallingException e) {
+                // The elements stay deferred, so that every later access reports the failure again.
+                throw new XMLRuntimeException("Unable to unmarshall deferred child elements of " + getElementQName(),
+                        e);
+            } finally {
+                if (suppressed == null) {
+                    DOM_RELEASE_SUPPRESSED.remove();
+                }
             }
         }
     }
 
+    /**
+     * Get whether the release of cached DOMs is suppressed on the current thread, because deferred child elements are
+     * being resolved.
+     * 
+     * @return true if the release of cached DOMs is suppressed
+     */
+    private static boolean isDOMReleaseSuppressed() {
+        return DOM_RELEASE_SUPPRESSED.get() != null;
+    }
+
     /** {@inheritDoc} */
     public void releaseChildrenDOM(boolean propagateRelease) {
         log.trace("Releasing cached DOM reprsentation for children of {} with propagation set to {}",
@@ -406,12 +529,18 @@ public abstract class AbstractXMLObject implements XMLObject {
 
     /** {@inheritDoc} */
     public void releaseDOM() {
+        if (isDOMReleaseSuppressed()) {
+            return;
+        }
         log.trace("Releasing cached DOM reprsentation for {}", getElementQName());
         setDOM(null);
     }
 
     /** {@inheritDoc} */
     public void releaseParentDOM(boolean propagateRelease) {
+        if (isDOMReleaseSuppressed()) {
+            return;
+        }
         log.trace("Releasing cached DOM reprsentation for parent of {} with propagation set to {}", getElementQName(),
                 propagateRelease);
         XMLObject parentElement = getParent();
@@ -447,6 +576,9 @@ public abstract class AbstractXMLObject implements XMLObject {
 
     /** {@inheritDoc} */
     @Nullable public XMLObject resolveID(@Nonnull @NotEmpty final String id) {
+        if (idIndex == null) {
+            return null;
+        }
         return idIndex.lookup(id);
     }
 
@@ -475,7 +607,10 @@ public abstract class AbstractXMLObject implements XMLObject {
         } else {
             elementQname = new QName(elementQname.getNamespaceURI(), elementQname.getLocalPart(), prefix);
         }
-        getNamespaceManager().registerElementName(elementQname);
+        // A namespace manager created later derives the element name namespace from the owner.
+        if (nsManager != null) {
+            nsManager.registerElementName(elementQname);
+        }
     }
 
     /**
@@ -486,7 +621,9 @@ public abstract class AbstractXMLObject implements XMLObject {
     protected void setElementQName(@Nonnull final QName name) {
         Constraint.isNotNull(name, "Element QName cannot be null");
         elementQname = QNameSupport.constructQName(name.getNamespaceURI(), name.getLocalPart(), name.getPrefix());
-        getNamespaceManager().registerElementName(elementQname);
+        if (nsManager != null) {
+            nsManager.registerElementName(elementQname);
+        }
     }
 
     /** {@inheritDoc} */
@@ -498,7 +635,11 @@ public abstract class AbstractXMLObject implements XMLObject {
 
     /** {@inheritDoc} */
     public void setParent(@Nullable final XMLObject newParent) {
+        if (parent != newParent) {
+            NamespaceManager.invalidateSubtreeNamespaces(parent);
+        }
         parent = newParent;
+        NamespaceManager.invalidateSubtreeNamespaces(newParent);
     }
 
     /** {@inheritDoc} */
@@ -516,7 +657,10 @@ public abstract class AbstractXMLObject implements XMLObject {
      */
     protected void setSchemaType(@Nullable final QName type) {
         typeQname = type;
-        getNamespaceManager().registerElementType(typeQname);
+        // A namespace manager created later derives the element type namespace from the owner.
+        if (nsManager != null) {
+            nsManager.registerElementType(typeQname);
+        }
         manageQualifiedAttributeNamespace(XMLConstants.XSI_TYPE_ATTRIB_NAME, typeQname != null);
     }
     
@@ -552,7 +696,17 @@ public abstract class AbstractXMLObject implements XMLObject {
 
     /** {@inheritDoc} */
     @Nonnull public LockableClassToInstanceMultiMap<Object> getObjectMetadata() {
-        return objectMetadata;
+        LockableClassToInstanceMultiMap<Object> metadata = objectMetadata;
+        if (metadata == null) {
+            synchronized (this) {
+                metadata = objectMetadata;
+                if (metadata == null) {
+                    metadata = new LockableClassToInstanceMultiMap<>(true);
+                    objectMetadata = metadata;
+                }
+            }
+        }
+        return metadata;
     }
 
 }
\ No newline at end of file
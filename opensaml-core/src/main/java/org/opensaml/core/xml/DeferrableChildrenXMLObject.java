@@ -0,0 +1,44 @@
+/*
+ * Licensed to the University Corporation for Advanced Internet Development, 
+ * Inc. (UCAID) under one or more contributor license agreements.  See the 
+ * NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The UCAID licenses this file to You under the Apache 
+ * License, Version 2.0 (the "License"); you may not use this file except in 
+ * compliance with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.opensaml.core.xml;
+
+import javax.annotation.Nonnull;
+import javax.xml.namespace.QName;
+
+/**
+ * An XMLObject which can hold child elements whose unmarshalling has been deferred.
+ * 
+ * <p>
+ * A child element registered as deferred with the {@link org.opensaml.core.xml.config.XMLObjectProviderRegistry} is
+ * only deferred under a parent implementing this interface which accepts its name, and which therefore calls
+ * {@link AbstractXMLObject#resolveDeferredChildElements()} in every getter exposing such children and in
+ * {@link XMLObject#getOrderedChildren()}. Under any other parent it is unmarshalled along with the parent as usual.
+ * </p>
+ */
+public interface DeferrableChildrenXMLObject extends XMLObject {
+
+    /**
+     * Get whether the unmarshalling of a child element with the given name may be deferred, that is whether every
+     * getter of this object exposing such children resolves the deferred children first.
+     * 
+     * @param elementName the QName of the child element
+     * 
+     * @return true if the unmarshalling of the child element may be deferred
+     */
+    public boolean isDeferrableChildElement(@Nonnull final QName elementName);
+
+}
@@ -43,6 +43,13 @@ import com.google.common.base.Strings;
  * Code which mutates the state of an XMLObject such that XML namespace-related data is also logically changed,
  * should call the appropriate method, based on the type of change being made.
  * </p>
+ * 
+ * <p>
+ * The computed namespace sets are cached until the namespace-related data of the owning XMLObject, or of an XMLObject
+ * in its subtree, changes. Changes to the children of an XMLObject are signalled by {@link XMLObject#setParent}; code
+ * which changes the children returned by {@link XMLObject#getOrderedChildren()} without setting their parent should
+ * call {@link #invalidateSubtreeNamespaces()}.
+ * </p>
  */
 public class NamespaceManager {
     
@@ -78,6 +85,15 @@ public class NamespaceManager {
     /** Registered namespaces of content values. */
     private Namespace contentValue;
     
+    /** Cached result of {@link #getNamespaces()}, or null if it must be computed. */
+    @Nullable private Set<Namespace> namespaces;
+    
+    /** Cached result of {@link #getAllNamespacesInSubtreeScope()}, or null if it must be computed. */
+    @Nullable private Set<Namespace> subtreeNamespaces;
+    
+    /** Cached result of {@link #getNonVisibleNamespaces()}, or null if it must be computed. */
+    @Nullable private Set<Namespace> nonVisibleNamespaces;
+    
     /**
      * Constructor.
      *
@@ -118,11 +134,14 @@ public class NamespaceManager {
      * @return the unmodifiable set of namespaces
      */
     @Nonnull public Set<Namespace> getNamespaces() {
-        Set<Namespace> namespaces = mergeNamespaceCollections(decls, attrNames, attrValues.values());
-        addNamespace(namespaces, getElementNameNamespace());
-        addNamespace(namespaces, getElementTypeNamespace());
-        addNamespace(namespaces, contentValue);
-        return Collections.unmodifiableSet(namespaces);
+        if (namespaces == null) {
+            Set<Namespace> newNamespaces = mergeNamespaceCollections(decls, attrNames, attrValues.values());
+            addNamespace(newNamespaces, getElementNameNamespace());
+            addNamespace(newNamespaces, getElementTypeNamespace());
+            addNamespace(newNamespaces, contentValue);
+            namespaces = Collections.unmodifiableSet(newNamespaces);
+        }
+        return namespaces;
     }
     
     /**
@@ -132,6 +151,7 @@ public class NamespaceManager {
      */
     public void registerNamespaceDeclaration(@Nonnull final Namespace namespace) {
         addNamespace(decls, namespace);
+        invalidateNamespaces();
     }
     
     /**
@@ -141,6 +161,7 @@ public class NamespaceManager {
      */
     public void deregisterNamespaceDeclaration(@Nonnull final Namespace namespace) {
         removeNamespace(decls, namespace);
+        invalidateNamespaces();
     }
     
     /**
@@ -160,6 +181,7 @@ public class NamespaceManager {
     public void registerAttributeName(@Nonnull final QName attributeName) {
         if (checkQName(attributeName)) {
             addNamespace(attrNames, buildNamespace(attributeName));
+            invalidateNamespaces();
         }
     }
     
@@ -171,6 +193,7 @@ public class NamespaceManager {
     public void deregisterAttributeName(@Nonnull final QName attributeName) {
         if (checkQName(attributeName)) {
             removeNamespace(attrNames, buildNamespace(attributeName));
+            invalidateNamespaces();
         }
     }
     
@@ -183,6 +206,7 @@ public class NamespaceManager {
     public void registerAttributeValue(@Nonnull final String attributeID, @Nonnull final QName attributeValue) {
         if (checkQName(attributeValue)) {
             attrValues.put(attributeID, buildNamespace(attributeValue));
+            invalidateNamespaces();
         }
     }
     
@@ -192,7 +216,9 @@ public class NamespaceManager {
      * @param attributeID unique identifier for the attribute within the XMLObject's content model
      */
     public void deregisterAttributeValue(@Nonnull final String attributeID) {
-        attrValues.remove(attributeID);
+        if (attrValues.remove(attributeID) != null) {
+            invalidateNamespaces();
+        }
     }
     
     /**
@@ -203,6 +229,7 @@ public class NamespaceManager {
     public void registerContentValue(@Nonnull final QName content) {
         if (checkQName(content)) {
             contentValue = buildNamespace(content);
+            invalidateNamespaces();
         }
     }
     
@@ -211,7 +238,10 @@ public class NamespaceManager {
      * 
      */
     public void deregisterContentValue() {
-        contentValue = null;
+        if (contentValue != null) {
+            contentValue = null;
+            invalidateNamespaces();
+        }
     }
     
     /**
@@ -240,9 +270,13 @@ public class NamespaceManager {
      * information that may optionally be supplied as a part of XML exclusive canonicalization.
      * </p>
      * 
-     * @return the set of non-visibly used namespaces 
+     * @return the unmodifiable set of non-visibly used namespaces 
      */
     @Nonnull public Set<Namespace> getNonVisibleNamespaces() {
+        if (nonVisibleNamespaces != null) {
+            return nonVisibleNamespaces;
+        }
+        
         LazySet<Namespace> nonVisibleCandidates = new LazySet<>();
 
         // Collect each child's non-visible namespaces
@@ -269,7 +303,8 @@ public class NamespaceManager {
 
         // What remains is the effective set of non-visible namespaces
         // for the subtree rooted at this node.
-        return nonVisibleCandidates;
+        nonVisibleNamespaces = Collections.unmodifiableSet(nonVisibleCandidates);
+        return nonVisibleNamespaces;
 
     }
     
@@ -277,9 +312,13 @@ public class NamespaceManager {
      * Get the set of all namespaces which are in scope within the subtree rooted
      * at the owning XMLObject.
      * 
-     * @return set of all namespaces in scope for the owning object
+     * @return the unmodifiable set of all namespaces in scope for the owning object
      */
     @Nonnull public Set<Namespace> getAllNamespacesInSubtreeScope() {
+        if (subtreeNamespaces != null) {
+            return subtreeNamespaces;
+        }
+        
         LazySet<Namespace> namespaces = new LazySet<>();
 
         // Collect namespaces for the subtree rooted at each child
@@ -300,7 +339,36 @@ public class NamespaceManager {
             namespaces.add(myNS);
         }
 
-        return namespaces;
+        subtreeNamespaces = Collections.unmodifiableSet(namespaces);
+        return subtreeNamespaces;
+    }
+    
+    /**
+     * Discard the cached namespace sets which are computed from the subtree rooted at the owning XMLObject, and
+     * those of its ancestors.
+     */
+    public void invalidateSubtreeNamespaces() {
+        NamespaceManager manager = this;
+        // An ancestor only caches subtree sets computed from those of its descendants, so an XMLObject without
+        // them has no ancestors with them either.
+        while (manager != null && (manager.subtreeNamespaces != null || manager.nonVisibleNamespaces != null)) {
+            manager.subtreeNamespaces = null;
+            manager.nonVisibleNamespaces = null;
+            manager = getExistingManager(manager.getOwner().getParent());
+        }
+    }
+    
+    /**
+     * Discard the cached namespace sets which are computed from the subtree rooted at an XMLObject, and those of its
+     * ancestors, if it has a namespace manager.
+     * 
+     * @param xmlObject the XMLObject, may be null
+     */
+    static void invalidateSubtreeNamespaces(@Nullable final XMLObject xmlObject) {
+        final NamespaceManager manager = getExistingManager(xmlObject);
+        if (manager != null) {
+            manager.invalidateSubtreeNamespaces();
+        }
     }
     
     /**
@@ -311,6 +379,7 @@ public class NamespaceManager {
     public void registerElementName(@Nonnull final QName name) {
         if (checkQName(name)) {
             elementName = buildNamespace(name);
+            invalidateNamespaces();
         }
     }
 
@@ -327,6 +396,31 @@ public class NamespaceManager {
         } else {
             elementType = null;
         }
+        invalidateNamespaces();
+    }
+    
+    /**
+     * Discard the cached namespace sets of the owning XMLObject, after its namespace-related data has changed.
+     */
+    private void invalidateNamespaces() {
+        namespaces = null;
+        invalidateSubtreeNamespaces();
+    }
+    
+    /**
+     * Get the namespace manager of an XMLObject, without creating one if it has not been used yet.
+     * 
+     * @param xmlObject the XMLObject, may be null
+     * 
+     * @return the namespace manager, or null
+     */
+    @Nullable private static NamespaceManager getExistingManager(@Nullable final XMLObject xmlObject) {
+        if (xmlObject == null) {
+            return null;
+        } else if (xmlObject instanceof AbstractXMLObject) {
+            return ((AbstractXMLObject) xmlObject).getExistingNamespaceManager();
+        }
+        return xmlObject.getNamespaceManager();
     }
     
     /**
@@ -31,6 +31,8 @@ import net.shibboleth.utilities.java.support.logic.Constraint;
 import net.shibboleth.utilities.java.support.xml.DOMTypeSupport;
 import net.shibboleth.utilities.java.support.xml.QNameSupport;
 
+import com.google.common.base.Supplier;
+
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.w3c.dom.Element;
@@ -48,9 +50,13 @@ public class XMLObjectBuilderFactory {
     /** Registered builders. */
     @Nonnull private final Map<QName, XMLObjectBuilder<?>> builders;
 
+    /** Builders registered for instantiation on first use, indexed by key. */
+    @Nonnull private final Map<QName, Supplier<? extends XMLObjectBuilder<?>>> deferredBuilders;
+
     /** Constructor. */
     public XMLObjectBuilderFactory() {
         builders = new ConcurrentHashMap<>();
+        deferredBuilders = new ConcurrentHashMap<>();
     }
 
     /**
@@ -64,7 +70,11 @@ public class XMLObjectBuilderFactory {
         if (key == null){
             return null;
         }
-        return builders.get(key);
+        final XMLObjectBuilder<?> builder = builders.get(key);
+        if (builder == null && !deferredBuilders.isEmpty()) {
+            return instantiateDeferredBuilder(key);
+        }
+        return builder;
     }
 
     /**
@@ -135,6 +145,9 @@ public class XMLObjectBuilderFactory {
      * @return list of all the builders currently registered
      */
     @Nonnull @NotLive @Unmodifiable public Map<QName, XMLObjectBuilder<?>> getBuilders() {
+        for (final QName key : deferredBuilders.keySet()) {
+            instantiateDeferredBuilder(key);
+        }
         return Collections.unmodifiableMap(builders);
     }
 
@@ -149,7 +162,28 @@ public class XMLObjectBuilderFactory {
         Constraint.isNotNull(builder, "Builder cannot be null");
         log.debug("Registering builder {} under key {}",  builder.getClass().getName(), builderKey);
 
-        builders.put(builderKey, builder);
+        synchronized (deferredBuilders) {
+            deferredBuilders.remove(builderKey);
+            builders.put(builderKey, builder);
+        }
+    }
+
+    /**
+     * Registers a new builder for the given name which is not instantiated until it is first retrieved.
+     * 
+     * @param builderKey the key used to retrieve this builder later
+     * @param builderSupplier the supplier of the builder
+     */
+    public void registerDeferredBuilder(@Nonnull final QName builderKey,
+            @Nonnull final Supplier<? extends XMLObjectBuilder<?>> builderSupplier) {
+        Constraint.isNotNull(builderKey, "Builder key cannot be null");
+        Constraint.isNotNull(builderSupplier, "Builder supplier cannot be null");
+        log.debug("Registering deferred builder under key {}", builderKey);
+
+        synchronized (deferredBuilders) {
+            builders.remove(builderKey);
+            deferredBuilders.put(builderKey, builderSupplier);
+        }
     }
 
     /**
@@ -163,6 +197,33 @@ public class XMLObjectBuilderFactory {
         Constraint.isNotNull(builderKey, "Builder key QName cannot be null");
         
         log.debug("Deregistering builder for object type {}", builderKey);
-        return builders.remove(builderKey);
+        synchronized (deferredBuilders) {
+            deferredBuilders.remove(builderKey);
+            return builders.remove(builderKey);
+        }
+    }
+
+    /**
+     * Instantiates the deferred builder registered under the given key and moves it to the registered builders.
+     * 
+     * @param builderKey the key of the builder
+     * 
+     * @return the builder registered under the key once the deferred builder is instantiated, or null
+     */
+    @Nullable private XMLObjectBuilder<?> instantiateDeferredBuilder(@Nonnull final QName builderKey) {
+        final Supplier<? extends XMLObjectBuilder<?>> supplier = deferredBuilders.get(builderKey);
+        if (supplier == null) {
+            return builders.get(builderKey);
+        }
+
+        // Instantiate outside the lock; a concurrent duplicate is harmless as builders are stateless.
+        final XMLObjectBuilder<?> builder = supplier.get();
+        synchronized (deferredBuilders) {
+            if (builder != null && deferredBuilders.remove(builderKey, supplier)) {
+                log.debug("Instantiated deferred builder {} under key {}", builder.getClass().getName(), builderKey);
+                builders.put(builderKey, builder);
+            }
+            return builders.get(builderKey);
+        }
     }
 }
\ No newline at end of file
@@ -18,24 +18,49 @@
 package org.opensaml.core.xml.config;
 
 import java.io.InputStream;
+import java.util.Properties;
 
+import javax.annotation.Nullable;
+
+import org.opensaml.core.config.ConfigurationService;
+import org.opensaml.core.config.IndependentInitializer;
 import org.opensaml.core.config.InitializationException;
-import org.opensaml.core.config.Initializer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
  * Reads in an XML configuration and configures the XMLTooling library accordingly.
+ *
+ * <p>
+ * If a {@link PrecompiledXMLObjectProviderConfiguration} generated at build time is available for a configuration
+ * resource, it is used instead of loading the resource, which avoids parsing and schema validating the resource
+ * and reflectively instantiating the providers. By default the precompiled configuration is a class named
+ * {@link #PRECOMPILED_CONFIGURATION_CLASS_NAME} in the package of the initializer. The configuration property
+ * <code>opensaml.config.xml.usePrecompiledProviders</code> may be set to <code>false</code> to always load the
+ * configuration resources.
+ * </p>
+ *
+ * <p>
+ * Provider initializers only register their own object providers and so are {@link IndependentInitializer}s which
+ * may be run concurrently with the initializers of other modules.
+ * </p>
  */
-public abstract class AbstractXMLObjectProviderInitializer implements Initializer {
+public abstract class AbstractXMLObjectProviderInitializer implements IndependentInitializer {
+
+    /** Configuration property determining whether precompiled provider configurations are used. */
+    public static final String CONFIG_PROPERTY_USE_PRECOMPILED = "opensaml.config.xml.usePrecompiledProviders";
+
+    /** Simple name of the precompiled provider configuration class looked up in the package of the initializer. */
+    public static final String PRECOMPILED_CONFIGURATION_CLASS_NAME = "PrecompiledXMLObjectProviders";
 
     /** Class logger. */
     private final Logger log = LoggerFactory.getLogger(AbstractXMLObjectProviderInitializer.class);
-    
+
     /** {@inheritDoc} */
     public void init() throws InitializationException {
         try {
-            XMLConfigurator configurator = new XMLConfigurator();
+            final PrecompiledXMLObjectProviderConfiguration precompiled = getPrecompiledConfiguration();
+            XMLConfigurator configurator = null;
             for (String resource : getConfigResources()) {
                 // When using ClassLoader.getResourceAsStream() (as below), resource names should *not*
                 // begin with leading "/".  They are always absolute.
@@ -46,6 +71,12 @@ public abstract class AbstractXMLObjectProviderInitializer implements Initialize
                     resource = resource.substring(1);
                 }
                 // Checkstyle: ModifiedControlVariable ON
+                if (precompiled != null && registerPrecompiled(precompiled, resource)) {
+                    continue;
+                }
+                if (configurator == null) {
+                    configurator = new XMLConfigurator();
+                }
                 log.debug("Loading XMLObject provider configuration from resource '{}'", resource);
                 final InputStream is = Thread.currentThread().getContextClassLoader().getResourceAsStream(resource);
                 if (is != null) {
@@ -62,9 +93,68 @@ public abstract class AbstractXMLObjectProviderInitializer implements Initialize
 
     /**
      * Obtain the list of configuration file resources which should be loaded.
-     * 
+     *
      * @return the list of configuration file resources
      */
     protected abstract String[] getConfigResources();
 
-}
\ No newline at end of file
+    /**
+     * Obtain the precompiled provider configuration to use in place of loading the configuration resources.
+     *
+     * <p>
+     * The default implementation returns an instance of the class named
+     * {@link #PRECOMPILED_CONFIGURATION_CLASS_NAME} in the package of the initializer, if it exists and
+     * the use of precompiled configuration has not been disabled.
+     * </p>
+     *
+     * @return the precompiled provider configuration, or null
+     */
+    @Nullable protected PrecompiledXMLObjectProviderConfiguration getPrecompiledConfiguration() {
+        final Properties props = ConfigurationService.getConfigurationProperties();
+        final String usePrecompiled = props != null ? props.getProperty(CONFIG_PROPERTY_USE_PRECOMPILED, "true")
+                : "true";
+        if (!"true".equalsIgnoreCase(usePrecompiled) && !"1".equals(usePrecompiled)) {
+            log.debug("Use of precompiled XMLObject provider configuration is disabled");
+            return null;
+        }
+
+        final Package pkg = getClass().getPackage();
+        final String className = (pkg != null ? pkg.getName() + "." : "") + PRECOMPILED_CONFIGURATION_CLASS_NAME;
+        try {
+            final Class<?> clazz = Class.forName(className, true, getClass().getClassLoader());
+            if (PrecompiledXMLObjectProviderConfiguration.class.isAssignableFrom(clazz)) {
+                return (PrecompiledXMLObjectProviderConfiguration) clazz.newInstance();
+            }
+            log.warn("Class {} is not a precompiled XMLObject provider configuration, ignoring it", className);
+        } catch (final ClassNotFoundException e) {
+            log.debug("No precompiled XMLObject provider configuration {} is available", className);
+        } catch (final ReflectiveOperationException | LinkageError e) {
+            log.warn("Unable to instantiate precompiled XMLObject provider configuration {}", className, e);
+        }
+        return null;
+    }
+
+    /**
+     * Register the precompiled configuration of a resource, if available.
+     *
+     * @param precompiled the precompiled provider configuration
+     * @param resource the configuration resource
+     *
+     * @return true if the resource was registered from the precompiled configuration, false if it must be loaded
+     */
+    private boolean registerPrecompiled(final PrecompiledXMLObjectProviderConfiguration precompiled,
+            final String resource) {
+        try {
+            if (precompiled.register(resource, XMLConfigurator.getOrCreateRegistry())) {
+                log.debug("Registered precompiled XMLObject provider configuration of resource '{}'", resource);
+                return true;
+            }
+        } catch (final LinkageError e) {
+            // Any providers registered before the failure are replaced when the resource is loaded.
+            log.warn("Precompiled XMLObject provider configuration of resource '{}' failed, loading the resource",
+                    resource, e);
+        }
+        return false;
+    }
+
+}
@@ -0,0 +1,87 @@
+/*
+ * Licensed to the University Corporation for Advanced Internet Development,
+ * Inc. (UCAID) under one or more contributor license agreements.  See the
+ * NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The UCAID licenses this file to You under the Apache
+ * License, Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.opensaml.core.xml.config;
+
+import javax.annotation.Nonnull;
+
+import net.shibboleth.utilities.java.support.logic.Constraint;
+import net.shibboleth.utilities.java.support.primitive.StringSupport;
+
+import org.opensaml.core.xml.XMLRuntimeException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.base.Supplier;
+
+/**
+ * Supplier of a new instance of a class identified by name, which is not loaded until the instance is requested.
+ * 
+ * @param <T> the type of the supplied instance
+ */
+final class DeferredClassInstance<T> implements Supplier<T> {
+
+    /** Class logger. */
+    @Nonnull private final Logger log = LoggerFactory.getLogger(DeferredClassInstance.class);
+
+    /** The type the class must be assignable to. */
+    @Nonnull private final Class<?> type;
+
+    /** The name of the class to instantiate. */
+    @Nonnull private final String className;
+
+    /** The class loader used to load the class. */
+    @Nonnull private final ClassLoader classLoader;
+
+    /**
+     * Constructor.
+     * 
+     * @param requiredType the type the class must be assignable to
+     * @param name the name of the class to instantiate
+     * @param loader the class loader used to load the class
+     */
+    DeferredClassInstance(@Nonnull final Class<?> requiredType, @Nonnull final String name,
+            @Nonnull final ClassLoader loader) {
+        type = Constraint.isNotNull(requiredType, "Required type cannot be null");
+        className = Constraint.isNotNull(StringSupport.trimOrNull(name), "Class name cannot be null or empty");
+        classLoader = Constraint.isNotNull(loader, "Class loader cannot be null");
+    }
+
+    /**
+     * {@inheritDoc}
+     * 
+     * @throws XMLRuntimeException if the class can not be loaded or instantiated
+     */
+    @Override
+    @Nonnull public T get() {
+        try {
+            log.trace("Creating instance of {}", className);
+            final Class<?> clazz = Class.forName(className, true, classLoader);
+            if (!type.isAssignableFrom(clazz)) {
+                throw new XMLRuntimeException("Class " + className + " is not a " + type.getName());
+            }
+            // Safe, as the class was checked against the required type above.
+            @SuppressWarnings("unchecked") final T instance = (T) clazz.getConstructor().newInstance();
+            return instance;
+        } catch (final ReflectiveOperationException e) {
+            final String errorMsg = "Cannot create instance of " + className;
+            log.error(errorMsg, e);
+            throw new XMLRuntimeException(errorMsg, e);
+        }
+    }
+
+}
@@ -0,0 +1,46 @@
+/*
+ * Licensed to the University Corporation for Advanced Internet Development,
+ * Inc. (UCAID) under one or more contributor license agreements.  See the
+ * NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The UCAID licenses this file to You under the Apache
+ * License, Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.opensaml.core.xml.config;
+
+import javax.annotation.Nonnull;
+
+/**
+ * An XMLObject provider configuration which has been compiled at build time from one or more XMLTooling
+ * configuration resources into Java registration code.
+ *
+ * <p>
+ * Implementations are generated by {@link XMLObjectProviderConfigurationCompiler} and are used by
+ * {@link AbstractXMLObjectProviderInitializer} in preference to loading and parsing the corresponding configuration
+ * resources.
+ * </p>
+ */
+public interface PrecompiledXMLObjectProviderConfiguration {
+
+    /**
+     * Register the object providers and ID attributes of the specified configuration resource.
+     *
+     * @param resource the configuration resource name, relative to the root of the classpath and without a leading
+     *            "/"
+     * @param registry the registry with which to register the configuration
+     *
+     * @return true if the resource was compiled into this configuration and has been registered, false if the
+     *          resource is unknown to this configuration and nothing was registered
+     */
+    boolean register(@Nonnull final String resource, @Nonnull final XMLObjectProviderRegistry registry);
+
+}
@@ -47,6 +47,7 @@ import org.opensaml.core.config.ConfigurationService;
 import org.opensaml.core.xml.XMLObjectBuilder;
 import org.opensaml.core.xml.io.Marshaller;
 import org.opensaml.core.xml.io.Unmarshaller;
+import org.opensaml.core.xml.util.SchemaValidatorPool;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.w3c.dom.Attr;
@@ -78,9 +79,15 @@ public class XMLConfigurator {
     /** Pool of parsers used to read and validate configurations. */
     private BasicParserPool parserPool;
 
+    /** Validators for the schema used to validate configuration files, compiled once and shared. */
+    @Nullable private static SchemaValidatorPool sharedConfigurationValidators;
+
     /** Schema used to validate configruation files. */
     private Schema configurationSchema;
 
+    /** Validators for the schema used to validate configuration files. */
+    private SchemaValidatorPool configurationValidators;
+
     /** The provider registry instance to use. */
     @Nonnull private final XMLObjectProviderRegistry registry;
 
@@ -91,11 +98,9 @@ public class XMLConfigurator {
      */
     public XMLConfigurator() throws XMLConfigurationException {
         parserPool = new BasicParserPool();
-        final SchemaFactory factory = SchemaFactory.newInstance(javax.xml.XMLConstants.W3C_XML_SCHEMA_NS_URI);
-        final Source schemaSource =
-                new StreamSource(XMLConfigurator.class.getResourceAsStream(XMLTOOLING_SCHEMA_LOCATION));
         try {
-            configurationSchema = factory.newSchema(schemaSource);
+            configurationValidators = getConfigurationValidators();
+            configurationSchema = configurationValidators.getSchema();
 
             parserPool.setIgnoreComments(true);
             parserPool.setIgnoreElementContentWhitespace(true);
@@ -107,14 +112,43 @@ public class XMLConfigurator {
             throw new XMLConfigurationException("Unable to initialize parser pool", e);
         }
 
+        registry = getOrCreateRegistry();
+    }
+
+    /**
+     * Get the validators for the schema used to validate configuration files, compiling the schema if no
+     * configurator has done so.
+     * 
+     * @return validators for the configuration schema
+     * 
+     * @throws SAXException thrown if the schema cannot be read
+     */
+    @Nonnull private static synchronized SchemaValidatorPool getConfigurationValidators() throws SAXException {
+        if (sharedConfigurationValidators == null) {
+            final SchemaFactory factory = SchemaFactory.newInstance(javax.xml.XMLConstants.W3C_XML_SCHEMA_NS_URI);
+            final Source schemaSource =
+                    new StreamSource(XMLConfigurator.class.getResourceAsStream(XMLTOOLING_SCHEMA_LOCATION));
+            sharedConfigurationValidators = new SchemaValidatorPool(factory.newSchema(schemaSource));
+        }
+        return sharedConfigurationValidators;
+    }
+
+    /**
+     * Get the XMLObject provider registry from the {@link ConfigurationService}, creating and registering it if it
+     * does not yet exist.
+     * 
+     * @return the registry instance
+     */
+    @Nonnull static XMLObjectProviderRegistry getOrCreateRegistry() {
         synchronized (ConfigurationService.class) {
             XMLObjectProviderRegistry reg = ConfigurationService.get(XMLObjectProviderRegistry.class);
             if (reg == null) {
-                log.debug("XMLObjectProviderRegistry did not exist in ConfigurationService, will be created");
+                LoggerFactory.getLogger(XMLConfigurator.class).debug(
+                        "XMLObjectProviderRegistry did not exist in ConfigurationService, will be created");
                 reg = new XMLObjectProviderRegistry();
                 ConfigurationService.register(XMLObjectProviderRegistry.class, reg);
             }
-            registry = reg;
+            return reg;
         }
     }
 
@@ -233,6 +267,16 @@ public class XMLConfigurator {
             log.debug("Initializing object provider {}", objectProviderName);
 
             try {
+                if (getRegistry().isLazyProviderInstantiation()) {
+                    getRegistry().registerObjectProvider(objectProviderName,
+                            getClassName(objectProvider, "BuilderClass"),
+                            getClassName(objectProvider, "MarshallingClass"),
+                            getClassName(objectProvider, "UnmarshallingClass"),
+                            Thread.currentThread().getContextClassLoader());
+                    log.debug("{} registered for instantiation on first use", objectProviderName);
+                    continue;
+                }
+
                 Element configuration =
                         (Element) objectProvider.getElementsByTagNameNS(XMLTOOLING_CONFIG_NS, "BuilderClass").item(0);
                 final XMLObjectBuilder<?> builder = (XMLObjectBuilder<?>) createClassInstance(configuration);
@@ -285,6 +329,28 @@ public class XMLConfigurator {
         }
     }
 
+    /**
+     * Gets the name of the class configured by a child element of an object provider.
+     * 
+     * @param objectProvider the object provider configuration element
+     * @param elementName the local name of the class configuration element
+     * 
+     * @return the class name
+     * 
+     * @throws XMLConfigurationException thrown if the class configuration element or class name is missing
+     */
+    @Nonnull protected String getClassName(@Nonnull final Element objectProvider, @Nonnull final String elementName)
+            throws XMLConfigurationException {
+        final Element configuration =
+                (Element) objectProvider.getElementsByTagNameNS(XMLTOOLING_CONFIG_NS, elementName).item(0);
+        final String className = configuration != null
+                ? StringSupport.trimOrNull(configuration.getAttributeNS(null, "className")) : null;
+        if (className == null) {
+            throw new XMLConfigurationException("Object provider is missing the class name of " + elementName);
+        }
+        return className;
+    }
+
     /**
      * Constructs an instance of the given class.
      * 
@@ -328,8 +394,7 @@ public class XMLConfigurator {
      */
     protected void validateConfiguration(Document configuration) throws XMLConfigurationException {
         try {
-            javax.xml.validation.Validator schemaValidator = configurationSchema.newValidator();
-            schemaValidator.validate(new DOMSource(configuration));
+            configurationValidators.validate(new DOMSource(configuration));
         } catch (final IOException e) {
             // Should never get here as the DOM is already in memory
             String errorMsg = "Unable to read configuration file DOM";
@@ -0,0 +1,357 @@
+/*
+ * Licensed to the University Corporation for Advanced Internet Development,
+ * Inc. (UCAID) under one or more contributor license agreements.  See the
+ * NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The UCAID licenses this file to You under the Apache
+ * License, Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.opensaml.core.xml.config;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.xml.XMLConstants;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.transform.dom.DOMSource;
+import javax.xml.transform.stream.StreamSource;
+import javax.xml.validation.Schema;
+import javax.xml.validation.SchemaFactory;
+
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+import org.w3c.dom.NodeList;
+import org.xml.sax.SAXException;
+
+/**
+ * Build-time tool which compiles XMLTooling configuration resources into Java source code for an implementation of
+ * {@link PrecompiledXMLObjectProviderConfiguration}.
+ *
+ * <p>
+ * Every file in the resource directory whose name ends in {@link #CONFIG_RESOURCE_SUFFIX} is schema validated and
+ * compiled. The generated code performs the same registrations as {@link XMLConfigurator} would for that resource,
+ * using direct constructor invocations instead of reflection, and without parsing or validating XML at runtime.
+ * </p>
+ *
+ * <p>
+ * The tool is intended to be run during the <code>generate-sources</code> phase of a module's build, with the
+ * arguments: <code>resourceDirectory outputDirectory className</code>.
+ * </p>
+ */
+public final class XMLObjectProviderConfigurationCompiler {
+
+    /** Suffix of the names of configuration resources to compile. */
+    @Nonnull public static final String CONFIG_RESOURCE_SUFFIX = "-config.xml";
+
+    /** Indentation unit of the generated code. */
+    @Nonnull private static final String INDENT = "    ";
+
+    /** Constructor. */
+    private XMLObjectProviderConfigurationCompiler() {
+    }
+
+    /**
+     * Command line entry point.
+     *
+     * @param args the resource directory, the output source directory, and the fully qualified name of the class to
+     *            generate
+     *
+     * @throws XMLConfigurationException if a configuration resource is invalid or the output can not be written
+     */
+    public static void main(@Nonnull final String[] args) throws XMLConfigurationException {
+        if (args.length != 3) {
+            throw new IllegalArgumentException("Usage: " + XMLObjectProviderConfigurationCompiler.class.getName()
+                    + " <resourceDirectory> <outputDirectory> <className>");
+        }
+        compile(new File(args[0]), new File(args[1]), args[2]);
+    }
+
+    /**
+     * Compile all configuration resources in a directory into a single generated class.
+     *
+     * @param resourceDirectory directory containing the configuration resources
+     * @param outputDirectory root directory of the generated sources
+     * @param className fully qualified name of the class to generate
+     *
+     * @throws XMLConfigurationException if a configuration resource is invalid or the output can not be written
+     */
+    public static void compile(@Nonnull final File resourceDirectory, @Nonnull final File outputDirectory,
+            @Nonnull final String className) throws XMLConfigurationException {
+
+        final File[] resources = resourceDirectory.listFiles();
+        if (resources == null) {
+            throw new XMLConfigurationException("Resource directory could not be read: " + resourceDirectory);
+        }
+        Arrays.sort(resources);
+
+        final Schema schema = buildSchema();
+        final List<String> resourceNames = new ArrayList<>();
+        final List<Document> configurations = new ArrayList<>();
+        for (final File resource : resources) {
+            if (resource.isFile() && resource.getName().endsWith(CONFIG_RESOURCE_SUFFIX)) {
+                resourceNames.add(resource.getName());
+                configurations.add(parse(resource, schema));
+            }
+        }
+
+        final int split = className.lastIndexOf('.');
+        final String packageName = split > 0 ? className.substring(0, split) : null;
+        final String simpleName = className.substring(split + 1);
+
+        final File outputFile = new File(outputDirectory, className.replace('.', File.separatorChar) + ".java");
+        if (!outputFile.getParentFile().isDirectory() && !outputFile.getParentFile().mkdirs()) {
+            throw new XMLConfigurationException("Output directory could not be created: "
+                    + outputFile.getParentFile());
+        }
+
+        try (PrintWriter out = new PrintWriter(
+                new OutputStreamWriter(new FileOutputStream(outputFile), StandardCharsets.UTF_8))) {
+            writeClass(out, packageName, simpleName, resourceNames, configurations);
+        } catch (final IOException e) {
+            throw new XMLConfigurationException("Generated source could not be written: " + outputFile, e);
+        }
+    }
+
+    /**
+     * Build the schema used to validate configuration resources.
+     *
+     * @return the configuration schema
+     *
+     * @throws XMLConfigurationException if the schema can not be read
+     */
+    @Nonnull private static Schema buildSchema() throws XMLConfigurationException {
+        try {
+            final SchemaFactory factory = SchemaFactory.newInstance(XMLConstants.W3C_XML_SCHEMA_NS_URI);
+            return factory.newSchema(new StreamSource(
+                    XMLConfigurator.class.getResourceAsStream(XMLConfigurator.XMLTOOLING_SCHEMA_LOCATION)));
+        } catch (final SAXException e) {
+            throw new XMLConfigurationException("Unable to read XMLTooling configuration schema", e);
+        }
+    }
+
+    /**
+     * Parse and schema validate a configuration resource.
+     *
+     * @param resource the configuration resource
+     * @param schema the configuration schema
+     *
+     * @return the parsed configuration
+     *
+     * @throws XMLConfigurationException if the resource can not be parsed or is invalid
+     */
+    @Nonnull private static Document parse(@Nonnull final File resource, @Nonnull final Schema schema)
+            throws XMLConfigurationException {
+        try {
+            final DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+            factory.setNamespaceAware(true);
+            factory.setIgnoringComments(true);
+            factory.setFeature(XMLConstants.FEATURE_SECURE_PROCESSING, true);
+            final Document document = factory.newDocumentBuilder().parse(resource);
+            schema.newValidator().validate(new DOMSource(document));
+            return document;
+        } catch (final ParserConfigurationException | SAXException | IOException e) {
+            throw new XMLConfigurationException("Invalid configuration resource " + resource, e);
+        }
+    }
+
+    /**
+     * Write the generated class.
+     *
+     * @param out the output writer
+     * @param packageName the package of the generated class, or null
+     * @param simpleName the simple name of the generated class
+     * @param resourceNames the names of the compiled configuration resources
+     * @param configurations the compiled configuration resources
+     *
+     * @throws XMLConfigurationException if a configuration resource contains an unresolvable QName
+     */
+    private static void writeClass(@Nonnull final PrintWriter out, @Nullable final String packageName,
+            @Nonnull final String simpleName, @Nonnull final List<String> resourceNames,
+            @Nonnull final List<Document> configurations) throws XMLConfigurationException {
+
+        out.println("// Generated by " + XMLObjectProviderConfigurationCompiler.class.getName() + ", do not edit.");
+        out.println();
+        if (packageName != null) {
+            out.println("package " + packageName + ";");
+            out.println();
+        }
+        out.println("import javax.xml.namespace.QName;");
+        out.println();
+        out.println("import " + PrecompiledXMLObjectProviderConfiguration.class.getName() + ";");
+        out.println("import " + XMLObjectProviderRegistry.class.getName() + ";");
+        out.println();
+        out.println("/** XMLObject provider configuration compiled from the module's configuration resources. */");
+        out.println("public final class " + simpleName + " implements "
+                + PrecompiledXMLObjectProviderConfiguration.class.getSimpleName() + " {");
+        out.println();
+        out.println(INDENT + "/** {@inheritDoc} */");
+        out.println(INDENT + "public boolean register(final String resource,");
+        out.println(INDENT + INDENT + INDENT + "final XMLObjectProviderRegistry registry) {");
+        out.println(INDENT + INDENT + "switch (resource) {");
+        for (int i = 0; i < resourceNames.size(); i++) {
+            out.println(INDENT + INDENT + INDENT + "case " + literal(resourceNames.get(i)) + ":");
+            out.println(INDENT + INDENT + INDENT + INDENT + "register" + i + "(registry);");
+            out.println(INDENT + INDENT + INDENT + INDENT + "return true;");
+        }
+        out.println(INDENT + INDENT + INDENT + "default:");
+        out.println(INDENT + INDENT + INDENT + INDENT + "return false;");
+        out.println(INDENT + INDENT + "}");
+        out.println(INDENT + "}");
+
+        // One method per resource keeps each method well below the JVM's code size limit.
+        for (int i = 0; i < resourceNames.size(); i++) {
+            out.println();
+            out.println(INDENT + "/**");
+            out.println(INDENT + " * Register the configuration of " + resourceNames.get(i) + ".");
+            out.println(INDENT + " *");
+            out.println(INDENT + " * @param registry the registry to use");
+            out.println(INDENT + " */");
+            out.println(INDENT + "private static void register" + i + "(final XMLObjectProviderRegistry registry) {");
+            out.println(INDENT + INDENT + "final boolean lazy = registry.isLazyProviderInstantiation();");
+            out.println(INDENT + INDENT + "final ClassLoader classLoader = " + simpleName + ".class.getClassLoader();");
+            writeRegistrations(out, configurations.get(i).getDocumentElement());
+            out.println(INDENT + "}");
+        }
+
+        out.println();
+        out.println("}");
+    }
+
+    /**
+     * Write the registration statements for a configuration resource.
+     *
+     * @param out the output writer
+     * @param configurationRoot the root element of the configuration resource
+     *
+     * @throws XMLConfigurationException if the configuration contains an unresolvable QName
+     */
+    private static void writeRegistrations(@Nonnull final PrintWriter out, @Nonnull final Element configurationRoot)
+            throws XMLConfigurationException {
+        final String ns = XMLConfigurator.XMLTOOLING_CONFIG_NS;
+
+        final NodeList providers = configurationRoot.getElementsByTagNameNS(ns, "ObjectProvider");
+        for (int i = 0; i < providers.getLength(); i++) {
+            final Element provider = (Element) providers.item(i);
+            final String qname = qnameExpression(provider, provider.getAttributeNS(null, "qualifiedName"));
+            final Node builder = provider.getElementsByTagNameNS(ns, "BuilderClass").item(0);
+            final Node marshaller = provider.getElementsByTagNameNS(ns, "MarshallingClass").item(0);
+            final Node unmarshaller = provider.getElementsByTagNameNS(ns, "UnmarshallingClass").item(0);
+
+            // The provider classes are only loaded if the eager branch is executed.
+            out.println(INDENT + INDENT + "if (lazy) {");
+            out.println(INDENT + INDENT + INDENT + "registry.registerObjectProvider(" + qname + ",");
+            out.println(INDENT + INDENT + INDENT + INDENT + INDENT + classNameExpression(builder) + ",");
+            out.println(INDENT + INDENT + INDENT + INDENT + INDENT + classNameExpression(marshaller) + ",");
+            out.println(INDENT + INDENT + INDENT + INDENT + INDENT + classNameExpression(unmarshaller) + ",");
+            out.println(INDENT + INDENT + INDENT + INDENT + INDENT + "classLoader);");
+            out.println(INDENT + INDENT + "} else {");
+            out.println(INDENT + INDENT + INDENT + "registry.registerObjectProvider(" + qname + ",");
+            out.println(INDENT + INDENT + INDENT + INDENT + INDENT + instanceExpression(builder) + ",");
+            out.println(INDENT + INDENT + INDENT + INDENT + INDENT + instanceExpression(marshaller) + ",");
+            out.println(INDENT + INDENT + INDENT + INDENT + INDENT + instanceExpression(unmarshaller) + ");");
+            out.println(INDENT + INDENT + "}");
+        }
+
+        final NodeList idAttributes = configurationRoot.getElementsByTagNameNS(ns, "IDAttribute");
+        for (int i = 0; i < idAttributes.getLength(); i++) {
+            final Element idAttribute = (Element) idAttributes.item(i);
+            final String value = idAttribute.getTextContent().trim();
+            if (!value.isEmpty()) {
+                out.println(INDENT + INDENT + "registry.registerIDAttribute(" + qnameExpression(idAttribute, value)
+                        + ");");
+            }
+        }
+    }
+
+    /**
+     * Build the Java expression constructing a QName from its prefixed form, resolved in the context of an element.
+     *
+     * @param context the element in whose context the prefix is resolved
+     * @param value the prefixed QName
+     *
+     * @return the Java expression
+     *
+     * @throws XMLConfigurationException if the prefix can not be resolved
+     */
+    @Nonnull private static String qnameExpression(@Nonnull final Element context, @Nonnull final String value)
+            throws XMLConfigurationException {
+        final String trimmed = value.trim();
+        final int colon = trimmed.indexOf(':');
+        final String prefix = colon > 0 ? trimmed.substring(0, colon) : null;
+        final String localName = trimmed.substring(colon + 1);
+        final String namespace = context.lookupNamespaceURI(prefix);
+        if (prefix != null && namespace == null) {
+            throw new XMLConfigurationException("Unable to resolve namespace prefix of QName " + trimmed);
+        }
+        return "new QName(" + literal(namespace != null ? namespace : "") + ", " + literal(localName) + ", "
+                + literal(prefix != null ? prefix : "") + ")";
+    }
+
+    /**
+     * Build the Java string literal of the name of the class named by a class configuration element.
+     *
+     * @param classElement the class configuration element
+     *
+     * @return the Java expression
+     */
+    @Nonnull private static String classNameExpression(@Nullable final Node classElement) {
+        if (classElement == null) {
+            return "null";
+        }
+        final String className = ((Element) classElement).getAttributeNS(null, "className").trim();
+        if (className.isEmpty()) {
+            return "null";
+        }
+        return literal(className);
+    }
+
+    /**
+     * Build the Java expression constructing an instance of the class named by a class configuration element.
+     *
+     * @param classElement the class configuration element
+     *
+     * @return the Java expression
+     */
+    @Nonnull private static String instanceExpression(@Nullable final Node classElement) {
+        if (classElement == null) {
+            return "null";
+        }
+        final String className = ((Element) classElement).getAttributeNS(null, "className").trim();
+        if (className.isEmpty()) {
+            return "null";
+        }
+        return "new " + className.replace('$', '.') + "()";
+    }
+
+    /**
+     * Build a Java string literal.
+     *
+     * @param value the string value
+     *
+     * @return the Java string literal
+     */
+    @Nonnull private static String literal(@Nonnull final String value) {
+        return "\"" + value.replace("\\", "\\\\").replace("\"", "\\\"") + "\"";
+    }
+
+}
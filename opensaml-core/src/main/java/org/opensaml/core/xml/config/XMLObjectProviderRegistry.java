@@ -18,6 +18,7 @@
 package org.opensaml.core.xml.config;
 
 import java.util.Map;
+import java.util.Properties;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArraySet;
@@ -28,6 +29,7 @@ import javax.xml.namespace.QName;
 
 import net.shibboleth.utilities.java.support.xml.ParserPool;
 
+import org.opensaml.core.config.ConfigurationService;
 import org.opensaml.core.xml.XMLObjectBuilder;
 import org.opensaml.core.xml.XMLObjectBuilderFactory;
 import org.opensaml.core.xml.io.Marshaller;
@@ -47,9 +49,20 @@ import org.w3c.dom.Element;
  * {@link org.opensaml.core.config.ConfigurationService}.
  * </p>
  * 
+ * <p>
+ * When lazy provider instantiation is enabled, object providers registered by class name are recorded in the
+ * factories as deferred registrations and their builder, marshaller and unmarshaller classes are loaded and
+ * instantiated the first time they are requested. Lazy instantiation is enabled by setting the configuration property
+ * {@link #CONFIG_PROPERTY_LAZY_PROVIDER_INSTANTIATION} to <code>true</code>.
+ * </p>
+ * 
  */
 public class XMLObjectProviderRegistry {
     
+    /** Configuration property determining whether object providers are instantiated on first use. */
+    public static final String CONFIG_PROPERTY_LAZY_PROVIDER_INSTANTIATION =
+            "opensaml.config.xml.lazyProviderInstantiation";
+
     /** Default object provider. */
     private static QName defaultProvider = new QName(XMLConfigurator.XMLTOOLING_CONFIG_NS,
             XMLConfigurator.XMLTOOLING_DEFAULT_OBJECT_PROVIDER);
@@ -72,9 +85,15 @@ public class XMLObjectProviderRegistry {
     /** Configured set of attribute QNames which have been globally registered as having an ID type. */
     @Nonnull private final Set<QName> idAttributeNames;
 
+    /** Configured set of element QNames whose unmarshalling is deferred until they are first accessed. */
+    @Nonnull private final Set<QName> deferredElementNames;
+
     /** Configured parser pool. */
     private ParserPool parserPool;
 
+    /** Whether object providers configured by class name are instantiated on first use. */
+    private boolean lazyProviderInstantiation;
+
     /** Constructor. */
     public XMLObjectProviderRegistry() {
         configuredObjectProviders = new ConcurrentHashMap<>(0);
@@ -82,6 +101,13 @@ public class XMLObjectProviderRegistry {
         marshallerFactory = new MarshallerFactory();
         unmarshallerFactory = new UnmarshallerFactory();
         idAttributeNames = new CopyOnWriteArraySet<>();
+        deferredElementNames = new CopyOnWriteArraySet<>();
+
+        final Properties props = ConfigurationService.getConfigurationProperties();
+        if (props != null) {
+            final String lazy = props.getProperty(CONFIG_PROPERTY_LAZY_PROVIDER_INSTANTIATION, "false");
+            lazyProviderInstantiation = "true".equalsIgnoreCase(lazy) || "1".equals(lazy);
+        }
         
         registerIDAttribute(new QName(javax.xml.XMLConstants.XML_NS_URI, "id"));
     }
@@ -104,6 +130,26 @@ public class XMLObjectProviderRegistry {
         parserPool = newParserPool;
     }
     
+    /**
+     * Get whether object providers configured by class name are instantiated on first use rather than when they
+     * are registered.
+     * 
+     * @return true if object providers are instantiated on first use
+     */
+    public boolean isLazyProviderInstantiation() {
+        return lazyProviderInstantiation;
+    }
+
+    /**
+     * Set whether object providers configured by class name are instantiated on first use rather than when they
+     * are registered.
+     * 
+     * @param flag true if object providers should be instantiated on first use
+     */
+    public void setLazyProviderInstantiation(final boolean flag) {
+        lazyProviderInstantiation = flag;
+    }
+
     /**
      * Gets the QName for the object provider that will be used for XMLObjects that do not have a registered object
      * provider.
@@ -131,6 +177,46 @@ public class XMLObjectProviderRegistry {
         unmarshallerFactory.registerUnmarshaller(providerName, unmarshaller);
     }
 
+    /**
+     * Adds an object provider to this configuration by class name.
+     * 
+     * <p>
+     * If lazy provider instantiation is enabled, the classes are not loaded until the builder, marshaller or
+     * unmarshaller is first requested from its factory. Otherwise they are instantiated and registered immediately.
+     * </p>
+     * 
+     * @param providerName the name of the object provider, corresponding to the element name or type name that the
+     *            builder, marshaller, and unmarshaller operate on
+     * @param builderClassName the class name of the builder for that given provider
+     * @param marshallerClassName the class name of the marshaller for the provider
+     * @param unmarshallerClassName the class name of the unmarshaller for the provider
+     * @param classLoader the class loader used to load the classes, or null for the thread context class loader
+     */
+    public void registerObjectProvider(@Nonnull final QName providerName, @Nonnull final String builderClassName,
+            @Nonnull final String marshallerClassName, @Nonnull final String unmarshallerClassName,
+            @Nullable final ClassLoader classLoader) {
+        ClassLoader loader = classLoader != null ? classLoader : Thread.currentThread().getContextClassLoader();
+        if (loader == null) {
+            loader = XMLObjectProviderRegistry.class.getClassLoader();
+        }
+        final DeferredClassInstance<XMLObjectBuilder<?>> builder =
+                new DeferredClassInstance<>(XMLObjectBuilder.class, builderClassName, loader);
+        final DeferredClassInstance<Marshaller> marshaller =
+                new DeferredClassInstance<>(Marshaller.class, marshallerClassName, loader);
+        final DeferredClassInstance<Unmarshaller> unmarshaller =
+                new DeferredClassInstance<>(Unmarshaller.class, unmarshallerClassName, loader);
+
+        if (!lazyProviderInstantiation) {
+            registerObjectProvider(providerName, builder.get(), marshaller.get(), unmarshaller.get());
+            return;
+        }
+
+        log.debug("Registering deferred builder, marshaller, and unmarshaller for {}", providerName);
+        builderFactory.registerDeferredBuilder(providerName, builder);
+        marshallerFactory.registerDeferredMarshaller(providerName, marshaller);
+        unmarshallerFactory.registerDeferredUnmarshaller(providerName, unmarshaller);
+    }
+
     /**
      * Removes the builder, marshaller, and unmarshaller registered to the given key.
      * 
@@ -203,5 +289,50 @@ public class XMLObjectProviderRegistry {
     public boolean isIDAttribute(QName attributeName) {
         return idAttributeNames.contains(attributeName);
     }
+
+    /**
+     * Register an element whose unmarshalling is deferred.
+     * 
+     * <p>
+     * When an element with this name is a child of an element being unmarshalled from a DOM, it is kept as a DOM
+     * element and unmarshalled into its parent the first time the parent's children are accessed. This is only
+     * effective for parents implementing {@link org.opensaml.core.xml.DeferrableChildrenXMLObject} which accept the
+     * name, and so resolve their deferred children in the corresponding getters; under any other parent the element
+     * is unmarshalled as usual.
+     * </p>
+     * 
+     * @param elementName the QName of the element to be registered
+     */
+    public void registerDeferredElement(@Nonnull final QName elementName) {
+        deferredElementNames.add(elementName);
+    }
+
+    /**
+     * Deregister an element whose unmarshalling is deferred.
+     * 
+     * @param elementName the QName of the element to be de-registered
+     */
+    public void deregisterDeferredElement(@Nonnull final QName elementName) {
+        deferredElementNames.remove(elementName);
+    }
+
+    /**
+     * Determine whether the unmarshalling of a given element is deferred.
+     * 
+     * @param elementName the QName of the element to be checked
+     * @return true if the unmarshalling of the element is deferred
+     */
+    public boolean isDeferredElement(@Nonnull final QName elementName) {
+        return deferredElementNames.contains(elementName);
+    }
+
+    /**
+     * Determine whether the unmarshalling of any element is deferred.
+     * 
+     * @return true if any element is registered as deferred
+     */
+    public boolean hasDeferredElements() {
+        return !deferredElementNames.isEmpty();
+    }
     
 }
\ No newline at end of file
@@ -154,4 +154,32 @@ public class XMLObjectProviderRegistrySupport {
         return ConfigurationService.get(XMLObjectProviderRegistry.class).isIDAttribute(attributeName);
     }
 
+    /**
+     * Register an element whose unmarshalling is deferred.
+     * 
+     * @param elementName the QName of the element to be registered
+     */
+    public static void registerDeferredElement(@Nonnull final QName elementName) {
+        ConfigurationService.get(XMLObjectProviderRegistry.class).registerDeferredElement(elementName);
+    }
+
+    /**
+     * Deregister an element whose unmarshalling is deferred.
+     * 
+     * @param elementName the QName of the element to be de-registered
+     */
+    public static void deregisterDeferredElement(@Nonnull final QName elementName) {
+        ConfigurationService.get(XMLObjectProviderRegistry.class).deregisterDeferredElement(elementName);
+    }
+
+    /**
+     * Determine whether the unmarshalling of a given element is deferred.
+     * 
+     * @param elementName the QName of the element to be checked
+     * @return true if the unmarshalling of the element is deferred
+     */
+    public static boolean isDeferredElement(@Nonnull final QName elementName) {
+        return ConfigurationService.get(XMLObjectProviderRegistry.class).isDeferredElement(elementName);
+    }
+
 }
\ No newline at end of file
@@ -17,11 +17,17 @@
 
 package org.opensaml.core.xml.io;
 
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 import javax.xml.namespace.QName;
 
 import net.shibboleth.utilities.java.support.primitive.StringSupport;
@@ -38,9 +44,12 @@ import org.opensaml.core.xml.config.XMLObjectProviderRegistrySupport;
 import org.opensaml.core.xml.util.XMLObjectSupport;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.w3c.dom.Attr;
 import org.w3c.dom.DOMException;
 import org.w3c.dom.Document;
 import org.w3c.dom.Element;
+import org.w3c.dom.NamedNodeMap;
+import org.w3c.dom.Node;
 
 import com.google.common.base.Strings;
 
@@ -54,9 +63,18 @@ import com.google.common.base.Strings;
  * <li>Setting namespaces attributes declared for the element</li>
  * <li>Marshalling of child elements</li>
  * </ul>
+ * 
+ * <p>
+ * While the children of an element are marshalled, the namespace declarations in scope on it are kept on a
+ * per-thread stack, so that marshalling the namespaces of a child does not need to search the declarations of each of
+ * its ancestor elements.
+ * </p>
  */
 public abstract class AbstractXMLObjectMarshaller implements Marshaller {
 
+    /** Namespace declarations in scope on the elements whose children are being marshalled, innermost first. */
+    @Nonnull private static final ThreadLocal<Deque<NamespaceScope>> NAMESPACE_SCOPES = new ThreadLocal<>();
+
     /** Class logger. */
     @Nonnull private final Logger log = LoggerFactory.getLogger(AbstractXMLObjectMarshaller.class);
 
@@ -209,7 +227,15 @@ public abstract class AbstractXMLObjectMarshaller implements Marshaller {
 
         marshallAttributes(xmlObject, targetElement);
 
-        marshallChildElements(xmlObject, targetElement);
+        final Deque<NamespaceScope> scopes = pushNamespaceScope(targetElement);
+        try {
+            marshallChildElements(xmlObject, targetElement);
+        } finally {
+            scopes.pop();
+            if (scopes.isEmpty()) {
+                NAMESPACE_SCOPES.remove();
+            }
+        }
 
         marshallElementContent(xmlObject, targetElement);
 
@@ -242,6 +268,7 @@ public abstract class AbstractXMLObjectMarshaller implements Marshaller {
             throws MarshallingException {
         log.trace("Marshalling child elements for XMLObject {}", xmlObject.getElementQName());
 
+        DeferredChildElements.resolve(xmlObject);
         final List<XMLObject> childXMLObjects = xmlObject.getOrderedChildren();
         if (childXMLObjects != null && childXMLObjects.size() > 0) {
             for (final XMLObject childXMLObject : childXMLObjects) {
@@ -284,10 +311,11 @@ public abstract class AbstractXMLObjectMarshaller implements Marshaller {
     protected void marshallNamespaces(@Nonnull final XMLObject xmlObject, @Nonnull final Element domElement) {
         log.trace("Marshalling namespace attributes for XMLObject {}", xmlObject.getElementQName());
         final Set<Namespace> namespaces = xmlObject.getNamespaces();
+        final Set<Namespace> declarations = xmlObject.getNamespaceManager().getNamespaceDeclarations();
 
         for (final Namespace namespace : namespaces) {
             log.trace("Candidate namespace from getNamespaces(): {}", namespace.toString());
-            if (!xmlObject.getNamespaceManager().getNamespaceDeclarations().contains(namespace)) {
+            if (!declarations.contains(namespace)) {
                 log.trace("NamespaceManager getNamespaceDeclarations() did NOT contain namespace: {}",
                         namespace.toString());
                 if (Objects.equals(namespace.getNamespacePrefix(), XMLConstants.XML_PREFIX)
@@ -296,8 +324,7 @@ public abstract class AbstractXMLObjectMarshaller implements Marshaller {
                     continue;
                 }
                 
-                final String declared = NamespaceSupport.lookupNamespaceURI(domElement, null, 
-                        namespace.getNamespacePrefix());
+                final String declared = lookupNamespaceURI(domElement, namespace.getNamespacePrefix());
                 log.trace("Lookup of prefix '{}' returned '{}'", namespace.getNamespacePrefix(),  declared);
                 if (declared != null && namespace.getNamespaceURI().equals(declared)) {
                     log.trace("Namespace {} has already been declared on an ancestor of {} no need to add it here", 
@@ -313,6 +340,88 @@ public abstract class AbstractXMLObjectMarshaller implements Marshaller {
         }
     }
 
+    /**
+     * Look up the namespace bound to a prefix in scope on an element being marshalled. If the element is a child of
+     * the element whose children are being marshalled, the in-scope declarations are taken from the namespace scope
+     * stack, otherwise the declarations of the element's ancestors are searched.
+     * 
+     * @param domElement the DOM element
+     * @param prefix the prefix, or null for the default namespace
+     * 
+     * @return the bound namespace, or null if the prefix is not bound
+     */
+    @Nullable private String lookupNamespaceURI(@Nonnull final Element domElement, @Nullable final String prefix) {
+        final Attr declaration = domElement.getAttributeNodeNS(XMLConstants.XMLNS_NS,
+                prefix != null ? prefix : XMLConstants.XMLNS_PREFIX);
+        if (declaration != null) {
+            return declaration.getValue();
+        }
+
+        final Deque<NamespaceScope> scopes = NAMESPACE_SCOPES.get();
+        final NamespaceScope scope = scopes != null ? scopes.peek() : null;
+        if (scope == null || scope.element != domElement.getParentNode()) {
+            return NamespaceSupport.lookupNamespaceURI(domElement, null, prefix);
+        }
+
+        final String key = prefix != null ? prefix : "";
+        if (scope.declarations.containsKey(key)) {
+            return scope.declarations.get(key);
+        } else if (scope.outerElement != null) {
+            return NamespaceSupport.lookupNamespaceURI(scope.outerElement, null, prefix);
+        }
+        return null;
+    }
+
+    /**
+     * Push the namespace declarations in scope on an element whose children are about to be marshalled onto the
+     * namespace scope stack of the current thread.
+     * 
+     * @param domElement the DOM element
+     * 
+     * @return the namespace scope stack, from which the caller must pop the scope once the children are marshalled
+     */
+    @Nonnull private Deque<NamespaceScope> pushNamespaceScope(@Nonnull final Element domElement) {
+        Deque<NamespaceScope> scopes = NAMESPACE_SCOPES.get();
+        if (scopes == null) {
+            scopes = new ArrayDeque<>();
+            NAMESPACE_SCOPES.set(scopes);
+        }
+
+        Map<String, String> ownDeclarations = null;
+        final NamedNodeMap attributes = domElement.getAttributes();
+        for (int i = 0; i < attributes.getLength(); i++) {
+            final Attr attribute = (Attr) attributes.item(i);
+            if (XMLConstants.XMLNS_NS.equals(attribute.getNamespaceURI())) {
+                if (ownDeclarations == null) {
+                    ownDeclarations = new HashMap<>();
+                }
+                ownDeclarations.put(XMLConstants.XMLNS_PREFIX.equals(attribute.getPrefix())
+                        ? attribute.getLocalName() : "", attribute.getValue());
+            }
+        }
+
+        final Node parentNode = domElement.getParentNode();
+        final NamespaceScope parentScope = scopes.peek();
+        final Map<String, String> declarations;
+        final Element outerElement;
+        if (parentScope != null && parentScope.element == parentNode) {
+            if (ownDeclarations == null) {
+                declarations = parentScope.declarations;
+            } else {
+                declarations = new HashMap<>(parentScope.declarations);
+                declarations.putAll(ownDeclarations);
+            }
+            outerElement = parentScope.outerElement;
+        } else {
+            // The ancestors of the outermost element marshalled may carry declarations of their own.
+            declarations = ownDeclarations != null ? ownDeclarations : Collections.<String, String> emptyMap();
+            outerElement = parentNode instanceof Element ? (Element) parentNode : null;
+        }
+
+        scopes.push(new NamespaceScope(domElement, declarations, outerElement));
+        return scopes;
+    }
+
     /**
      * Creates the XSI type, schemaLocation, and noNamespaceSchemaLocation attributes for an XMLObject.
      * 
@@ -441,5 +550,32 @@ public abstract class AbstractXMLObjectMarshaller implements Marshaller {
             @Nonnull final Element domElement) {
         XMLObjectSupport.marshallAttributeMap(xmlObject.getUnknownAttributes(), domElement);
     }
- 
+
+    /** The namespace declarations in scope on an element whose children are being marshalled. */
+    private static final class NamespaceScope {
+
+        /** The element. */
+        @Nonnull private final Element element;
+
+        /** The declarations in scope on the element made by it or by marshalled ancestors, keyed by prefix. */
+        @Nonnull private final Map<String, String> declarations;
+
+        /** The nearest ancestor element which was not marshalled along with the element, or null. */
+        @Nullable private final Element outerElement;
+
+        /**
+         * Constructor.
+         * 
+         * @param domElement the element
+         * @param inScope the declarations in scope on the element made by it or by marshalled ancestors
+         * @param outer the nearest ancestor element which was not marshalled along with the element, or null
+         */
+        NamespaceScope(@Nonnull final Element domElement, @Nonnull final Map<String, String> inScope,
+                @Nullable final Element outer) {
+            element = domElement;
+            declarations = inScope;
+            outerElement = outer;
+        }
+    }
+
 }
@@ -26,11 +26,15 @@ import net.shibboleth.utilities.java.support.primitive.StringSupport;
 import net.shibboleth.utilities.java.support.xml.QNameSupport;
 import net.shibboleth.utilities.java.support.xml.XMLConstants;
 
+import org.opensaml.core.config.ConfigurationService;
+import org.opensaml.core.xml.AbstractXMLObject;
 import org.opensaml.core.xml.AttributeExtensibleXMLObject;
+import org.opensaml.core.xml.DeferrableChildrenXMLObject;
 import org.opensaml.core.xml.Namespace;
 import org.opensaml.core.xml.XMLObject;
 import org.opensaml.core.xml.XMLObjectBuilder;
 import org.opensaml.core.xml.XMLObjectBuilderFactory;
+import org.opensaml.core.xml.config.XMLObjectProviderRegistry;
 import org.opensaml.core.xml.config.XMLObjectProviderRegistrySupport;
 import org.opensaml.core.xml.schema.XSBooleanValue;
 import org.opensaml.core.xml.util.XMLObjectSupport;
@@ -54,6 +58,13 @@ import org.w3c.dom.Text;
  * to retrieve the textual content. This is probably exceptable in almost all cases, if, however, you need to deal with
  * elements that contain multiple text node children you will need to override
  * {@link #unmarshallTextContent(XMLObject, Text)} and do "the right thing" for your implementation.
+ * 
+ * <p>
+ * Child elements whose names are registered as deferred with the {@link XMLObjectProviderRegistry} are not unmarshalled
+ * along with their parent, if the parent is an {@link AbstractXMLObject} implementing
+ * {@link DeferrableChildrenXMLObject} which accepts their name. They are instead recorded as
+ * {@link DeferredChildElements} of the parent and unmarshalled when it resolves them.
+ * </p>
  */
 public abstract class AbstractXMLObjectUnmarshaller implements Unmarshaller {
 
@@ -66,12 +77,16 @@ public abstract class AbstractXMLObjectUnmarshaller implements Unmarshaller {
     /** Factory for creating unmarshallers for child elements. */
     @Nonnull private final UnmarshallerFactory unmarshallerFactory;
 
+    /** Registry consulted for child elements whose unmarshalling is deferred. */
+    @Nonnull private final XMLObjectProviderRegistry providerRegistry;
+
     /**
      * Constructor.
      */
     protected AbstractXMLObjectUnmarshaller() {
         xmlObjectBuilderFactory = XMLObjectProviderRegistrySupport.getBuilderFactory();
         unmarshallerFactory = XMLObjectProviderRegistrySupport.getUnmarshallerFactory();
+        providerRegistry = ConfigurationService.get(XMLObjectProviderRegistry.class);
     }
 
     /** {@inheritDoc} */
@@ -98,12 +113,20 @@ public abstract class AbstractXMLObjectUnmarshaller implements Unmarshaller {
         if (log.isTraceEnabled()) {
             log.trace("Unmarshalling other child nodes of DOM Element {}", QNameSupport.getNodeQName(domElement));
         }
+        DeferredChildElements deferredChildren = null;
         Node childNode = domElement.getFirstChild();
         while (childNode != null) {
             if (childNode.getNodeType() == Node.ATTRIBUTE_NODE) {
                 unmarshallAttribute(xmlObject, (Attr) childNode);
             } else if (childNode.getNodeType() == Node.ELEMENT_NODE) {
-                unmarshallChildElement(xmlObject, (Element) childNode);
+                if (isDeferredChildElement(xmlObject, (Element) childNode)) {
+                    if (deferredChildren == null) {
+                        deferredChildren = new DeferredChildElements(this);
+                    }
+                    deferredChildren.add((Element) childNode);
+                } else {
+                    unmarshallChildElement(xmlObject, (Element) childNode);
+                }
             } else if (childNode.getNodeType() == Node.TEXT_NODE 
                     || childNode.getNodeType() == Node.CDATA_SECTION_NODE) {
                 unmarshallTextContent(xmlObject, (Text) childNode);
@@ -112,6 +135,9 @@ public abstract class AbstractXMLObjectUnmarshaller implements Unmarshaller {
             childNode = childNode.getNextSibling();
         }
 
+        if (deferredChildren != null) {
+            ((AbstractXMLObject) xmlObject).setDeferredChildElements(deferredChildren);
+        }
         xmlObject.setDOM(domElement);
         return xmlObject;
     }
@@ -268,6 +294,25 @@ public abstract class AbstractXMLObjectUnmarshaller implements Unmarshaller {
         }
     }
 
+    /**
+     * Determine whether the unmarshalling of a child element is deferred until its parent resolves it.
+     * 
+     * @param xmlObject the parent object of the child
+     * @param childElement the child element
+     * 
+     * @return true if the child element is registered as deferred and its parent resolves deferred children of its
+     *          name
+     */
+    private boolean isDeferredChildElement(@Nonnull final XMLObject xmlObject, @Nonnull final Element childElement) {
+        if (!providerRegistry.hasDeferredElements() || !(xmlObject instanceof AbstractXMLObject)
+                || !(xmlObject instanceof DeferrableChildrenXMLObject)) {
+            return false;
+        }
+        final QName childName = QNameSupport.getNodeQName(childElement);
+        return providerRegistry.isDeferredElement(childName)
+                && ((DeferrableChildrenXMLObject) xmlObject).isDeferrableChildElement(childName);
+    }
+
     /**
      * Unmarshalls given Element's children. For each child an unmarshaller is retrieved using
      * {@link UnmarshallerFactory#getUnmarshaller(Element)}. The unmarshaller is then used to unmarshall the child
@@ -0,0 +1,148 @@
+/*
+ * Licensed to the University Corporation for Advanced Internet Development,
+ * Inc. (UCAID) under one or more contributor license agreements.  See the
+ * NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The UCAID licenses this file to You under the Apache
+ * License, Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.opensaml.core.xml.io;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.NotThreadSafe;
+
+import net.shibboleth.utilities.java.support.annotation.constraint.NonnullElements;
+import net.shibboleth.utilities.java.support.annotation.constraint.Unmodifiable;
+import net.shibboleth.utilities.java.support.logic.Constraint;
+
+import org.opensaml.core.xml.AbstractXMLObject;
+import org.opensaml.core.xml.XMLObject;
+import org.w3c.dom.Element;
+
+/**
+ * The child elements of an XMLObject whose unmarshalling was deferred by an {@link AbstractXMLObjectUnmarshaller}
+ * because their names are registered as deferred in the
+ * {@link org.opensaml.core.xml.config.XMLObjectProviderRegistry}.
+ *
+ * <p>
+ * The elements remain in the DOM of their parent, in document order, until they are unmarshalled into the parent
+ * XMLObject with the unmarshaller which deferred them.
+ * </p>
+ */
+@NotThreadSafe
+public final class DeferredChildElements {
+
+    /** The unmarshaller of the parent XMLObject. */
+    @Nonnull private final AbstractXMLObjectUnmarshaller unmarshaller;
+
+    /** The deferred child elements, in document order. */
+    @Nonnull @NonnullElements private final List<Element> elements;
+
+    /** Whether the elements are currently being unmarshalled. */
+    private boolean unmarshalling;
+
+    /** The failure of an earlier attempt to unmarshall the elements, if any. */
+    @Nullable private Exception failure;
+
+    /**
+     * Constructor.
+     *
+     * @param parentUnmarshaller the unmarshaller of the parent XMLObject
+     */
+    DeferredChildElements(@Nonnull final AbstractXMLObjectUnmarshaller parentUnmarshaller) {
+        unmarshaller = Constraint.isNotNull(parentUnmarshaller, "Unmarshaller cannot be null");
+        elements = new ArrayList<>(2);
+    }
+
+    /**
+     * Get the deferred child elements.
+     *
+     * @return the deferred child elements, in document order
+     */
+    @Nonnull @NonnullElements @Unmodifiable public List<Element> getElements() {
+        return Collections.unmodifiableList(elements);
+    }
+
+    /**
+     * Get whether the elements are currently being unmarshalled.
+     *
+     * @return true if the elements are currently being unmarshalled
+     */
+    public boolean isUnmarshalling() {
+        return unmarshalling;
+    }
+
+    /**
+     * Get the failure of an earlier attempt to unmarshall the elements.
+     *
+     * @return the failure, or null if no attempt has failed
+     */
+    @Nullable public Exception getFailure() {
+        return failure;
+    }
+
+    /**
+     * Add a deferred child element.
+     *
+     * @param element the child element
+     */
+    void add(@Nonnull final Element element) {
+        elements.add(element);
+    }
+
+    /**
+     * Unmarshall the deferred child elements and add them to their parent XMLObject.
+     *
+     * <p>
+     * A failure is kept and reported again by every later call, rather than retried, since the elements preceding
+     * the one which failed have already been added to the parent.
+     * </p>
+     *
+     * @param parent the parent XMLObject
+     *
+     * @throws UnmarshallingException if a child element can not be unmarshalled, now or in an earlier attempt
+     */
+    public void unmarshall(@Nonnull final XMLObject parent) throws UnmarshallingException {
+        if (failure != null) {
+            throw new UnmarshallingException("Deferred child elements could not be unmarshalled", failure);
+        }
+
+        unmarshalling = true;
+        try {
+            for (final Element element : elements) {
+                unmarshaller.unmarshallChildElement(parent, element);
+            }
+        } catch (final UnmarshallingException | RuntimeException e) {
+            failure = e;
+            throw e;
+        } finally {
+            unmarshalling = false;
+        }
+    }
+
+    /**
+     * Resolve the deferred child elements of an XMLObject, if it may hold any, before its children are walked.
+     *
+     * @param xmlObject the XMLObject
+     */
+    static void resolve(@Nonnull final XMLObject xmlObject) {
+        if (xmlObject instanceof AbstractXMLObject) {
+            ((AbstractXMLObject) xmlObject).resolveDeferredChildElements();
+        }
+    }
+
+}
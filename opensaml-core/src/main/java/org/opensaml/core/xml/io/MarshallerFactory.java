@@ -27,6 +27,8 @@ import javax.xml.namespace.QName;
 
 import net.shibboleth.utilities.java.support.logic.Constraint;
 
+import com.google.common.base.Supplier;
+
 import org.opensaml.core.xml.XMLObject;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -45,11 +47,15 @@ public class MarshallerFactory {
     /** Map of marshallers to the elements they are for. */
     private final Map<QName, Marshaller> marshallers;
 
+    /** Marshallers registered for instantiation on first use, indexed by key. */
+    @Nonnull private final Map<QName, Supplier<? extends Marshaller>> deferredMarshallers;
+
     /**
      * Constructor.
      */
     public MarshallerFactory() {
         marshallers = new ConcurrentHashMap<>();
+        deferredMarshallers = new ConcurrentHashMap<>();
     }
 
     /**
@@ -64,7 +70,11 @@ public class MarshallerFactory {
             return null;
         }
 
-        return marshallers.get(key);
+        final Marshaller marshaller = marshallers.get(key);
+        if (marshaller == null && !deferredMarshallers.isEmpty()) {
+            return instantiateDeferredMarshaller(key);
+        }
+        return marshaller;
     }
 
     /**
@@ -93,6 +103,9 @@ public class MarshallerFactory {
      * @return a listing of all the Marshallers currently registered
      */
     @Nonnull public Map<QName, Marshaller> getMarshallers() {
+        for (final QName deferredKey : deferredMarshallers.keySet()) {
+            instantiateDeferredMarshaller(deferredKey);
+        }
         return Collections.unmodifiableMap(marshallers);
     }
 
@@ -108,7 +121,29 @@ public class MarshallerFactory {
         Constraint.isNotNull(marshaller, "Marshaller cannot be null");
         log.debug("Registering marshaller, {}, for object type {}", marshaller.getClass().getName(), key);
 
-        marshallers.put(key, marshaller);
+        synchronized (deferredMarshallers) {
+            deferredMarshallers.remove(key);
+            marshallers.put(key, marshaller);
+        }
+    }
+
+    /**
+     * Registers a Marshaller with this factory which is not instantiated until it is first retrieved. If a
+     * Marshaller exist for the key given it is replaced.
+     * 
+     * @param key the key the marshaller is registered under
+     * @param marshallerSupplier the supplier of the Marshaller
+     */
+    public void registerDeferredMarshaller(@Nonnull final QName key,
+            @Nonnull final Supplier<? extends Marshaller> marshallerSupplier) {
+        Constraint.isNotNull(key, "Marshaller key cannot be null");
+        Constraint.isNotNull(marshallerSupplier, "Marshaller supplier cannot be null");
+        log.debug("Registering deferred marshaller for object type {}", key);
+
+        synchronized (deferredMarshallers) {
+            marshallers.remove(key);
+            deferredMarshallers.put(key, marshallerSupplier);
+        }
     }
 
     /**
@@ -120,10 +155,38 @@ public class MarshallerFactory {
      */
     @Nullable public Marshaller deregisterMarshaller(@Nonnull final QName key) {
         log.debug("Deregistering marshaller for object type {}", key);
-        if(key != null){
-            return marshallers.remove(key);
+        if (key != null) {
+            synchronized (deferredMarshallers) {
+                deferredMarshallers.remove(key);
+                return marshallers.remove(key);
+            }
         }
-        
+
         return null;
     }
+
+    /**
+     * Instantiates the deferred marshaller registered under the given key and moves it to the registered marshallers.
+     * 
+     * @param key the key of the marshaller
+     * 
+     * @return the marshaller registered under the key once the deferred marshaller is instantiated, or null
+     */
+    @Nullable private Marshaller instantiateDeferredMarshaller(@Nonnull final QName key) {
+        final Supplier<? extends Marshaller> supplier = deferredMarshallers.get(key);
+        if (supplier == null) {
+            return marshallers.get(key);
+        }
+
+        // Instantiate outside the lock; a concurrent duplicate is harmless as marshallers are stateless.
+        final Marshaller marshaller = supplier.get();
+        synchronized (deferredMarshallers) {
+            if (marshaller != null && deferredMarshallers.remove(key, supplier)) {
+                log.debug("Instantiated deferred marshaller {} for object type {}", marshaller.getClass().getName(),
+                        key);
+                marshallers.put(key, marshaller);
+            }
+            return marshallers.get(key);
+        }
+    }
 }
\ No newline at end of file
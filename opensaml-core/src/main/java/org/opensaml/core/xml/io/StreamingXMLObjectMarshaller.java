@@ -0,0 +1,623 @@
+/*
+ * Licensed to the University Corporation for Advanced Internet Development,
+ * Inc. (UCAID) under one or more contributor license agreements.  See the
+ * NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The UCAID licenses this file to You under the Apache
+ * License, Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.opensaml.core.xml.io;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.ThreadSafe;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+
+import net.shibboleth.utilities.java.support.logic.Constraint;
+import net.shibboleth.utilities.java.support.xml.ElementSupport;
+import net.shibboleth.utilities.java.support.xml.NamespaceSupport;
+import net.shibboleth.utilities.java.support.xml.ParserPool;
+import net.shibboleth.utilities.java.support.xml.XMLConstants;
+import net.shibboleth.utilities.java.support.xml.XMLParserException;
+
+import org.apache.commons.codec.binary.Base64OutputStream;
+import org.opensaml.core.xml.XMLObject;
+import org.opensaml.core.xml.config.XMLObjectProviderRegistrySupport;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.w3c.dom.Attr;
+import org.w3c.dom.DOMException;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NamedNodeMap;
+import org.w3c.dom.Node;
+import org.w3c.dom.NodeList;
+import org.w3c.dom.ProcessingInstruction;
+
+/**
+ * A marshaller which writes XMLObjects directly to a StAX {@link XMLStreamWriter}, without first marshalling the
+ * whole tree into a DOM which is then serialized.
+ *
+ * <p>
+ * Each XMLObject is marshalled by the {@link AbstractXMLObjectMarshaller} registered for it into a transient DOM
+ * element which carries only the element's namespace declarations, attributes and text content, and which is written
+ * and discarded before the children of the XMLObject are marshalled. Existing marshallers therefore work unchanged,
+ * while the transient DOM held at any time is bounded by the depth of the tree. XMLObjects marshalled in this way do
+ * not cache a DOM.
+ * </p>
+ *
+ * <p>
+ * An XMLObject is instead marshalled into a DOM in the normal way, and that DOM serialized, if it already caches a
+ * DOM, if its marshaller does not extend {@link AbstractXMLObjectMarshaller}, or if one of its children's marshallers
+ * does not. The last case covers an enveloped signature, which is computed over the DOM of its parent. Signed
+ * XMLObjects therefore keep their signed DOM, and an XMLObject with a cached DOM is written from that DOM as is.
+ * </p>
+ *
+ * <p>
+ * Namespace declarations required by element and attribute names which were not declared by the marshallers are
+ * added as the elements are written.
+ * </p>
+ */
+@ThreadSafe
+public class StreamingXMLObjectMarshaller {
+
+    /** Class logger. */
+    @Nonnull private final Logger log = LoggerFactory.getLogger(StreamingXMLObjectMarshaller.class);
+
+    /** Factory for the stream writers, configured when constructed and thereafter only used to create writers. */
+    @Nonnull private final XMLOutputFactory outputFactory;
+
+    /** Parser pool used to create the documents which own the DOM nodes, or null for the global parser pool. */
+    @Nullable private ParserPool parserPool;
+
+    /** Constructor. */
+    public StreamingXMLObjectMarshaller() {
+        outputFactory = XMLOutputFactory.newInstance();
+        outputFactory.setProperty(XMLOutputFactory.IS_REPAIRING_NAMESPACES, Boolean.FALSE);
+    }
+
+    /**
+     * Get the parser pool used to create the documents which own the DOM nodes.
+     *
+     * @return the parser pool, or null if the global parser pool is used
+     */
+    @Nullable public ParserPool getParserPool() {
+        return parserPool;
+    }
+
+    /**
+     * Set the parser pool used to create the documents which own the DOM nodes.
+     *
+     * @param pool the parser pool, or null to use the global parser pool
+     */
+    public void setParserPool(@Nullable final ParserPool pool) {
+        parserPool = pool;
+    }
+
+    /**
+     * Marshall an XMLObject as a UTF-8 encoded document written to an output stream. The stream is not closed.
+     *
+     * @param xmlObject the XMLObject to marshall
+     * @param output the output stream
+     *
+     * @throws MarshallingException if the XMLObject can not be marshalled or written
+     */
+    public void marshall(@Nonnull final XMLObject xmlObject, @Nonnull final OutputStream output)
+            throws MarshallingException {
+        Constraint.isNotNull(xmlObject, "XMLObject cannot be null");
+        Constraint.isNotNull(output, "Output stream cannot be null");
+        XMLStreamWriter writer = null;
+        try {
+            writer = outputFactory.createXMLStreamWriter(output, "UTF-8");
+            writer.writeStartDocument("UTF-8", "1.0");
+            marshall(xmlObject, writer);
+            writer.writeEndDocument();
+            writer.flush();
+        } catch (final XMLStreamException e) {
+            throw new MarshallingException("Unable to write XML to output stream", e);
+        } finally {
+            if (writer != null) {
+                try {
+                    writer.close();
+                } catch (final XMLStreamException e) {
+                    log.debug("Error closing XML stream writer", e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Marshall an XMLObject as a UTF-8 encoded document, written to an output stream as unchunked Base64. The stream
+     * is not closed.
+     *
+     * @param xmlObject the XMLObject to marshall
+     * @param output the output stream
+     *
+     * @throws MarshallingException if the XMLObject can not be marshalled or written
+     */
+    public void marshallBase64(@Nonnull final XMLObject xmlObject, @Nonnull final OutputStream output)
+            throws MarshallingException {
+        Constraint.isNotNull(output, "Output stream cannot be null");
+        final OutputStream base64Output = new Base64OutputStream(new NonClosingOutputStream(output), true, 0, null);
+        marshall(xmlObject, base64Output);
+        try {
+            // Closing the encoding stream writes the final quantum, but leaves the output stream open.
+            base64Output.close();
+        } catch (final IOException e) {
+            throw new MarshallingException("Unable to write Base64 encoded XML to output stream", e);
+        }
+    }
+
+    /**
+     * Marshall an XMLObject as an element written to a stream writer. The namespaces used by the element and its
+     * descendants are declared on them, regardless of any declarations already made by the writer.
+     *
+     * @param xmlObject the XMLObject to marshall
+     * @param writer the stream writer
+     *
+     * @throws MarshallingException if the XMLObject can not be marshalled or written
+     */
+    public void marshall(@Nonnull final XMLObject xmlObject, @Nonnull final XMLStreamWriter writer)
+            throws MarshallingException {
+        Constraint.isNotNull(xmlObject, "XMLObject cannot be null");
+        Constraint.isNotNull(writer, "Stream writer cannot be null");
+        try {
+            marshallObject(xmlObject, writer, newDocument(), null, new NamespaceScope());
+        } catch (final XMLStreamException | DOMException e) {
+            throw new MarshallingException("Unable to marshall " + xmlObject.getElementQName() + " to XML stream", e);
+        }
+    }
+
+    /**
+     * Marshall an XMLObject and its descendants to the stream writer.
+     *
+     * @param xmlObject the XMLObject to marshall
+     * @param writer the stream writer
+     * @param document the document owning the transient DOM nodes
+     * @param parent the transient DOM element of the parent XMLObject, or null for the root XMLObject
+     * @param scope the namespace declarations in scope on the writer
+     *
+     * @throws XMLStreamException if the XMLObject can not be written
+     * @throws MarshallingException if the XMLObject can not be marshalled
+     */
+    private void marshallObject(@Nonnull final XMLObject xmlObject, @Nonnull final XMLStreamWriter writer,
+            @Nonnull final Document document, @Nullable final Element parent, @Nonnull final NamespaceScope scope)
+                    throws XMLStreamException, MarshallingException {
+        final Marshaller marshaller = getMarshaller(xmlObject);
+        if (isDOMRequired(xmlObject, marshaller)) {
+            writeNode(getDOM(xmlObject, marshaller), writer, scope);
+            return;
+        }
+
+        final AbstractXMLObjectMarshaller streamingMarshaller = (AbstractXMLObjectMarshaller) marshaller;
+        final Element element = ElementSupport.constructElement(document, xmlObject.getElementQName());
+        if (parent != null) {
+            // Attached so that declarations made on ancestors are found when marshalling namespaces.
+            parent.appendChild(element);
+        } else {
+            document.appendChild(element);
+        }
+
+        try {
+            streamingMarshaller.marshallNamespacePrefix(xmlObject, element);
+            streamingMarshaller.marshallSchemaInstanceAttributes(xmlObject, element);
+            streamingMarshaller.marshallNamespaces(xmlObject, element);
+            streamingMarshaller.marshallAttributes(xmlObject, element);
+            writeStartElement(element, writer, scope);
+
+            final List<XMLObject> children = xmlObject.getOrderedChildren();
+            if (children != null) {
+                for (final XMLObject child : children) {
+                    if (child != null) {
+                        marshallObject(child, writer, document, element, scope);
+                    }
+                }
+            }
+
+            streamingMarshaller.marshallElementContent(xmlObject, element);
+            writeChildNodes(element, writer, scope);
+
+            writer.writeEndElement();
+            scope.pop();
+        } finally {
+            if (parent != null && element.getParentNode() == parent) {
+                parent.removeChild(element);
+            }
+        }
+    }
+
+    /**
+     * Get the DOM of an XMLObject which is to be written from its DOM, marshalling it if it does not cache one.
+     *
+     * @param xmlObject the XMLObject
+     * @param marshaller the marshaller of the XMLObject
+     *
+     * @return the DOM of the XMLObject
+     *
+     * @throws MarshallingException if the XMLObject can not be marshalled
+     */
+    @Nonnull private Element getDOM(@Nonnull final XMLObject xmlObject, @Nonnull final Marshaller marshaller)
+            throws MarshallingException {
+        final Element domElement = xmlObject.getDOM();
+        if (domElement == null) {
+            log.trace("Marshalling {} into a DOM", xmlObject.getElementQName());
+            return marshaller.marshall(xmlObject);
+        }
+
+        if (xmlObject.getParent() != null) {
+            // The cached DOM may rely on declarations made on elements which are not written.
+            try {
+                NamespaceSupport.rootNamespaces(domElement);
+            } catch (final DOMException e) {
+                final String errorMsg = "Unable to root namespaces of cached DOM element, "
+                        + xmlObject.getElementQName();
+                log.error(errorMsg, e);
+                throw new MarshallingException(errorMsg, e);
+            }
+        }
+        return domElement;
+    }
+
+    /**
+     * Get the marshaller for an XMLObject, falling back to the marshaller of the default object provider.
+     *
+     * @param xmlObject the XMLObject
+     *
+     * @return the marshaller
+     *
+     * @throws MarshallingException if there is no marshaller available for the XMLObject
+     */
+    @Nonnull private Marshaller getMarshaller(@Nonnull final XMLObject xmlObject) throws MarshallingException {
+        final MarshallerFactory marshallerFactory = XMLObjectProviderRegistrySupport.getMarshallerFactory();
+        Marshaller marshaller = marshallerFactory.getMarshaller(xmlObject);
+        if (marshaller == null) {
+            marshaller = marshallerFactory.getMarshaller(XMLObjectProviderRegistrySupport.getDefaultProviderQName());
+            if (marshaller == null) {
+                final String errorMsg = "No marshaller available for " + xmlObject.getElementQName();
+                log.error(errorMsg);
+                throw new MarshallingException(errorMsg);
+            }
+        }
+        return marshaller;
+    }
+
+    /**
+     * Get whether an XMLObject must be written from a DOM.
+     *
+     * @param xmlObject the XMLObject
+     * @param marshaller the marshaller of the XMLObject
+     *
+     * @return true if the XMLObject must be written from a DOM
+     *
+     * @throws MarshallingException if there is no marshaller available for a child of the XMLObject
+     */
+    private boolean isDOMRequired(@Nonnull final XMLObject xmlObject, @Nonnull final Marshaller marshaller)
+            throws MarshallingException {
+        if (xmlObject.getDOM() != null || !(marshaller instanceof AbstractXMLObjectMarshaller)) {
+            return true;
+        }
+
+        DeferredChildElements.resolve(xmlObject);
+        final List<XMLObject> children = xmlObject.getOrderedChildren();
+        if (children != null) {
+            for (final XMLObject child : children) {
+                if (child != null && child.getDOM() == null
+                        && !(getMarshaller(child) instanceof AbstractXMLObjectMarshaller)) {
+                    log.trace("Child {} of {} is only marshalled into a DOM, marshalling both into a DOM",
+                            child.getElementQName(), xmlObject.getElementQName());
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Write a DOM node and its descendants.
+     *
+     * @param node the DOM node
+     * @param writer the stream writer
+     * @param scope the namespace declarations in scope on the writer
+     *
+     * @throws XMLStreamException if the node can not be written
+     */
+    private void writeNode(@Nonnull final Node node, @Nonnull final XMLStreamWriter writer,
+            @Nonnull final NamespaceScope scope) throws XMLStreamException {
+        switch (node.getNodeType()) {
+            case Node.ELEMENT_NODE:
+                writeStartElement((Element) node, writer, scope);
+                writeChildNodes(node, writer, scope);
+                writer.writeEndElement();
+                scope.pop();
+                break;
+            case Node.TEXT_NODE:
+                writer.writeCharacters(node.getNodeValue());
+                break;
+            case Node.CDATA_SECTION_NODE:
+                writer.writeCData(node.getNodeValue());
+                break;
+            case Node.COMMENT_NODE:
+                writer.writeComment(node.getNodeValue());
+                break;
+            case Node.PROCESSING_INSTRUCTION_NODE:
+                final ProcessingInstruction instruction = (ProcessingInstruction) node;
+                writer.writeProcessingInstruction(instruction.getTarget(), instruction.getData());
+                break;
+            case Node.ENTITY_REFERENCE_NODE:
+                writeChildNodes(node, writer, scope);
+                break;
+            default:
+                break;
+        }
+    }
+
+    /**
+     * Write the child nodes of a DOM node and their descendants.
+     *
+     * @param node the DOM node
+     * @param writer the stream writer
+     * @param scope the namespace declarations in scope on the writer
+     *
+     * @throws XMLStreamException if a node can not be written
+     */
+    private void writeChildNodes(@Nonnull final Node node, @Nonnull final XMLStreamWriter writer,
+            @Nonnull final NamespaceScope scope) throws XMLStreamException {
+        final NodeList childNodes = node.getChildNodes();
+        for (int i = 0; i < childNodes.getLength(); i++) {
+            writeNode(childNodes.item(i), writer, scope);
+        }
+    }
+
+    /**
+     * Write the start tag of a DOM element, with its namespace declarations and attributes, and push its namespace
+     * declarations onto the scope.
+     *
+     * @param element the DOM element
+     * @param writer the stream writer
+     * @param scope the namespace declarations in scope on the writer
+     *
+     * @throws XMLStreamException if the start tag can not be written
+     */
+    private void writeStartElement(@Nonnull final Element element, @Nonnull final XMLStreamWriter writer,
+            @Nonnull final NamespaceScope scope) throws XMLStreamException {
+        final Map<String, String> declarations = new LinkedHashMap<>();
+        final List<Attr> attributes = new ArrayList<>();
+        final NamedNodeMap attributeNodes = element.getAttributes();
+        for (int i = 0; i < attributeNodes.getLength(); i++) {
+            final Attr attribute = (Attr) attributeNodes.item(i);
+            if (XMLConstants.XMLNS_NS.equals(attribute.getNamespaceURI())) {
+                final String prefix = XMLConstants.XMLNS_PREFIX.equals(attribute.getPrefix())
+                        ? attribute.getLocalName() : "";
+                declarations.put(prefix, attribute.getValue());
+            } else {
+                attributes.add(attribute);
+            }
+        }
+
+        final String prefix = emptyIfNull(element.getPrefix());
+        final String namespaceURI = emptyIfNull(element.getNamespaceURI());
+        if (!XMLConstants.XML_NS.equals(namespaceURI)
+                && !namespaceURI.equals(lookupNamespaceURI(declarations, scope, prefix))) {
+            if (!declarations.containsKey(prefix)) {
+                declarations.put(prefix, namespaceURI);
+            }
+        }
+
+        final String[] attributePrefixes = new String[attributes.size()];
+        for (int i = 0; i < attributes.size(); i++) {
+            attributePrefixes[i] = getAttributePrefix(attributes.get(i), declarations, scope);
+        }
+
+        scope.push();
+        writer.writeStartElement(prefix, localName(element), namespaceURI);
+        for (final Map.Entry<String, String> declaration : declarations.entrySet()) {
+            if (declaration.getKey().isEmpty()) {
+                writer.writeDefaultNamespace(declaration.getValue());
+            } else {
+                writer.writeNamespace(declaration.getKey(), declaration.getValue());
+            }
+            scope.declare(declaration.getKey(), declaration.getValue());
+        }
+        for (int i = 0; i < attributes.size(); i++) {
+            final Attr attribute = attributes.get(i);
+            if (attributePrefixes[i] == null) {
+                writer.writeAttribute(localName(attribute), attribute.getValue());
+            } else {
+                writer.writeAttribute(attributePrefixes[i], attribute.getNamespaceURI(), localName(attribute),
+                        attribute.getValue());
+            }
+        }
+    }
+
+    /**
+     * Get the prefix with which a namespace qualified attribute is written, adding a namespace declaration for it
+     * to the declarations of its element if required.
+     *
+     * @param attribute the attribute
+     * @param declarations the namespace declarations of the element of the attribute
+     * @param scope the namespace declarations in scope on the writer
+     *
+     * @return the prefix of the attribute, or null if it is not namespace qualified
+     */
+    @Nullable private String getAttributePrefix(@Nonnull final Attr attribute,
+            @Nonnull final Map<String, String> declarations, @Nonnull final NamespaceScope scope) {
+        final String namespaceURI = attribute.getNamespaceURI();
+        if (namespaceURI == null || namespaceURI.isEmpty()) {
+            return null;
+        } else if (XMLConstants.XML_NS.equals(namespaceURI)) {
+            return XMLConstants.XML_PREFIX;
+        }
+
+        String prefix = emptyIfNull(attribute.getPrefix());
+        if (prefix.isEmpty()) {
+            // Unprefixed attributes are not in a namespace, so a prefix has to be found or made up.
+            for (final Map.Entry<String, String> declaration : declarations.entrySet()) {
+                if (!declaration.getKey().isEmpty() && namespaceURI.equals(declaration.getValue())) {
+                    return declaration.getKey();
+                }
+            }
+            int i = 1;
+            do {
+                prefix = "ns" + i++;
+            } while (lookupNamespaceURI(declarations, scope, prefix) != null);
+        }
+
+        if (!namespaceURI.equals(lookupNamespaceURI(declarations, scope, prefix))
+                && !declarations.containsKey(prefix)) {
+            declarations.put(prefix, namespaceURI);
+        }
+        return prefix;
+    }
+
+    /**
+     * Look up the namespace bound to a prefix, first in the declarations of the element being written and then in
+     * the enclosing scope.
+     *
+     * @param declarations the namespace declarations of the element being written
+     * @param scope the namespace declarations in scope on the writer
+     * @param prefix the prefix, empty for the default namespace
+     *
+     * @return the bound namespace, or null if the prefix is not bound
+     */
+    @Nullable private String lookupNamespaceURI(@Nonnull final Map<String, String> declarations,
+            @Nonnull final NamespaceScope scope, @Nonnull final String prefix) {
+        if (declarations.containsKey(prefix)) {
+            return declarations.get(prefix);
+        }
+        final String namespaceURI = scope.lookup(prefix);
+        if (namespaceURI == null && prefix.isEmpty()) {
+            return "";
+        }
+        return namespaceURI;
+    }
+
+    /**
+     * Create a document to own the transient DOM nodes.
+     *
+     * @return the document
+     *
+     * @throws MarshallingException if the document can not be created
+     */
+    @Nonnull private Document newDocument() throws MarshallingException {
+        try {
+            final ParserPool pool = parserPool != null ? parserPool : XMLObjectProviderRegistrySupport.getParserPool();
+            return pool.newDocument();
+        } catch (final XMLParserException e) {
+            throw new MarshallingException("Unable to create Document to place marshalled elements in", e);
+        }
+    }
+
+    /**
+     * Get the local name of a DOM node, which is its node name if it was not created with a namespace.
+     *
+     * @param node the DOM node
+     *
+     * @return the local name
+     */
+    @Nonnull private String localName(@Nonnull final Node node) {
+        return node.getLocalName() != null ? node.getLocalName() : node.getNodeName();
+    }
+
+    /**
+     * Get a string, or the empty string if it is null.
+     *
+     * @param value the string
+     *
+     * @return the string, or the empty string
+     */
+    @Nonnull private String emptyIfNull(@Nullable final String value) {
+        return value != null ? value : "";
+    }
+
+    /** The stack of namespace declarations in scope on a stream writer. */
+    private static final class NamespaceScope {
+
+        /** Declarations of the open elements, innermost first, mapping prefixes to namespaces. */
+        @Nonnull private final Deque<Map<String, String>> declarations = new ArrayDeque<>();
+
+        /** Push a frame for an element being opened. */
+        void push() {
+            declarations.push(new HashMap<String, String>(4));
+        }
+
+        /** Pop the frame of an element being closed. */
+        void pop() {
+            declarations.pop();
+        }
+
+        /**
+         * Declare a namespace on the innermost open element.
+         *
+         * @param prefix the prefix, empty for the default namespace
+         * @param namespaceURI the namespace
+         */
+        void declare(@Nonnull final String prefix, @Nonnull final String namespaceURI) {
+            declarations.peek().put(prefix, namespaceURI);
+        }
+
+        /**
+         * Look up the namespace bound to a prefix.
+         *
+         * @param prefix the prefix, empty for the default namespace
+         *
+         * @return the bound namespace, or null if the prefix is not bound
+         */
+        @Nullable String lookup(@Nonnull final String prefix) {
+            for (final Map<String, String> frame : declarations) {
+                final String namespaceURI = frame.get(prefix);
+                if (namespaceURI != null) {
+                    return namespaceURI;
+                }
+            }
+            return null;
+        }
+    }
+
+    /** An output stream whose closure flushes, but does not close, the underlying output stream. */
+    private static final class NonClosingOutputStream extends FilterOutputStream {
+
+        /**
+         * Constructor.
+         *
+         * @param output the underlying output stream
+         */
+        NonClosingOutputStream(@Nonnull final OutputStream output) {
+            super(output);
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public void write(final byte[] b, final int off, final int len) throws IOException {
+            out.write(b, off, len);
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public void close() throws IOException {
+            flush();
+        }
+    }
+
+}
@@ -0,0 +1,512 @@
+/*
+ * Licensed to the University Corporation for Advanced Internet Development,
+ * Inc. (UCAID) under one or more contributor license agreements.  See the
+ * NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The UCAID licenses this file to You under the Apache
+ * License, Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.opensaml.core.xml.io;
+
+import java.io.InputStream;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.ThreadSafe;
+import javax.xml.namespace.QName;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import net.shibboleth.utilities.java.support.annotation.constraint.NonnullElements;
+import net.shibboleth.utilities.java.support.annotation.constraint.NotLive;
+import net.shibboleth.utilities.java.support.annotation.constraint.Unmodifiable;
+import net.shibboleth.utilities.java.support.logic.Constraint;
+import net.shibboleth.utilities.java.support.xml.ParserPool;
+import net.shibboleth.utilities.java.support.xml.XMLConstants;
+import net.shibboleth.utilities.java.support.xml.XMLParserException;
+
+import org.opensaml.core.xml.XMLObject;
+import org.opensaml.core.xml.config.XMLObjectProviderRegistrySupport;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.w3c.dom.Attr;
+import org.w3c.dom.DOMException;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NamedNodeMap;
+import org.w3c.dom.Node;
+import org.w3c.dom.Text;
+
+/**
+ * An unmarshaller which builds XMLObjects directly from a StAX {@link XMLStreamReader}, without first parsing the
+ * whole document into a DOM which is then retained by the XMLObjects.
+ *
+ * <p>
+ * Each element is handed to the {@link AbstractXMLObjectUnmarshaller} registered for it as a transient DOM element
+ * which carries only the element's attributes and namespace declarations, and which is discarded once the element
+ * has been unmarshalled. Existing unmarshallers therefore work unchanged, while the transient DOM held at any time is
+ * bounded by the depth of the document. The resulting XMLObjects have no cached DOM; it is built by marshalling when
+ * it is needed.
+ * </p>
+ *
+ * <p>
+ * Elements are parsed into a retained DOM and unmarshalled in the normal way if their unmarshaller does not extend
+ * {@link AbstractXMLObjectUnmarshaller} or overrides {@link Unmarshaller#unmarshall(Element)}, or if their name is one
+ * of the configured DOM-required element names. Because a signature can only be verified against the DOM it was
+ * computed over, the names of signed elements whose signatures are to be verified must be configured as DOM-required.
+ * </p>
+ *
+ * <p>
+ * DTDs are not supported and a document containing a document type declaration is rejected.
+ * </p>
+ */
+@ThreadSafe
+public class StreamingXMLObjectUnmarshaller {
+
+    /** Unmarshaller classes, indexed by whether they override {@link Unmarshaller#unmarshall(Element)}. */
+    @Nonnull private static final ConcurrentMap<Class<?>, Boolean> DOM_UNMARSHALLERS = new ConcurrentHashMap<>();
+
+    /** Class logger. */
+    @Nonnull private final Logger log = LoggerFactory.getLogger(StreamingXMLObjectUnmarshaller.class);
+
+    /** Factory for the stream readers, configured when constructed and thereafter only used to create readers. */
+    @Nonnull private final XMLInputFactory inputFactory;
+
+    /** Names of the elements which are unmarshalled from a retained DOM. */
+    @Nonnull @NonnullElements private Set<QName> domRequiredElements;
+
+    /** Parser pool used to create the documents which own the DOM nodes, or null for the global parser pool. */
+    @Nullable private ParserPool parserPool;
+
+    /** Constructor. */
+    public StreamingXMLObjectUnmarshaller() {
+        inputFactory = XMLInputFactory.newInstance();
+        inputFactory.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, Boolean.TRUE);
+        inputFactory.setProperty(XMLInputFactory.IS_COALESCING, Boolean.TRUE);
+        inputFactory.setProperty(XMLInputFactory.SUPPORT_DTD, Boolean.FALSE);
+        inputFactory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, Boolean.FALSE);
+        domRequiredElements = Collections.emptySet();
+    }
+
+    /**
+     * Get the names of the elements which are unmarshalled from a retained DOM.
+     *
+     * @return the DOM-required element names
+     */
+    @Nonnull @NonnullElements @NotLive @Unmodifiable public Set<QName> getDOMRequiredElements() {
+        return domRequiredElements;
+    }
+
+    /**
+     * Set the names of the elements which are unmarshalled from a retained DOM, such as signed elements whose
+     * signatures are to be verified.
+     *
+     * @param names the DOM-required element names
+     */
+    public void setDOMRequiredElements(@Nullable @NonnullElements final Collection<QName> names) {
+        if (names == null || names.isEmpty()) {
+            domRequiredElements = Collections.emptySet();
+        } else {
+            domRequiredElements = Collections.unmodifiableSet(new HashSet<>(names));
+        }
+    }
+
+    /**
+     * Get the parser pool used to create the documents which own the DOM nodes.
+     *
+     * @return the parser pool, or null if the global parser pool is used
+     */
+    @Nullable public ParserPool getParserPool() {
+        return parserPool;
+    }
+
+    /**
+     * Set the parser pool used to create the documents which own the DOM nodes.
+     *
+     * @param pool the parser pool, or null to use the global parser pool
+     */
+    public void setParserPool(@Nullable final ParserPool pool) {
+        parserPool = pool;
+    }
+
+    /**
+     * Unmarshall the document read from an input stream. The stream is not closed.
+     *
+     * @param input the input stream
+     *
+     * @return the XMLObject unmarshalled from the document element
+     *
+     * @throws UnmarshallingException if the document can not be read or unmarshalled
+     */
+    @Nonnull public XMLObject unmarshall(@Nonnull final InputStream input) throws UnmarshallingException {
+        Constraint.isNotNull(input, "Input stream cannot be null");
+        XMLStreamReader reader = null;
+        try {
+            reader = inputFactory.createXMLStreamReader(input);
+            return unmarshall(reader);
+        } catch (final XMLStreamException e) {
+            throw new UnmarshallingException("Unable to read XML from input stream", e);
+        } finally {
+            if (reader != null) {
+                try {
+                    reader.close();
+                } catch (final XMLStreamException e) {
+                    log.debug("Error closing XML stream reader", e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Unmarshall the next element read from a stream reader. If the reader is positioned on a start element that
+     * element is unmarshalled, otherwise the reader is advanced to the next start element. On return the reader is
+     * positioned on the end element of the unmarshalled element.
+     *
+     * @param reader the stream reader
+     *
+     * @return the XMLObject unmarshalled from the element
+     *
+     * @throws UnmarshallingException if the element can not be read or unmarshalled
+     */
+    @Nonnull public XMLObject unmarshall(@Nonnull final XMLStreamReader reader) throws UnmarshallingException {
+        Constraint.isNotNull(reader, "Stream reader cannot be null");
+        try {
+            while (reader.getEventType() != XMLStreamConstants.START_ELEMENT) {
+                if (reader.getEventType() == XMLStreamConstants.DTD) {
+                    throw new UnmarshallingException("Document type declarations are not supported");
+                } else if (!reader.hasNext()) {
+                    throw new UnmarshallingException("XML stream did not contain an element");
+                }
+                reader.next();
+            }
+            return unmarshallElement(reader, newDocument(), null);
+        } catch (final XMLStreamException | DOMException e) {
+            throw new UnmarshallingException("Unable to unmarshall XML stream", e);
+        }
+    }
+
+    /**
+     * Unmarshall the element on which the reader is positioned.
+     *
+     * @param reader the stream reader, positioned on a start element
+     * @param document the document owning the DOM nodes
+     * @param parent the transient DOM element of the parent element, or null for the root element
+     *
+     * @return the XMLObject unmarshalled from the element
+     *
+     * @throws XMLStreamException if the element can not be read
+     * @throws UnmarshallingException if the element can not be unmarshalled
+     */
+    @Nonnull private XMLObject unmarshallElement(@Nonnull final XMLStreamReader reader,
+            @Nonnull final Document document, @Nullable final Element parent)
+                    throws XMLStreamException, UnmarshallingException {
+        final Element element = createElement(reader, document);
+        if (parent != null) {
+            // Attached so that namespace prefixes declared by ancestors resolve against the element.
+            parent.appendChild(element);
+        } else {
+            document.appendChild(element);
+        }
+
+        try {
+            final Unmarshaller unmarshaller = getUnmarshaller(element);
+            if (isDOMRequired(element, unmarshaller)) {
+                buildChildNodes(reader, document, element);
+                if (parent != null) {
+                    // The retained DOM becomes the document element of its own document, as if parsed alone.
+                    declareInScopeNamespaces(element);
+                    parent.removeChild(element);
+                    final Document elementDocument = newDocument();
+                    elementDocument.appendChild(elementDocument.adoptNode(element));
+                }
+                return unmarshaller.unmarshall(element);
+            }
+
+            final AbstractXMLObjectUnmarshaller streamingUnmarshaller = (AbstractXMLObjectUnmarshaller) unmarshaller;
+            final XMLObject xmlObject = streamingUnmarshaller.buildXMLObject(element);
+
+            final NamedNodeMap attributes = element.getAttributes();
+            for (int i = 0; i < attributes.getLength(); i++) {
+                streamingUnmarshaller.unmarshallAttribute(xmlObject, (Attr) attributes.item(i));
+            }
+
+            final StringBuilder content = new StringBuilder();
+            while (reader.next() != XMLStreamConstants.END_ELEMENT) {
+                switch (reader.getEventType()) {
+                    case XMLStreamConstants.START_ELEMENT:
+                        unmarshallContent(streamingUnmarshaller, xmlObject, document, element, content);
+                        streamingUnmarshaller.processChildElement(xmlObject,
+                                unmarshallElement(reader, document, element));
+                        break;
+                    case XMLStreamConstants.CHARACTERS:
+                    case XMLStreamConstants.CDATA:
+                    case XMLStreamConstants.SPACE:
+                        content.append(reader.getText());
+                        break;
+                    default:
+                        break;
+                }
+            }
+            unmarshallContent(streamingUnmarshaller, xmlObject, document, element, content);
+
+            return xmlObject;
+        } finally {
+            if (parent != null && element.getParentNode() == parent) {
+                parent.removeChild(element);
+            }
+        }
+    }
+
+    /**
+     * Pass the text content accumulated since the last child element to the unmarshaller, as a transient text node.
+     *
+     * @param unmarshaller the unmarshaller of the element
+     * @param xmlObject the XMLObject receiving the content
+     * @param document the document owning the DOM nodes
+     * @param element the transient DOM element of the element
+     * @param content the accumulated text content, cleared on return
+     *
+     * @throws UnmarshallingException if the content can not be unmarshalled
+     */
+    private void unmarshallContent(@Nonnull final AbstractXMLObjectUnmarshaller unmarshaller,
+            @Nonnull final XMLObject xmlObject, @Nonnull final Document document, @Nonnull final Element element,
+            @Nonnull final StringBuilder content) throws UnmarshallingException {
+        if (content.length() == 0) {
+            return;
+        }
+
+        final Text text = document.createTextNode(content.toString());
+        content.setLength(0);
+        element.appendChild(text);
+        try {
+            unmarshaller.unmarshallTextContent(xmlObject, text);
+        } finally {
+            element.removeChild(text);
+        }
+    }
+
+    /**
+     * Get the unmarshaller for an element, falling back to the unmarshaller of the default object provider.
+     *
+     * @param element the transient DOM element
+     *
+     * @return the unmarshaller
+     *
+     * @throws UnmarshallingException if there is no unmarshaller available for the element
+     */
+    @Nonnull private Unmarshaller getUnmarshaller(@Nonnull final Element element) throws UnmarshallingException {
+        final UnmarshallerFactory unmarshallerFactory = XMLObjectProviderRegistrySupport.getUnmarshallerFactory();
+        Unmarshaller unmarshaller = unmarshallerFactory.getUnmarshaller(element);
+        if (unmarshaller == null) {
+            unmarshaller = unmarshallerFactory.getUnmarshaller(XMLObjectProviderRegistrySupport
+                    .getDefaultProviderQName());
+            if (unmarshaller == null) {
+                final String errorMsg = "No unmarshaller available for {" + element.getNamespaceURI() + "}"
+                        + element.getLocalName();
+                log.error(errorMsg);
+                throw new UnmarshallingException(errorMsg);
+            }
+        }
+        return unmarshaller;
+    }
+
+    /**
+     * Get whether an element must be unmarshalled from a retained DOM.
+     *
+     * @param element the transient DOM element
+     * @param unmarshaller the unmarshaller of the element
+     *
+     * @return true if the element must be unmarshalled from a retained DOM
+     */
+    private boolean isDOMRequired(@Nonnull final Element element, @Nonnull final Unmarshaller unmarshaller) {
+        if (!domRequiredElements.isEmpty() && domRequiredElements.contains(
+                new QName(element.getNamespaceURI() != null ? element.getNamespaceURI() : "",
+                        element.getLocalName()))) {
+            return true;
+        }
+        return isDOMUnmarshaller(unmarshaller);
+    }
+
+    /**
+     * Get whether an unmarshaller can only unmarshall from a complete DOM, because it does not extend
+     * {@link AbstractXMLObjectUnmarshaller} or overrides {@link Unmarshaller#unmarshall(Element)}.
+     *
+     * @param unmarshaller the unmarshaller
+     *
+     * @return true if the unmarshaller can only unmarshall from a complete DOM
+     */
+    static boolean isDOMUnmarshaller(@Nonnull final Unmarshaller unmarshaller) {
+        if (!(unmarshaller instanceof AbstractXMLObjectUnmarshaller)) {
+            return true;
+        }
+
+        final Class<?> unmarshallerClass = unmarshaller.getClass();
+        Boolean domUnmarshaller = DOM_UNMARSHALLERS.get(unmarshallerClass);
+        if (domUnmarshaller == null) {
+            try {
+                domUnmarshaller = unmarshallerClass.getMethod("unmarshall", Element.class).getDeclaringClass()
+                        != AbstractXMLObjectUnmarshaller.class;
+            } catch (final NoSuchMethodException e) {
+                domUnmarshaller = Boolean.TRUE;
+            }
+            DOM_UNMARSHALLERS.putIfAbsent(unmarshallerClass, domUnmarshaller);
+        }
+        return domUnmarshaller;
+    }
+
+    /**
+     * Build the DOM nodes of the content of the element on which the reader is positioned.
+     *
+     * @param reader the stream reader, positioned on a start element
+     * @param document the document owning the DOM nodes
+     * @param element the DOM element of the element
+     *
+     * @throws XMLStreamException if the content can not be read
+     */
+    private void buildChildNodes(@Nonnull final XMLStreamReader reader, @Nonnull final Document document,
+            @Nonnull final Element element) throws XMLStreamException {
+        Node current = element;
+        while (reader.hasNext()) {
+            switch (reader.next()) {
+                case XMLStreamConstants.START_ELEMENT:
+                    final Element child = createElement(reader, document);
+                    current.appendChild(child);
+                    current = child;
+                    break;
+                case XMLStreamConstants.END_ELEMENT:
+                    if (current == element) {
+                        return;
+                    }
+                    current = current.getParentNode();
+                    break;
+                case XMLStreamConstants.CHARACTERS:
+                case XMLStreamConstants.SPACE:
+                    current.appendChild(document.createTextNode(reader.getText()));
+                    break;
+                case XMLStreamConstants.CDATA:
+                    current.appendChild(document.createCDATASection(reader.getText()));
+                    break;
+                case XMLStreamConstants.COMMENT:
+                    current.appendChild(document.createComment(reader.getText()));
+                    break;
+                case XMLStreamConstants.PROCESSING_INSTRUCTION:
+                    current.appendChild(document.createProcessingInstruction(reader.getPITarget(),
+                            reader.getPIData()));
+                    break;
+                default:
+                    break;
+            }
+        }
+        throw new XMLStreamException("XML stream ended before element " + element.getTagName() + " was closed");
+    }
+
+    /**
+     * Create a DOM element for the start element on which the reader is positioned, with its namespace declarations
+     * and attributes.
+     *
+     * @param reader the stream reader, positioned on a start element
+     * @param document the document owning the DOM nodes
+     *
+     * @return the DOM element
+     */
+    @Nonnull private Element createElement(@Nonnull final XMLStreamReader reader, @Nonnull final Document document) {
+        final Element element = document.createElementNS(emptyToNull(reader.getNamespaceURI()),
+                qualifiedName(reader.getPrefix(), reader.getLocalName()));
+
+        for (int i = 0; i < reader.getNamespaceCount(); i++) {
+            final String prefix = emptyToNull(reader.getNamespacePrefix(i));
+            element.setAttributeNS(XMLConstants.XMLNS_NS,
+                    prefix == null ? XMLConstants.XMLNS_PREFIX : XMLConstants.XMLNS_PREFIX + ":" + prefix,
+                    reader.getNamespaceURI(i) != null ? reader.getNamespaceURI(i) : "");
+        }
+
+        for (int i = 0; i < reader.getAttributeCount(); i++) {
+            element.setAttributeNS(emptyToNull(reader.getAttributeNamespace(i)),
+                    qualifiedName(reader.getAttributePrefix(i), reader.getAttributeLocalName(i)),
+                    reader.getAttributeValue(i));
+        }
+
+        return element;
+    }
+
+    /**
+     * Declare on an element the namespaces declared by its ancestors which it does not declare itself, so that it
+     * remains well-formed once detached from them.
+     *
+     * @param element the DOM element
+     */
+    private void declareInScopeNamespaces(@Nonnull final Element element) {
+        Node ancestor = element.getParentNode();
+        while (ancestor instanceof Element) {
+            final NamedNodeMap attributes = ancestor.getAttributes();
+            for (int i = 0; i < attributes.getLength(); i++) {
+                final Attr attribute = (Attr) attributes.item(i);
+                if (XMLConstants.XMLNS_NS.equals(attribute.getNamespaceURI())
+                        && !element.hasAttributeNS(XMLConstants.XMLNS_NS, attribute.getLocalName())) {
+                    element.setAttributeNS(XMLConstants.XMLNS_NS, attribute.getName(), attribute.getValue());
+                }
+            }
+            ancestor = ancestor.getParentNode();
+        }
+    }
+
+    /**
+     * Create the document owning the DOM nodes of an unmarshalling operation.
+     *
+     * @return a new document
+     *
+     * @throws UnmarshallingException if the document can not be created
+     */
+    @Nonnull private Document newDocument() throws UnmarshallingException {
+        final ParserPool pool = parserPool != null ? parserPool : XMLObjectProviderRegistrySupport.getParserPool();
+        if (pool == null) {
+            throw new UnmarshallingException("No parser pool is available to create a document");
+        }
+        try {
+            return pool.newDocument();
+        } catch (final XMLParserException e) {
+            throw new UnmarshallingException("Unable to create a document", e);
+        }
+    }
+
+    /**
+     * Build a qualified name from a possibly empty prefix and a local name.
+     *
+     * @param prefix the prefix
+     * @param localName the local name
+     *
+     * @return the qualified name
+     */
+    @Nonnull private static String qualifiedName(@Nullable final String prefix, @Nonnull final String localName) {
+        return prefix == null || prefix.isEmpty() ? localName : prefix + ":" + localName;
+    }
+
+    /**
+     * Convert an empty string to null.
+     *
+     * @param value the string
+     *
+     * @return the string, or null if it was empty
+     */
+    @Nullable private static String emptyToNull(@Nullable final String value) {
+        return value == null || value.isEmpty() ? null : value;
+    }
+
+}
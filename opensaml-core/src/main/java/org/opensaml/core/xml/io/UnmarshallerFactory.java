@@ -29,6 +29,8 @@ import net.shibboleth.utilities.java.support.logic.Constraint;
 import net.shibboleth.utilities.java.support.xml.DOMTypeSupport;
 import net.shibboleth.utilities.java.support.xml.QNameSupport;
 
+import com.google.common.base.Supplier;
+
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.w3c.dom.Element;
@@ -47,11 +49,15 @@ public class UnmarshallerFactory {
     /** Map of unmarshallers to the elements they are for. */
     private final Map<QName, Unmarshaller> unmarshallers;
 
+    /** Unmarshallers registered for instantiation on first use, indexed by key. */
+    @Nonnull private final Map<QName, Supplier<? extends Unmarshaller>> deferredUnmarshallers;
+
     /**
      * Constructor.
      */
     public UnmarshallerFactory() {
         unmarshallers = new ConcurrentHashMap<>();
+        deferredUnmarshallers = new ConcurrentHashMap<>();
     }
 
     /**
@@ -66,7 +72,11 @@ public class UnmarshallerFactory {
             return null;
         }
 
-        return unmarshallers.get(key);
+        final Unmarshaller unmarshaller = unmarshallers.get(key);
+        if (unmarshaller == null && !deferredUnmarshallers.isEmpty()) {
+            return instantiateDeferredUnmarshaller(key);
+        }
+        return unmarshaller;
     }
 
     /**
@@ -95,6 +105,9 @@ public class UnmarshallerFactory {
      * @return a listing of all the Unmarshallers currently registered
      */
     @Nonnull public Map<QName, Unmarshaller> getUnmarshallers() {
+        for (final QName deferredKey : deferredUnmarshallers.keySet()) {
+            instantiateDeferredUnmarshaller(deferredKey);
+        }
         return Collections.unmodifiableMap(unmarshallers);
     }
 
@@ -110,7 +123,29 @@ public class UnmarshallerFactory {
         Constraint.isNotNull(unmarshaller, "Unmarshaller cannot be null");
         log.debug("Registering unmarshaller, {}, for object type, {}", unmarshaller.getClass().getName(), key);
         
-        unmarshallers.put(key, unmarshaller);
+        synchronized (deferredUnmarshallers) {
+            deferredUnmarshallers.remove(key);
+            unmarshallers.put(key, unmarshaller);
+        }
+    }
+
+    /**
+     * Registers an Unmarshaller with this factory which is not instantiated until it is first retrieved. If an
+     * Unmarshaller exist for the key given it is replaced.
+     * 
+     * @param key the key the unmarshaller is registered under
+     * @param unmarshallerSupplier the supplier of the Unmarshaller
+     */
+    public void registerDeferredUnmarshaller(@Nonnull final QName key,
+            @Nonnull final Supplier<? extends Unmarshaller> unmarshallerSupplier) {
+        Constraint.isNotNull(key, "Unmarshaller key cannot be null");
+        Constraint.isNotNull(unmarshallerSupplier, "Unmarshaller supplier cannot be null");
+        log.debug("Registering deferred unmarshaller for object type {}", key);
+
+        synchronized (deferredUnmarshallers) {
+            unmarshallers.remove(key);
+            deferredUnmarshallers.put(key, unmarshallerSupplier);
+        }
     }
 
     /**
@@ -123,9 +158,38 @@ public class UnmarshallerFactory {
     @Nullable public Unmarshaller deregisterUnmarshaller(@Nonnull final QName key) {
         log.debug("Deregistering marshaller for object type {}", key);
         if (key != null) {
-            return unmarshallers.remove(key);
+            synchronized (deferredUnmarshallers) {
+                deferredUnmarshallers.remove(key);
+                return unmarshallers.remove(key);
+            }
         }
 
         return null;
     }
+
+    /**
+     * Instantiates the deferred unmarshaller registered under the given key and moves it to the registered
+     * unmarshallers.
+     * 
+     * @param key the key of the unmarshaller
+     * 
+     * @return the unmarshaller registered under the key once the deferred unmarshaller is instantiated, or null
+     */
+    @Nullable private Unmarshaller instantiateDeferredUnmarshaller(@Nonnull final QName key) {
+        final Supplier<? extends Unmarshaller> supplier = deferredUnmarshallers.get(key);
+        if (supplier == null) {
+            return unmarshallers.get(key);
+        }
+
+        // Instantiate outside the lock; a concurrent duplicate is harmless as unmarshallers are stateless.
+        final Unmarshaller unmarshaller = supplier.get();
+        synchronized (deferredUnmarshallers) {
+            if (unmarshaller != null && deferredUnmarshallers.remove(key, supplier)) {
+                log.debug("Instantiated deferred unmarshaller {} for object type {}", unmarshaller.getClass().getName(),
+                        key);
+                unmarshallers.put(key, unmarshaller);
+            }
+            return unmarshallers.get(key);
+        }
+    }
 }
\ No newline at end of file
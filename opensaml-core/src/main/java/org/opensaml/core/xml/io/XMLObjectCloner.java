@@ -0,0 +1,274 @@
+/*
+ * Licensed to the University Corporation for Advanced Internet Development,
+ * Inc. (UCAID) under one or more contributor license agreements.  See the
+ * NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The UCAID licenses this file to You under the Apache
+ * License, Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.opensaml.core.xml.io;
+
+import java.util.List;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.ThreadSafe;
+
+import net.shibboleth.utilities.java.support.xml.ElementSupport;
+import net.shibboleth.utilities.java.support.xml.XMLConstants;
+import net.shibboleth.utilities.java.support.xml.XMLParserException;
+
+import org.opensaml.core.xml.XMLObject;
+import org.opensaml.core.xml.config.XMLObjectProviderRegistrySupport;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.w3c.dom.Attr;
+import org.w3c.dom.DOMException;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NamedNodeMap;
+import org.w3c.dom.Node;
+import org.w3c.dom.Text;
+
+/**
+ * Clones XMLObjects by copying the XMLObject tree directly, without marshalling it into a DOM and unmarshalling a
+ * clone of that DOM.
+ *
+ * <p>
+ * Each XMLObject is marshalled by its {@link AbstractXMLObjectMarshaller} into a transient DOM element which carries
+ * only the element's namespace declarations, attributes and text content, and its copy is unmarshalled from that
+ * element by the {@link AbstractXMLObjectUnmarshaller} registered for it. The copies of its children are built in
+ * the same way and added to the copy, and the transient element is then discarded. The transient DOM held at any time
+ * is therefore bounded by the depth of the tree, and the original XMLObjects are left untouched.
+ * </p>
+ *
+ * <p>
+ * An XMLObject whose marshaller does not extend {@link AbstractXMLObjectMarshaller}, or whose unmarshaller does not
+ * extend {@link AbstractXMLObjectUnmarshaller} or overrides {@link Unmarshaller#unmarshall(Element)}, such as a
+ * signature, is cloned along with its descendants from a copy of its DOM.
+ * </p>
+ *
+ * <p>
+ * The clones do not cache a DOM.
+ * </p>
+ */
+@ThreadSafe
+public class XMLObjectCloner {
+
+    /** Class logger. */
+    @Nonnull private final Logger log = LoggerFactory.getLogger(XMLObjectCloner.class);
+
+    /**
+     * Clone an XMLObject.
+     *
+     * @param originalXMLObject the XMLObject to clone
+     *
+     * @return the clone, or null if the XMLObject was null
+     *
+     * @throws MarshallingException if the XMLObject, or a descendant, can not be marshalled
+     * @throws UnmarshallingException if the clone, or a descendant, can not be unmarshalled
+     *
+     * @param <T> the type of XMLObject being cloned
+     */
+    @Nullable public <T extends XMLObject> T clone(@Nullable final T originalXMLObject)
+            throws MarshallingException, UnmarshallingException {
+        if (originalXMLObject == null) {
+            return null;
+        }
+
+        final Document document;
+        try {
+            document = XMLObjectProviderRegistrySupport.getParserPool().newDocument();
+        } catch (final XMLParserException e) {
+            throw new MarshallingException("Unable to create Document to place marshalled elements in", e);
+        }
+
+        try {
+            // The clone is built by the provider registered for the original's element, so it has the same type.
+            @SuppressWarnings("unchecked") final T clone = (T) cloneObject(originalXMLObject, document, null);
+            return clone;
+        } catch (final DOMException e) {
+            throw new MarshallingException("Unable to clone " + originalXMLObject.getElementQName(), e);
+        }
+    }
+
+    /**
+     * Clone an XMLObject and its descendants.
+     *
+     * @param original the XMLObject to clone
+     * @param document the document owning the transient DOM nodes
+     * @param parent the transient DOM element of the parent XMLObject, or null for the root XMLObject
+     *
+     * @return the clone
+     *
+     * @throws MarshallingException if the XMLObject can not be marshalled
+     * @throws UnmarshallingException if the clone can not be unmarshalled
+     */
+    @Nonnull private XMLObject cloneObject(@Nonnull final XMLObject original, @Nonnull final Document document,
+            @Nullable final Element parent) throws MarshallingException, UnmarshallingException {
+        final Marshaller marshaller = getMarshaller(original);
+        if (!(marshaller instanceof AbstractXMLObjectMarshaller)) {
+            return cloneFromDOM(original, marshaller);
+        }
+
+        final AbstractXMLObjectMarshaller copyMarshaller = (AbstractXMLObjectMarshaller) marshaller;
+        final Element element = ElementSupport.constructElement(document, original.getElementQName());
+        if (parent != null) {
+            // Attached so that declarations made on ancestors are found when marshalling namespaces.
+            parent.appendChild(element);
+        } else {
+            document.appendChild(element);
+        }
+
+        try {
+            copyMarshaller.marshallNamespacePrefix(original, element);
+            copyMarshaller.marshallSchemaInstanceAttributes(original, element);
+            copyMarshaller.marshallNamespaces(original, element);
+            copyMarshaller.marshallAttributes(original, element);
+
+            final Unmarshaller unmarshaller = getUnmarshaller(element);
+            if (StreamingXMLObjectUnmarshaller.isDOMUnmarshaller(unmarshaller)) {
+                return cloneFromDOM(original, marshaller);
+            }
+
+            final AbstractXMLObjectUnmarshaller copyUnmarshaller = (AbstractXMLObjectUnmarshaller) unmarshaller;
+            final XMLObject copy = copyUnmarshaller.buildXMLObject(element);
+            final NamedNodeMap attributes = element.getAttributes();
+            for (int i = 0; i < attributes.getLength(); i++) {
+                copyUnmarshaller.unmarshallAttribute(copy, (Attr) attributes.item(i));
+            }
+
+            DeferredChildElements.resolve(original);
+            final List<XMLObject> children = original.getOrderedChildren();
+            if (children != null) {
+                for (final XMLObject child : children) {
+                    if (child != null) {
+                        copyUnmarshaller.processChildElement(copy, cloneObject(child, document, element));
+                    }
+                }
+            }
+
+            copyMarshaller.marshallElementContent(original, element);
+            for (Node node = element.getFirstChild(); node != null; node = node.getNextSibling()) {
+                if (node.getNodeType() == Node.TEXT_NODE || node.getNodeType() == Node.CDATA_SECTION_NODE) {
+                    copyUnmarshaller.unmarshallTextContent(copy, (Text) node);
+                }
+            }
+
+            return copy;
+        } finally {
+            if (parent != null && element.getParentNode() == parent) {
+                parent.removeChild(element);
+            }
+        }
+    }
+
+    /**
+     * Clone an XMLObject and its descendants by unmarshalling a copy of its DOM, marshalling it if it does not cache
+     * one.
+     *
+     * @param original the XMLObject to clone
+     * @param marshaller the marshaller of the XMLObject
+     *
+     * @return the clone
+     *
+     * @throws MarshallingException if the XMLObject can not be marshalled
+     * @throws UnmarshallingException if the clone can not be unmarshalled
+     */
+    @Nonnull private XMLObject cloneFromDOM(@Nonnull final XMLObject original, @Nonnull final Marshaller marshaller)
+            throws MarshallingException, UnmarshallingException {
+        log.trace("Cloning {} from a copy of its DOM", original.getElementQName());
+        Element domElement = original.getDOM();
+        if (domElement == null) {
+            domElement = marshaller.marshall(original);
+        }
+
+        final Element clonedElement = (Element) domElement.cloneNode(true);
+        // The copy can not see declarations made on the ancestors of the original DOM, which is left untouched.
+        declareInScopeNamespaces(domElement, clonedElement);
+        final XMLObject copy = getUnmarshaller(clonedElement).unmarshall(clonedElement);
+        copy.releaseDOM();
+        copy.releaseChildrenDOM(true);
+        return copy;
+    }
+
+    /**
+     * Declare on a detached copy of an element the namespaces declared by the ancestors of the original which the
+     * copy does not declare itself.
+     *
+     * @param original the original DOM element
+     * @param copy the detached copy of the element
+     */
+    private void declareInScopeNamespaces(@Nonnull final Element original, @Nonnull final Element copy) {
+        Node ancestor = original.getParentNode();
+        while (ancestor instanceof Element) {
+            final NamedNodeMap attributes = ancestor.getAttributes();
+            for (int i = 0; i < attributes.getLength(); i++) {
+                final Attr attribute = (Attr) attributes.item(i);
+                if (XMLConstants.XMLNS_NS.equals(attribute.getNamespaceURI())
+                        && !copy.hasAttributeNS(XMLConstants.XMLNS_NS, attribute.getLocalName())) {
+                    copy.setAttributeNS(XMLConstants.XMLNS_NS, attribute.getName(), attribute.getValue());
+                }
+            }
+            ancestor = ancestor.getParentNode();
+        }
+    }
+
+    /**
+     * Get the marshaller for an XMLObject, falling back to the marshaller of the default object provider.
+     *
+     * @param xmlObject the XMLObject
+     *
+     * @return the marshaller
+     *
+     * @throws MarshallingException if there is no marshaller available for the XMLObject
+     */
+    @Nonnull private Marshaller getMarshaller(@Nonnull final XMLObject xmlObject) throws MarshallingException {
+        final MarshallerFactory marshallerFactory = XMLObjectProviderRegistrySupport.getMarshallerFactory();
+        Marshaller marshaller = marshallerFactory.getMarshaller(xmlObject);
+        if (marshaller == null) {
+            marshaller = marshallerFactory.getMarshaller(XMLObjectProviderRegistrySupport.getDefaultProviderQName());
+            if (marshaller == null) {
+                final String errorMsg = "No marshaller available for " + xmlObject.getElementQName();
+                log.error(errorMsg);
+                throw new MarshallingException(errorMsg);
+            }
+        }
+        return marshaller;
+    }
+
+    /**
+     * Get the unmarshaller for an element, falling back to the unmarshaller of the default object provider.
+     *
+     * @param element the DOM element
+     *
+     * @return the unmarshaller
+     *
+     * @throws UnmarshallingException if there is no unmarshaller available for the element
+     */
+    @Nonnull private Unmarshaller getUnmarshaller(@Nonnull final Element element) throws UnmarshallingException {
+        final UnmarshallerFactory unmarshallerFactory = XMLObjectProviderRegistrySupport.getUnmarshallerFactory();
+        Unmarshaller unmarshaller = unmarshallerFactory.getUnmarshaller(element);
+        if (unmarshaller == null) {
+            unmarshaller = unmarshallerFactory.getUnmarshaller(XMLObjectProviderRegistrySupport
+                    .getDefaultProviderQName());
+            if (unmarshaller == null) {
+                final String errorMsg = "No unmarshaller available for {" + element.getNamespaceURI() + "}"
+                        + element.getLocalName();
+                log.error(errorMsg);
+                throw new UnmarshallingException(errorMsg);
+            }
+        }
+        return unmarshaller;
+    }
+
+}
@@ -29,6 +29,7 @@ import net.shibboleth.utilities.java.support.annotation.constraint.NotEmpty;
 import net.shibboleth.utilities.java.support.collection.LazyMap;
 import net.shibboleth.utilities.java.support.logic.Constraint;
 
+import org.opensaml.core.xml.AbstractXMLObject;
 import org.opensaml.core.xml.XMLObject;
 
 /**
@@ -58,6 +59,23 @@ public class IDIndex {
     }
     
 
+    /**
+     * Return whether the ID index of an XMLObject contains any mappings. The index of an {@link AbstractXMLObject}
+     * is not created by this check if it has not been used yet.
+     * 
+     * @param xmlObject the XMLObject whose index is checked
+     * 
+     * @return true if the object's ID index contains any mappings
+     */
+    public static boolean hasIDMappings(@Nullable final XMLObject xmlObject) {
+        if (xmlObject == null) {
+            return false;
+        } else if (xmlObject instanceof AbstractXMLObject) {
+            return ((AbstractXMLObject) xmlObject).hasIDMappings();
+        }
+        return !xmlObject.getIDIndex().isEmpty();
+    }
+
     /**
      * Register an ID-to-XMLObject mapping for one of this object's owner's children.
      * 
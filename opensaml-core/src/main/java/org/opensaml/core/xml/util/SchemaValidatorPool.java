@@ -0,0 +1,110 @@
+/*
+ * Licensed to the University Corporation for Advanced Internet Development,
+ * Inc. (UCAID) under one or more contributor license agreements.  See the
+ * NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The UCAID licenses this file to You under the Apache
+ * License, Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.opensaml.core.xml.util;
+
+import java.io.IOException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+import javax.annotation.Nonnull;
+import javax.annotation.concurrent.ThreadSafe;
+import javax.xml.transform.Source;
+import javax.xml.validation.Schema;
+import javax.xml.validation.Validator;
+
+import net.shibboleth.utilities.java.support.logic.Constraint;
+
+import org.xml.sax.SAXException;
+
+/**
+ * Validates sources against a compiled {@link Schema}, reusing {@link Validator} instances.
+ *
+ * <p>
+ * A {@link Schema} is thread-safe but its validators are not, and creating one for each validation is a significant
+ * cost when documents are small. Validators are instead taken from a bounded pool, reset after each use and
+ * returned, so that any number of threads may validate concurrently and a validator is only created when none is
+ * free.
+ * </p>
+ */
+@ThreadSafe
+public class SchemaValidatorPool {
+
+    /** Default maximum number of pooled validators. */
+    public static final int DEFAULT_MAX_POOL_SIZE = 16;
+
+    /** The schema validated against. */
+    @Nonnull private final Schema schema;
+
+    /** Pooled validators. */
+    @Nonnull private final BlockingQueue<Validator> validators;
+
+    /**
+     * Constructor.
+     *
+     * @param validationSchema the schema to validate against
+     */
+    public SchemaValidatorPool(@Nonnull final Schema validationSchema) {
+        this(validationSchema, DEFAULT_MAX_POOL_SIZE);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param validationSchema the schema to validate against
+     * @param maxPoolSize maximum number of pooled validators
+     */
+    public SchemaValidatorPool(@Nonnull final Schema validationSchema, final int maxPoolSize) {
+        schema = Constraint.isNotNull(validationSchema, "Schema cannot be null");
+        Constraint.isGreaterThan(0, maxPoolSize, "Maximum pool size must be greater than 0");
+        validators = new ArrayBlockingQueue<>(maxPoolSize);
+    }
+
+    /**
+     * Get the schema validated against.
+     *
+     * @return the schema
+     */
+    @Nonnull public Schema getSchema() {
+        return schema;
+    }
+
+    /**
+     * Validate a source against the schema.
+     *
+     * @param source the source to validate
+     *
+     * @throws SAXException if the source is not valid
+     * @throws IOException if the source can not be read
+     */
+    public void validate(@Nonnull final Source source) throws SAXException, IOException {
+        Constraint.isNotNull(source, "Source cannot be null");
+
+        Validator validator = validators.poll();
+        if (validator == null) {
+            validator = schema.newValidator();
+        }
+
+        try {
+            validator.validate(source);
+        } finally {
+            validator.reset();
+            validators.offer(validator);
+        }
+    }
+
+}
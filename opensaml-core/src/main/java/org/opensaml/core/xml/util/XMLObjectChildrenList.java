@@ -126,13 +126,17 @@ public class XMLObjectChildrenList<ElementType extends XMLObject> extends Abstra
         ElementType removedElement = elements.set(index, element);
         if (removedElement != null) {
             removedElement.setParent(null);
-            parent.getIDIndex().deregisterIDMappings(removedElement.getIDIndex());
+            if (IDIndex.hasIDMappings(removedElement)) {
+                parent.getIDIndex().deregisterIDMappings(removedElement.getIDIndex());
+            }
         }
         
         // Note: to avoid ordering problems, this needs to be called after
         // the deregistration, in case the added element has a same ID string 
         // value as the removed one, else you will lose it.
-        parent.getIDIndex().registerIDMappings(element.getIDIndex());
+        if (IDIndex.hasIDMappings(element)) {
+            parent.getIDIndex().registerIDMappings(element.getIDIndex());
+        }
 
         modCount++;
         return removedElement;
@@ -154,7 +158,9 @@ public class XMLObjectChildrenList<ElementType extends XMLObject> extends Abstra
         }
 
         setParent(element);
-        parent.getIDIndex().registerIDMappings(element.getIDIndex());
+        if (IDIndex.hasIDMappings(element)) {
+            parent.getIDIndex().registerIDMappings(element.getIDIndex());
+        }
 
         modCount++;
         elements.add(index, element);
@@ -167,7 +173,9 @@ public class XMLObjectChildrenList<ElementType extends XMLObject> extends Abstra
         if (element != null) {
             element.releaseParentDOM(true);
             element.setParent(null);
-            parent.getIDIndex().deregisterIDMappings(element.getIDIndex());
+            if (IDIndex.hasIDMappings(element)) {
+                parent.getIDIndex().deregisterIDMappings(element.getIDIndex());
+            }
         }
 
         modCount++;
@@ -188,7 +196,9 @@ public class XMLObjectChildrenList<ElementType extends XMLObject> extends Abstra
             if (element != null) {
                 element.releaseParentDOM(true);
                 element.setParent(null);
-                parent.getIDIndex().deregisterIDMappings(element.getIDIndex());
+                if (IDIndex.hasIDMappings(element)) {
+                    parent.getIDIndex().deregisterIDMappings(element.getIDIndex());
+                }
             }
         }
 
@@ -46,6 +46,7 @@ import org.opensaml.core.xml.io.Marshaller;
 import org.opensaml.core.xml.io.MarshallingException;
 import org.opensaml.core.xml.io.Unmarshaller;
 import org.opensaml.core.xml.io.UnmarshallingException;
+import org.opensaml.core.xml.io.XMLObjectCloner;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.w3c.dom.Attr;
@@ -88,7 +89,8 @@ public final class XMLObjectSupport {
      * 
      * <p>
      * This method variant is equivalent to 
-     * <code>cloneXMLObject(originalXMLObject, CloneOutputOption.DropDOM).</code>
+     * <code>cloneXMLObject(originalXMLObject, CloneOutputOption.DropDOM)</code>, which copies the object tree
+     * without marshalling it.
      * </p>
      * 
      * 
@@ -154,6 +156,11 @@ public final class XMLObjectSupport {
      * 3) Unmarshall a new XMLObject tree around it.
      * </p>
      * 
+     * <p>
+     * With {@link CloneOutputOption#DropDOM} the object tree is instead copied directly by an
+     * {@link XMLObjectCloner}, which neither marshalls the original object nor builds a DOM for the clone.
+     * </p>
+     * 
      * @param originalXMLObject the object to be cloned
      * @param cloneOutputOption  the option for handling the cloned object output
      * @return a clone of the original object
@@ -170,6 +177,10 @@ public final class XMLObjectSupport {
             return null;
         }
         
+        if (CloneOutputOption.DropDOM.equals(cloneOutputOption)) {
+            return new XMLObjectCloner().clone(originalXMLObject);
+        }
+        
         final Marshaller marshaller = getMarshaller(originalXMLObject);
         if (marshaller == null) {
             throw new MarshallingException("Unable to obtain Marshaller for XMLObject: "
@@ -191,7 +202,6 @@ public final class XMLObjectSupport {
                 }
                 break;
             case UnrootedDOM:
-            case DropDOM:
                 clonedElement = (Element) origElement.cloneNode(true);
                 break;
             default:
@@ -204,12 +214,7 @@ public final class XMLObjectSupport {
                     + QNameSupport.getNodeQName(clonedElement));
         }
         
-        T clonedXMLObject = (T) unmarshaller.unmarshall(clonedElement);
-        if (CloneOutputOption.DropDOM.equals(cloneOutputOption)) {
-            clonedXMLObject.releaseDOM();
-            clonedXMLObject.releaseChildrenDOM(true);
-        }
-        return clonedXMLObject;
+        return (T) unmarshaller.unmarshall(clonedElement);
     }
     
     /**
@@ -25,6 +25,7 @@ import java.util.Properties;
 
 import org.opensaml.core.config.provider.ThreadLocalConfigurationPropertiesHolder;
 import org.opensaml.core.xml.config.XMLObjectProviderRegistry;
+import org.opensaml.core.xml.schema.XSString;
 
 /**
  * A class which provides basic testing for the InitializationService.
@@ -56,4 +57,20 @@ public class InitializationServiceTest {
         Assert.assertNotNull(registry, "Registry was null");        
     }
 
+    @Test
+    public void testConcurrentProviderInit() throws InitializationException {
+        Properties props = new Properties();
+        props.setProperty(ConfigurationService.PROPERTY_PARTITION_NAME, this.getClass().getName() + ".concurrent");
+        props.setProperty(InitializationService.CONFIG_PROPERTY_CONCURRENT, "true");
+        ThreadLocalConfigurationPropertiesHolder.setProperties(props);
+
+        InitializationService.initialize();
+
+        XMLObjectProviderRegistry registry = ConfigurationService.get(XMLObjectProviderRegistry.class);
+        Assert.assertNotNull(registry, "Registry was null");
+        Assert.assertNotNull(registry.getBuilderFactory().getBuilder(XSString.TYPE_NAME),
+                "Provider registered concurrently was not found");
+        Assert.assertNotNull(registry.getParserPool(), "Parser pool was null");
+    }
+
 }
@@ -0,0 +1,91 @@
+/*
+ * Licensed to the University Corporation for Advanced Internet Development,
+ * Inc. (UCAID) under one or more contributor license agreements.  See the
+ * NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The UCAID licenses this file to You under the Apache
+ * License, Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.opensaml.core.xml;
+
+import java.util.List;
+
+import net.shibboleth.utilities.java.support.xml.XMLParserException;
+
+import org.opensaml.core.xml.config.XMLObjectProviderRegistrySupport;
+import org.opensaml.core.xml.mock.SimpleXMLObject;
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+import org.w3c.dom.Document;
+
+/**
+ * Unit test for deferred unmarshalling of child elements.
+ */
+public class DeferredUnmarshallingTest extends XMLObjectBaseTestCase {
+
+    /** Location of the test document. */
+    private String documentLocation = "/org/opensaml/core/xml/SimpleXMLObjectWithContent.xml";
+
+    @BeforeMethod
+    protected void setUp() {
+        XMLObjectProviderRegistrySupport.registerDeferredElement(SimpleXMLObject.ELEMENT_NAME);
+    }
+
+    @AfterMethod
+    protected void tearDown() {
+        XMLObjectProviderRegistrySupport.deregisterDeferredElement(SimpleXMLObject.ELEMENT_NAME);
+    }
+
+    @Test
+    public void testDeferredChildren() {
+        SimpleXMLObject sxObject = (SimpleXMLObject) unmarshallElement(documentLocation);
+        Assert.assertTrue(sxObject.hasDeferredChildElements(), "Child elements were not deferred");
+        Assert.assertNotNull(sxObject.getDOM());
+
+        List<SimpleXMLObject> children = sxObject.getSimpleXMLObjects();
+        Assert.assertFalse(sxObject.hasDeferredChildElements(), "Child elements were not resolved");
+        Assert.assertNotNull(sxObject.getDOM(), "Cached DOM was released by resolution");
+        Assert.assertEquals(children.size(), 3);
+        Assert.assertEquals(children.get(0).getValue(), "Content1");
+        Assert.assertEquals(children.get(1).getValue(), "Content2");
+        Assert.assertNotNull(children.get(0).getDOM());
+        Assert.assertTrue(children.get(0).getParent() == sxObject);
+
+        SimpleXMLObject child = children.get(2);
+        Assert.assertTrue(child.hasDeferredChildElements(), "Grandchild elements were not deferred");
+        Assert.assertEquals(child.getSimpleXMLObjects().get(0).getValue(), "Content3");
+        Assert.assertNotNull(sxObject.getDOM(), "Cached DOM of ancestor was released by resolution");
+    }
+
+    @Test
+    public void testMarshallingDeferredChildren() throws XMLParserException {
+        Document expectedDocument = parserPool.parse(DeferredUnmarshallingTest.class
+                .getResourceAsStream(documentLocation));
+
+        SimpleXMLObject sxObject = (SimpleXMLObject) unmarshallElement(documentLocation);
+        sxObject.releaseDOM();
+        assertXMLEquals(expectedDocument, sxObject);
+        Assert.assertFalse(sxObject.hasDeferredChildElements(), "Child elements were not resolved");
+    }
+
+    @Test
+    public void testNoDeferredChildren() {
+        XMLObjectProviderRegistrySupport.deregisterDeferredElement(SimpleXMLObject.ELEMENT_NAME);
+
+        SimpleXMLObject sxObject = (SimpleXMLObject) unmarshallElement(documentLocation);
+        Assert.assertFalse(sxObject.hasDeferredChildElements());
+        Assert.assertEquals(sxObject.getSimpleXMLObjects().size(), 3);
+    }
+
+}
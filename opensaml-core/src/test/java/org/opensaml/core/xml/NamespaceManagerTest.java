@@ -83,6 +83,15 @@ public class NamespaceManagerTest extends XMLObjectBaseTestCase {
         checkNamespaces(xsAny, 3, elementName, typeName, xsiTypeName);
     }
     
+    @Test
+    public void testDeferredManagerCreation() {
+        // The namespace manager is not created until first use, so must reflect changes made before that.
+        xsAny = xsAnyBuilder.buildObject(elementName);
+        xsAny.setElementNamespacePrefix(ns3Prefix);
+        checkNamespaces(xsAny, 1, new QName(ns1uri, "TestElementName", ns3Prefix));
+        Assert.assertNull(xsAny.resolveID("foo"));
+    }
+    
     @Test
     public void testQNameElementContent() {
         QName content = new QName(ns2uri, "TestElementContent", ns2Prefix);
@@ -222,6 +231,29 @@ public class NamespaceManagerTest extends XMLObjectBaseTestCase {
         xsAny.getUnknownAttributes().put(name2, "foo");
         checkPrefixes(nsManager, ns3Prefix);
     }
+
+    @Test
+    public void testSubtreeNamespaceCaching() {
+        Namespace ns = new Namespace(ns3uri, ns3Prefix);
+        XSAny child = xsAnyBuilder.buildObject(new QName(ns2uri, "Child", ns2Prefix));
+        XSAny grandchild = xsAnyBuilder.buildObject(new QName(ns2uri, "Grandchild", ns2Prefix));
+        child.getUnknownXMLObjects().add(grandchild);
+        xsAny.getUnknownXMLObjects().add(child);
+
+        Set<Namespace> subtreeNamespaces = nsManager.getAllNamespacesInSubtreeScope();
+        Assert.assertEquals(subtreeNamespaces.size(), 2);
+        Assert.assertSame(nsManager.getAllNamespacesInSubtreeScope(), subtreeNamespaces, "Set was not cached");
+        Assert.assertSame(xsAny.getNamespaces(), xsAny.getNamespaces(), "Set was not cached");
+
+        // A change deep in the subtree is seen by the root.
+        grandchild.getNamespaceManager().registerNamespaceDeclaration(ns);
+        Assert.assertEquals(nsManager.getAllNamespacesInSubtreeScope().size(), 3);
+
+        // As is the removal of the subtree.
+        xsAny.getUnknownXMLObjects().remove(child);
+        Assert.assertEquals(nsManager.getAllNamespacesInSubtreeScope().size(), 1);
+        Assert.assertEquals(child.getNamespaceManager().getAllNamespacesInSubtreeScope().size(), 2);
+    }
     
     
     /**********************/
@@ -0,0 +1,145 @@
+/*
+ * Licensed to the University Corporation for Advanced Internet Development,
+ * Inc. (UCAID) under one or more contributor license agreements.  See the
+ * NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The UCAID licenses this file to You under the Apache
+ * License, Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.opensaml.core.xml;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+
+import javax.xml.namespace.QName;
+
+import net.shibboleth.utilities.java.support.codec.Base64Support;
+import net.shibboleth.utilities.java.support.xml.XMLAssertTestNG;
+import net.shibboleth.utilities.java.support.xml.XMLParserException;
+
+import org.custommonkey.xmlunit.Diff;
+import org.opensaml.core.xml.io.MarshallingException;
+import org.opensaml.core.xml.io.StreamingXMLObjectMarshaller;
+import org.opensaml.core.xml.mock.SimpleXMLObject;
+import org.opensaml.core.xml.mock.SimpleXMLObjectBuilder;
+import org.testng.Assert;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+import org.w3c.dom.Document;
+
+/**
+ * Unit test for {@link StreamingXMLObjectMarshaller}.
+ */
+public class StreamingMarshallingTest extends XMLObjectBaseTestCase {
+
+    /** QName for SimpleXMLObject. */
+    private QName simpleXMLObjectQName = new QName(SimpleXMLObject.NAMESPACE, SimpleXMLObject.LOCAL_NAME);
+
+    /** The marshaller under test. */
+    private StreamingXMLObjectMarshaller streamingMarshaller;
+
+    @BeforeMethod
+    protected void setUp() {
+        streamingMarshaller = new StreamingXMLObjectMarshaller();
+    }
+
+    @Test
+    public void testMarshallingWithAttributes() throws XMLParserException, MarshallingException {
+        SimpleXMLObjectBuilder sxoBuilder = (SimpleXMLObjectBuilder) builderFactory.getBuilder(simpleXMLObjectQName);
+        SimpleXMLObject sxObject = sxoBuilder.buildObject();
+        sxObject.setId("Firefly");
+
+        assertStreamedXMLEquals("/org/opensaml/core/xml/SimpleXMLObjectWithAttribute.xml", sxObject);
+        Assert.assertNull(sxObject.getDOM(), "DOM was cached after streaming marshalling");
+    }
+
+    @Test
+    public void testMarshallingWithElementContent() throws XMLParserException, MarshallingException {
+        SimpleXMLObjectBuilder sxoBuilder = (SimpleXMLObjectBuilder) builderFactory.getBuilder(simpleXMLObjectQName);
+        SimpleXMLObject sxObject = sxoBuilder.buildObject();
+        SimpleXMLObject child1 = sxoBuilder.buildObject();
+        child1.setValue("Content1");
+        SimpleXMLObject child2 = sxoBuilder.buildObject();
+        child2.setValue("Content2");
+        SimpleXMLObject child3 = sxoBuilder.buildObject();
+        SimpleXMLObject grandchild1 = sxoBuilder.buildObject();
+        grandchild1.setValue("Content3");
+        child3.getSimpleXMLObjects().add(grandchild1);
+        sxObject.getSimpleXMLObjects().add(child1);
+        sxObject.getSimpleXMLObjects().add(child2);
+        sxObject.getSimpleXMLObjects().add(child3);
+
+        assertStreamedXMLEquals("/org/opensaml/core/xml/SimpleXMLObjectWithContent.xml", sxObject);
+        Assert.assertNull(child1.getDOM(), "DOM was cached after streaming marshalling");
+    }
+
+    @Test
+    public void testMarshallingSchemaLocation() throws XMLParserException, MarshallingException {
+        String documentLocation = "/org/opensaml/core/xml/SimpleXMLObjectSchemaLocation.xml";
+        SimpleXMLObject sxObject = (SimpleXMLObject) unmarshallElement(documentLocation);
+        sxObject.releaseDOM();
+
+        assertStreamedXMLEquals(documentLocation, sxObject);
+    }
+
+    @Test
+    public void testMarshallingCachedDOM() throws XMLParserException, MarshallingException {
+        String documentLocation = "/org/opensaml/core/xml/SimpleXMLObjectWithContent.xml";
+        SimpleXMLObject sxObject = (SimpleXMLObject) unmarshallElement(documentLocation);
+        SimpleXMLObject child = sxObject.getSimpleXMLObjects().get(0);
+        Assert.assertNotNull(child.getDOM());
+
+        // Only the root is streamed, the children are written from their cached DOM.
+        sxObject.releaseDOM();
+        assertStreamedXMLEquals(documentLocation, sxObject);
+        Assert.assertNotNull(child.getDOM(), "Cached DOM was released");
+    }
+
+    @Test
+    public void testMarshallingBase64() throws XMLParserException, MarshallingException {
+        SimpleXMLObjectBuilder sxoBuilder = (SimpleXMLObjectBuilder) builderFactory.getBuilder(simpleXMLObjectQName);
+        SimpleXMLObject sxObject = sxoBuilder.buildObject();
+        sxObject.setId("Firefly");
+
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        streamingMarshaller.marshallBase64(sxObject, output);
+        byte[] decoded = Base64Support.decode(new String(output.toByteArray(), StandardCharsets.US_ASCII));
+
+        Document expectedDocument = parserPool.parse(StreamingMarshallingTest.class
+                .getResourceAsStream("/org/opensaml/core/xml/SimpleXMLObjectWithAttribute.xml"));
+        Document streamedDocument = parserPool.parse(new ByteArrayInputStream(decoded));
+        XMLAssertTestNG.assertXMLIdentical(new Diff(expectedDocument, streamedDocument), true);
+    }
+
+    /**
+     * Asserts that the document written by the streaming marshaller for an XMLObject is equal to an expected document.
+     *
+     * @param expectedDocumentLocation the location of the expected document
+     * @param xmlObject the XMLObject to marshall
+     *
+     * @throws XMLParserException if a document can not be parsed
+     * @throws MarshallingException if the XMLObject can not be marshalled
+     */
+    private void assertStreamedXMLEquals(String expectedDocumentLocation, XMLObject xmlObject)
+            throws XMLParserException, MarshallingException {
+        Document expectedDocument = parserPool.parse(StreamingMarshallingTest.class
+                .getResourceAsStream(expectedDocumentLocation));
+
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        streamingMarshaller.marshall(xmlObject, output);
+        Document streamedDocument = parserPool.parse(new ByteArrayInputStream(output.toByteArray()));
+
+        XMLAssertTestNG.assertXMLIdentical(new Diff(expectedDocument, streamedDocument), true);
+    }
+
+}
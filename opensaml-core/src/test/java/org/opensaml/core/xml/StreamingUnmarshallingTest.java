@@ -0,0 +1,123 @@
+/*
+ * Licensed to the University Corporation for Advanced Internet Development,
+ * Inc. (UCAID) under one or more contributor license agreements.  See the
+ * NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The UCAID licenses this file to You under the Apache
+ * License, Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.opensaml.core.xml;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.List;
+
+import net.shibboleth.utilities.java.support.xml.XMLParserException;
+
+import org.opensaml.core.xml.io.MarshallingException;
+import org.opensaml.core.xml.io.StreamingXMLObjectUnmarshaller;
+import org.opensaml.core.xml.io.UnmarshallingException;
+import org.opensaml.core.xml.mock.SimpleXMLObject;
+import org.opensaml.core.xml.util.XMLObjectSupport;
+import org.testng.Assert;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+
+/**
+ * Unit test for {@link StreamingXMLObjectUnmarshaller}.
+ */
+public class StreamingUnmarshallingTest extends XMLObjectBaseTestCase {
+
+    /** The unmarshaller under test. */
+    private StreamingXMLObjectUnmarshaller streamingUnmarshaller;
+
+    @BeforeMethod
+    protected void setUp() {
+        streamingUnmarshaller = new StreamingXMLObjectUnmarshaller();
+    }
+
+    @Test
+    public void testUnmarshallingWithAttributes() throws UnmarshallingException {
+        SimpleXMLObject sxObject = (SimpleXMLObject) streamingUnmarshaller.unmarshall(
+                StreamingUnmarshallingTest.class.getResourceAsStream(
+                        "/org/opensaml/core/xml/SimpleXMLObjectWithAttribute.xml"));
+
+        Assert.assertNull(sxObject.getDOM(), "DOM was cached after streaming unmarshalling");
+        Assert.assertEquals(sxObject.getId(), "Firefly", "ID was not expected value");
+        Assert.assertSame(sxObject.resolveID("Firefly"), sxObject, "ID was not indexed");
+    }
+
+    @Test
+    public void testUnmarshallingWithElementContent() throws UnmarshallingException {
+        SimpleXMLObject sxObject = (SimpleXMLObject) streamingUnmarshaller.unmarshall(
+                StreamingUnmarshallingTest.class.getResourceAsStream(
+                        "/org/opensaml/core/xml/SimpleXMLObjectWithContent.xml"));
+
+        List<SimpleXMLObject> children = sxObject.getSimpleXMLObjects();
+        Assert.assertEquals(children.size(), 3, "Unexpected number of children");
+        Assert.assertEquals(children.get(0).getValue(), "Content1", "Unexpected value (text content) for child 1");
+        Assert.assertEquals(children.get(1).getValue(), "Content2", "Unexpected value (text content) for child 2");
+        Assert.assertNull(children.get(2).getValue(), "Child had text content when it should not");
+        Assert.assertEquals(children.get(2).getSimpleXMLObjects().get(0).getValue(), "Content3",
+                "Unexpected value (text content) for grandchild 1");
+        Assert.assertNull(children.get(0).getDOM(), "DOM was cached after streaming unmarshalling");
+    }
+
+    @Test
+    public void testRemarshalling() throws UnmarshallingException, MarshallingException, XMLParserException {
+        String documentLocation = "/org/opensaml/core/xml/SimpleXMLObjectWithContent.xml";
+        SimpleXMLObject sxObject = (SimpleXMLObject) streamingUnmarshaller.unmarshall(
+                StreamingUnmarshallingTest.class.getResourceAsStream(documentLocation));
+
+        Element dom = XMLObjectSupport.marshall(sxObject);
+        Assert.assertNotNull(dom);
+        Document expectedDocument = parserPool.parse(
+                StreamingUnmarshallingTest.class.getResourceAsStream(documentLocation));
+        assertXMLEquals(expectedDocument, sxObject);
+    }
+
+    @Test
+    public void testDOMRequiredElements() throws UnmarshallingException {
+        streamingUnmarshaller.setDOMRequiredElements(Collections.singleton(SimpleXMLObject.ELEMENT_NAME));
+        SimpleXMLObject sxObject = (SimpleXMLObject) streamingUnmarshaller.unmarshall(
+                StreamingUnmarshallingTest.class.getResourceAsStream(
+                        "/org/opensaml/core/xml/SimpleXMLObjectWithContent.xml"));
+
+        Assert.assertNotNull(sxObject.getDOM(), "DOM was not cached for DOM-required element");
+        Assert.assertEquals(sxObject.getSimpleXMLObjects().size(), 3, "Unexpected number of children");
+    }
+
+    @Test
+    public void testNestedNamespaceDeclarations() throws UnmarshallingException {
+        String xml = "<test:SimpleElement xmlns:test=\"http://www.example.org/testObjects\">"
+                + "<test2:SimpleElement xmlns:test2=\"http://www.example.org/testObjects\" Id=\"Inner\">"
+                + "Value</test2:SimpleElement></test:SimpleElement>";
+        SimpleXMLObject sxObject = (SimpleXMLObject) streamingUnmarshaller.unmarshall(
+                new ByteArrayInputStream(xml.getBytes(StandardCharsets.UTF_8)));
+
+        SimpleXMLObject child = sxObject.getSimpleXMLObjects().get(0);
+        Assert.assertEquals(child.getElementQName().getPrefix(), "test2");
+        Assert.assertEquals(child.getValue(), "Value");
+        Assert.assertSame(sxObject.resolveID("Inner"), child, "Child ID was not indexed by parent");
+    }
+
+    @Test(expectedExceptions = UnmarshallingException.class)
+    public void testDoctypeRejected() throws UnmarshallingException {
+        String xml = "<!DOCTYPE test:SimpleElement [<!ENTITY e \"x\">]>"
+                + "<test:SimpleElement xmlns:test=\"http://www.example.org/testObjects\"/>";
+        streamingUnmarshaller.unmarshall(new ByteArrayInputStream(xml.getBytes(StandardCharsets.UTF_8)));
+    }
+
+}
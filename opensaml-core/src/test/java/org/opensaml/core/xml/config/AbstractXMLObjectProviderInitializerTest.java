@@ -0,0 +1,130 @@
+/*
+ * Licensed to the University Corporation for Advanced Internet Development, 
+ * Inc. (UCAID) under one or more contributor license agreements.  See the 
+ * NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The UCAID licenses this file to You under the Apache 
+ * License, Version 2.0 (the "License"); you may not use this file except in 
+ * compliance with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.opensaml.core.xml.config;
+
+import java.util.Arrays;
+import java.util.Properties;
+import java.util.UUID;
+
+import javax.xml.namespace.QName;
+
+import org.opensaml.core.config.ConfigurationService;
+import org.opensaml.core.config.InitializationException;
+import org.opensaml.core.config.provider.ThreadLocalConfigurationPropertiesHolder;
+import org.opensaml.core.xml.config.precompiled.PrecompiledTestXMLObjectProviderInitializer;
+import org.opensaml.core.xml.config.precompiled.PrecompiledXMLObjectProviders;
+import org.opensaml.core.xml.schema.XSString;
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+/**
+ * Test of {@link AbstractXMLObjectProviderInitializer} use of precompiled provider configurations.
+ */
+public class AbstractXMLObjectProviderInitializerTest {
+
+    private Properties props;
+
+    @BeforeMethod
+    protected void setUp() {
+        // A partition of its own for each test, so each starts without a registry.
+        props = new Properties();
+        props.setProperty(ConfigurationService.PROPERTY_PARTITION_NAME,
+                getClass().getName() + "-" + UUID.randomUUID());
+        ThreadLocalConfigurationPropertiesHolder.setProperties(props);
+        PrecompiledXMLObjectProviders.reset();
+    }
+
+    @AfterMethod
+    protected void tearDown() {
+        PrecompiledXMLObjectProviders.reset();
+        ThreadLocalConfigurationPropertiesHolder.clear();
+    }
+
+    @Test
+    public void testPrecompiled() throws InitializationException {
+        new PrecompiledTestXMLObjectProviderInitializer().init();
+
+        Assert.assertEquals(PrecompiledXMLObjectProviders.getRequested(),
+                Arrays.asList("default-config.xml", "schema-config.xml"));
+
+        final XMLObjectProviderRegistry registry = ConfigurationService.get(XMLObjectProviderRegistry.class);
+        Assert.assertNotNull(registry);
+        // The known resource is registered from the precompiled configuration, without being parsed.
+        Assert.assertNotNull(registry.getBuilderFactory().getBuilder(PrecompiledXMLObjectProviders.MARKER));
+        Assert.assertNull(registry.getBuilderFactory().getBuilder(registry.getDefaultProviderQName()));
+        // The unknown resource falls back to being parsed.
+        assertProvider(registry, XSString.TYPE_NAME);
+    }
+
+    @Test
+    public void testPrecompiledDisabled() throws InitializationException {
+        props.setProperty(AbstractXMLObjectProviderInitializer.CONFIG_PROPERTY_USE_PRECOMPILED, "false");
+
+        new PrecompiledTestXMLObjectProviderInitializer().init();
+
+        Assert.assertTrue(PrecompiledXMLObjectProviders.getRequested().isEmpty());
+
+        final XMLObjectProviderRegistry registry = ConfigurationService.get(XMLObjectProviderRegistry.class);
+        Assert.assertNotNull(registry);
+        Assert.assertNull(registry.getBuilderFactory().getBuilder(PrecompiledXMLObjectProviders.MARKER));
+        assertProvider(registry, registry.getDefaultProviderQName());
+        assertProvider(registry, XSString.TYPE_NAME);
+    }
+
+    @Test
+    public void testPrecompiledFailure() throws InitializationException {
+        PrecompiledXMLObjectProviders.setFailing(true);
+
+        new PrecompiledTestXMLObjectProviderInitializer().init();
+
+        // The failed resource is parsed instead.
+        final XMLObjectProviderRegistry registry = ConfigurationService.get(XMLObjectProviderRegistry.class);
+        Assert.assertNotNull(registry);
+        assertProvider(registry, registry.getDefaultProviderQName());
+        assertProvider(registry, XSString.TYPE_NAME);
+    }
+
+    @Test
+    public void testNoPrecompiled() throws InitializationException {
+        // No precompiled configuration in the package of this initializer.
+        new TestXMLObjectProviderInitializer().init();
+
+        Assert.assertTrue(PrecompiledXMLObjectProviders.getRequested().isEmpty());
+
+        final XMLObjectProviderRegistry registry = ConfigurationService.get(XMLObjectProviderRegistry.class);
+        Assert.assertNotNull(registry);
+        assertProvider(registry, registry.getDefaultProviderQName());
+    }
+
+    /**
+     * Assert that a provider is registered in full.
+     * 
+     * @param registry the registry
+     * @param providerName the name of the provider
+     */
+    private void assertProvider(final XMLObjectProviderRegistry registry, final QName providerName) {
+        Assert.assertNotNull(registry.getBuilderFactory().getBuilder(providerName), "Builder for " + providerName);
+        Assert.assertNotNull(registry.getMarshallerFactory().getMarshaller(providerName),
+                "Marshaller for " + providerName);
+        Assert.assertNotNull(registry.getUnmarshallerFactory().getUnmarshaller(providerName),
+                "Unmarshaller for " + providerName);
+    }
+
+}
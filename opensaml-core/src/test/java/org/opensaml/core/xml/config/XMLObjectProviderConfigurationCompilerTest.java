@@ -0,0 +1,83 @@
+/*
+ * Licensed to the University Corporation for Advanced Internet Development,
+ * Inc. (UCAID) under one or more contributor license agreements.  See the
+ * NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The UCAID licenses this file to You under the Apache
+ * License, Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.opensaml.core.xml.config;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.google.common.io.Files;
+
+/**
+ * Test {@link XMLObjectProviderConfigurationCompiler}.
+ */
+public class XMLObjectProviderConfigurationCompilerTest {
+
+    /** Output directory of the generated sources. */
+    private File outputDirectory;
+
+    @BeforeMethod
+    protected void setUp() {
+        outputDirectory = Files.createTempDir();
+    }
+
+    @AfterMethod
+    protected void tearDown() {
+        File generated = new File(outputDirectory, "org/opensaml/core/xml/config/TestPrecompiledProviders.java");
+        generated.delete();
+        generated.getParentFile().delete();
+        new File(outputDirectory, "org/opensaml/core/xml").delete();
+        new File(outputDirectory, "org/opensaml/core").delete();
+        new File(outputDirectory, "org/opensaml").delete();
+        new File(outputDirectory, "org").delete();
+        outputDirectory.delete();
+    }
+
+    @Test
+    public void testCompile() throws XMLConfigurationException, IOException {
+        XMLObjectProviderConfigurationCompiler.compile(new File("src/main/resources"), outputDirectory,
+                "org.opensaml.core.xml.config.TestPrecompiledProviders");
+
+        File generated = new File(outputDirectory, "org/opensaml/core/xml/config/TestPrecompiledProviders.java");
+        Assert.assertTrue(generated.isFile(), "Generated source was not written");
+
+        String source = Files.toString(generated, StandardCharsets.UTF_8);
+        Assert.assertTrue(source.contains("package org.opensaml.core.xml.config;"));
+        Assert.assertTrue(source.contains("public final class TestPrecompiledProviders implements "
+                + "PrecompiledXMLObjectProviderConfiguration"));
+        Assert.assertTrue(source.contains("case \"default-config.xml\":"));
+        Assert.assertTrue(source.contains("case \"schema-config.xml\":"));
+        Assert.assertTrue(source.contains(
+                "new QName(\"http://www.w3.org/2001/XMLSchema\", \"string\", \"xs\")"));
+        Assert.assertTrue(source.contains("new org.opensaml.core.xml.schema.impl.XSStringBuilder()"));
+        Assert.assertTrue(source.contains("final boolean lazy = registry.isLazyProviderInstantiation();"));
+        Assert.assertTrue(source.contains("\"org.opensaml.core.xml.schema.impl.XSStringBuilder\","));
+    }
+
+    @Test(expectedExceptions = XMLConfigurationException.class)
+    public void testMissingResourceDirectory() throws XMLConfigurationException {
+        XMLObjectProviderConfigurationCompiler.compile(new File("src/main/does-not-exist"), outputDirectory,
+                "org.opensaml.core.xml.config.TestPrecompiledProviders");
+    }
+
+}
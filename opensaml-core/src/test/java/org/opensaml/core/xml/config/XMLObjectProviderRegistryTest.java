@@ -0,0 +1,118 @@
+/*
+ * Licensed to the University Corporation for Advanced Internet Development,
+ * Inc. (UCAID) under one or more contributor license agreements.  See the
+ * NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The UCAID licenses this file to You under the Apache
+ * License, Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.opensaml.core.xml.config;
+
+import javax.xml.namespace.QName;
+
+import org.opensaml.core.xml.XMLObjectBuilder;
+import org.opensaml.core.xml.XMLRuntimeException;
+import org.opensaml.core.xml.schema.XSString;
+import org.opensaml.core.xml.schema.impl.XSStringBuilder;
+import org.opensaml.core.xml.schema.impl.XSStringMarshaller;
+import org.opensaml.core.xml.schema.impl.XSStringUnmarshaller;
+import org.testng.Assert;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+/**
+ * Test lazy object provider instantiation in {@link XMLObjectProviderRegistry}.
+ */
+public class XMLObjectProviderRegistryTest {
+
+    /** Name of the object provider under test. */
+    private QName providerName;
+
+    /** The registry under test. */
+    private XMLObjectProviderRegistry registry;
+
+    @BeforeMethod
+    protected void setUp() {
+        providerName = new QName("urn:test:ns", "Lazy", "test");
+        registry = new XMLObjectProviderRegistry();
+    }
+
+    @Test
+    public void testLazyInstantiation() {
+        registry.setLazyProviderInstantiation(true);
+        registry.registerObjectProvider(providerName, XSStringBuilder.class.getName(),
+                XSStringMarshaller.class.getName(), XSStringUnmarshaller.class.getName(), null);
+
+        final XMLObjectBuilder<?> builder = registry.getBuilderFactory().getBuilder(providerName);
+        Assert.assertTrue(builder instanceof XSStringBuilder);
+        Assert.assertSame(registry.getBuilderFactory().getBuilder(providerName), builder);
+        Assert.assertTrue(registry.getMarshallerFactory().getMarshaller(providerName) instanceof XSStringMarshaller);
+        Assert.assertTrue(
+                registry.getUnmarshallerFactory().getUnmarshaller(providerName) instanceof XSStringUnmarshaller);
+
+        final XSString xsString = (XSString) builder.buildObject(providerName);
+        Assert.assertNotNull(xsString);
+    }
+
+    @Test
+    public void testLazyRegistrationListing() {
+        registry.setLazyProviderInstantiation(true);
+        registry.registerObjectProvider(providerName, XSStringBuilder.class.getName(),
+                XSStringMarshaller.class.getName(), XSStringUnmarshaller.class.getName(), null);
+
+        Assert.assertTrue(registry.getBuilderFactory().getBuilders().get(providerName) instanceof XSStringBuilder);
+        Assert.assertTrue(
+                registry.getMarshallerFactory().getMarshallers().get(providerName) instanceof XSStringMarshaller);
+        Assert.assertTrue(registry.getUnmarshallerFactory().getUnmarshallers().get(providerName)
+                instanceof XSStringUnmarshaller);
+    }
+
+    @Test
+    public void testLazyDeregistration() {
+        registry.setLazyProviderInstantiation(true);
+        registry.registerObjectProvider(providerName, XSStringBuilder.class.getName(),
+                XSStringMarshaller.class.getName(), XSStringUnmarshaller.class.getName(), null);
+        registry.deregisterObjectProvider(providerName);
+
+        Assert.assertNull(registry.getBuilderFactory().getBuilder(providerName));
+        Assert.assertNull(registry.getMarshallerFactory().getMarshaller(providerName));
+        Assert.assertNull(registry.getUnmarshallerFactory().getUnmarshaller(providerName));
+    }
+
+    @Test
+    public void testEagerRegistrationReplacesLazy() {
+        registry.setLazyProviderInstantiation(true);
+        registry.registerObjectProvider(providerName, "org.opensaml.core.xml.DoesNotExist",
+                XSStringMarshaller.class.getName(), XSStringUnmarshaller.class.getName(), null);
+
+        final XSStringBuilder builder = new XSStringBuilder();
+        registry.registerObjectProvider(providerName, builder, new XSStringMarshaller(), new XSStringUnmarshaller());
+        Assert.assertSame(registry.getBuilderFactory().getBuilder(providerName), builder);
+    }
+
+    @Test(expectedExceptions = XMLRuntimeException.class)
+    public void testLazyInvalidClass() {
+        registry.setLazyProviderInstantiation(true);
+        registry.registerObjectProvider(providerName, "org.opensaml.core.xml.DoesNotExist",
+                XSStringMarshaller.class.getName(), XSStringUnmarshaller.class.getName(), null);
+
+        registry.getBuilderFactory().getBuilder(providerName);
+    }
+
+    @Test(expectedExceptions = XMLRuntimeException.class)
+    public void testEagerInvalidClass() {
+        registry.setLazyProviderInstantiation(false);
+        registry.registerObjectProvider(providerName, XSStringMarshaller.class.getName(),
+                XSStringMarshaller.class.getName(), XSStringUnmarshaller.class.getName(), null);
+    }
+
+}
@@ -0,0 +1,88 @@
+/*
+ * Licensed to the University Corporation for Advanced Internet Development, 
+ * Inc. (UCAID) under one or more contributor license agreements.  See the 
+ * NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The UCAID licenses this file to You under the Apache 
+ * License, Version 2.0 (the "License"); you may not use this file except in 
+ * compliance with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.opensaml.core.xml.config.precompiled;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import javax.xml.namespace.QName;
+
+import org.opensaml.core.xml.config.PrecompiledXMLObjectProviderConfiguration;
+import org.opensaml.core.xml.config.XMLObjectProviderRegistry;
+
+/**
+ * Stand-in for a generated precompiled provider configuration, for testing classes only.
+ * 
+ * <p>It knows only the resource "default-config.xml", for which it registers {@link #MARKER} instead of the providers
+ * of the resource, so that tests can tell which path registered a resource.</p>
+ */
+public class PrecompiledXMLObjectProviders implements PrecompiledXMLObjectProviderConfiguration {
+
+    /** Provider registered in place of the providers of the known resource. */
+    public static final QName MARKER = new QName("urn:example:precompiled", "Marker");
+
+    /** The resource known to this configuration. */
+    public static final String RESOURCE = "default-config.xml";
+
+    /** Resources which this configuration was asked to register. */
+    private static final List<String> REQUESTED = Collections.synchronizedList(new ArrayList<String>());
+
+    /** Whether to fail with a linkage error after registering the marker. */
+    private static volatile boolean failing;
+
+    /** {@inheritDoc} */
+    public boolean register(final String resource, final XMLObjectProviderRegistry registry) {
+        REQUESTED.add(resource);
+        if (!RESOURCE.equals(resource)) {
+            return false;
+        }
+        registry.registerObjectProvider(MARKER, "org.opensaml.core.xml.mock.SimpleXMLObjectBuilder",
+                "org.opensaml.core.xml.mock.SimpleXMLObjectMarshaller",
+                "org.opensaml.core.xml.mock.SimpleXMLObjectUnmarshaller", null);
+        if (failing) {
+            throw new NoClassDefFoundError("org/example/Missing");
+        }
+        return true;
+    }
+
+    /**
+     * Get the resources which instances were asked to register since the last {@link #reset()}.
+     * 
+     * @return the requested resources
+     */
+    public static List<String> getRequested() {
+        return new ArrayList<>(REQUESTED);
+    }
+
+    /**
+     * Set whether registration of the known resource fails with a linkage error.
+     * 
+     * @param fail whether to fail
+     */
+    public static void setFailing(final boolean fail) {
+        failing = fail;
+    }
+
+    /** Forget the requested resources and stop failing. */
+    public static void reset() {
+        REQUESTED.clear();
+        failing = false;
+    }
+
+}
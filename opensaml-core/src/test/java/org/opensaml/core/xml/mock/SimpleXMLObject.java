@@ -28,6 +28,7 @@ import javax.xml.namespace.QName;
 
 import org.opensaml.core.xml.AbstractXMLObject;
 import org.opensaml.core.xml.AttributeExtensibleXMLObject;
+import org.opensaml.core.xml.DeferrableChildrenXMLObject;
 import org.opensaml.core.xml.ElementExtensibleXMLObject;
 import org.opensaml.core.xml.XMLObject;
 import org.opensaml.core.xml.util.AttributeMap;
@@ -37,7 +38,8 @@ import org.opensaml.core.xml.util.XMLObjectChildrenList;
 /**
  * Simple XMLObject that can be used for testing
  */
-public class SimpleXMLObject extends AbstractXMLObject  implements ElementExtensibleXMLObject, AttributeExtensibleXMLObject {
+public class SimpleXMLObject extends AbstractXMLObject  implements ElementExtensibleXMLObject, AttributeExtensibleXMLObject,
+        DeferrableChildrenXMLObject {
     
     /** Default namespace */
     public final static String NAMESPACE = "http://www.example.org/testObjects";
@@ -123,21 +125,30 @@ public class SimpleXMLObject extends AbstractXMLObject  implements ElementExtens
      * @return the list of child SimpleXMLObjects
      */
     public List<SimpleXMLObject> getSimpleXMLObjects(){
+        resolveDeferredChildElements();
         return simpleXMLObjects;
     }
     
     /** {@inheritDoc} */
     public List<XMLObject> getUnknownXMLObjects() {
+        resolveDeferredChildElements();
         return unknownXMLObjects;
     }
     
     /** {@inheritDoc} */
     public List<XMLObject> getUnknownXMLObjects(QName typeOrName) {
+        resolveDeferredChildElements();
         return (List<XMLObject>) unknownXMLObjects.subList(typeOrName);
     }
 
+    /** {@inheritDoc} */
+    public boolean isDeferrableChildElement(QName elementName) {
+        return true;
+    }
+
     /** {@inheritDoc} */
     public List<XMLObject> getOrderedChildren() {
+        resolveDeferredChildElements();
         List<XMLObject> children = new LinkedList<>();
         
         children.addAll(simpleXMLObjects);
@@ -0,0 +1,199 @@
+/*
+ * Licensed to the University Corporation for Advanced Internet Development,
+ * Inc. (UCAID) under one or more contributor license agreements.  See the
+ * NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The UCAID licenses this file to You under the Apache
+ * License, Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.opensaml.core.xml.util;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.xml.XMLConstants;
+import javax.xml.transform.dom.DOMSource;
+import javax.xml.transform.stream.StreamSource;
+import javax.xml.validation.Schema;
+import javax.xml.validation.SchemaFactory;
+import javax.xml.validation.Validator;
+import javax.xml.validation.ValidatorHandler;
+
+import net.shibboleth.utilities.java.support.xml.XMLParserException;
+
+import org.opensaml.core.xml.XMLObjectBaseTestCase;
+import org.opensaml.core.xml.config.XMLConfigurator;
+import org.testng.Assert;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+import org.w3c.dom.Document;
+import org.xml.sax.SAXException;
+
+/**
+ * Test for {@link SchemaValidatorPool}.
+ */
+public class SchemaValidatorPoolTest extends XMLObjectBaseTestCase {
+
+    /** Number of threads validating concurrently. */
+    private static final int THREADS = 8;
+
+    /** Number of validations by each thread. */
+    private static final int VALIDATIONS = 50;
+
+    private CountingSchema schema;
+
+    private SchemaValidatorPool validators;
+
+    private Document validDocument;
+
+    private Document invalidDocument;
+
+    @BeforeMethod
+    public void setUp() throws SAXException, XMLParserException {
+        final SchemaFactory factory = SchemaFactory.newInstance(XMLConstants.W3C_XML_SCHEMA_NS_URI);
+        schema = new CountingSchema(factory.newSchema(new StreamSource(
+                XMLConfigurator.class.getResourceAsStream(XMLConfigurator.XMLTOOLING_SCHEMA_LOCATION))));
+        validators = new SchemaValidatorPool(schema, 1);
+        validDocument = parseValid();
+        invalidDocument = parseInvalid();
+    }
+
+    @Test
+    public void testValid() throws SAXException, IOException {
+        // Twice, so that the pooled validator is reused.
+        validators.validate(new DOMSource(validDocument));
+        validators.validate(new DOMSource(validDocument));
+    }
+
+    @Test
+    public void testInvalid() throws IOException {
+        try {
+            validators.validate(new DOMSource(invalidDocument));
+            Assert.fail("Invalid document was validated");
+        } catch (final SAXException e) {
+            // expected
+        }
+
+        try {
+            validators.validate(new DOMSource(validDocument));
+        } catch (final SAXException e) {
+            Assert.fail("Valid document was not validated after a failure", e);
+        }
+    }
+
+    @Test
+    public void testValidatorReuse() throws SAXException, IOException {
+        for (int i = 0; i < 100; i++) {
+            validators.validate(new DOMSource(validDocument));
+            try {
+                validators.validate(new DOMSource(invalidDocument));
+                Assert.fail("Invalid document was validated");
+            } catch (final SAXException e) {
+                // expected
+            }
+        }
+        Assert.assertEquals(schema.getValidatorCount(), 1);
+    }
+
+    @Test
+    public void testConcurrentValidation() throws Exception {
+        final SchemaValidatorPool shared = new SchemaValidatorPool(schema, THREADS);
+        final ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            final List<Future<Integer>> results = new ArrayList<>(THREADS);
+            for (int i = 0; i < THREADS; i++) {
+                results.add(executor.submit(new Callable<Integer>() {
+                    public Integer call() throws Exception {
+                        // DOM implementations need not be thread-safe even for reading, so each thread parses its own.
+                        final Document valid = parseValid();
+                        final Document invalid = parseInvalid();
+                        int rejected = 0;
+                        for (int j = 0; j < VALIDATIONS; j++) {
+                            shared.validate(new DOMSource(valid));
+                            try {
+                                shared.validate(new DOMSource(invalid));
+                            } catch (final SAXException e) {
+                                rejected++;
+                            }
+                        }
+                        return rejected;
+                    }
+                }));
+            }
+
+            for (final Future<Integer> result : results) {
+                Assert.assertEquals(result.get().intValue(), VALIDATIONS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        // A thread holds at most one validator at a time and none is discarded, so no more are ever created.
+        Assert.assertTrue(schema.getValidatorCount() <= THREADS,
+                "Created " + schema.getValidatorCount() + " validators for " + THREADS + " threads");
+    }
+
+    private Document parseValid() throws XMLParserException {
+        return parserPool.parse(SchemaValidatorPoolTest.class.getResourceAsStream("/xmltooling-config.xml"));
+    }
+
+    private Document parseInvalid() throws XMLParserException {
+        return parserPool.parse(SchemaValidatorPoolTest.class.getResourceAsStream(
+                "/org/opensaml/core/xml/SimpleXMLObjectWithContent.xml"));
+    }
+
+    /** Schema which counts the validators created from it. */
+    private static class CountingSchema extends Schema {
+
+        /** The schema validated against. */
+        private final Schema schema;
+
+        /** Number of validators created. */
+        private final AtomicInteger validatorCount = new AtomicInteger();
+
+        /**
+         * Constructor.
+         *
+         * @param wrapped the schema validated against
+         */
+        CountingSchema(final Schema wrapped) {
+            schema = wrapped;
+        }
+
+        /**
+         * Get the number of validators created.
+         *
+         * @return the number of validators created
+         */
+        int getValidatorCount() {
+            return validatorCount.get();
+        }
+
+        /** {@inheritDoc} */
+        public Validator newValidator() {
+            validatorCount.incrementAndGet();
+            return schema.newValidator();
+        }
+
+        /** {@inheritDoc} */
+        public ValidatorHandler newValidatorHandler() {
+            return schema.newValidatorHandler();
+        }
+    }
+
+}
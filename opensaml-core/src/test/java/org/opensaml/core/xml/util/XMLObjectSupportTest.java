@@ -67,6 +67,31 @@ public class XMLObjectSupportTest extends XMLObjectBaseTestCase {
         Assert.assertNull(clonedChildObj.getDOM(), "Cloned child DOM node was not null");
         
         Assert.assertEquals(clonedChildObj.getValue(), "FooBarBaz", "Text content of child was not the expected value");
+        
+        Assert.assertNull(origParentObj.getDOM(), "Original parent was marshalled");
+        Assert.assertNull(origChildObj.getDOM(), "Original child was marshalled");
+    }
+    
+    /** Tests cloning an XMLObject with attributes and a cached DOM. */
+    @Test
+    public void testXMLObjectCloneWithDropDOMAttributes() throws MarshallingException, UnmarshallingException {
+        SimpleXMLObject origParentObj =
+                (SimpleXMLObject) unmarshallElement("/org/opensaml/core/xml/SimpleXMLObjectWithAttribute.xml");
+        SimpleXMLObject origChildObj = (SimpleXMLObject) XMLObjectProviderRegistrySupport.getBuilderFactory()
+                .getBuilder(SimpleXMLObject.ELEMENT_NAME).buildObject(SimpleXMLObject.ELEMENT_NAME);
+        origChildObj.setId("Serenity");
+        origParentObj.getSimpleXMLObjects().add(origChildObj);
+        
+        SimpleXMLObject clonedParentObj = XMLObjectSupport.cloneXMLObject(origParentObj, CloneOutputOption.DropDOM);
+        
+        Assert.assertNull(clonedParentObj.getDOM(), "Cloned parent DOM node was not null");
+        Assert.assertEquals(clonedParentObj.getId(), origParentObj.getId(), "ID of parent was not copied");
+        Assert.assertNotNull(clonedParentObj.resolveID("Serenity"), "ID of child was not indexed in the clone");
+        Assert.assertNull(origChildObj.getDOM(), "Original child was marshalled");
+        
+        SimpleXMLObject clonedChildObj = clonedParentObj.getSimpleXMLObjects().get(0);
+        Assert.assertFalse(origChildObj == clonedChildObj, "Child XMLObjects were the same reference");
+        Assert.assertTrue(clonedChildObj.getParent() == clonedParentObj, "Cloned child had the wrong parent");
     }
     
     /** Tests cloning an XMLObject. */
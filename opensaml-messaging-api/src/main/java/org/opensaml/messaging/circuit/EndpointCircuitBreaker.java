@@ -0,0 +1,95 @@
+/*
+ * Licensed to the University Corporation for Advanced Internet Development, 
+ * Inc. (UCAID) under one or more contributor license agreements.  See the 
+ * NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The UCAID licenses this file to You under the Apache 
+ * License, Version 2.0 (the "License"); you may not use this file except in 
+ * compliance with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.opensaml.messaging.circuit;
+
+import java.util.List;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.ThreadSafe;
+
+import net.shibboleth.utilities.java.support.annotation.constraint.NonnullElements;
+import net.shibboleth.utilities.java.support.annotation.constraint.NotEmpty;
+
+/**
+ * Tracks the outcome and latency of requests to remote endpoints, and stops requests being sent to an endpoint which
+ * is failing or slow until it has had time to recover.
+ * 
+ * <p>
+ * Endpoints are grouped by host, so that one breaker may be shared by every client calling the same servers. Each
+ * request must acquire a {@link Permit} before being sent, and release it once the outcome is known. While an
+ * endpoint's circuit is {@link State#OPEN} no permits are granted, so its clients fail at once instead of tying up
+ * threads waiting on timeouts. After a while the circuit becomes {@link State#HALF_OPEN} and a few probe requests are
+ * let through, closing the circuit again if they succeed.
+ * </p>
+ */
+@ThreadSafe
+public interface EndpointCircuitBreaker {
+
+    /** State of the circuit of an endpoint. */
+    enum State {
+        /** Requests are sent as normal. */
+        CLOSED,
+
+        /** Requests are refused. */
+        OPEN,
+
+        /** A limited number of probe requests are sent to test whether the endpoint has recovered. */
+        HALF_OPEN
+    }
+
+    /**
+     * Acquire permission to send a request to an endpoint.
+     * 
+     * @param endpoint the endpoint
+     * 
+     * @return a permit to release once the outcome of the request is known, or null if the request must not be sent
+     */
+    @Nullable Permit acquire(@Nonnull @NotEmpty final String endpoint);
+
+    /**
+     * Get the state of the circuit of an endpoint.
+     * 
+     * @param endpoint the endpoint
+     * 
+     * @return the state
+     */
+    @Nonnull State getState(@Nonnull @NotEmpty final String endpoint);
+
+    /**
+     * Order endpoints by preference: those whose circuit is closed first, fastest first, then those which are
+     * half-open, then those which are open.
+     * 
+     * @param endpoints the endpoints
+     * 
+     * @return a new list of the endpoints in order of preference
+     */
+    @Nonnull @NonnullElements List<String> rank(@Nonnull @NonnullElements final List<String> endpoints);
+
+    /** Permission to send a single request to an endpoint. */
+    interface Permit {
+
+        /**
+         * Record the outcome of the request. Must be called exactly once, whether or not the request was sent.
+         * 
+         * @param success whether the endpoint responded, regardless of what the response was
+         */
+        void release(final boolean success);
+    }
+
+}
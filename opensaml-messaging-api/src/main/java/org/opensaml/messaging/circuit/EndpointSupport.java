@@ -0,0 +1,70 @@
+/*
+ * Licensed to the University Corporation for Advanced Internet Development, 
+ * Inc. (UCAID) under one or more contributor license agreements.  See the 
+ * NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The UCAID licenses this file to You under the Apache 
+ * License, Version 2.0 (the "License"); you may not use this file except in 
+ * compliance with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.opensaml.messaging.circuit;
+
+import java.net.URI;
+import java.net.URISyntaxException;
+
+import javax.annotation.Nonnull;
+
+import net.shibboleth.utilities.java.support.annotation.constraint.NotEmpty;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/** A support class for operations on remote endpoints. */
+public final class EndpointSupport {
+
+    /** Logger. */
+    @Nonnull private static final Logger LOG = LoggerFactory.getLogger(EndpointSupport.class);
+
+    /** Constructor. */
+    private EndpointSupport() {
+
+    }
+
+    /**
+     * Get the key by which calls to an endpoint are grouped with those to other endpoints on the same server.
+     * 
+     * <p>
+     * The key is the lower-cased scheme and host of the endpoint, with its port or the default port of the scheme.
+     * If the endpoint cannot be parsed as an absolute URI with a host, the key is the endpoint itself.
+     * </p>
+     * 
+     * @param endpoint the endpoint
+     * 
+     * @return the key of the endpoint
+     */
+    @Nonnull @NotEmpty public static String getEndpointKey(@Nonnull @NotEmpty final String endpoint) {
+        try {
+            final URI uri = new URI(endpoint);
+            if (uri.getScheme() != null && uri.getHost() != null) {
+                final String scheme = uri.getScheme().toLowerCase();
+                int port = uri.getPort();
+                if (port == -1) {
+                    port = "https".equals(scheme) ? 443 : 80;
+                }
+                return scheme + "://" + uri.getHost().toLowerCase() + ":" + port;
+            }
+        } catch (final URISyntaxException e) {
+            LOG.debug("Endpoint {} is not a valid URI, keying it by the whole endpoint", endpoint);
+        }
+        return endpoint;
+    }
+
+}
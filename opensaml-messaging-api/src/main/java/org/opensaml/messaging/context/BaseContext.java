@@ -20,13 +20,14 @@ package org.opensaml.messaging.context;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
 import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 
 import net.shibboleth.utilities.java.support.annotation.constraint.NonnullElements;
 import net.shibboleth.utilities.java.support.annotation.constraint.NotEmpty;
-import net.shibboleth.utilities.java.support.collection.ClassIndexedSet;
 import net.shibboleth.utilities.java.support.logic.Constraint;
 
 import org.opensaml.messaging.MessageRuntimeException;
@@ -56,9 +57,18 @@ import org.slf4j.LoggerFactory;
  * <strong>MUST</strong> have a no-arg constructor. If the requested subcontext does not conform 
  * to this convention, auto-creation will fail.
  * </p>
+ * 
+ * <p>
+ * Subcontext lookups by class are indexed by an identifier assigned to each class on first use, and the constructors
+ * used for auto-creation and the classes named in lookups by name are resolved once and cached.
+ * </p>
  */
 public abstract class BaseContext implements Iterable<BaseContext> {
 
+    /** Subcontext classes resolved by name. */
+    @Nonnull private static final ConcurrentMap<String,Class<? extends BaseContext>> CLASSES_BY_NAME =
+            new ConcurrentHashMap<>();
+
     /** Logger. */
     @Nonnull private final Logger log = LoggerFactory.getLogger(BaseContext.class);
     
@@ -66,14 +76,14 @@ public abstract class BaseContext implements Iterable<BaseContext> {
     @Nullable private BaseContext parent;
 
     /** The subcontexts being managed. */
-    @Nonnull @NonnullElements private ClassIndexedSet<BaseContext> subcontexts;
+    @Nonnull @NonnullElements private final SubcontextStore subcontexts;
     
     /** Flag indicating whether subcontexts should, by default, be created if they do not exist. */
     private boolean autoCreateSubcontexts;
     
     /** Constructor. Generates a random context id. */
     public BaseContext() {
-        subcontexts = new ClassIndexedSet<>();
+        subcontexts = new SubcontextStore();
         
         setAutoCreateSubcontexts(false);
     }
@@ -158,7 +168,12 @@ public abstract class BaseContext implements Iterable<BaseContext> {
      */ 
     @Nullable public BaseContext getSubcontext(@Nonnull @NotEmpty final String className, final boolean autocreate)
             throws ClassNotFoundException {
-        return getSubcontext(Class.forName(className).asSubclass(BaseContext.class), autocreate);
+        Class<? extends BaseContext> clazz = CLASSES_BY_NAME.get(className);
+        if (clazz == null) {
+            clazz = Class.forName(className).asSubclass(BaseContext.class);
+            CLASSES_BY_NAME.putIfAbsent(className, clazz);
+        }
+        return getSubcontext(clazz, autocreate);
     }
     
     /**
@@ -305,9 +320,8 @@ public abstract class BaseContext implements Iterable<BaseContext> {
      * @return the new subcontext instance
      */
     @Nonnull protected <T extends BaseContext> T createSubcontext(@Nonnull final Class<T> clazz) {
-        Constructor<T> constructor;
         try {
-            constructor = clazz.getConstructor();
+            final Constructor<T> constructor = SubcontextStore.getType(clazz).getConstructor(clazz);
             return constructor.newInstance();
         } catch (final SecurityException e) {
             log.error("Security error on creating subcontext", e);
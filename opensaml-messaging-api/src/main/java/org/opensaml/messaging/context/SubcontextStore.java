@@ -0,0 +1,284 @@
+/*
+ * Licensed to the University Corporation for Advanced Internet Development, 
+ * Inc. (UCAID) under one or more contributor license agreements.  See the 
+ * NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The UCAID licenses this file to You under the Apache 
+ * License, Version 2.0 (the "License"); you may not use this file except in 
+ * compliance with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.opensaml.messaging.context;
+
+import java.lang.reflect.Constructor;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.NotThreadSafe;
+
+/**
+ * Holds the subcontexts of a {@link BaseContext}, at most one per class, in the order they were added.
+ * 
+ * <p>
+ * Each subcontext class is assigned a small integer identifier on first use, and subcontexts are located by probing
+ * an open-addressed table indexed by that identifier. As contexts normally hold only a handful of children, this
+ * avoids both the hashing and the per-context allocation of a general purpose map, and a context which never holds
+ * a child allocates nothing at all.
+ * </p>
+ */
+@NotThreadSafe
+final class SubcontextStore implements Iterable<BaseContext> {
+
+    /** Initial number of subcontexts that may be held before growing. */
+    private static final int INITIAL_CAPACITY = 4;
+
+    /** Source of subcontext class identifiers. */
+    @Nonnull private static final AtomicInteger NEXT_ID = new AtomicInteger();
+
+    /** Information about each subcontext class, computed on first use. */
+    @Nonnull private static final ClassValue<ContextType> TYPES = new ClassValue<ContextType>() {
+        protected ContextType computeValue(final Class<?> type) {
+            return new ContextType(NEXT_ID.getAndIncrement());
+        }
+    };
+
+    /** The subcontexts, in the order they were added. */
+    @Nullable private BaseContext[] entries;
+
+    /** Table of one plus the position in {@link #entries} of each subcontext, or zero for an empty slot. */
+    @Nullable private int[] table;
+
+    /** Number of subcontexts held. */
+    private int size;
+
+    /** Number of structural modifications, to detect changes during iteration. */
+    private int modCount;
+
+    /**
+     * Get the information held about a subcontext class.
+     * 
+     * @param clazz the subcontext class
+     * 
+     * @return the information held about the class
+     */
+    @Nonnull static ContextType getType(@Nonnull final Class<?> clazz) {
+        return TYPES.get(clazz);
+    }
+
+    /**
+     * Get the subcontext of a given class.
+     * 
+     * @param <T> the type of the subcontext
+     * @param clazz the class of the subcontext
+     * 
+     * @return the subcontext, or null if none is held
+     */
+    @Nullable <T extends BaseContext> T get(@Nonnull final Class<T> clazz) {
+        final int index = indexOf(clazz);
+        return index >= 0 ? clazz.cast(entries[index]) : null;
+    }
+
+    /**
+     * Get whether a subcontext of a given class is held.
+     * 
+     * @param clazz the class of the subcontext
+     * 
+     * @return true iff a subcontext of the class is held
+     */
+    boolean contains(@Nonnull final Class<?> clazz) {
+        return indexOf(clazz) >= 0;
+    }
+
+    /**
+     * Add a subcontext.
+     * 
+     * @param subcontext the subcontext to add
+     * @param replace whether to replace a subcontext of the same class, if one is held
+     * 
+     * @return the subcontext replaced, or null if none
+     * 
+     * @throws IllegalArgumentException if a subcontext of the same class is held and replace is false
+     */
+    @Nullable BaseContext add(@Nonnull final BaseContext subcontext, final boolean replace) {
+        final int index = indexOf(subcontext.getClass());
+        if (index >= 0) {
+            if (!replace) {
+                throw new IllegalArgumentException("A subcontext of type " + subcontext.getClass().getName()
+                        + " is already present");
+            }
+            final BaseContext existing = entries[index];
+            entries[index] = subcontext;
+            return existing;
+        }
+
+        if (entries == null) {
+            entries = new BaseContext[INITIAL_CAPACITY];
+            table = new int[INITIAL_CAPACITY * 2];
+        } else if (size == entries.length) {
+            final BaseContext[] grown = new BaseContext[size * 2];
+            System.arraycopy(entries, 0, grown, 0, size);
+            entries = grown;
+            table = new int[grown.length * 2];
+            for (int i = 0; i < size; i++) {
+                insert(i);
+            }
+        }
+        entries[size] = subcontext;
+        insert(size++);
+        modCount++;
+        return null;
+    }
+
+    /**
+     * Remove a subcontext, if it is held.
+     * 
+     * @param subcontext the subcontext to remove
+     * 
+     * @return true iff the subcontext was held
+     */
+    boolean remove(@Nonnull final BaseContext subcontext) {
+        final int index = indexOf(subcontext.getClass());
+        if (index < 0 || entries[index] != subcontext) {
+            return false;
+        }
+
+        // Children are few, so the positions are closed up and the table rebuilt rather than tombstoned.
+        System.arraycopy(entries, index + 1, entries, index, size - index - 1);
+        entries[--size] = null;
+        for (int i = 0; i < table.length; i++) {
+            table[i] = 0;
+        }
+        for (int i = 0; i < size; i++) {
+            insert(i);
+        }
+        modCount++;
+        return true;
+    }
+
+    /** Remove all subcontexts. */
+    void clear() {
+        if (size > 0) {
+            entries = null;
+            table = null;
+            size = 0;
+            modCount++;
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    @Nonnull public Iterator<BaseContext> iterator() {
+        return new Iterator<BaseContext>() {
+
+            /** Position of the next subcontext. */
+            private int next;
+
+            /** Expected number of modifications. */
+            private final int expectedModCount = modCount;
+
+            public boolean hasNext() {
+                return next < size;
+            }
+
+            public BaseContext next() {
+                if (modCount != expectedModCount) {
+                    throw new ConcurrentModificationException();
+                } else if (next >= size) {
+                    throw new NoSuchElementException();
+                }
+                return entries[next++];
+            }
+
+            public void remove() {
+                throw new UnsupportedOperationException();
+            }
+        };
+    }
+
+    /**
+     * Find the position of the subcontext of a given class.
+     * 
+     * @param clazz the class of the subcontext
+     * 
+     * @return the position in {@link #entries}, or -1 if none is held
+     */
+    private int indexOf(@Nonnull final Class<?> clazz) {
+        if (size == 0) {
+            return -1;
+        }
+        final int mask = table.length - 1;
+        for (int slot = getType(clazz).id & mask;; slot = (slot + 1) & mask) {
+            final int entry = table[slot];
+            if (entry == 0) {
+                return -1;
+            } else if (entries[entry - 1].getClass() == clazz) {
+                return entry - 1;
+            }
+        }
+    }
+
+    /**
+     * Add a position in {@link #entries} to the table.
+     * 
+     * @param index the position
+     */
+    private void insert(final int index) {
+        final int mask = table.length - 1;
+        int slot = getType(entries[index].getClass()).id & mask;
+        while (table[slot] != 0) {
+            slot = (slot + 1) & mask;
+        }
+        table[slot] = index + 1;
+    }
+
+    /** Information about a subcontext class. */
+    static final class ContextType {
+
+        /** Identifier of the class. */
+        private final int id;
+
+        /** No-arg constructor of the class, once resolved. */
+        @Nullable private volatile Constructor<?> constructor;
+
+        /**
+         * Constructor.
+         * 
+         * @param typeId identifier of the class
+         */
+        private ContextType(final int typeId) {
+            id = typeId;
+        }
+
+        /**
+         * Get the no-arg constructor of the class, resolving it on first use.
+         * 
+         * @param <T> the type of the class
+         * @param clazz the class
+         * 
+         * @return the constructor
+         * 
+         * @throws NoSuchMethodException if the class has no public no-arg constructor
+         */
+        @SuppressWarnings("unchecked")
+        @Nonnull <T> Constructor<T> getConstructor(@Nonnull final Class<T> clazz) throws NoSuchMethodException {
+            Constructor<?> result = constructor;
+            if (result == null) {
+                result = clazz.getConstructor();
+                constructor = result;
+            }
+            return (Constructor<T>) result;
+        }
+    }
+
+}
@@ -20,6 +20,7 @@ package org.opensaml.messaging.decoder.servlet;
 import java.io.InputStream;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 
 import net.shibboleth.utilities.java.support.component.ComponentInitializationException;
 import net.shibboleth.utilities.java.support.logic.Constraint;
@@ -30,6 +31,7 @@ import net.shibboleth.utilities.java.support.xml.XMLParserException;
 import org.opensaml.core.xml.XMLObject;
 import org.opensaml.core.xml.config.XMLObjectProviderRegistrySupport;
 import org.opensaml.core.xml.io.MarshallingException;
+import org.opensaml.core.xml.io.StreamingXMLObjectUnmarshaller;
 import org.opensaml.core.xml.io.UnmarshallingException;
 import org.opensaml.core.xml.util.XMLObjectSupport;
 import org.opensaml.messaging.decoder.MessageDecodingException;
@@ -54,6 +56,9 @@ public abstract class BaseHttpServletRequestXMLMessageDecoder<MessageType extend
     /** Parser pool used to deserialize the message. */
     private ParserPool parserPool;
 
+    /** Optional unmarshaller used to unmarshall the message without parsing it into a DOM first. */
+    @Nullable private StreamingXMLObjectUnmarshaller streamingUnmarshaller;
+
     /** Constructor. */
     public BaseHttpServletRequestXMLMessageDecoder() {
         parserPool = XMLObjectProviderRegistrySupport.getParserPool();
@@ -89,9 +94,33 @@ public abstract class BaseHttpServletRequestXMLMessageDecoder<MessageType extend
         parserPool = pool;
     }
     
+    /**
+     * Gets the unmarshaller used to unmarshall incoming messages without parsing them into a DOM first.
+     * 
+     * @return the streaming unmarshaller, or null if messages are parsed into a DOM and then unmarshalled
+     */
+    @Nullable public StreamingXMLObjectUnmarshaller getStreamingUnmarshaller() {
+        return streamingUnmarshaller;
+    }
+
+    /**
+     * Sets the unmarshaller used to unmarshall incoming messages without parsing them into a DOM first.
+     * 
+     * <p>
+     * Signed elements whose signatures are to be verified must be configured as DOM-required elements of the
+     * unmarshaller.
+     * </p>
+     * 
+     * @param unmarshaller the streaming unmarshaller, or null to parse messages into a DOM and then unmarshall them
+     */
+    public void setStreamingUnmarshaller(@Nullable final StreamingXMLObjectUnmarshaller unmarshaller) {
+        streamingUnmarshaller = unmarshaller;
+    }
+    
     /** {@inheritDoc} */
     protected void doDestroy() {
         parserPool = null;
+        streamingUnmarshaller = null;
         
         super.doDestroy();
     }
@@ -145,6 +174,9 @@ public abstract class BaseHttpServletRequestXMLMessageDecoder<MessageType extend
      */
     protected XMLObject unmarshallMessage(InputStream messageStream) throws MessageDecodingException {
         try {
+            if (streamingUnmarshaller != null) {
+                return streamingUnmarshaller.unmarshall(messageStream);
+            }
             XMLObject message = XMLObjectSupport.unmarshallFromInputStream(getParserPool(), messageStream);
             return message;
         } catch (XMLParserException e) {
@@ -0,0 +1,60 @@
+/*
+ * Licensed to the University Corporation for Advanced Internet Development, 
+ * Inc. (UCAID) under one or more contributor license agreements.  See the 
+ * NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The UCAID licenses this file to You under the Apache 
+ * License, Version 2.0 (the "License"); you may not use this file except in 
+ * compliance with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.opensaml.messaging.metrics;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.ThreadSafe;
+
+import net.shibboleth.utilities.java.support.annotation.constraint.NotEmpty;
+
+/**
+ * Intercepts the invocation of a component, such as a message handler or profile action, so that it may be timed or
+ * otherwise observed.
+ * 
+ * <p>
+ * Components accept an optional interceptor, and call it around each invocation only if one is set, so that
+ * instrumentation costs nothing beyond a null check when disabled. An interceptor is shared by every component
+ * configured with it and by concurrent requests, so must be thread-safe, and should be cheap enough to call on every
+ * invocation.
+ * </p>
+ */
+@ThreadSafe
+public interface InvocationInterceptor {
+
+    /**
+     * Called before a component is invoked.
+     * 
+     * @param componentId the ID of the component
+     * 
+     * @return a token to pass back to {@link #postInvoke(String, String, long, boolean)}, typically the start time
+     */
+    long preInvoke(@Nonnull @NotEmpty final String componentId);
+
+    /**
+     * Called after a component has been invoked, whether or not the invocation succeeded.
+     * 
+     * @param componentId the ID of the component
+     * @param profileId the ID of the profile the component was invoked for, if known
+     * @param token the token returned by {@link #preInvoke(String)}
+     * @param success whether the invocation succeeded
+     */
+    void postInvoke(@Nonnull @NotEmpty final String componentId, @Nullable final String profileId, final long token,
+            final boolean success);
+
+}
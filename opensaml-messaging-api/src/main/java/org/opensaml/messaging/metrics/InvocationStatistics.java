@@ -0,0 +1,194 @@
+/*
+ * Licensed to the University Corporation for Advanced Internet Development, 
+ * Inc. (UCAID) under one or more contributor license agreements.  See the 
+ * NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The UCAID licenses this file to You under the Apache 
+ * License, Version 2.0 (the "License"); you may not use this file except in 
+ * compliance with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.opensaml.messaging.metrics;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.Immutable;
+
+import net.shibboleth.utilities.java.support.annotation.constraint.NonNegative;
+import net.shibboleth.utilities.java.support.annotation.constraint.NotEmpty;
+import net.shibboleth.utilities.java.support.logic.Constraint;
+
+import com.google.common.base.MoreObjects;
+
+/**
+ * A snapshot of the statistics gathered about the invocations of a component for a profile.
+ * 
+ * <p>
+ * Latencies are in nanoseconds, and their distribution is held as a histogram of buckets of increasing upper bound,
+ * so that percentiles are reported as the upper bound of the bucket they fall in.
+ * </p>
+ */
+@Immutable
+public final class InvocationStatistics {
+
+    /** ID of the component. */
+    @Nonnull @NotEmpty private final String componentId;
+
+    /** ID of the profile, if known. */
+    @Nullable private final String profileId;
+
+    /** Number of invocations. */
+    @NonNegative private final long invocationCount;
+
+    /** Number of failed invocations. */
+    @NonNegative private final long errorCount;
+
+    /** Total latency of all invocations. */
+    @NonNegative private final long totalLatency;
+
+    /** Greatest latency of any invocation. */
+    @NonNegative private final long maxLatency;
+
+    /** Upper bounds of the non-empty histogram buckets, in increasing order. */
+    @Nonnull private final long[] bucketBounds;
+
+    /** Number of invocations in each bucket. */
+    @Nonnull private final long[] bucketCounts;
+
+    /**
+     * Constructor.
+     * 
+     * @param component ID of the component
+     * @param profile ID of the profile, if known
+     * @param errors number of failed invocations
+     * @param total total latency of all invocations
+     * @param max greatest latency of any invocation
+     * @param bounds upper bounds of the non-empty histogram buckets, in increasing order
+     * @param counts number of invocations in each bucket, which together make up the number of invocations
+     */
+    public InvocationStatistics(@Nonnull @NotEmpty final String component, @Nullable final String profile,
+            @NonNegative final long errors, @NonNegative final long total, @NonNegative final long max,
+            @Nonnull final long[] bounds, @Nonnull final long[] counts) {
+        componentId = Constraint.isNotNull(component, "Component ID cannot be null");
+        profileId = profile;
+        Constraint.isTrue(bounds.length == counts.length, "Histogram bounds and counts must be of the same length");
+        bucketBounds = bounds.clone();
+        bucketCounts = counts.clone();
+        long invocations = 0;
+        for (final long count : bucketCounts) {
+            invocations += count;
+        }
+        invocationCount = invocations;
+        errorCount = errors;
+        totalLatency = total;
+        maxLatency = max;
+    }
+
+    /**
+     * Get the ID of the component.
+     * 
+     * @return the component ID
+     */
+    @Nonnull @NotEmpty public String getComponentId() {
+        return componentId;
+    }
+
+    /**
+     * Get the ID of the profile the component was invoked for.
+     * 
+     * @return the profile ID, or null if not known
+     */
+    @Nullable public String getProfileId() {
+        return profileId;
+    }
+
+    /**
+     * Get the number of invocations.
+     * 
+     * @return the number of invocations
+     */
+    @NonNegative public long getInvocationCount() {
+        return invocationCount;
+    }
+
+    /**
+     * Get the number of failed invocations.
+     * 
+     * @return the number of failed invocations
+     */
+    @NonNegative public long getErrorCount() {
+        return errorCount;
+    }
+
+    /**
+     * Get the total latency of all invocations.
+     * 
+     * @return the total latency in nanoseconds
+     */
+    @NonNegative public long getTotalLatency() {
+        return totalLatency;
+    }
+
+    /**
+     * Get the mean latency of an invocation.
+     * 
+     * @return the mean latency in nanoseconds, or 0 if there have been no invocations
+     */
+    @NonNegative public long getMeanLatency() {
+        return invocationCount > 0 ? totalLatency / invocationCount : 0;
+    }
+
+    /**
+     * Get the greatest latency of any invocation.
+     * 
+     * @return the greatest latency in nanoseconds
+     */
+    @NonNegative public long getMaxLatency() {
+        return maxLatency;
+    }
+
+    /**
+     * Get the latency within which a given percentage of invocations completed.
+     * 
+     * @param percentile the percentage, from 0 to 100
+     * 
+     * @return the upper bound of the bucket holding the percentile in nanoseconds, or 0 if there have been no
+     *          invocations
+     */
+    @NonNegative public long getLatencyAtPercentile(final double percentile) {
+        Constraint.isTrue(percentile >= 0 && percentile <= 100, "Percentile must be between 0 and 100");
+        if (invocationCount == 0) {
+            return 0;
+        }
+
+        final long rank = Math.max(1, (long) Math.ceil(percentile / 100 * invocationCount));
+        long seen = 0;
+        for (int i = 0; i < bucketCounts.length; i++) {
+            seen += bucketCounts[i];
+            if (seen >= rank) {
+                return Math.min(bucketBounds[i], maxLatency);
+            }
+        }
+        return maxLatency;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this).add("componentId", componentId)
+                .add("profileId", profileId)
+                .add("invocations", invocationCount)
+                .add("errors", errorCount)
+                .add("meanLatency", getMeanLatency())
+                .add("maxLatency", maxLatency)
+                .toString();
+    }
+
+}
@@ -17,7 +17,10 @@
 
 package org.opensaml.messaging.context;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Iterator;
+import java.util.List;
 
 import org.testng.Assert;
 import org.testng.annotations.Test;
@@ -217,4 +220,62 @@ public class BaseContextTest {
         Assert.assertTrue(child instanceof TestContext);
     }
     
-}
\ No newline at end of file
+    /**
+     *  Test holding, removing and iterating over more subcontexts than the initial capacity.
+     */
+    public void testManySubcontexts() throws ClassNotFoundException {
+        final TestContext parent = new TestContext();
+        final List<Class<? extends BaseContext>> classes = Arrays.<Class<? extends BaseContext>>asList(
+                TestContext.class, Context1.class, Context2.class, Context3.class, Context4.class, Context5.class);
+        for (final Class<? extends BaseContext> clazz : classes) {
+            Assert.assertNotNull(parent.getSubcontext(clazz, true));
+        }
+        for (final Class<? extends BaseContext> clazz : classes) {
+            Assert.assertTrue(parent.containsSubcontext(clazz));
+            Assert.assertSame(parent.getSubcontext(clazz).getParent(), parent);
+        }
+        
+        parent.removeSubcontext(Context2.class);
+        parent.removeSubcontext(TestContext.class);
+        Assert.assertFalse(parent.containsSubcontext(Context2.class));
+        Assert.assertNull(parent.getSubcontext(TestContext.class));
+        Assert.assertSame(parent.getSubcontext(Context5.class.getName()), parent.getSubcontext(Context5.class));
+        
+        final List<Class<?>> remaining = new ArrayList<>();
+        for (final BaseContext child : parent) {
+            remaining.add(child.getClass());
+        }
+        Assert.assertEquals(remaining, Arrays.asList(Context1.class, Context3.class, Context4.class, Context5.class));
+        
+        parent.clearSubcontexts();
+        Assert.assertFalse(parent.iterator().hasNext());
+        Assert.assertNull(parent.getSubcontext(Context1.class));
+    }
+    
+    /**
+     *  Test that removing a context not held by the parent leaves the held one in place.
+     */
+    public void testRemoveOtherInstance() {
+        final TestContext parent = new TestContext();
+        final TestContext child = parent.getSubcontext(TestContext.class, true);
+        
+        parent.removeSubcontext(new TestContext());
+        Assert.assertSame(parent.getSubcontext(TestContext.class), child);
+    }
+    
+    /** Subcontext type for tests. */
+    public static class Context1 extends BaseContext {}
+
+    /** Subcontext type for tests. */
+    public static class Context2 extends BaseContext {}
+
+    /** Subcontext type for tests. */
+    public static class Context3 extends BaseContext {}
+
+    /** Subcontext type for tests. */
+    public static class Context4 extends BaseContext {}
+
+    /** Subcontext type for tests. */
+    public static class Context5 extends BaseContext {}
+
+}
@@ -0,0 +1,141 @@
+/*
+ * Licensed to the University Corporation for Advanced Internet Development, 
+ * Inc. (UCAID) under one or more contributor license agreements.  See the 
+ * NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The UCAID licenses this file to You under the Apache 
+ * License, Version 2.0 (the "License"); you may not use this file except in 
+ * compliance with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.opensaml.messaging.context;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+/**
+ * Test the SubcontextStore implementation.
+ */
+@Test
+public class SubcontextStoreTest {
+
+    /** Subcontext classes, more than fit in the initial table so that identifiers collide. */
+    private static final List<Class<? extends BaseContext>> CLASSES = new ArrayList<>();
+
+    static {
+        CLASSES.add(Type0.class);
+        CLASSES.add(Type1.class);
+        CLASSES.add(Type2.class);
+        CLASSES.add(Type3.class);
+        CLASSES.add(Type4.class);
+        CLASSES.add(Type5.class);
+        CLASSES.add(Type6.class);
+        CLASSES.add(Type7.class);
+        CLASSES.add(Type8.class);
+        CLASSES.add(Type9.class);
+    }
+
+    /**
+     * Test that each class is assigned one identifier and that its constructor is resolved once.
+     */
+    public void testContextType() throws NoSuchMethodException {
+        final SubcontextStore.ContextType type = SubcontextStore.getType(Type0.class);
+        Assert.assertSame(SubcontextStore.getType(Type0.class), type);
+        Assert.assertNotSame(SubcontextStore.getType(Type1.class), type);
+
+        // Class.getConstructor returns a new copy on each call, so the same instance shows it was cached.
+        Assert.assertSame(type.getConstructor(Type0.class), type.getConstructor(Type0.class));
+    }
+
+    /**
+     * Test a store against a map through a repeatable sequence of random operations, covering collisions in the
+     * table, growth, replacement, removal and clearing.
+     */
+    public void testAgainstMap() throws Exception {
+        final SubcontextStore store = new SubcontextStore();
+        final Map<Class<? extends BaseContext>, BaseContext> expected = new LinkedHashMap<>();
+        final Random random = new Random(46);
+
+        for (int i = 0; i < 5000; i++) {
+            final Class<? extends BaseContext> clazz = CLASSES.get(random.nextInt(CLASSES.size()));
+            final int operation = random.nextInt(100);
+            if (operation < 40) {
+                final BaseContext child = clazz.newInstance();
+                Assert.assertSame(store.add(child, true), expected.put(clazz, child));
+            } else if (operation < 55) {
+                final BaseContext child = clazz.newInstance();
+                try {
+                    store.add(child, false);
+                    Assert.assertFalse(expected.containsKey(clazz));
+                    expected.put(clazz, child);
+                } catch (final IllegalArgumentException e) {
+                    Assert.assertTrue(expected.containsKey(clazz));
+                }
+            } else if (operation < 70) {
+                final BaseContext held = expected.get(clazz);
+                Assert.assertFalse(store.remove(clazz.newInstance()));
+                if (held != null) {
+                    Assert.assertTrue(store.remove(held));
+                    expected.remove(clazz);
+                }
+            } else if (operation < 71) {
+                store.clear();
+                expected.clear();
+            }
+
+            for (final Class<? extends BaseContext> each : CLASSES) {
+                Assert.assertSame(store.get(each), expected.get(each));
+                Assert.assertEquals(store.contains(each), expected.containsKey(each));
+            }
+            final List<BaseContext> children = new ArrayList<>();
+            for (final BaseContext child : store) {
+                children.add(child);
+            }
+            Assert.assertEquals(children, new ArrayList<>(expected.values()));
+        }
+    }
+
+    /** Subcontext type for tests. */
+    public static class Type0 extends BaseContext {}
+
+    /** Subcontext type for tests. */
+    public static class Type1 extends BaseContext {}
+
+    /** Subcontext type for tests. */
+    public static class Type2 extends BaseContext {}
+
+    /** Subcontext type for tests. */
+    public static class Type3 extends BaseContext {}
+
+    /** Subcontext type for tests. */
+    public static class Type4 extends BaseContext {}
+
+    /** Subcontext type for tests. */
+    public static class Type5 extends BaseContext {}
+
+    /** Subcontext type for tests. */
+    public static class Type6 extends BaseContext {}
+
+    /** Subcontext type for tests. */
+    public static class Type7 extends BaseContext {}
+
+    /** Subcontext type for tests. */
+    public static class Type8 extends BaseContext {}
+
+    /** Subcontext type for tests. */
+    public static class Type9 extends BaseContext {}
+
+}
@@ -0,0 +1,751 @@
+/*
+ * Licensed to the University Corporation for Advanced Internet Development, 
+ * Inc. (UCAID) under one or more contributor license agreements.  See the 
+ * NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The UCAID licenses this file to You under the Apache 
+ * License, Version 2.0 (the "License"); you may not use this file except in 
+ * compliance with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.opensaml.messaging.circuit.impl;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.ThreadSafe;
+
+import net.shibboleth.utilities.java.support.annotation.Duration;
+import net.shibboleth.utilities.java.support.annotation.constraint.NonnullElements;
+import net.shibboleth.utilities.java.support.annotation.constraint.NotEmpty;
+import net.shibboleth.utilities.java.support.annotation.constraint.Positive;
+import net.shibboleth.utilities.java.support.component.AbstractInitializableComponent;
+import net.shibboleth.utilities.java.support.component.ComponentInitializationException;
+import net.shibboleth.utilities.java.support.component.ComponentSupport;
+import net.shibboleth.utilities.java.support.logic.Constraint;
+
+import org.opensaml.messaging.circuit.EndpointCircuitBreaker;
+import org.opensaml.messaging.circuit.EndpointSupport;
+import org.opensaml.messaging.metrics.InvocationInterceptor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * An {@link EndpointCircuitBreaker} which opens the circuit of an endpoint when too many of the requests completed
+ * within a sliding window of time have failed, or have been slow.
+ * 
+ * <p>
+ * The window is divided into {@link #WINDOW_BUCKETS} buckets, each counting the requests completed in its share of the
+ * window, so that old requests age out in steps without any per-request storage. The circuit is opened once at least
+ * the minimum number of requests have completed within the window, and the proportion of them which failed, or which
+ * took at least the slow request duration, reaches its threshold. It stays open for the open duration, after which
+ * the given number of probe requests are let through; if they all succeed promptly the circuit is closed with an
+ * empty window, and otherwise it is opened again.
+ * </p>
+ * 
+ * <p>
+ * Endpoints are grouped by scheme, host and port. If an {@link InvocationInterceptor} is set, each request is reported
+ * to it with that key as the component ID, and each refused request is reported as a failed invocation of the key
+ * followed by {@link #REFUSED_SUFFIX}, so that refusals do not distort the latency of the endpoint.
+ * </p>
+ */
+@ThreadSafe
+public class SlidingWindowCircuitBreaker extends AbstractInitializableComponent implements EndpointCircuitBreaker {
+
+    /** Number of buckets the window is divided into. */
+    public static final int WINDOW_BUCKETS = 10;
+
+    /** Suffix of the component ID with which refused requests are reported. */
+    @Nonnull @NotEmpty public static final String REFUSED_SUFFIX = "#refused";
+
+    /** Default duration of the window in milliseconds: 10 seconds. */
+    @Duration public static final long DEFAULT_WINDOW_DURATION = 10000;
+
+    /** Default minimum number of requests within the window for the circuit to be opened. */
+    public static final int DEFAULT_MINIMUM_REQUESTS = 10;
+
+    /** Default proportion of failed requests at which the circuit is opened. */
+    public static final double DEFAULT_FAILURE_RATE_THRESHOLD = 0.5;
+
+    /** Default duration in milliseconds at or above which a request is slow: 5 seconds. */
+    @Duration public static final long DEFAULT_SLOW_REQUEST_DURATION = 5000;
+
+    /** Default proportion of slow requests at which the circuit is opened. */
+    public static final double DEFAULT_SLOW_REQUEST_RATE_THRESHOLD = 0.5;
+
+    /** Default duration in milliseconds for which the circuit stays open: 30 seconds. */
+    @Duration public static final long DEFAULT_OPEN_DURATION = 30000;
+
+    /** Default number of probe requests let through once the circuit is half-open. */
+    public static final int DEFAULT_PROBE_REQUESTS = 1;
+
+    /** Class logger. */
+    @Nonnull private final Logger log = LoggerFactory.getLogger(SlidingWindowCircuitBreaker.class);
+
+    /** Duration of the window in milliseconds. */
+    @Duration @Positive private long windowDuration;
+
+    /** Minimum number of requests within the window for the circuit to be opened. */
+    @Positive private int minimumRequests;
+
+    /** Proportion of failed requests at which the circuit is opened. */
+    private double failureRateThreshold;
+
+    /** Duration in milliseconds at or above which a request is slow. */
+    @Duration @Positive private long slowRequestDuration;
+
+    /** Proportion of slow requests at which the circuit is opened. */
+    private double slowRequestRateThreshold;
+
+    /** Duration in milliseconds for which the circuit stays open. */
+    @Duration @Positive private long openDuration;
+
+    /** Number of probe requests let through once the circuit is half-open. */
+    @Positive private int probeRequests;
+
+    /** Interceptor to report requests to, if any. */
+    @Nullable private InvocationInterceptor invocationInterceptor;
+
+    /** Circuits by endpoint key. */
+    @Nonnull private final ConcurrentMap<String, Circuit> circuits;
+
+    /** Constructor. */
+    public SlidingWindowCircuitBreaker() {
+        windowDuration = DEFAULT_WINDOW_DURATION;
+        minimumRequests = DEFAULT_MINIMUM_REQUESTS;
+        failureRateThreshold = DEFAULT_FAILURE_RATE_THRESHOLD;
+        slowRequestDuration = DEFAULT_SLOW_REQUEST_DURATION;
+        slowRequestRateThreshold = DEFAULT_SLOW_REQUEST_RATE_THRESHOLD;
+        openDuration = DEFAULT_OPEN_DURATION;
+        probeRequests = DEFAULT_PROBE_REQUESTS;
+        circuits = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Get the duration of the window.
+     * 
+     * @return the duration in milliseconds
+     */
+    @Duration @Positive public long getWindowDuration() {
+        return windowDuration;
+    }
+
+    /**
+     * Set the duration of the window.
+     * 
+     * <p>Defaults to {@link #DEFAULT_WINDOW_DURATION}.</p>
+     * 
+     * @param duration the duration in milliseconds
+     */
+    public void setWindowDuration(@Duration @Positive final long duration) {
+        ComponentSupport.ifInitializedThrowUnmodifiabledComponentException(this);
+
+        windowDuration = Constraint.isGreaterThan(0, duration, "Window duration must be greater than zero");
+    }
+
+    /**
+     * Get the minimum number of requests within the window for the circuit to be opened.
+     * 
+     * @return the minimum number of requests
+     */
+    @Positive public int getMinimumRequests() {
+        return minimumRequests;
+    }
+
+    /**
+     * Set the minimum number of requests within the window for the circuit to be opened.
+     * 
+     * <p>Defaults to {@link #DEFAULT_MINIMUM_REQUESTS}.</p>
+     * 
+     * @param minimum the minimum number of requests
+     */
+    public void setMinimumRequests(@Positive final int minimum) {
+        ComponentSupport.ifInitializedThrowUnmodifiabledComponentException(this);
+
+        minimumRequests = (int) Constraint.isGreaterThan(0, minimum, "Minimum requests must be greater than zero");
+    }
+
+    /**
+     * Get the proportion of failed requests at which the circuit is opened.
+     * 
+     * @return the proportion, between 0 and 1
+     */
+    public double getFailureRateThreshold() {
+        return failureRateThreshold;
+    }
+
+    /**
+     * Set the proportion of failed requests at which the circuit is opened.
+     * 
+     * <p>Defaults to {@link #DEFAULT_FAILURE_RATE_THRESHOLD}.</p>
+     * 
+     * @param threshold the proportion, greater than 0 and at most 1
+     */
+    public void setFailureRateThreshold(final double threshold) {
+        ComponentSupport.ifInitializedThrowUnmodifiabledComponentException(this);
+
+        Constraint.isTrue(threshold > 0 && threshold <= 1,
+                "Failure rate threshold must be greater than 0 and at most 1");
+        failureRateThreshold = threshold;
+    }
+
+    /**
+     * Get the duration at or above which a request is slow.
+     * 
+     * @return the duration in milliseconds
+     */
+    @Duration @Positive public long getSlowRequestDuration() {
+        return slowRequestDuration;
+    }
+
+    /**
+     * Set the duration at or above which a request is slow.
+     * 
+     * <p>Defaults to {@link #DEFAULT_SLOW_REQUEST_DURATION}.</p>
+     * 
+     * @param duration the duration in milliseconds
+     */
+    public void setSlowRequestDuration(@Duration @Positive final long duration) {
+        ComponentSupport.ifInitializedThrowUnmodifiabledComponentException(this);
+
+        slowRequestDuration = Constraint.isGreaterThan(0, duration, "Slow request duration must be greater than zero");
+    }
+
+    /**
+     * Get the proportion of slow requests at which the circuit is opened.
+     * 
+     * @return the proportion, between 0 and 1
+     */
+    public double getSlowRequestRateThreshold() {
+        return slowRequestRateThreshold;
+    }
+
+    /**
+     * Set the proportion of slow requests at which the circuit is opened.
+     * 
+     * <p>Defaults to {@link #DEFAULT_SLOW_REQUEST_RATE_THRESHOLD}.</p>
+     * 
+     * @param threshold the proportion, greater than 0 and at most 1
+     */
+    public void setSlowRequestRateThreshold(final double threshold) {
+        ComponentSupport.ifInitializedThrowUnmodifiabledComponentException(this);
+
+        Constraint.isTrue(threshold > 0 && threshold <= 1,
+                "Slow request rate threshold must be greater than 0 and at most 1");
+        slowRequestRateThreshold = threshold;
+    }
+
+    /**
+     * Get the duration for which the circuit stays open.
+     * 
+     * @return the duration in milliseconds
+     */
+    @Duration @Positive public long getOpenDuration() {
+        return openDuration;
+    }
+
+    /**
+     * Set the duration for which the circuit stays open.
+     * 
+     * <p>Defaults to {@link #DEFAULT_OPEN_DURATION}.</p>
+     * 
+     * @param duration the duration in milliseconds
+     */
+    public void setOpenDuration(@Duration @Positive final long duration) {
+        ComponentSupport.ifInitializedThrowUnmodifiabledComponentException(this);
+
+        openDuration = Constraint.isGreaterThan(0, duration, "Open duration must be greater than zero");
+    }
+
+    /**
+     * Get the number of probe requests let through once the circuit is half-open.
+     * 
+     * @return the number of probe requests
+     */
+    @Positive public int getProbeRequests() {
+        return probeRequests;
+    }
+
+    /**
+     * Set the number of probe requests let through once the circuit is half-open.
+     * 
+     * <p>Defaults to {@link #DEFAULT_PROBE_REQUESTS}.</p>
+     * 
+     * @param probes the number of probe requests
+     */
+    public void setProbeRequests(@Positive final int probes) {
+        ComponentSupport.ifInitializedThrowUnmodifiabledComponentException(this);
+
+        probeRequests = (int) Constraint.isGreaterThan(0, probes, "Probe requests must be greater than zero");
+    }
+
+    /**
+     * Get the interceptor to report requests to.
+     * 
+     * @return the interceptor, or null if none
+     */
+    @Nullable public InvocationInterceptor getInvocationInterceptor() {
+        return invocationInterceptor;
+    }
+
+    /**
+     * Set the interceptor to report requests to.
+     * 
+     * @param interceptor the interceptor, or null for none
+     */
+    public void setInvocationInterceptor(@Nullable final InvocationInterceptor interceptor) {
+        ComponentSupport.ifInitializedThrowUnmodifiabledComponentException(this);
+
+        invocationInterceptor = interceptor;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    protected void doInitialize() throws ComponentInitializationException {
+        super.doInitialize();
+
+        if (windowDuration < WINDOW_BUCKETS) {
+            throw new ComponentInitializationException("Window duration must be at least " + WINDOW_BUCKETS + "ms");
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    @Nullable public Permit acquire(@Nonnull @NotEmpty final String endpoint) {
+        ComponentSupport.ifNotInitializedThrowUninitializedComponentException(this);
+        Constraint.isNotNull(endpoint, "Endpoint cannot be null");
+
+        final String key = getEndpointKey(endpoint);
+        final Circuit circuit = getCircuit(key);
+        final long now = getCurrentTime();
+        final long grant = circuit.acquire(now);
+        if (grant == Circuit.REFUSED) {
+            log.debug("Circuit for {} is open, refusing request", key);
+            if (invocationInterceptor != null) {
+                final String componentId = key + REFUSED_SUFFIX;
+                invocationInterceptor.postInvoke(componentId, null, invocationInterceptor.preInvoke(componentId),
+                        false);
+            }
+            return null;
+        }
+
+        final long token = invocationInterceptor != null ? invocationInterceptor.preInvoke(key) : 0;
+        return new CircuitPermit(key, circuit, now, grant == Circuit.GRANTED ? 0 : grant, token);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    @Nonnull public State getState(@Nonnull @NotEmpty final String endpoint) {
+        Constraint.isNotNull(endpoint, "Endpoint cannot be null");
+
+        final Circuit circuit = circuits.get(getEndpointKey(endpoint));
+        return circuit != null ? circuit.getState(getCurrentTime()) : State.CLOSED;
+    }
+
+    /**
+     * {@inheritDoc}
+     * 
+     * <p>Endpoints with no requests within the window are ranked as fastest, so that they are tried.</p>
+     */
+    @Override
+    @Nonnull @NonnullElements public List<String> rank(@Nonnull @NonnullElements final List<String> endpoints) {
+        Constraint.isNotNull(endpoints, "Endpoints cannot be null");
+
+        final long now = getCurrentTime();
+        final List<Ranking> rankings = new ArrayList<>(endpoints.size());
+        for (final String endpoint : endpoints) {
+            final Circuit circuit = circuits.get(getEndpointKey(endpoint));
+            if (circuit != null) {
+                rankings.add(new Ranking(endpoint, circuit.getState(now), circuit.getMeanLatency(now)));
+            } else {
+                rankings.add(new Ranking(endpoint, State.CLOSED, 0));
+            }
+        }
+        Collections.sort(rankings, new Comparator<Ranking>() {
+            public int compare(final Ranking r1, final Ranking r2) {
+                final int order = Integer.compare(r1.preference, r2.preference);
+                return order != 0 ? order : Long.compare(r1.latency, r2.latency);
+            }
+        });
+
+        final List<String> ranked = new ArrayList<>(rankings.size());
+        for (final Ranking ranking : rankings) {
+            ranked.add(ranking.endpoint);
+        }
+        return ranked;
+    }
+
+    /**
+     * Get the key by which endpoints are grouped.
+     * 
+     * <p>
+     * The default implementation uses {@link EndpointSupport#getEndpointKey(String)}.
+     * </p>
+     * 
+     * @param endpoint the endpoint
+     * 
+     * @return the key of the endpoint
+     */
+    @Nonnull @NotEmpty protected String getEndpointKey(@Nonnull @NotEmpty final String endpoint) {
+        return EndpointSupport.getEndpointKey(endpoint);
+    }
+
+    /**
+     * Get the current time, for measuring requests and the window.
+     * 
+     * @return the current time in nanoseconds, from an arbitrary origin
+     */
+    protected long getCurrentTime() {
+        return System.nanoTime();
+    }
+
+    /**
+     * Get the circuit of an endpoint, creating it if necessary.
+     * 
+     * @param key the endpoint key
+     * 
+     * @return the circuit
+     */
+    @Nonnull private Circuit getCircuit(@Nonnull @NotEmpty final String key) {
+        Circuit circuit = circuits.get(key);
+        if (circuit == null) {
+            circuit = new Circuit(key);
+            final Circuit existing = circuits.putIfAbsent(key, circuit);
+            if (existing != null) {
+                circuit = existing;
+            }
+        }
+        return circuit;
+    }
+
+    /** The state and window of an endpoint. */
+    private final class Circuit {
+
+        /** Result of {@link #acquire(long)} refusing a request. */
+        static final long REFUSED = -1;
+
+        /** Result of {@link #acquire(long)} granting a request which is not a probe. */
+        static final long GRANTED = 0;
+
+        /** The endpoint key. */
+        @Nonnull private final String key;
+
+        /** Index of the time slice counted by each bucket. */
+        @Nonnull private final long[] slices;
+
+        /** Requests completed in each bucket. */
+        @Nonnull private final int[] requests;
+
+        /** Failed requests in each bucket. */
+        @Nonnull private final int[] failures;
+
+        /** Slow requests in each bucket. */
+        @Nonnull private final int[] slowRequests;
+
+        /** Total latency of the requests in each bucket, in nanoseconds. */
+        @Nonnull private final long[] latencies;
+
+        /** The state of the circuit. */
+        @Nonnull private State state;
+
+        /** Time the circuit was last opened. */
+        private long openedAt;
+
+        /** Probe requests in progress. */
+        private int probesInProgress;
+
+        /** Probe requests which have succeeded since the circuit became half-open. */
+        private int probeSuccesses;
+
+        /** Number of times the circuit has become half-open, identifying the probes of each time. */
+        private long round;
+
+        /**
+         * Constructor.
+         * 
+         * @param endpointKey the endpoint key
+         */
+        private Circuit(@Nonnull final String endpointKey) {
+            key = endpointKey;
+            slices = new long[WINDOW_BUCKETS];
+            requests = new int[WINDOW_BUCKETS];
+            failures = new int[WINDOW_BUCKETS];
+            slowRequests = new int[WINDOW_BUCKETS];
+            latencies = new long[WINDOW_BUCKETS];
+            state = State.CLOSED;
+        }
+
+        /**
+         * Get the state of the circuit, as it would be for a request made now.
+         * 
+         * @param now the current time
+         * 
+         * @return the state
+         */
+        @Nonnull synchronized State getState(final long now) {
+            if (state == State.OPEN && now - openedAt >= TimeUnit.MILLISECONDS.toNanos(openDuration)) {
+                return State.HALF_OPEN;
+            }
+            return state;
+        }
+
+        /**
+         * Acquire permission to send a request.
+         * 
+         * @param now the current time
+         * 
+         * @return {@link #REFUSED}, {@link #GRANTED}, or for a probe request the half-open round it belongs to
+         */
+        synchronized long acquire(final long now) {
+            final State current = getState(now);
+            if (current == State.CLOSED) {
+                return GRANTED;
+            } else if (current == State.OPEN) {
+                return REFUSED;
+            } else if (state == State.OPEN) {
+                log.info("Circuit for {} is half-open, sending up to {} probe requests", key, probeRequests);
+                state = State.HALF_OPEN;
+                probesInProgress = 0;
+                probeSuccesses = 0;
+                round++;
+            }
+
+            if (probesInProgress + probeSuccesses < probeRequests) {
+                probesInProgress++;
+                return round;
+            }
+            return REFUSED;
+        }
+
+        /**
+         * Record the outcome of a request.
+         * 
+         * @param now the current time
+         * @param latency the latency of the request
+         * @param success whether the request succeeded
+         * @param probeRound the half-open round of a probe request, or 0 if the request was not a probe
+         */
+        synchronized void record(final long now, final long latency, final boolean success, final long probeRound) {
+            final boolean slow = latency >= TimeUnit.MILLISECONDS.toNanos(slowRequestDuration);
+
+            if (probeRound != 0) {
+                // A probe outlasting its round must neither close nor reopen the circuit for the probes of a later one.
+                if (state != State.HALF_OPEN || probeRound != round) {
+                    return;
+                }
+                probesInProgress--;
+                if (!success || slow) {
+                    open(now, "probe request " + (success ? "was slow" : "failed"));
+                } else if (++probeSuccesses >= probeRequests) {
+                    log.info("Circuit for {} is closed, probe requests succeeded", key);
+                    state = State.CLOSED;
+                    clearWindow();
+                    count(now, latency, success, slow);
+                }
+                return;
+            }
+
+            count(now, latency, success, slow);
+            if (state != State.CLOSED) {
+                return;
+            }
+
+            final long firstSlice = getSlice(now) - WINDOW_BUCKETS + 1;
+            int totalRequests = 0;
+            int totalFailures = 0;
+            int totalSlow = 0;
+            for (int i = 0; i < WINDOW_BUCKETS; i++) {
+                if (slices[i] >= firstSlice) {
+                    totalRequests += requests[i];
+                    totalFailures += failures[i];
+                    totalSlow += slowRequests[i];
+                }
+            }
+            if (totalRequests >= minimumRequests) {
+                if (totalFailures >= failureRateThreshold * totalRequests) {
+                    open(now, totalFailures + " of " + totalRequests + " requests failed");
+                } else if (totalSlow >= slowRequestRateThreshold * totalRequests) {
+                    open(now, totalSlow + " of " + totalRequests + " requests were slow");
+                }
+            }
+        }
+
+        /**
+         * Get the mean latency of the requests within the window.
+         * 
+         * @param now the current time
+         * 
+         * @return the mean latency in nanoseconds, or 0 if there have been no requests
+         */
+        synchronized long getMeanLatency(final long now) {
+            final long firstSlice = getSlice(now) - WINDOW_BUCKETS + 1;
+            long totalRequests = 0;
+            long totalLatency = 0;
+            for (int i = 0; i < WINDOW_BUCKETS; i++) {
+                if (slices[i] >= firstSlice) {
+                    totalRequests += requests[i];
+                    totalLatency += latencies[i];
+                }
+            }
+            return totalRequests > 0 ? totalLatency / totalRequests : 0;
+        }
+
+        /**
+         * Count a request in the bucket of the current time slice.
+         * 
+         * @param now the current time
+         * @param latency the latency of the request
+         * @param success whether the request succeeded
+         * @param slow whether the request was slow
+         */
+        private void count(final long now, final long latency, final boolean success, final boolean slow) {
+            final long slice = getSlice(now);
+            final int bucket = (int) (((slice % WINDOW_BUCKETS) + WINDOW_BUCKETS) % WINDOW_BUCKETS);
+            if (slices[bucket] != slice) {
+                slices[bucket] = slice;
+                requests[bucket] = 0;
+                failures[bucket] = 0;
+                slowRequests[bucket] = 0;
+                latencies[bucket] = 0;
+            }
+            requests[bucket]++;
+            latencies[bucket] += latency;
+            if (!success) {
+                failures[bucket]++;
+            }
+            if (slow) {
+                slowRequests[bucket]++;
+            }
+        }
+
+        /** Discard every request counted in the window. */
+        private void clearWindow() {
+            for (int i = 0; i < WINDOW_BUCKETS; i++) {
+                slices[i] = Long.MIN_VALUE;
+            }
+        }
+
+        /**
+         * Open the circuit.
+         * 
+         * @param now the current time
+         * @param reason the reason for opening the circuit
+         */
+        private void open(final long now, @Nonnull final String reason) {
+            log.warn("Circuit for {} is open for {}ms, {}", key, openDuration, reason);
+            state = State.OPEN;
+            openedAt = now;
+            probesInProgress = 0;
+            probeSuccesses = 0;
+        }
+
+        /**
+         * Get the index of the time slice holding a time.
+         * 
+         * @param time the time
+         * 
+         * @return the index of the slice
+         */
+        private long getSlice(final long time) {
+            final long sliceDuration = TimeUnit.MILLISECONDS.toNanos(windowDuration) / WINDOW_BUCKETS;
+            // Rounds down for the negative times System.nanoTime() may return.
+            return time >= 0 ? time / sliceDuration : (time + 1) / sliceDuration - 1;
+        }
+    }
+
+    /** A permit to send a request, which records its outcome on release. */
+    private final class CircuitPermit implements Permit {
+
+        /** The endpoint key. */
+        @Nonnull private final String key;
+
+        /** The circuit of the endpoint. */
+        @Nonnull private final Circuit circuit;
+
+        /** Time the permit was acquired. */
+        private final long start;
+
+        /** The half-open round of a probe request, or 0 if the request is not a probe. */
+        private final long probeRound;
+
+        /** Token returned by the interceptor, if any. */
+        private final long token;
+
+        /** Whether the permit has been released. */
+        private boolean released;
+
+        /**
+         * Constructor.
+         * 
+         * @param endpointKey the endpoint key
+         * @param endpointCircuit the circuit of the endpoint
+         * @param acquired time the permit was acquired
+         * @param round the half-open round of a probe request, or 0 if the request is not a probe
+         * @param interceptorToken token returned by the interceptor, if any
+         */
+        private CircuitPermit(@Nonnull final String endpointKey, @Nonnull final Circuit endpointCircuit,
+                final long acquired, final long round, final long interceptorToken) {
+            key = endpointKey;
+            circuit = endpointCircuit;
+            start = acquired;
+            probeRound = round;
+            token = interceptorToken;
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public void release(final boolean success) {
+            if (released) {
+                return;
+            }
+            released = true;
+
+            final long now = getCurrentTime();
+            circuit.record(now, Math.max(0, now - start), success, probeRound);
+            if (invocationInterceptor != null) {
+                invocationInterceptor.postInvoke(key, null, token, success);
+            }
+        }
+    }
+
+    /** An endpoint with the properties by which it is ranked. */
+    private static final class Ranking {
+
+        /** The endpoint. */
+        @Nonnull private final String endpoint;
+
+        /** Preference by state, lower first. */
+        private final int preference;
+
+        /** Mean latency. */
+        private final long latency;
+
+        /**
+         * Constructor.
+         * 
+         * @param rankedEndpoint the endpoint
+         * @param state the state of the endpoint's circuit
+         * @param meanLatency the mean latency of the endpoint
+         */
+        private Ranking(@Nonnull final String rankedEndpoint, @Nonnull final State state, final long meanLatency) {
+            endpoint = rankedEndpoint;
+            preference = state == State.CLOSED ? 0 : state == State.HALF_OPEN ? 1 : 2;
+            latency = meanLatency;
+        }
+    }
+
+}
@@ -26,19 +26,27 @@ import javax.annotation.Nullable;
 
 import net.shibboleth.utilities.java.support.annotation.constraint.NonnullAfterInit;
 import net.shibboleth.utilities.java.support.annotation.constraint.NonnullElements;
+import net.shibboleth.utilities.java.support.component.ComponentSupport;
 
 import org.opensaml.messaging.context.MessageContext;
 import org.opensaml.messaging.handler.AbstractMessageHandler;
 import org.opensaml.messaging.handler.MessageHandler;
 import org.opensaml.messaging.handler.MessageHandlerChain;
 import org.opensaml.messaging.handler.MessageHandlerException;
+import org.opensaml.messaging.metrics.InvocationInterceptor;
 
+import com.google.common.base.Function;
 import com.google.common.base.Predicates;
 import com.google.common.collect.Collections2;
 
 /**
  * A basic implementation of {@link MessageHandlerChain}.
  * 
+ * <p>
+ * If an {@link InvocationInterceptor} is set, each member of the chain is invoked through it, identified by its class
+ * name, and with the profile ID given by an optional lookup strategy.
+ * </p>
+ * 
  * @param <MessageType> the type of message being handled
  */
 public class BasicMessageHandlerChain<MessageType> extends AbstractMessageHandler<MessageType> 
@@ -46,6 +54,12 @@ public class BasicMessageHandlerChain<MessageType> extends AbstractMessageHandle
 
     /** The list of members of the handler chain. */
     @NonnullAfterInit @NonnullElements private List<MessageHandler<MessageType>> members;
+
+    /** Interceptor through which members are invoked, if any. */
+    @Nullable private InvocationInterceptor invocationInterceptor;
+
+    /** Strategy used to look up the profile ID reported to the interceptor. */
+    @Nullable private Function<MessageContext, String> profileIdLookupStrategy;
     
     /** 
      * {@inheritDoc}
@@ -80,11 +94,61 @@ public class BasicMessageHandlerChain<MessageType> extends AbstractMessageHandle
         }
     }
 
+    /**
+     * Set the interceptor through which members are invoked.
+     * 
+     * @param interceptor the interceptor, or null for none
+     */
+    public void setInvocationInterceptor(@Nullable final InvocationInterceptor interceptor) {
+        ComponentSupport.ifInitializedThrowUnmodifiabledComponentException(this);
+        
+        invocationInterceptor = interceptor;
+    }
+
+    /**
+     * Set the strategy used to look up the profile ID reported to the interceptor.
+     * 
+     * @param strategy the lookup strategy, or null to report no profile ID
+     */
+    public void setProfileIdLookupStrategy(@Nullable final Function<MessageContext, String> strategy) {
+        ComponentSupport.ifInitializedThrowUnmodifiabledComponentException(this);
+        
+        profileIdLookupStrategy = strategy;
+    }
+
     /** {@inheritDoc} */
     public void doInvoke(@Nonnull final MessageContext<MessageType> msgContext) throws MessageHandlerException {
         if (members != null) {
-            for (MessageHandler handler: members) {
+            if (invocationInterceptor != null) {
+                doInvokeIntercepted(msgContext);
+            } else {
+                for (MessageHandler handler: members) {
+                    handler.invoke(msgContext);
+                }
+            }
+        }
+    }
+
+    /**
+     * Invoke each member through the interceptor.
+     * 
+     * @param msgContext the message context
+     * 
+     * @throws MessageHandlerException if a member fails
+     */
+    private void doInvokeIntercepted(@Nonnull final MessageContext<MessageType> msgContext)
+            throws MessageHandlerException {
+        for (MessageHandler handler: members) {
+            final String componentId = handler.getClass().getName();
+            final long token = invocationInterceptor.preInvoke(componentId);
+            boolean success = false;
+            try {
                 handler.invoke(msgContext);
+                success = true;
+            } finally {
+                final String profileId =
+                        profileIdLookupStrategy != null ? profileIdLookupStrategy.apply(msgContext) : null;
+                invocationInterceptor.postInvoke(componentId, profileId, token, success);
             }
         }
     }
@@ -22,11 +22,11 @@ import java.io.IOException;
 import javax.annotation.Nonnull;
 import javax.xml.transform.dom.DOMSource;
 import javax.xml.validation.Schema;
-import javax.xml.validation.Validator;
 
 import net.shibboleth.utilities.java.support.logic.Constraint;
 
 import org.opensaml.core.xml.XMLObject;
+import org.opensaml.core.xml.util.SchemaValidatorPool;
 import org.opensaml.messaging.context.MessageContext;
 import org.opensaml.messaging.handler.AbstractMessageHandler;
 import org.opensaml.messaging.handler.MessageHandlerException;
@@ -46,8 +46,8 @@ public class SchemaValidateXMLMessage<MessageType extends XMLObject> extends Abs
     /** Class logger. */
     private Logger log = LoggerFactory.getLogger(SchemaValidateXMLMessage.class);
 
-    /** Schema used to validate incoming messages. */
-    private final Schema validationSchema;
+    /** Validators for the schema used to validate incoming messages. */
+    private final SchemaValidatorPool validators;
 
     /**
      * Constructor.
@@ -55,8 +55,17 @@ public class SchemaValidateXMLMessage<MessageType extends XMLObject> extends Abs
      * @param schema schema used to validate incoming messages
      */
     public SchemaValidateXMLMessage(@Nonnull final Schema schema) {
+        this(new SchemaValidatorPool(Constraint.isNotNull(schema, "Schema cannot be null")));
+    }
+
+    /**
+     * Constructor.
+     * 
+     * @param schemaValidators validators for the schema used to validate incoming messages, which may be shared
+     */
+    public SchemaValidateXMLMessage(@Nonnull final SchemaValidatorPool schemaValidators) {
         super();
-        validationSchema = Constraint.isNotNull(schema, "Schema cannot be null");
+        validators = Constraint.isNotNull(schemaValidators, "SchemaValidatorPool cannot be null");
     }
 
     /**
@@ -65,7 +74,7 @@ public class SchemaValidateXMLMessage<MessageType extends XMLObject> extends Abs
      * @return schema used to validate incoming messages, not null after action is initialized
      */
     @Nonnull public Schema getValidationSchema() {
-        return validationSchema;
+        return validators.getSchema();
     }
 
     /** {@inheritDoc} */
@@ -97,8 +106,7 @@ public class SchemaValidateXMLMessage<MessageType extends XMLObject> extends Abs
         log.debug("{} Attempting to schema validate incoming message", getLogPrefix());
 
         try {
-            final Validator schemaValidator = validationSchema.newValidator();
-            schemaValidator.validate(new DOMSource(messageContext.getMessage().getDOM()));
+            validators.validate(new DOMSource(messageContext.getMessage().getDOM()));
         } catch (SAXException e) {
             log.debug("{} Message {} is not schema-valid", getLogPrefix(), messageContext.getMessage()
                     .getElementQName(), e);
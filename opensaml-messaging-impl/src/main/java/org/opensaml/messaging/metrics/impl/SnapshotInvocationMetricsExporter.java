@@ -0,0 +1,103 @@
+/*
+ * Licensed to the University Corporation for Advanced Internet Development, 
+ * Inc. (UCAID) under one or more contributor license agreements.  See the 
+ * NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The UCAID licenses this file to You under the Apache 
+ * License, Version 2.0 (the "License"); you may not use this file except in 
+ * compliance with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.opensaml.messaging.metrics.impl;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.ThreadSafe;
+
+import net.shibboleth.utilities.java.support.annotation.constraint.NonnullElements;
+import net.shibboleth.utilities.java.support.annotation.constraint.NotEmpty;
+import net.shibboleth.utilities.java.support.annotation.constraint.Unmodifiable;
+import net.shibboleth.utilities.java.support.logic.Constraint;
+
+import org.joda.time.DateTime;
+import org.opensaml.messaging.metrics.InvocationMetricsExporter;
+import org.opensaml.messaging.metrics.InvocationStatistics;
+
+import com.google.common.base.Objects;
+
+/**
+ * An {@link InvocationMetricsExporter} which keeps the latest snapshot exported to it in memory, for inspection by
+ * administrative interfaces or tests.
+ */
+@ThreadSafe
+public class SnapshotInvocationMetricsExporter implements InvocationMetricsExporter {
+
+    /** The latest snapshot. */
+    @Nonnull @NonnullElements private volatile List<InvocationStatistics> snapshot;
+
+    /** Time of the latest snapshot, null if none. */
+    @Nullable private volatile DateTime snapshotTime;
+
+    /** Constructor. */
+    public SnapshotInvocationMetricsExporter() {
+        snapshot = Collections.emptyList();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void export(@Nonnull @NonnullElements final Collection<InvocationStatistics> statistics) {
+        Constraint.isNotNull(statistics, "Statistics cannot be null");
+        snapshot = Collections.unmodifiableList(new ArrayList<>(statistics));
+        snapshotTime = new DateTime();
+    }
+
+    /**
+     * Get the latest snapshot.
+     * 
+     * @return the statistics of the latest snapshot, empty if none has been exported
+     */
+    @Nonnull @NonnullElements @Unmodifiable public List<InvocationStatistics> getSnapshot() {
+        return snapshot;
+    }
+
+    /**
+     * Get the time of the latest snapshot.
+     * 
+     * @return the time the latest snapshot was exported, or null if none has been
+     */
+    @Nullable public DateTime getSnapshotTime() {
+        return snapshotTime;
+    }
+
+    /**
+     * Get the statistics of a component for a profile from the latest snapshot.
+     * 
+     * @param componentId ID of the component
+     * @param profileId ID of the profile, or null for invocations with no known profile
+     * 
+     * @return the statistics, or null if the snapshot has none for the component and profile
+     */
+    @Nullable public InvocationStatistics getStatistics(@Nonnull @NotEmpty final String componentId,
+            @Nullable final String profileId) {
+        for (final InvocationStatistics statistics : snapshot) {
+            if (statistics.getComponentId().equals(componentId)
+                    && Objects.equal(statistics.getProfileId(), profileId)) {
+                return statistics;
+            }
+        }
+        return null;
+    }
+
+}
@@ -0,0 +1,268 @@
+/*
+ * Licensed to the University Corporation for Advanced Internet Development, 
+ * Inc. (UCAID) under one or more contributor license agreements.  See the 
+ * NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The UCAID licenses this file to You under the Apache 
+ * License, Version 2.0 (the "License"); you may not use this file except in 
+ * compliance with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.opensaml.messaging.metrics.impl;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.ThreadSafe;
+
+import net.shibboleth.utilities.java.support.annotation.constraint.NonnullElements;
+import net.shibboleth.utilities.java.support.annotation.constraint.NotEmpty;
+import net.shibboleth.utilities.java.support.logic.Constraint;
+
+import org.opensaml.messaging.metrics.InvocationInterceptor;
+import org.opensaml.messaging.metrics.InvocationMetricsExporter;
+import org.opensaml.messaging.metrics.InvocationStatistics;
+
+import com.google.common.base.Objects;
+
+/**
+ * An {@link InvocationInterceptor} which records the latency, invocation count and error count of each component, for
+ * each profile it is invoked for.
+ * 
+ * <p>
+ * Latencies are recorded in a log-linear histogram, in the manner of HdrHistogram: each power of two is divided into
+ * 16 buckets, so that a latency is recorded to within about 6% of its value, in constant time and space and without
+ * locking. Statistics are gathered for as long as the interceptor exists, and may be read at any time with
+ * {@link #getStatistics()} or passed to an {@link InvocationMetricsExporter}.
+ * </p>
+ */
+@ThreadSafe
+public class TimingInvocationInterceptor implements InvocationInterceptor {
+
+    /** Number of bits of a latency below its leading bit which select its bucket within a power of two. */
+    private static final int SUB_BUCKET_BITS = 4;
+
+    /** Number of buckets within each power of two. */
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+
+    /** Total number of buckets, enough for any non-negative long. */
+    private static final int BUCKET_COUNT = (Long.SIZE - 1 - SUB_BUCKET_BITS + 1) * SUB_BUCKET_COUNT;
+
+    /** Recorders by component and profile. */
+    @Nonnull private final ConcurrentMap<Key, Recorder> recorders;
+
+    /** Constructor. */
+    public TimingInvocationInterceptor() {
+        recorders = new ConcurrentHashMap<>();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public long preInvoke(@Nonnull @NotEmpty final String componentId) {
+        return System.nanoTime();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void postInvoke(@Nonnull @NotEmpty final String componentId, @Nullable final String profileId,
+            final long token, final boolean success) {
+        final long latency = Math.max(0, System.nanoTime() - token);
+
+        final Key key = new Key(componentId, profileId);
+        Recorder recorder = recorders.get(key);
+        if (recorder == null) {
+            recorder = new Recorder();
+            final Recorder existing = recorders.putIfAbsent(key, recorder);
+            if (existing != null) {
+                recorder = existing;
+            }
+        }
+        recorder.record(latency, success);
+    }
+
+    /**
+     * Get a snapshot of the statistics of each component, and each profile it was invoked for.
+     * 
+     * @return the statistics
+     */
+    @Nonnull @NonnullElements public List<InvocationStatistics> getStatistics() {
+        final List<InvocationStatistics> statistics = new ArrayList<>(recorders.size());
+        for (final Map.Entry<Key, Recorder> entry : recorders.entrySet()) {
+            statistics.add(entry.getValue().snapshot(entry.getKey()));
+        }
+        return statistics;
+    }
+
+    /**
+     * Export a snapshot of the statistics.
+     * 
+     * @param exporter the exporter to export the statistics to
+     */
+    public void export(@Nonnull final InvocationMetricsExporter exporter) {
+        Constraint.isNotNull(exporter, "Exporter cannot be null").export(getStatistics());
+    }
+
+    /** Discard all the statistics gathered so far. */
+    public void reset() {
+        recorders.clear();
+    }
+
+    /**
+     * Get the index of the bucket holding a latency.
+     * 
+     * @param latency the latency
+     * 
+     * @return the bucket index
+     */
+    static int getBucketIndex(final long latency) {
+        if (latency < SUB_BUCKET_COUNT) {
+            return (int) latency;
+        }
+        final int magnitude = Long.SIZE - 1 - Long.numberOfLeadingZeros(latency);
+        final int shift = magnitude - SUB_BUCKET_BITS;
+        return shift * SUB_BUCKET_COUNT + (int) (latency >>> shift);
+    }
+
+    /**
+     * Get the greatest latency held by a bucket.
+     * 
+     * @param index the bucket index
+     * 
+     * @return the upper bound of the bucket
+     */
+    static long getBucketUpperBound(final int index) {
+        if (index < 2 * SUB_BUCKET_COUNT) {
+            return index;
+        }
+        final int shift = index / SUB_BUCKET_COUNT - 1;
+        final long subBucket = index % SUB_BUCKET_COUNT + SUB_BUCKET_COUNT;
+        return ((subBucket + 1) << shift) - 1;
+    }
+
+    /** Key of the statistics of a component for a profile. */
+    private static final class Key {
+
+        /** ID of the component. */
+        @Nonnull private final String componentId;
+
+        /** ID of the profile, if known. */
+        @Nullable private final String profileId;
+
+        /**
+         * Constructor.
+         * 
+         * @param component ID of the component
+         * @param profile ID of the profile, if known
+         */
+        private Key(@Nonnull final String component, @Nullable final String profile) {
+            componentId = component;
+            profileId = profile;
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public boolean equals(final Object obj) {
+            if (obj == this) {
+                return true;
+            } else if (!(obj instanceof Key)) {
+                return false;
+            }
+            final Key other = (Key) obj;
+            return componentId.equals(other.componentId) && Objects.equal(profileId, other.profileId);
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public int hashCode() {
+            return 31 * componentId.hashCode() + (profileId != null ? profileId.hashCode() : 0);
+        }
+    }
+
+    /** Records the invocations of a component for a profile. */
+    private static final class Recorder {
+
+        /** Number of invocations in each bucket. */
+        @Nonnull private final AtomicLongArray buckets;
+
+        /** Number of failed invocations. */
+        @Nonnull private final AtomicLong errors;
+
+        /** Total latency of all invocations. */
+        @Nonnull private final AtomicLong total;
+
+        /** Greatest latency of any invocation. */
+        @Nonnull private final AtomicLong max;
+
+        /** Constructor. */
+        private Recorder() {
+            buckets = new AtomicLongArray(BUCKET_COUNT);
+            errors = new AtomicLong();
+            total = new AtomicLong();
+            max = new AtomicLong();
+        }
+
+        /**
+         * Record an invocation.
+         * 
+         * @param latency the latency of the invocation
+         * @param success whether the invocation succeeded
+         */
+        private void record(final long latency, final boolean success) {
+            buckets.incrementAndGet(getBucketIndex(latency));
+            total.addAndGet(latency);
+            if (!success) {
+                errors.incrementAndGet();
+            }
+            long current = max.get();
+            while (latency > current && !max.compareAndSet(current, latency)) {
+                current = max.get();
+            }
+        }
+
+        /**
+         * Take a snapshot of the statistics. Invocations recorded concurrently may be partly reflected.
+         * 
+         * @param key the component and profile recorded
+         * 
+         * @return the statistics
+         */
+        @Nonnull private InvocationStatistics snapshot(@Nonnull final Key key) {
+            int used = 0;
+            final long[] counts = new long[BUCKET_COUNT];
+            for (int i = 0; i < BUCKET_COUNT; i++) {
+                counts[i] = buckets.get(i);
+                if (counts[i] > 0) {
+                    used++;
+                }
+            }
+
+            final long[] nonEmptyBounds = new long[used];
+            final long[] nonEmptyCounts = new long[used];
+            int j = 0;
+            for (int i = 0; i < BUCKET_COUNT; i++) {
+                if (counts[i] > 0) {
+                    nonEmptyBounds[j] = getBucketUpperBound(i);
+                    nonEmptyCounts[j++] = counts[i];
+                }
+            }
+
+            return new InvocationStatistics(key.componentId, key.profileId, errors.get(), total.get(), max.get(),
+                    nonEmptyBounds, nonEmptyCounts);
+        }
+    }
+
+}
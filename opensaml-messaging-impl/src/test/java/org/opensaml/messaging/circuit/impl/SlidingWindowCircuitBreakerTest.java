@@ -0,0 +1,232 @@
+/*
+ * Licensed to the University Corporation for Advanced Internet Development, 
+ * Inc. (UCAID) under one or more contributor license agreements.  See the 
+ * NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The UCAID licenses this file to You under the Apache 
+ * License, Version 2.0 (the "License"); you may not use this file except in 
+ * compliance with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.opensaml.messaging.circuit.impl;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.Nullable;
+
+import net.shibboleth.utilities.java.support.component.ComponentInitializationException;
+
+import org.opensaml.messaging.circuit.EndpointCircuitBreaker.Permit;
+import org.opensaml.messaging.circuit.EndpointCircuitBreaker.State;
+import org.opensaml.messaging.metrics.InvocationInterceptor;
+import org.testng.Assert;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+/** Unit test for {@link SlidingWindowCircuitBreaker}. */
+public class SlidingWindowCircuitBreakerTest {
+
+    private static final String ENDPOINT = "https://idp.example.org/idp/profile/SAML2/SOAP/ArtifactResolution";
+
+    private long now;
+
+    private List<String> invocations;
+
+    private SlidingWindowCircuitBreaker breaker;
+
+    @BeforeMethod
+    public void setUp() throws ComponentInitializationException {
+        // A negative origin, as System.nanoTime() may be.
+        now = -TimeUnit.SECONDS.toNanos(5);
+        invocations = new ArrayList<>();
+        breaker = createBreaker(SlidingWindowCircuitBreaker.DEFAULT_PROBE_REQUESTS);
+    }
+
+    /**
+     * Create and initialize a breaker reading the test clock.
+     * 
+     * @param probes the number of probe requests
+     * 
+     * @return the breaker
+     * 
+     * @throws ComponentInitializationException if the breaker can not be initialized
+     */
+    private SlidingWindowCircuitBreaker createBreaker(final int probes) throws ComponentInitializationException {
+        final SlidingWindowCircuitBreaker newBreaker = new SlidingWindowCircuitBreaker() {
+            protected long getCurrentTime() {
+                return now;
+            }
+        };
+        newBreaker.setWindowDuration(1000);
+        newBreaker.setMinimumRequests(4);
+        newBreaker.setSlowRequestDuration(500);
+        newBreaker.setOpenDuration(1000);
+        newBreaker.setProbeRequests(probes);
+        newBreaker.setInvocationInterceptor(new InvocationInterceptor() {
+            public long preInvoke(final String componentId) {
+                return 0;
+            }
+
+            public void postInvoke(final String componentId, @Nullable final String profileId, final long token,
+                    final boolean success) {
+                invocations.add(componentId + ":" + success);
+            }
+        });
+        newBreaker.initialize();
+        return newBreaker;
+    }
+
+    @Test
+    public void testOpenOnFailures() {
+        for (int i = 0; i < 3; i++) {
+            breaker.acquire(ENDPOINT).release(false);
+            advance(10);
+        }
+        // Below the minimum number of requests.
+        Assert.assertEquals(breaker.getState(ENDPOINT), State.CLOSED);
+
+        // Keyed by scheme, host and port, so this request counts against the same circuit.
+        breaker.acquire("HTTPS://IdP.example.org:443/idp/profile/SAML1/SOAP/ArtifactResolution").release(true);
+        Assert.assertEquals(breaker.getState(ENDPOINT), State.OPEN);
+        Assert.assertNull(breaker.acquire(ENDPOINT));
+        Assert.assertEquals(breaker.getState("https://sp.example.org/"), State.CLOSED);
+
+        Assert.assertEquals(invocations, Arrays.asList("https://idp.example.org:443:false",
+                "https://idp.example.org:443:false", "https://idp.example.org:443:false",
+                "https://idp.example.org:443:true",
+                "https://idp.example.org:443" + SlidingWindowCircuitBreaker.REFUSED_SUFFIX + ":false"));
+    }
+
+    @Test
+    public void testOpenOnSlowRequests() {
+        final List<Permit> permits = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            permits.add(breaker.acquire(ENDPOINT));
+        }
+        advance(600);
+        for (final Permit permit : permits) {
+            permit.release(true);
+        }
+        Assert.assertEquals(breaker.getState(ENDPOINT), State.OPEN);
+    }
+
+    @Test
+    public void testWindow() {
+        // Failures spread out over more than the window never reach the failure rate together.
+        for (int i = 0; i < 10; i++) {
+            breaker.acquire(ENDPOINT).release(i != 0 && i != 4);
+            advance(300);
+        }
+        Assert.assertEquals(breaker.getState(ENDPOINT), State.CLOSED);
+    }
+
+    @Test
+    public void testHalfOpen() {
+        trip();
+
+        advance(999);
+        Assert.assertEquals(breaker.getState(ENDPOINT), State.OPEN);
+        Assert.assertNull(breaker.acquire(ENDPOINT));
+
+        advance(100);
+        Assert.assertEquals(breaker.getState(ENDPOINT), State.HALF_OPEN);
+        Permit probe = breaker.acquire(ENDPOINT);
+        Assert.assertNotNull(probe);
+        // Only one probe at a time.
+        Assert.assertNull(breaker.acquire(ENDPOINT));
+
+        // A slow probe opens the circuit again.
+        advance(600);
+        probe.release(true);
+        Assert.assertEquals(breaker.getState(ENDPOINT), State.OPEN);
+
+        advance(1000);
+        probe = breaker.acquire(ENDPOINT);
+        Assert.assertNotNull(probe);
+        advance(10);
+        probe.release(true);
+        Assert.assertEquals(breaker.getState(ENDPOINT), State.CLOSED);
+    }
+
+    @Test
+    public void testStaleProbe() throws ComponentInitializationException {
+        breaker = createBreaker(2);
+        trip();
+
+        advance(1000);
+        final Permit stale = breaker.acquire(ENDPOINT);
+        final Permit failing = breaker.acquire(ENDPOINT);
+        Assert.assertNotNull(stale);
+        Assert.assertNotNull(failing);
+        failing.release(false);
+        Assert.assertEquals(breaker.getState(ENDPOINT), State.OPEN);
+
+        advance(1000);
+        final Permit first = breaker.acquire(ENDPOINT);
+        final Permit second = breaker.acquire(ENDPOINT);
+        Assert.assertNotNull(first);
+        Assert.assertNotNull(second);
+
+        // A probe of the earlier round neither counts towards nor fails the current one.
+        stale.release(true);
+        first.release(true);
+        Assert.assertEquals(breaker.getState(ENDPOINT), State.HALF_OPEN);
+        Assert.assertNull(breaker.acquire(ENDPOINT));
+        second.release(true);
+        Assert.assertEquals(breaker.getState(ENDPOINT), State.CLOSED);
+    }
+
+    @Test
+    public void testReleaseOnce() {
+        final Permit permit = breaker.acquire(ENDPOINT);
+        permit.release(false);
+        permit.release(false);
+        Assert.assertEquals(invocations.size(), 1);
+    }
+
+    @Test
+    public void testRank() {
+        final String slow = "https://slow.example.org/";
+        final String fast = "https://fast.example.org/";
+        final String unknown = "https://unknown.example.org/";
+
+        trip();
+        Permit permit = breaker.acquire(slow);
+        advance(50);
+        permit.release(true);
+        permit = breaker.acquire(fast);
+        advance(5);
+        permit.release(true);
+
+        Assert.assertEquals(breaker.rank(Arrays.asList(ENDPOINT, slow, unknown, fast)),
+                Arrays.asList(unknown, fast, slow, ENDPOINT));
+    }
+
+    /** Open the circuit of {@link #ENDPOINT}. */
+    private void trip() {
+        for (int i = 0; i < 4; i++) {
+            breaker.acquire(ENDPOINT).release(false);
+        }
+        Assert.assertEquals(breaker.getState(ENDPOINT), State.OPEN);
+    }
+
+    /**
+     * Advance the clock.
+     * 
+     * @param millis the milliseconds by which to advance it
+     */
+    private void advance(final long millis) {
+        now += TimeUnit.MILLISECONDS.toNanos(millis);
+    }
+
+}
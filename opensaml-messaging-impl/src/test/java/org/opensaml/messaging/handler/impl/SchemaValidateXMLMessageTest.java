@@ -29,9 +29,11 @@ import org.opensaml.core.xml.XMLObject;
 import org.opensaml.core.xml.XMLObjectBaseTestCase;
 import org.opensaml.core.xml.mock.SimpleXMLObject;
 import org.opensaml.core.xml.mock.SimpleXMLObjectBuilder;
+import org.opensaml.core.xml.util.SchemaValidatorPool;
 import org.opensaml.core.xml.util.XMLObjectSupport;
 import org.springframework.core.io.ClassPathResource;
 import org.springframework.core.io.Resource;
+import org.testng.Assert;
 import org.testng.annotations.BeforeClass;
 import org.testng.annotations.Test;
 
@@ -129,4 +131,25 @@ public class SchemaValidateXMLMessageTest extends XMLObjectBaseTestCase {
         
         handler.invoke(messageContext);
     }
-}
\ No newline at end of file
+
+    /** Test handlers sharing the validators of a schema. */
+    @Test public void testSharedValidators() throws Exception {
+
+        final SchemaValidatorPool validators = new SchemaValidatorPool(schema);
+        final SchemaValidateXMLMessage first = new SchemaValidateXMLMessage(validators);
+        first.initialize();
+        final SchemaValidateXMLMessage second = new SchemaValidateXMLMessage(validators);
+        second.initialize();
+
+        Assert.assertSame(first.getValidationSchema(), schema);
+        Assert.assertSame(second.getValidationSchema(), schema);
+
+        final Resource validXmlResource = new ClassPathResource(VALID_XML_FILE);
+        for (int i = 0; i < 10; i++) {
+            final MessageContext messageContext = new MessageContext();
+            messageContext.setMessage(
+                    XMLObjectSupport.unmarshallFromInputStream(parserPool, validXmlResource.getInputStream()));
+            (i % 2 == 0 ? first : second).invoke(messageContext);
+        }
+    }
+}
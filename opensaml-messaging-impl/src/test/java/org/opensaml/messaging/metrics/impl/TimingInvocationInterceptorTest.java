@@ -0,0 +1,130 @@
+/*
+ * Licensed to the University Corporation for Advanced Internet Development, 
+ * Inc. (UCAID) under one or more contributor license agreements.  See the 
+ * NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The UCAID licenses this file to You under the Apache 
+ * License, Version 2.0 (the "License"); you may not use this file except in 
+ * compliance with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.opensaml.messaging.metrics.impl;
+
+import java.util.Arrays;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import org.opensaml.messaging.context.MessageContext;
+import org.opensaml.messaging.handler.AbstractMessageHandler;
+import org.opensaml.messaging.handler.MessageHandler;
+import org.opensaml.messaging.handler.MessageHandlerException;
+import org.opensaml.messaging.handler.impl.BasicMessageHandlerChain;
+import org.opensaml.messaging.metrics.InvocationStatistics;
+import org.testng.Assert;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.google.common.base.Function;
+
+/** Unit test for {@link TimingInvocationInterceptor} and {@link SnapshotInvocationMetricsExporter}. */
+public class TimingInvocationInterceptorTest {
+
+    private TimingInvocationInterceptor interceptor;
+
+    @BeforeMethod
+    public void setUp() {
+        interceptor = new TimingInvocationInterceptor();
+    }
+
+    @Test
+    public void testBuckets() {
+        for (long latency : new long[] {0, 1, 15, 16, 31, 32, 33, 1000, 123456789, Long.MAX_VALUE}) {
+            final int index = TimingInvocationInterceptor.getBucketIndex(latency);
+            final long upper = TimingInvocationInterceptor.getBucketUpperBound(index);
+            Assert.assertTrue(latency <= upper, "Latency " + latency + " above its bucket");
+            Assert.assertTrue(upper - latency <= latency / 16, "Bucket of latency " + latency + " too wide");
+            if (index > 0) {
+                Assert.assertTrue(TimingInvocationInterceptor.getBucketUpperBound(index - 1) < latency,
+                        "Latency " + latency + " below its bucket");
+            }
+        }
+    }
+
+    @Test
+    public void testStatistics() {
+        for (int i = 0; i < 99; i++) {
+            interceptor.postInvoke("handler", "profile", System.nanoTime() - 1000, true);
+        }
+        interceptor.postInvoke("handler", "profile", System.nanoTime() - 1000000000L, false);
+        interceptor.postInvoke("handler", null, interceptor.preInvoke("handler"), true);
+
+        final SnapshotInvocationMetricsExporter exporter = new SnapshotInvocationMetricsExporter();
+        Assert.assertTrue(exporter.getSnapshot().isEmpty());
+        interceptor.export(exporter);
+        Assert.assertEquals(exporter.getSnapshot().size(), 2);
+        Assert.assertNotNull(exporter.getSnapshotTime());
+
+        final InvocationStatistics stats = exporter.getStatistics("handler", "profile");
+        Assert.assertEquals(stats.getInvocationCount(), 100);
+        Assert.assertEquals(stats.getErrorCount(), 1);
+        Assert.assertTrue(stats.getLatencyAtPercentile(50) < 1000000000L);
+        Assert.assertTrue(stats.getLatencyAtPercentile(100) >= 1000000000L);
+        Assert.assertEquals(stats.getLatencyAtPercentile(100), stats.getMaxLatency());
+
+        Assert.assertEquals(exporter.getStatistics("handler", null).getInvocationCount(), 1);
+        Assert.assertNull(exporter.getStatistics("other", null));
+
+        interceptor.reset();
+        Assert.assertTrue(interceptor.getStatistics().isEmpty());
+    }
+
+    @Test
+    public void testChain() throws Exception {
+        final BasicMessageHandlerChain<Object> chain = new BasicMessageHandlerChain<>();
+        chain.setHandlers(Arrays.<MessageHandler<Object>>asList(new SuccessHandler(), new FailureHandler()));
+        chain.setInvocationInterceptor(interceptor);
+        chain.setProfileIdLookupStrategy(new Function<MessageContext, String>() {
+            public String apply(@Nullable final MessageContext input) {
+                return "profile";
+            }
+        });
+        chain.initialize();
+
+        try {
+            chain.invoke(new MessageContext<>());
+            Assert.fail("Exception not raised");
+        } catch (final MessageHandlerException e) {
+            // expected
+        }
+
+        final SnapshotInvocationMetricsExporter exporter = new SnapshotInvocationMetricsExporter();
+        interceptor.export(exporter);
+        Assert.assertEquals(exporter.getSnapshot().size(), 2);
+        Assert.assertEquals(exporter.getStatistics(SuccessHandler.class.getName(), "profile").getErrorCount(), 0);
+        Assert.assertEquals(exporter.getStatistics(FailureHandler.class.getName(), "profile").getErrorCount(), 1);
+    }
+
+    private static class SuccessHandler extends AbstractMessageHandler<Object> {
+
+        protected void doInvoke(@Nonnull final MessageContext<Object> messageContext) {
+
+        }
+    }
+
+    private static class FailureHandler extends AbstractMessageHandler<Object> {
+
+        protected void doInvoke(@Nonnull final MessageContext<Object> messageContext)
+                throws MessageHandlerException {
+            throw new MessageHandlerException();
+        }
+    }
+
+}
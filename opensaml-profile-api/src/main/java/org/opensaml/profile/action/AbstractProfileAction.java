@@ -27,18 +27,42 @@ import net.shibboleth.utilities.java.support.annotation.constraint.NotEmpty;
 import net.shibboleth.utilities.java.support.component.AbstractInitializableComponent;
 import net.shibboleth.utilities.java.support.component.ComponentSupport;
 
+import org.opensaml.messaging.metrics.InvocationInterceptor;
+import org.opensaml.profile.context.ActionStateContext;
 import org.opensaml.profile.context.EventContext;
 import org.opensaml.profile.context.PreviousEventContext;
 import org.opensaml.profile.context.ProfileRequestContext;
 import org.slf4j.LoggerFactory;
 
-//TODO perf metrics
-
 /**
  * Base class for profile actions.
  * 
  * This base class is annotated with {@link Prototype} to indicate that it is stateful.
  * 
+ * <p>
+ * Subclasses may hold whatever they compute in one step of their execution and need in a later one through
+ * {@link #getExecutionState} and {@link #setExecutionState}, rather than in their own fields. Such state is kept in
+ * the context tree and discarded when the execution ends. A subclass which keeps all its per-request state there,
+ * and whose settings are fixed by {@link #initialize()}, may be annotated
+ * {@link net.shibboleth.utilities.java.support.annotation.constraint.ThreadSafeAfterInit} and a single instance
+ * shared by concurrent requests.
+ * </p>
+ * 
+ * <p>
+ * The HTTP request and response are settings like any other, fixed by initialization. A shared instance must either
+ * be given none, or be given {@link net.shibboleth.utilities.java.support.net.ThreadLocalHttpServletRequestProxy}
+ * and {@link net.shibboleth.utilities.java.support.net.ThreadLocalHttpServletResponseProxy}, which resolve the
+ * request and response of the calling thread from
+ * {@link net.shibboleth.utilities.java.support.net.HttpServletRequestResponseContext}, as singleton components such
+ * as the request-scoped storage service already do.
+ * </p>
+ * 
+ * <p>
+ * If an {@link InvocationInterceptor} is set, each execution is reported to it, identified by the class name of the
+ * action and the profile ID of the request. An execution which raises an exception, or signals an event other than
+ * {@link EventIds#PROCEED_EVENT_ID}, is reported as having failed.
+ * </p>
+ * 
  * @param <InboundMessageType> type of in-bound message
  * @param <OutboundMessageType> type of out-bound message
  */
@@ -55,6 +79,9 @@ public abstract class AbstractProfileAction<InboundMessageType, OutboundMessageT
     /** Current HTTP response, if available. */
     @Nullable private HttpServletResponse httpServletResponse;
 
+    /** Interceptor to report executions to, if any. */
+    @Nullable private InvocationInterceptor invocationInterceptor;
+
     /**
      * Get the current HTTP request if available.
      * 
@@ -95,10 +122,76 @@ public abstract class AbstractProfileAction<InboundMessageType, OutboundMessageT
         httpServletResponse = response;
     }
 
+    /**
+     * Get the interceptor to report executions to.
+     * 
+     * @return the interceptor, or null if none
+     */
+    @Nullable public InvocationInterceptor getInvocationInterceptor() {
+        return invocationInterceptor;
+    }
+
+    /**
+     * Set the interceptor to report executions to.
+     * 
+     * @param interceptor the interceptor, or null for none
+     */
+    public void setInvocationInterceptor(@Nullable final InvocationInterceptor interceptor) {
+        ComponentSupport.ifInitializedThrowUnmodifiabledComponentException(this);
+
+        invocationInterceptor = interceptor;
+    }
+
     /** {@inheritDoc} */
     @Override public void execute(
             @Nonnull final ProfileRequestContext<InboundMessageType, OutboundMessageType> profileRequestContext) {
 
+        if (invocationInterceptor == null) {
+            executeSteps(profileRequestContext);
+            return;
+        }
+
+        final String componentId = getClass().getName();
+        final long token = invocationInterceptor.preInvoke(componentId);
+        boolean success = false;
+        try {
+            executeSteps(profileRequestContext);
+            final EventContext<?> eventContext = profileRequestContext.getSubcontext(EventContext.class);
+            success = eventContext == null || eventContext.getEvent() == null
+                    || EventIds.PROCEED_EVENT_ID.equals(eventContext.getEvent());
+        } finally {
+            invocationInterceptor.postInvoke(componentId, profileRequestContext.getProfileId(), token, success);
+        }
+    }
+
+    /**
+     * Run the pre-execution, execution and post-execution steps of the action.
+     * 
+     * @param profileRequestContext the current IdP profile request context
+     */
+    private void executeSteps(
+            @Nonnull final ProfileRequestContext<InboundMessageType, OutboundMessageType> profileRequestContext) {
+        try {
+            doExecuteSteps(profileRequestContext);
+        } finally {
+            final ActionStateContext stateContext = profileRequestContext.getSubcontext(ActionStateContext.class);
+            if (stateContext != null) {
+                stateContext.clearStates(this);
+                if (stateContext.isEmpty()) {
+                    profileRequestContext.removeSubcontext(stateContext);
+                }
+            }
+        }
+    }
+
+    /**
+     * Run the pre-execution, execution and post-execution steps of the action, leaving any state in place.
+     * 
+     * @param profileRequestContext the current IdP profile request context
+     */
+    private void doExecuteSteps(
+            @Nonnull final ProfileRequestContext<InboundMessageType, OutboundMessageType> profileRequestContext) {
+
         // Clear any existing EventContext that might be hanging around, and if it exists,
         // copy the Event to a PreviousEventContext. Don't clear any existing PreviousEventContext
         // because it may be from an earlier error of interest to other actions.
@@ -211,6 +304,38 @@ public abstract class AbstractProfileAction<InboundMessageType, OutboundMessageT
         doPostExecute(profileRequestContext);
     }
 
+    /**
+     * Get state of a given type held for the current execution of this action.
+     * 
+     * @param <T> the type of the state
+     * @param profileRequestContext the current IdP profile request context
+     * @param type the type of the state
+     * 
+     * @return the state, or null if none
+     */
+    @Nullable protected <T> T getExecutionState(@Nonnull final ProfileRequestContext profileRequestContext,
+            @Nonnull final Class<T> type) {
+        final ActionStateContext stateContext = profileRequestContext.getSubcontext(ActionStateContext.class);
+        return stateContext != null ? stateContext.getState(this, type) : null;
+    }
+
+    /**
+     * Set state of a given type for the remainder of the current execution of this action.
+     * 
+     * @param <T> the type of the state
+     * @param profileRequestContext the current IdP profile request context
+     * @param type the type of the state
+     * @param state the state, or null to remove it
+     */
+    protected <T> void setExecutionState(@Nonnull final ProfileRequestContext profileRequestContext,
+            @Nonnull final Class<T> type, @Nullable final T state) {
+        final ActionStateContext stateContext =
+                profileRequestContext.getSubcontext(ActionStateContext.class, state != null);
+        if (stateContext != null) {
+            stateContext.setState(this, type, state);
+        }
+    }
+
     /**
      * Return a prefix for logging messages for this component.
      * 
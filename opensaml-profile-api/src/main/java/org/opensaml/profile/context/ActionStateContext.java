@@ -0,0 +1,143 @@
+/*
+ * Licensed to the University Corporation for Advanced Internet Development, 
+ * Inc. (UCAID) under one or more contributor license agreements.  See the 
+ * NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The UCAID licenses this file to You under the Apache 
+ * License, Version 2.0 (the "License"); you may not use this file except in 
+ * compliance with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.opensaml.profile.context;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.NotThreadSafe;
+
+import net.shibboleth.utilities.java.support.logic.Constraint;
+
+import org.opensaml.messaging.context.BaseContext;
+
+/**
+ * A context component which holds the state of profile actions for the duration of their execution on a request.
+ * 
+ * <p>
+ * Whatever actions compute in one step of their execution and need in another may be kept here rather than in their
+ * own fields, keyed by the action instance and the type of the state, and is discarded when the execution ends.
+ * </p>
+ */
+@NotThreadSafe
+public class ActionStateContext extends BaseContext {
+
+    /** State by action and type. */
+    @Nonnull private final Map<StateKey, Object> states;
+
+    /** Constructor. */
+    public ActionStateContext() {
+        states = new HashMap<>();
+    }
+
+    /**
+     * Get the state of a given type of an action.
+     * 
+     * @param <T> the type of the state
+     * @param action the action
+     * @param type the type of the state
+     * 
+     * @return the state, or null if none
+     */
+    @Nullable public <T> T getState(@Nonnull final Object action, @Nonnull final Class<T> type) {
+        return type.cast(states.get(new StateKey(action, type)));
+    }
+
+    /**
+     * Set the state of a given type of an action.
+     * 
+     * @param <T> the type of the state
+     * @param action the action
+     * @param type the type of the state
+     * @param state the state, or null to remove it
+     */
+    public <T> void setState(@Nonnull final Object action, @Nonnull final Class<T> type, @Nullable final T state) {
+        final StateKey key = new StateKey(Constraint.isNotNull(action, "Action cannot be null"),
+                Constraint.isNotNull(type, "State type cannot be null"));
+        if (state != null) {
+            states.put(key, state);
+        } else {
+            states.remove(key);
+        }
+    }
+
+    /**
+     * Remove all the state of an action.
+     * 
+     * @param action the action
+     */
+    public void clearStates(@Nonnull final Object action) {
+        final Iterator<StateKey> keys = states.keySet().iterator();
+        while (keys.hasNext()) {
+            if (keys.next().action == action) {
+                keys.remove();
+            }
+        }
+    }
+
+    /**
+     * Get whether any state is held.
+     * 
+     * @return true iff no state is held
+     */
+    public boolean isEmpty() {
+        return states.isEmpty();
+    }
+
+    /** Key of the state of a given type of an action, comparing actions by identity. */
+    private static final class StateKey {
+
+        /** The action. */
+        @Nonnull private final Object action;
+
+        /** The type of the state. */
+        @Nonnull private final Class<?> type;
+
+        /**
+         * Constructor.
+         * 
+         * @param owner the action
+         * @param stateType the type of the state
+         */
+        private StateKey(@Nonnull final Object owner, @Nonnull final Class<?> stateType) {
+            action = owner;
+            type = stateType;
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public boolean equals(final Object obj) {
+            if (obj == this) {
+                return true;
+            } else if (!(obj instanceof StateKey)) {
+                return false;
+            }
+            return action == ((StateKey) obj).action && type == ((StateKey) obj).type;
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public int hashCode() {
+            return 31 * System.identityHashCode(action) + type.hashCode();
+        }
+    }
+
+}
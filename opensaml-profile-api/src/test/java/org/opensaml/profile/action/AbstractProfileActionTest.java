@@ -17,8 +17,16 @@
 
 package org.opensaml.profile.action;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 
+import org.opensaml.messaging.metrics.InvocationInterceptor;
+import org.opensaml.profile.context.ActionStateContext;
 import org.opensaml.profile.context.ProfileRequestContext;
 
 import org.testng.Assert;
@@ -107,6 +115,103 @@ public class AbstractProfileActionTest {
         }
     }
 
+    /** Test reporting of executions to an interceptor. */
+    @Test
+    public void testInterceptor() throws Exception {
+        final RecordingInterceptor interceptor = new RecordingInterceptor();
+
+        BaseProfileAction action = new BaseProfileAction();
+        action.setInvocationInterceptor(interceptor);
+        action.initialize();
+        final ProfileRequestContext prc = new ProfileRequestContext();
+        prc.setProfileId("test");
+        action.execute(prc);
+
+        action = new EventProfileAction();
+        action.setInvocationInterceptor(interceptor);
+        action.initialize();
+        action.execute(prc);
+
+        action = new ExecUncheckedProfileAction();
+        action.setInvocationInterceptor(interceptor);
+        action.initialize();
+        try {
+            action.execute(prc);
+            Assert.fail("Exception not raised");
+        } catch (NullPointerException e) {
+            // expected
+        }
+
+        Assert.assertEquals(interceptor.invocations, Arrays.asList(
+                BaseProfileAction.class.getName() + " test true",
+                EventProfileAction.class.getName() + " test false",
+                ExecUncheckedProfileAction.class.getName() + " test false"));
+    }
+
+    /** Test that execution state is carried between steps and discarded afterwards. */
+    @Test
+    public void testExecutionState() throws Exception {
+
+        final StatefulProfileAction action = new StatefulProfileAction();
+        action.initialize();
+        final ProfileRequestContext prc = new ProfileRequestContext();
+        final ProfileRequestContext prc2 = new ProfileRequestContext();
+
+        action.execute(prc);
+        Assert.assertEquals(action.seen, Arrays.asList(prc.toString()));
+        Assert.assertNull(prc.getSubcontext(ActionStateContext.class));
+
+        // State held by another action survives.
+        final Object other = new Object();
+        prc2.getSubcontext(ActionStateContext.class, true).setState(other, String.class, "other");
+        action.execute(prc2);
+        Assert.assertEquals(action.seen, Arrays.asList(prc.toString(), prc2.toString()));
+        Assert.assertEquals(prc2.getSubcontext(ActionStateContext.class).getState(other, String.class), "other");
+        Assert.assertNull(prc2.getSubcontext(ActionStateContext.class).getState(action, String.class));
+
+        final ExecFailProfileAction failing = new ExecFailProfileAction();
+        failing.initialize();
+        prc.getSubcontext(ActionStateContext.class, true).setState(failing, String.class, "failed");
+        try {
+            failing.execute(prc);
+            Assert.fail("Exception not raised");
+        } catch (NullPointerException e) {
+            // expected
+        }
+        Assert.assertNull(prc.getSubcontext(ActionStateContext.class));
+    }
+
+    /** Test that one instance keeps the state of concurrent executions apart. */
+    @Test
+    public void testSharedExecution() throws Exception {
+
+        final StatefulProfileAction action = new StatefulProfileAction();
+        action.initialize();
+        final List<String> expected = Collections.synchronizedList(new ArrayList<String>());
+
+        final Thread[] threads = new Thread[8];
+        for (int i = 0; i < threads.length; i++) {
+            threads[i] = new Thread() {
+                public void run() {
+                    for (int j = 0; j < 200; j++) {
+                        final ProfileRequestContext prc = new ProfileRequestContext();
+                        expected.add(prc.toString());
+                        action.execute(prc);
+                    }
+                }
+            };
+            threads[i].start();
+        }
+        for (final Thread thread : threads) {
+            thread.join();
+        }
+
+        final List<String> seen = new ArrayList<>(action.seen);
+        Collections.sort(seen);
+        Collections.sort(expected);
+        Assert.assertEquals(seen, expected);
+    }
+
     private class BaseProfileAction extends AbstractProfileAction {
         private boolean didPre = false;
         private boolean didExec = false;
@@ -155,6 +260,13 @@ public class AbstractProfileActionTest {
         }
     }
 
+    private class EventProfileAction extends BaseProfileAction {
+        
+        protected void doExecute(@Nonnull final ProfileRequestContext prc) {
+            ActionSupport.buildEvent(prc, EventIds.INVALID_PROFILE_CTX);
+        }
+    }
+
     private class PostFailProfileAction extends BaseProfileAction {
         
         protected void doPostExecute(@Nonnull final ProfileRequestContext prc) {
@@ -162,4 +274,33 @@ public class AbstractProfileActionTest {
         }
     }
 
-}
\ No newline at end of file
+    private class StatefulProfileAction extends AbstractProfileAction {
+        
+        private final List<String> seen = Collections.synchronizedList(new ArrayList<String>());
+        
+        protected boolean doPreExecute(@Nonnull final ProfileRequestContext prc) {
+            setExecutionState(prc, String.class, prc.toString());
+            return true;
+        }
+        
+        protected void doExecute(@Nonnull final ProfileRequestContext prc) {
+            Thread.yield();
+            seen.add(getExecutionState(prc, String.class));
+        }
+    }
+
+    private class RecordingInterceptor implements InvocationInterceptor {
+        
+        private final List<String> invocations = new ArrayList<>();
+        
+        public long preInvoke(@Nonnull final String componentId) {
+            return 0;
+        }
+        
+        public void postInvoke(@Nonnull final String componentId, @Nullable final String profileId,
+                final long token, final boolean success) {
+            invocations.add(componentId + " " + profileId + " " + success);
+        }
+    }
+
+}
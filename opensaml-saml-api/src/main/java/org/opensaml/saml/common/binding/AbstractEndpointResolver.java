@@ -20,7 +20,6 @@ package org.opensaml.saml.common.binding;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Iterator;
-import java.util.LinkedList;
 import java.util.List;
 
 import javax.annotation.Nonnull;
@@ -35,7 +34,6 @@ import net.shibboleth.utilities.java.support.resolver.ResolverException;
 import org.opensaml.saml.criterion.EndpointCriterion;
 import org.opensaml.saml.criterion.RoleDescriptorCriterion;
 import org.opensaml.saml.saml2.metadata.Endpoint;
-import org.opensaml.saml.saml2.metadata.IndexedEndpoint;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -183,6 +181,24 @@ public abstract class AbstractEndpointResolver<EndpointType extends Endpoint>
         return false;
     }
     
+    /**
+     * Select the candidates to evaluate from the indexed endpoints of the requested type in metadata.
+     * 
+     * <p>The default implementation selects all of them. Subclasses which reject candidates on the basis of
+     * their index, binding or location may override this method to narrow the candidates with lookups instead.
+     * Every candidate selected is still subject to {@link #doCheckEndpoint(CriteriaSet, Endpoint)}, and the
+     * order of the index, default endpoint first, must be preserved.</p>
+     * 
+     * @param criteria  input criteria set
+     * @param endpoints the indexed endpoints of the requested type
+     * 
+     * @return the candidates to evaluate
+     */
+    @Nonnull @NonnullElements protected List<Endpoint> selectCandidates(@Nonnull final CriteriaSet criteria,
+            @Nonnull final EndpointIndex.Entry endpoints) {
+        return endpoints.getEndpoints();
+    }
+
     /**
      * Get a mutable list of endpoints of a given type found in the metadata role contained in a
      * {@link RoleDescriptorCriterion} (or an empty list if no metadata exists).
@@ -212,68 +228,23 @@ public abstract class AbstractEndpointResolver<EndpointType extends Endpoint>
             endpointType = epCriterion.getEndpoint().getElementQName();
         }
         
-        // Return the endpoints in the metadata of the candidate type.
-        final List<Endpoint> endpoints = role.getRole().getEndpoints(endpointType);
-        if (endpoints.isEmpty()) {
+        // Return the endpoints in the metadata of the candidate type, as selected from the index.
+        final EndpointIndex.Entry endpoints = EndpointIndex.getEndpoints(role.getRole(), endpointType);
+        if (endpoints.getEndpoints().isEmpty()) {
             log.debug("{} No endpoints in metadata of type {}", getLogPrefix(), endpointType);
-        } else {
-            log.debug("{} Returning {} candidate endpoints of type {}", getLogPrefix(), endpoints.size(),
-                    endpointType);
+            return new ArrayList<>();
         }
         
-        return sortCandidates(endpoints);
-    }
-    
-    /**
-     * Copy and sort the endpoints such that the default endpoint by SAML rules comes first.
-     * 
-     * @param candidates input list of endpoints
-     * 
-     * @return a new list containing the endpoints such that the default is first
-     */
-    // Checkstyle: CyclomaticComplexity OFF
-    @Nonnull @NonnullElements private List<EndpointType> sortCandidates(
-            @Nonnull @NonnullElements List<Endpoint> candidates) {
+        final List<Endpoint> candidates = selectCandidates(criteria, endpoints);
+        log.debug("{} Returning {} of {} candidate endpoints of type {}", getLogPrefix(), candidates.size(),
+                endpoints.getEndpoints().size(), endpointType);
         
-        // Use a linked list, and move the default endpoint to the head of the list.
-        // SAML defaulting rules apply to IndexedEnpdoint types, and require checking
-        // for the isDefault attribute. The default is the one marked true, or if none are,
-        // the first not marked false.
-        EndpointType hardDefault = null;
-        EndpointType softDefault = null;
-        final LinkedList<EndpointType> toReturn = new LinkedList();
+        final List<EndpointType> toReturn = new ArrayList<>(candidates.size());
         for (final Endpoint endpoint : candidates) {
-            if (hardDefault == null && endpoint instanceof IndexedEndpoint) {
-                final Boolean flag = ((IndexedEndpoint) endpoint).isDefault();
-                if (flag != null) {
-                    if (flag.booleanValue()) {
-                        hardDefault = (EndpointType) endpoint;
-                        if (softDefault != null) {
-                            toReturn.addFirst(softDefault);
-                            softDefault = null;
-                        }
-                    } else {
-                        toReturn.addLast((EndpointType) endpoint);
-                    }
-                } else if (hardDefault == null && softDefault == null) {
-                    softDefault = (EndpointType) endpoint;
-                } else {
-                    toReturn.addLast((EndpointType) endpoint);
-                }
-            } else {
-                toReturn.addLast((EndpointType) endpoint);
-            }
-        }
-        
-        if (hardDefault != null) {
-            toReturn.addFirst(hardDefault);
-        } else if (softDefault != null) {
-            toReturn.addFirst(softDefault);
+            toReturn.add((EndpointType) endpoint);
         }
-       
         return toReturn;
     }
-    // Checkstyle: CyclomaticComplexity ON
 
     /**
      * Return a prefix for logging messages for this component.
@@ -0,0 +1,394 @@
+/*
+ * Licensed to the University Corporation for Advanced Internet Development,
+ * Inc. (UCAID) under one or more contributor license agreements.  See the
+ * NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The UCAID licenses this file to You under the Apache
+ * License, Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.opensaml.saml.common.binding;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.locks.ReadWriteLock;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.ThreadSafe;
+import javax.xml.namespace.QName;
+
+import net.shibboleth.utilities.java.support.annotation.constraint.NonnullElements;
+import net.shibboleth.utilities.java.support.annotation.constraint.Unmodifiable;
+import net.shibboleth.utilities.java.support.collection.LockableClassToInstanceMultiMap;
+import net.shibboleth.utilities.java.support.logic.Constraint;
+
+import org.opensaml.saml.saml2.metadata.Endpoint;
+import org.opensaml.saml.saml2.metadata.IndexedEndpoint;
+import org.opensaml.saml.saml2.metadata.RoleDescriptor;
+
+/**
+ * Index of the endpoints of a metadata role, cached in the role's object metadata.
+ *
+ * <p>For each type of endpoint, the index holds the endpoints ordered such that the default endpoint by SAML rules
+ * comes first, along with lookups by index, binding and location which preserve that order.</p>
+ *
+ * <p>Like other data cached in object metadata, an entry is built once, from the role as it stands at the first
+ * lookup of its type, and is not checked against the role again. Refreshed metadata consists of new objects, which
+ * are indexed afresh, but code which modifies the endpoints of a role already indexed must call
+ * {@link #clear(RoleDescriptor)} for the change to be seen.</p>
+ */
+@ThreadSafe
+public final class EndpointIndex {
+
+    /** Entries by endpoint type. */
+    @Nonnull private final ConcurrentMap<QName, Entry> entries;
+
+    /** Constructor. */
+    private EndpointIndex() {
+        entries = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Get the indexed endpoints of a given type in a role, building the index entry if necessary.
+     *
+     * @param role the metadata role
+     * @param endpointType the schema type or element name of the endpoints
+     *
+     * @return the indexed endpoints
+     */
+    @Nonnull public static Entry getEndpoints(@Nonnull final RoleDescriptor role,
+            @Nonnull final QName endpointType) {
+        Constraint.isNotNull(role, "RoleDescriptor cannot be null");
+        Constraint.isNotNull(endpointType, "Endpoint type cannot be null");
+
+        final EndpointIndex index = getIndex(role);
+        final Entry entry = index.entries.get(endpointType);
+        if (entry != null) {
+            return entry;
+        }
+
+        final Entry built = new Entry(role.getEndpoints(endpointType));
+        final Entry existing = index.entries.putIfAbsent(endpointType, built);
+        return existing != null ? existing : built;
+    }
+
+    /**
+     * Discard the indexed endpoints of a role, so that they are indexed afresh at the next lookup.
+     *
+     * <p>This must be called after modifying the endpoints of a role whose endpoints may already have been
+     * looked up.</p>
+     *
+     * @param role the metadata role
+     */
+    public static void clear(@Nonnull final RoleDescriptor role) {
+        Constraint.isNotNull(role, "RoleDescriptor cannot be null");
+
+        getIndex(role).entries.clear();
+    }
+
+    /**
+     * Get the index cached in the object metadata of a role, creating and caching it if necessary.
+     *
+     * @param role the metadata role
+     *
+     * @return the index of the role
+     */
+    @Nonnull private static EndpointIndex getIndex(@Nonnull final RoleDescriptor role) {
+        final LockableClassToInstanceMultiMap<Object> objectMetadata = role.getObjectMetadata();
+        final ReadWriteLock rwlock = objectMetadata.getReadWriteLock();
+
+        try {
+            rwlock.readLock().lock();
+            final List<EndpointIndex> cached = objectMetadata.get(EndpointIndex.class);
+            if (!cached.isEmpty()) {
+                return cached.get(0);
+            }
+        } finally {
+            rwlock.readLock().unlock();
+        }
+
+        try {
+            rwlock.writeLock().lock();
+
+            // Need to check again in case another thread cached an index while this one waited on the write lock.
+            final List<EndpointIndex> cached = objectMetadata.get(EndpointIndex.class);
+            if (!cached.isEmpty()) {
+                return cached.get(0);
+            }
+
+            final EndpointIndex index = new EndpointIndex();
+            objectMetadata.put(index);
+            return index;
+        } finally {
+            rwlock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * The indexed endpoints of one type.
+     *
+     * <p>All lists returned are unmodifiable and ordered such that the default endpoint by SAML rules comes
+     * first.</p>
+     */
+    @ThreadSafe
+    public static final class Entry {
+
+        /** The endpoints, default first. */
+        @Nonnull @NonnullElements private final List<Endpoint> endpoints;
+
+        /** Position of each endpoint in {@link #endpoints}. */
+        @Nonnull private final Map<Endpoint, Integer> positions;
+
+        /** Endpoints by index. */
+        @Nonnull private final Map<Integer, List<Endpoint>> endpointsByIndex;
+
+        /** Endpoints by binding. */
+        @Nonnull private final Map<String, List<Endpoint>> endpointsByBinding;
+
+        /** Endpoints by location and response location. */
+        @Nonnull private final Map<String, List<Endpoint>> endpointsByLocation;
+
+        /** Endpoints without a binding. */
+        @Nonnull @NonnullElements private final List<Endpoint> unboundEndpoints;
+
+        /**
+         * Constructor.
+         *
+         * @param candidates the endpoints to index, in metadata order
+         */
+        private Entry(@Nonnull @NonnullElements final List<Endpoint> candidates) {
+            endpoints = Collections.unmodifiableList(new ArrayList<>(sortEndpoints(candidates)));
+            positions = new IdentityHashMap<>(endpoints.size());
+            endpointsByIndex = new HashMap<>();
+            endpointsByBinding = new HashMap<>();
+            endpointsByLocation = new HashMap<>();
+
+            final List<Endpoint> unbound = new ArrayList<>();
+            for (final Endpoint endpoint : endpoints) {
+                positions.put(endpoint, positions.size());
+                if (endpoint instanceof IndexedEndpoint && ((IndexedEndpoint) endpoint).getIndex() != null) {
+                    addEndpoint(endpointsByIndex, ((IndexedEndpoint) endpoint).getIndex(), endpoint);
+                }
+                if (endpoint.getBinding() != null) {
+                    addEndpoint(endpointsByBinding, endpoint.getBinding(), endpoint);
+                } else {
+                    unbound.add(endpoint);
+                }
+                if (endpoint.getLocation() != null) {
+                    addEndpoint(endpointsByLocation, endpoint.getLocation(), endpoint);
+                }
+                if (endpoint.getResponseLocation() != null
+                        && !endpoint.getResponseLocation().equals(endpoint.getLocation())) {
+                    addEndpoint(endpointsByLocation, endpoint.getResponseLocation(), endpoint);
+                }
+            }
+            unboundEndpoints = Collections.unmodifiableList(unbound);
+        }
+
+        /**
+         * Get all the endpoints.
+         *
+         * @return the endpoints
+         */
+        @Nonnull @NonnullElements @Unmodifiable public List<Endpoint> getEndpoints() {
+            return endpoints;
+        }
+
+        /**
+         * Get the indexed endpoints with a given index.
+         *
+         * @param index the index
+         *
+         * @return the endpoints with the index
+         */
+        @Nonnull @NonnullElements @Unmodifiable public List<Endpoint> getEndpointsByIndex(
+                @Nullable final Integer index) {
+            return lookup(endpointsByIndex, index);
+        }
+
+        /**
+         * Get the endpoints with a given binding.
+         *
+         * @param binding the binding
+         *
+         * @return the endpoints with the binding
+         */
+        @Nonnull @NonnullElements @Unmodifiable public List<Endpoint> getEndpointsByBinding(
+                @Nullable final String binding) {
+            return lookup(endpointsByBinding, binding);
+        }
+
+        /**
+         * Get the endpoints with any of the given bindings, and optionally those without a binding.
+         *
+         * @param bindings the bindings
+         * @param includeUnbound whether to include the endpoints without a binding
+         *
+         * @return the endpoints with any of the bindings
+         */
+        @Nonnull @NonnullElements @Unmodifiable public List<Endpoint> getEndpointsByBindings(
+                @Nonnull @NonnullElements final Collection<String> bindings, final boolean includeUnbound) {
+            final List<List<Endpoint>> matches = new ArrayList<>(bindings.size() + 1);
+            for (final String binding : bindings) {
+                final List<Endpoint> match = endpointsByBinding.get(binding);
+                if (match != null) {
+                    matches.add(match);
+                }
+            }
+            if (includeUnbound && !unboundEndpoints.isEmpty()) {
+                matches.add(unboundEndpoints);
+            }
+
+            if (matches.isEmpty()) {
+                return Collections.emptyList();
+            } else if (matches.size() == 1) {
+                return Collections.unmodifiableList(matches.get(0));
+            }
+            return merge(matches);
+        }
+
+        /**
+         * Get the endpoints whose location or response location is a given location.
+         *
+         * @param location the location
+         *
+         * @return the endpoints with the location
+         */
+        @Nonnull @NonnullElements @Unmodifiable public List<Endpoint> getEndpointsByLocation(
+                @Nullable final String location) {
+            return lookup(endpointsByLocation, location);
+        }
+
+        /**
+         * Merge lists of distinct endpoints, restoring the order of the entry.
+         *
+         * @param lists the lists to merge
+         *
+         * @return the merged endpoints
+         */
+        @Nonnull @NonnullElements @Unmodifiable private List<Endpoint> merge(
+                @Nonnull @NonnullElements final List<List<Endpoint>> lists) {
+            final Endpoint[] slots = new Endpoint[endpoints.size()];
+            int count = 0;
+            for (final List<Endpoint> list : lists) {
+                for (final Endpoint endpoint : list) {
+                    final int position = positions.get(endpoint);
+                    if (slots[position] == null) {
+                        slots[position] = endpoint;
+                        count++;
+                    }
+                }
+            }
+
+            final List<Endpoint> merged = new ArrayList<>(count);
+            for (final Endpoint endpoint : slots) {
+                if (endpoint != null) {
+                    merged.add(endpoint);
+                }
+            }
+            return Collections.unmodifiableList(merged);
+        }
+
+        /**
+         * Look up endpoints by key.
+         *
+         * @param <KeyType> type of key
+         * @param map the map to look in
+         * @param key the key, may be null
+         *
+         * @return the endpoints found, or an empty list
+         */
+        @Nonnull @NonnullElements @Unmodifiable private static <KeyType> List<Endpoint> lookup(
+                @Nonnull final Map<KeyType, List<Endpoint>> map, @Nullable final KeyType key) {
+            final List<Endpoint> found = key != null ? map.get(key) : null;
+            return found != null ? Collections.unmodifiableList(found) : Collections.<Endpoint>emptyList();
+        }
+
+        /**
+         * Add an endpoint to the list kept under a key.
+         *
+         * @param <KeyType> type of key
+         * @param map the map to add to
+         * @param key the key
+         * @param endpoint the endpoint
+         */
+        private static <KeyType> void addEndpoint(@Nonnull final Map<KeyType, List<Endpoint>> map,
+                @Nonnull final KeyType key, @Nonnull final Endpoint endpoint) {
+            List<Endpoint> list = map.get(key);
+            if (list == null) {
+                list = new ArrayList<>(1);
+                map.put(key, list);
+            }
+            list.add(endpoint);
+        }
+
+        /**
+         * Copy and sort the endpoints such that the default endpoint by SAML rules comes first.
+         *
+         * @param candidates input list of endpoints
+         *
+         * @return a new list containing the endpoints such that the default is first
+         */
+        // Checkstyle: CyclomaticComplexity OFF
+        @Nonnull @NonnullElements private static List<Endpoint> sortEndpoints(
+                @Nonnull @NonnullElements final List<Endpoint> candidates) {
+
+            // Use a linked list, and move the default endpoint to the head of the list.
+            // SAML defaulting rules apply to IndexedEnpdoint types, and require checking
+            // for the isDefault attribute. The default is the one marked true, or if none are,
+            // the first not marked false.
+            Endpoint hardDefault = null;
+            Endpoint softDefault = null;
+            final LinkedList<Endpoint> toReturn = new LinkedList<>();
+            for (final Endpoint endpoint : candidates) {
+                if (hardDefault == null && endpoint instanceof IndexedEndpoint) {
+                    final Boolean flag = ((IndexedEndpoint) endpoint).isDefault();
+                    if (flag != null) {
+                        if (flag.booleanValue()) {
+                            hardDefault = endpoint;
+                            if (softDefault != null) {
+                                toReturn.addFirst(softDefault);
+                                softDefault = null;
+                            }
+                        } else {
+                            toReturn.addLast(endpoint);
+                        }
+                    } else if (hardDefault == null && softDefault == null) {
+                        softDefault = endpoint;
+                    } else {
+                        toReturn.addLast(endpoint);
+                    }
+                } else {
+                    toReturn.addLast(endpoint);
+                }
+            }
+
+            if (hardDefault != null) {
+                toReturn.addFirst(hardDefault);
+            } else if (softDefault != null) {
+                toReturn.addFirst(softDefault);
+            }
+
+            return toReturn;
+        }
+        // Checkstyle: CyclomaticComplexity ON
+    }
+
+}
@@ -0,0 +1,53 @@
+/*
+ * Licensed to the University Corporation for Advanced Internet Development,
+ * Inc. (UCAID) under one or more contributor license agreements.  See the
+ * NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The UCAID licenses this file to You under the Apache
+ * License, Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.opensaml.saml.common.binding.encoding;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Map;
+
+import javax.annotation.Nonnull;
+
+import net.shibboleth.utilities.java.support.annotation.constraint.NonnullElements;
+import net.shibboleth.utilities.java.support.annotation.constraint.NotEmpty;
+
+/**
+ * Renders the auto-submitting HTML form used by the HTTP POST family of bindings.
+ */
+public interface HTTPPostFormRenderer {
+
+    /**
+     * Write the HTML document holding the form, UTF-8 encoded.
+     *
+     * <p>
+     * The action and parameter values are supplied as they are to be submitted, and the renderer is responsible for
+     * escaping them for use in HTML attributes.
+     * </p>
+     *
+     * @param output the stream to write the document to, which is not closed
+     * @param bindingURI the URI of the binding in use
+     * @param action the URL the form is submitted to
+     * @param parameters the names and values of the hidden form controls, in document order
+     *
+     * @throws IOException if the document can not be written
+     */
+    void render(@Nonnull final OutputStream output, @Nonnull @NotEmpty final String bindingURI,
+            @Nonnull @NotEmpty final String action, @Nonnull @NonnullElements final Map<String, String> parameters)
+            throws IOException;
+
+}
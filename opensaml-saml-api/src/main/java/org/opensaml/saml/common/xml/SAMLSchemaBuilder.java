@@ -18,6 +18,11 @@
 package org.opensaml.saml.common.xml;
 
 import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
@@ -31,6 +36,7 @@ import net.shibboleth.utilities.java.support.xml.ClasspathResolver;
 import net.shibboleth.utilities.java.support.xml.SchemaBuilder;
 
 import org.opensaml.core.xml.XMLRuntimeException;
+import org.opensaml.core.xml.util.SchemaValidatorPool;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.xml.sax.SAXException;
@@ -40,6 +46,9 @@ import org.xml.sax.SAXException;
  * 
  * <p>Additional schemas may be included in the resulting object by supplying their locations
  * to an injected {@link SchemaBuilder} object.</p>
+ * 
+ * <p>Unless a {@link SchemaBuilder} is injected, the schema is compiled once per JVM for each set of schemas
+ * and shared, along with a {@link SchemaValidatorPool}, by all builders using the same set.</p>
  */
 @ThreadSafe
 public class SAMLSchemaBuilder {
@@ -123,6 +132,9 @@ public class SAMLSchemaBuilder {
         SAMLConstants.SAMLEC_GSS_SCHEMA_LOCATION,
         };
     
+    /** Validators for the schemas compiled without an injected {@link SchemaBuilder}, by set of schemas. */
+    @Nonnull private static final Map<List<String>, SchemaValidatorPool> SHARED_VALIDATORS = new HashMap<>();
+    
       
     /** Logger. */
     private Logger log = LoggerFactory.getLogger(SAMLSchemaBuilder.class);
@@ -130,8 +142,8 @@ public class SAMLSchemaBuilder {
     /** Flag indicating whether the failure to resolve a schema resource should be considered fatal. */
     private boolean unresolvedSchemaFatal;
 
-    /** Cached copy of the schema produced by the builder. */
-    @Nullable private Schema cachedSchema;
+    /** Validators for the schema produced by the builder, once built. */
+    @Nullable private volatile SchemaValidatorPool cachedValidators;
 
     /** Reference to SAML 1.x schemas to apply. */
     @Nonnull @NonnullElements @NotEmpty private String[] saml1xSchemas;
@@ -184,8 +196,8 @@ public class SAMLSchemaBuilder {
      */
     public synchronized void setSchemaBuilder(@Nonnull final SchemaBuilder builder) {
         schemaBuilder = Constraint.isNotNull(builder, "SchemaBuilder cannot be null");
-        cachedSchema = null;
-        configureBuilder();
+        cachedValidators = null;
+        configureBuilder(schemaBuilder, getSchemaSources());
     }
 
     /**
@@ -195,61 +207,122 @@ public class SAMLSchemaBuilder {
      * 
      * @throws SAXException thrown if a schema object cannot be created
      */
-    @Nonnull public synchronized Schema getSAMLSchema() throws SAXException {
-        if (cachedSchema == null) {
-            if (schemaBuilder == null) {
-                try {
-                    schemaBuilder = new SchemaBuilder();
-                    schemaBuilder.setResourceResolver(new ClasspathResolver());
-                    configureBuilder();
-                } catch (RuntimeException e) {
-                    schemaBuilder = null;
-                    throw e;
+    @Nonnull public Schema getSAMLSchema() throws SAXException {
+        return getSAMLSchemaValidators().getSchema();
+    }
+
+    /**
+     * Get a pool of validators for the schema that can validate SAML 1.x, 2.0, and all registered extensions.
+     * 
+     * @return validators for the schema
+     * 
+     * @throws SAXException thrown if a schema object cannot be created
+     */
+    @Nonnull public SchemaValidatorPool getSAMLSchemaValidators() throws SAXException {
+        SchemaValidatorPool validators = cachedValidators;
+        if (validators == null) {
+            synchronized (this) {
+                validators = cachedValidators;
+                if (validators == null) {
+                    if (schemaBuilder == null) {
+                        validators = getSharedValidators(getSchemaSources());
+                    } else {
+                        validators = new SchemaValidatorPool(schemaBuilder.buildSchema());
+                    }
+                    cachedValidators = validators;
                 }
             }
-            cachedSchema = schemaBuilder.buildSchema();
-            return cachedSchema;
-        } else {
-            return cachedSchema;
         }
+        return validators;
     }
 
     /**
-     * Configure the appropriate {@link SchemaBuilder} with the right set of schemas.
+     * Get the validators for a set of schemas compiled with a default {@link SchemaBuilder}, compiling them if no
+     * other builder has done so.
+     * 
+     * @param sources the schema resource paths
+     * 
+     * @return validators for the schema
+     * 
+     * @throws SAXException thrown if a schema object cannot be created
      */
-    @Nonnull private void configureBuilder() {
-        for (final String source : baseXMLSchemas) {
-            addSchemaToBuilder(source);
-        }
-
-        for (final String source : soapSchemas) {
-            addSchemaToBuilder(source);
+    @Nonnull private SchemaValidatorPool getSharedValidators(@Nonnull @NonnullElements final List<String> sources)
+            throws SAXException {
+        synchronized (SHARED_VALIDATORS) {
+            SchemaValidatorPool validators = SHARED_VALIDATORS.get(sources);
+            if (validators == null) {
+                final SchemaBuilder builder = new SchemaBuilder();
+                builder.setResourceResolver(new ClasspathResolver());
+                configureBuilder(builder, sources);
+                validators = new SchemaValidatorPool(builder.buildSchema());
+                SHARED_VALIDATORS.put(sources, validators);
+            } else {
+                log.debug("Using previously compiled SAML schema");
+            }
+            return validators;
         }
+    }
 
-        for (final String source : saml1xSchemas) {
-            addSchemaToBuilder(source);
-        }
+    /**
+     * Get the locations of the schemas to apply which can be found.
+     * 
+     * @return the schema resource paths
+     */
+    @Nonnull @NonnullElements private List<String> getSchemaSources() {
+        final List<String> sources = new ArrayList<>();
+        addSchemaSources(sources, baseXMLSchemas);
+        addSchemaSources(sources, soapSchemas);
+        addSchemaSources(sources, saml1xSchemas);
+        addSchemaSources(sources, saml20Schemas);
+        addSchemaSources(sources, baseExtSchemas);
+        return Collections.unmodifiableList(sources);
+    }
 
-        for (final String source : saml20Schemas) {
-            addSchemaToBuilder(source);
+    /**
+     * Add the locations of those of a set of schemas which can be found.
+     * 
+     * @param sources the list to add to
+     * @param schemas the schema resource paths
+     */
+    private void addSchemaSources(@Nonnull @NonnullElements final List<String> sources,
+            @Nonnull @NonnullElements final String[] schemas) {
+        for (final String source : schemas) {
+            if (SAMLSchemaBuilder.class.getResource(source) != null) {
+                sources.add(source);
+            } else {
+                log.error("Failed to locate schema resource: {}", source);
+                if (unresolvedSchemaFatal) {
+                    throw new XMLRuntimeException("Failed to locate schema resource: " + source);
+                }
+            }
         }
+    }
 
-        for (final String source : baseExtSchemas) {
-            addSchemaToBuilder(source);
+    /**
+     * Configure a {@link SchemaBuilder} with a set of schemas.
+     * 
+     * @param builder the builder to configure
+     * @param sources the schema resource paths
+     */
+    private void configureBuilder(@Nonnull final SchemaBuilder builder,
+            @Nonnull @NonnullElements final List<String> sources) {
+        for (final String source : sources) {
+            addSchemaToBuilder(builder, source);
         }
     }
     
     /**
-     * Load the schema from the specified source and add it to the internal {@link SchemaBuilder}.
+     * Load the schema from the specified source and add it to a {@link SchemaBuilder}.
      * 
+     * @param builder the builder to add to
      * @param source the schema resource path
      */
-    private void addSchemaToBuilder(@Nonnull final String source) {
+    private void addSchemaToBuilder(@Nonnull final SchemaBuilder builder, @Nonnull final String source) {
         final Class<SAMLSchemaBuilder> clazz = SAMLSchemaBuilder.class;
         
         final InputStream stream = clazz.getResourceAsStream(source);
         if (stream != null) {
-            schemaBuilder.addSchema(stream);
+            builder.addSchema(stream);
         } else {
             log.error("Failed to locate schema resource: {}", source);
             if (unresolvedSchemaFatal) {
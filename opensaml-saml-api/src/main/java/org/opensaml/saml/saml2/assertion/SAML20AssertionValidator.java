@@ -203,6 +203,30 @@ public class SAML20AssertionValidator {
      */
     @Nonnull public ValidationResult validate(@Nonnull final Assertion assertion, 
             @Nonnull final ValidationContext context) throws AssertionValidationException {
+        return validate(assertion, context, true);
+    }
+
+    /**
+     * Validate the supplied SAML 2 {@link Assertion}, using the parameters from the supplied {@link ValidationContext},
+     * optionally omitting the evaluation of its signature.
+     * 
+     * <p>
+     * The signature evaluation may only be omitted by a caller which has already established, through this validator,
+     * that the signature is valid for exactly the same content, such as a cache of earlier validation results. All
+     * other checks depend on the time or on the context, and are always performed.
+     * </p>
+     * 
+     * @param assertion the assertion being evaluated
+     * @param context the current validation context
+     * @param evaluateSignature whether to evaluate the signature
+     * 
+     * @return the validation result
+     * 
+     * @throws AssertionValidationException if there is a fatal error evaluating the validity of the assertion
+     */
+    @Nonnull public ValidationResult validate(@Nonnull final Assertion assertion, 
+            @Nonnull final ValidationContext context, final boolean evaluateSignature)
+            throws AssertionValidationException {
         
         log(assertion, context);
         
@@ -211,9 +235,14 @@ public class SAML20AssertionValidator {
             return result;
         }
 
-        result = validateSignature(assertion, context);
-        if (result != ValidationResult.VALID) {
-            return result;
+        if (evaluateSignature) {
+            result = validateSignature(assertion, context);
+            if (result != ValidationResult.VALID) {
+                return result;
+            }
+        } else {
+            log.debug("Signature of Assertion '{}' was previously validated, skipping its evaluation",
+                    assertion.getID());
         }
 
         result = validateConditions(assertion, context);
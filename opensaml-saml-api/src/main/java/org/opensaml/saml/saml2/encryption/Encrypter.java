@@ -19,6 +19,7 @@ package org.opensaml.saml.saml2.encryption;
 
 import java.security.Key;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 import javax.xml.namespace.QName;
@@ -31,6 +32,7 @@ import org.opensaml.core.xml.XMLObject;
 import org.opensaml.core.xml.XMLObjectBuilderFactory;
 import org.opensaml.core.xml.config.XMLObjectProviderRegistrySupport;
 import org.opensaml.core.xml.io.MarshallingException;
+import org.opensaml.core.xml.io.UnmarshallingException;
 import org.opensaml.core.xml.util.XMLObjectSupport;
 import org.opensaml.saml.saml2.core.Assertion;
 import org.opensaml.saml.saml2.core.Attribute;
@@ -333,6 +335,72 @@ public class Encrypter extends org.opensaml.xmlsec.encryption.support.Encrypter
         }
     }
 
+    /**
+     * Encrypt the specified Assertions using a single data encryption key.
+     * 
+     * <p>
+     * See {@link #encryptBatch(List, QName)} for details.
+     * </p>
+     * 
+     * @param assertions the Assertions to encrypt
+     * @return the EncryptedAssertions, in the same order as the input
+     * @throws EncryptionException thrown when encryption generates an error
+     */
+    public List<EncryptedAssertion> encryptAssertions(List<Assertion> assertions) throws EncryptionException {
+        for (Assertion assertion : assertions) {
+            logPreEncryption(assertion, "Assertion");
+        }
+        List<EncryptedAssertion> results = new ArrayList<>(assertions.size());
+        for (EncryptedElementType encElement : encryptBatch(assertions, EncryptedAssertion.DEFAULT_ELEMENT_NAME)) {
+            results.add((EncryptedAssertion) encElement);
+        }
+        return results;
+    }
+
+    /**
+     * Encrypt the specified Attributes using a single data encryption key.
+     * 
+     * <p>
+     * See {@link #encryptBatch(List, QName)} for details.
+     * </p>
+     * 
+     * @param attributes the Attributes to encrypt
+     * @return the EncryptedAttributes, in the same order as the input
+     * @throws EncryptionException thrown when encryption generates an error
+     */
+    public List<EncryptedAttribute> encryptAttributes(List<Attribute> attributes) throws EncryptionException {
+        for (Attribute attribute : attributes) {
+            logPreEncryption(attribute, "Attribute");
+        }
+        List<EncryptedAttribute> results = new ArrayList<>(attributes.size());
+        for (EncryptedElementType encElement : encryptBatch(attributes, EncryptedAttribute.DEFAULT_ELEMENT_NAME)) {
+            results.add((EncryptedAttribute) encElement);
+        }
+        return results;
+    }
+
+    /**
+     * Encrypt the specified NameIDs using a single data encryption key.
+     * 
+     * <p>
+     * See {@link #encryptBatch(List, QName)} for details.
+     * </p>
+     * 
+     * @param nameIDs the NameIDs to encrypt
+     * @return the EncryptedIDs, in the same order as the input
+     * @throws EncryptionException thrown when encryption generates an error
+     */
+    public List<EncryptedID> encryptNameIDs(List<NameID> nameIDs) throws EncryptionException {
+        for (NameID nameID : nameIDs) {
+            logPreEncryption(nameID, "NameID");
+        }
+        List<EncryptedID> results = new ArrayList<>(nameIDs.size());
+        for (EncryptedElementType encElement : encryptBatch(nameIDs, EncryptedID.DEFAULT_ELEMENT_NAME)) {
+            results.add((EncryptedID) encElement);
+        }
+        return results;
+    }
+
     /**
      * Encrypt the specified XMLObject, and return it as an instance of the specified QName, which should be one of the
      * types derived from {@link org.opensaml.saml.saml2.core.EncryptedElementType}.
@@ -343,16 +411,31 @@ public class Encrypter extends org.opensaml.xmlsec.encryption.support.Encrypter
      * @throws EncryptionException thrown when encryption generates an error
      */
     private EncryptedElementType encrypt(XMLObject xmlObject, QName encElementName) throws EncryptionException {
+        return encryptBatch(Collections.singletonList(xmlObject), encElementName).get(0);
+    }
 
-        checkParams(encParams, kekParamsList);
-
-        EncryptedElementType encElement =
-                (EncryptedElementType) builderFactory.getBuilder(encElementName).buildObject(encElementName);
+    /**
+     * Encrypt the specified XMLObjects, all bound for the same recipient(s), and return each as an instance of the
+     * specified QName, which should be one of the types derived from
+     * {@link org.opensaml.saml.saml2.core.EncryptedElementType}.
+     * 
+     * <p>
+     * A single data encryption key is used for all of the objects, and it is encrypted (wrapped) only once per
+     * {@link KeyEncryptionParameters}, which avoids repeating the expensive key transport operation for each object.
+     * Each resulting EncryptedElementType carries its own copy of the resulting EncryptedKey(s), placed and linked
+     * according to the current {@link KeyPlacement} option, so that each may be decrypted independently.
+     * </p>
+     * 
+     * @param xmlObjects the XMLObjects to encrypt
+     * @param encElementName the QName of the specialization of EncryptedElementType to return
+     * @return the specializations of {@link org.opensaml.saml.saml2.core.EncryptedElementType}, in the same order
+     *          as the input
+     * @throws EncryptionException thrown when encryption generates an error
+     */
+    protected List<EncryptedElementType> encryptBatch(List<? extends XMLObject> xmlObjects, QName encElementName)
+            throws EncryptionException {
 
-        // Marshall the containing element, we will need its Document context to pass
-        // to the key encryption method
-        checkAndMarshall(encElement);
-        Document ownerDocument = encElement.getDOM().getOwnerDocument();
+        checkParams(encParams, kekParamsList);
 
         String encryptionAlgorithmURI = encParams.getAlgorithm();
         Key encryptionKey = CredentialSupport.extractEncryptionKey(encParams.getEncryptionCredential());
@@ -360,24 +443,68 @@ public class Encrypter extends org.opensaml.xmlsec.encryption.support.Encrypter
             encryptionKey = generateEncryptionKey(encryptionAlgorithmURI);
         }
 
-        EncryptedData encryptedData = encryptElement(xmlObject, encryptionKey, encryptionAlgorithmURI, false);
-        if (encParams.getKeyInfoGenerator() != null) {
-            KeyInfoGenerator generator = encParams.getKeyInfoGenerator();
-            log.debug("Dynamically generating KeyInfo from Credential for EncryptedData using generator: {}", generator
-                    .getClass().getName());
-            try {
-                encryptedData.setKeyInfo(generator.generate(encParams.getEncryptionCredential()));
-            } catch (SecurityException e) {
-                throw new EncryptionException("Error generating EncryptedData KeyInfo", e);
+        List<EncryptedElementType> encElements = new ArrayList<>(xmlObjects.size());
+        List<EncryptedKey> wrappedKeys = null;
+
+        for (int i = 0; i < xmlObjects.size(); i++) {
+            EncryptedElementType encElement =
+                    (EncryptedElementType) builderFactory.getBuilder(encElementName).buildObject(encElementName);
+
+            // Marshall the containing element, we will need its Document context to pass
+            // to the key encryption method
+            checkAndMarshall(encElement);
+            Document ownerDocument = encElement.getDOM().getOwnerDocument();
+
+            EncryptedData encryptedData =
+                    encryptElement(xmlObjects.get(i), encryptionKey, encryptionAlgorithmURI, false);
+            if (encParams.getKeyInfoGenerator() != null) {
+                KeyInfoGenerator generator = encParams.getKeyInfoGenerator();
+                log.debug("Dynamically generating KeyInfo from Credential for EncryptedData using generator: {}",
+                        generator.getClass().getName());
+                try {
+                    encryptedData.setKeyInfo(generator.generate(encParams.getEncryptionCredential()));
+                } catch (SecurityException e) {
+                    throw new EncryptionException("Error generating EncryptedData KeyInfo", e);
+                }
+            }
+
+            List<EncryptedKey> encryptedKeys = new ArrayList<>();
+            if (kekParamsList != null && !kekParamsList.isEmpty()) {
+                if (wrappedKeys == null) {
+                    wrappedKeys = encryptKey(encryptionKey, kekParamsList, ownerDocument);
+                }
+                // The wrapped keys are consumed by the last target, every other target gets a copy.
+                if (i == xmlObjects.size() - 1) {
+                    encryptedKeys.addAll(wrappedKeys);
+                } else {
+                    encryptedKeys.addAll(copyEncryptedKeys(wrappedKeys));
+                }
             }
-        }
 
-        List<EncryptedKey> encryptedKeys = new ArrayList<>();
-        if (kekParamsList != null && !kekParamsList.isEmpty()) {
-            encryptedKeys.addAll(encryptKey(encryptionKey, kekParamsList, ownerDocument));
+            encElements.add(processElements(encElement, encryptedData, encryptedKeys));
         }
 
-        return processElements(encElement, encryptedData, encryptedKeys);
+        return encElements;
+    }
+
+    /**
+     * Copy a list of EncryptedKeys, so that the same wrapped key may be carried by more than one
+     * EncryptedElementType.
+     * 
+     * @param encKeys the EncryptedKeys to copy
+     * @return the copies
+     * @throws EncryptionException thrown if the EncryptedKeys could not be copied
+     */
+    private List<EncryptedKey> copyEncryptedKeys(List<EncryptedKey> encKeys) throws EncryptionException {
+        List<EncryptedKey> copies = new ArrayList<>(encKeys.size());
+        for (EncryptedKey encKey : encKeys) {
+            try {
+                copies.add(XMLObjectSupport.cloneXMLObject(encKey));
+            } catch (MarshallingException | UnmarshallingException e) {
+                throw new EncryptionException("Error copying EncryptedKey", e);
+            }
+        }
+        return copies;
     }
 
     /**
@@ -18,10 +18,7 @@
 package org.opensaml.saml.common.binding.artifact.impl;
 
 import java.io.IOException;
-import java.util.Iterator;
 import java.util.Map;
-import java.util.Timer;
-import java.util.TimerTask;
 import java.util.concurrent.ConcurrentHashMap;
 
 import javax.annotation.Nonnull;
@@ -40,10 +37,17 @@ import org.joda.time.DateTime;
 import org.opensaml.saml.common.SAMLObject;
 import org.opensaml.saml.common.binding.artifact.ExpiringSAMLArtifactMapEntry;
 import org.opensaml.saml.common.binding.artifact.SAMLArtifactMap;
+import org.opensaml.storage.ExpirationScheduler;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-/** Basic artifact map implementation. */
+/**
+ * Basic artifact map implementation.
+ * 
+ * <p>Unless cleanup is disabled, each entry is removed as it expires by the shared {@link ExpirationScheduler},
+ * rather than by a periodic scan of the map on a thread of its own. Removals are cancelled as entries are removed or
+ * replaced, and when the map is destroyed.</p>
+ */
 public class BasicSAMLArtifactMap extends AbstractInitializableComponent implements
         SAMLArtifactMap {
 
@@ -59,14 +63,14 @@ public class BasicSAMLArtifactMap extends AbstractInitializableComponent impleme
     /** Factory for SAMLArtifactMapEntry instances. */
     @Nonnull private SAMLArtifactMapEntryFactory entryFactory;
 
-    /** Number of seconds between cleanup checks. Default value: (300) */
+    /** Cleanup interval, any value other than 0 enables removal of expired entries. Default value: (300) */
     @Duration @NonNegative private long cleanupInterval;
 
-    /** Timer used to schedule cleanup tasks. */
-    @NonnullAfterInit private Timer cleanupTaskTimer;
+    /** Scheduler used to remove entries as they expire, null if cleanup is disabled. */
+    @Nullable private ExpirationScheduler expirationScheduler;
 
-    /** Task that cleans up expired records. */
-    @Nullable private TimerTask cleanupTask;
+    /** Scheduled removals by artifact. */
+    @NonnullAfterInit private Map<String,Removal> removals;
 
     /** Constructor. */
     public BasicSAMLArtifactMap() {
@@ -79,21 +83,23 @@ public class BasicSAMLArtifactMap extends AbstractInitializableComponent impleme
     @Override protected void doInitialize() throws ComponentInitializationException {
         super.doInitialize();
         artifactStore = new ConcurrentHashMap<>();
+        removals = new ConcurrentHashMap<>();
 
         if (cleanupInterval > 0) {
-            cleanupTask = new Cleanup();
-            cleanupTaskTimer = new Timer(true);
-            cleanupTaskTimer.schedule(cleanupTask, cleanupInterval * 1000, cleanupInterval * 1000);
+            expirationScheduler = ExpirationScheduler.getSharedInstance();
         }
     }
 
     /** {@inheritDoc} */
     @Override protected void doDestroy() {
-        if (cleanupTask != null) {
-            cleanupTask.cancel();
-            cleanupTask = null;
-            cleanupTaskTimer = null;
+        // Cancel what is still scheduled, so the shared scheduler no longer refers to this map.
+        if (removals != null) {
+            for (final Removal removal : removals.values()) {
+                removal.cancel();
+            }
+            removals = null;
         }
+        expirationScheduler = null;
         artifactStore = null;
         
         super.doDestroy();
@@ -129,6 +135,9 @@ public class BasicSAMLArtifactMap extends AbstractInitializableComponent impleme
     /**
      * Set the cleanup interval in milliseconds, or 0 for none.
      * 
+     * <p>Expired entries are removed as they expire, so any value other than 0 simply enables their removal.
+     * Without it, expired entries are only removed when they are next retrieved.</p>
+     * 
      * @param interval  cleanup interval in milliseconds
      */
     public void setCleanupInterval(@Duration @NonNegative final long interval) {
@@ -183,6 +192,7 @@ public class BasicSAMLArtifactMap extends AbstractInitializableComponent impleme
         }
 
         artifactStore.put(artifact, artifactEntry);
+        scheduleRemoval(artifact, artifactEntry.getExpiration());
     }
 
     /** {@inheritDoc} */
@@ -190,27 +200,84 @@ public class BasicSAMLArtifactMap extends AbstractInitializableComponent impleme
         log.debug("Removing artifact entry: {}", artifact);
 
         artifactStore.remove(artifact);
+        final Removal removal = removals.remove(artifact);
+        if (removal != null) {
+            removal.cancel();
+        }
+    }
+
+    /**
+     * Schedule the removal of an artifact's entry at its expiration, replacing any removal already scheduled.
+     * 
+     * @param artifact the artifact
+     * @param expiration the expiration of its entry
+     */
+    private void scheduleRemoval(@Nonnull final String artifact, final long expiration) {
+        final ExpirationScheduler scheduler = expirationScheduler;
+        final Map<String,Removal> currentRemovals = removals;
+        if (scheduler == null || currentRemovals == null) {
+            return;
+        }
+
+        // Registered before scheduling, so that the removal finds itself registered whenever it runs.
+        final Removal removal = new Removal(artifact);
+        final Removal previous = currentRemovals.put(artifact, removal);
+        if (previous != null) {
+            previous.cancel();
+        }
+        removal.registration = scheduler.schedule(expiration, removal);
     }
 
     /**
-     * A cleanup task that relies on the weakly consistent iterator support in the map implementation.
+     * Removes an entry when it expires. An entry found still valid, having been replaced in the meantime, is
+     * scheduled again.
+     * 
+     * <p>Only the artifact is held, so that an entry which is removed in the meantime is not kept reachable.</p>
      */
-    protected class Cleanup extends TimerTask {
+    private class Removal implements Runnable {
+
+        /** The artifact. */
+        @Nonnull private final String artifact;
+
+        /** The registration of this removal with the scheduler. */
+        @Nullable private volatile ExpirationScheduler.Registration registration;
+
+        /**
+         * Constructor.
+         *
+         * @param expiringArtifact the artifact
+         */
+        private Removal(@Nonnull final String expiringArtifact) {
+            artifact = expiringArtifact;
+        }
+
+        /** Cancel this removal. */
+        private void cancel() {
+            final ExpirationScheduler.Registration current = registration;
+            if (current != null) {
+                current.cancel();
+            }
+        }
 
         /** {@inheritDoc} */
         @Override public void run() {
-            log.info("Running cleanup task");
-
-            final Long now = System.currentTimeMillis();
+            final Map<String,ExpiringSAMLArtifactMapEntry> store = artifactStore;
+            final Map<String,Removal> currentRemovals = removals;
+            if (store == null || currentRemovals == null || !currentRemovals.remove(artifact, this)) {
+                return;
+            }
 
-            Iterator<Map.Entry<String, ExpiringSAMLArtifactMapEntry>> i = artifactStore.entrySet().iterator();
-            while (i.hasNext()) {
-                final Map.Entry<String, ExpiringSAMLArtifactMapEntry> entry = i.next();
-                if (!entry.getValue().isValid(now)) {
-                    i.remove();
+            final ExpiringSAMLArtifactMapEntry entry = store.get(artifact);
+            if (entry == null) {
+                return;
+            } else if (!entry.isValid()) {
+                if (store.remove(artifact, entry)) {
+                    log.debug("Removed expired artifact entry: {}", artifact);
                 }
+            } else {
+                scheduleRemoval(artifact, entry.getExpiration());
             }
         }
     }
 
-}
\ No newline at end of file
+}
@@ -18,6 +18,7 @@
 package org.opensaml.saml.common.binding.artifact.impl;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.StringReader;
 
 import javax.annotation.Nonnull;
@@ -44,6 +45,7 @@ import org.opensaml.saml.common.SAMLObject;
 import org.opensaml.saml.common.binding.artifact.BasicSAMLArtifactMapEntry;
 import org.opensaml.saml.common.binding.artifact.SAMLArtifactMap.SAMLArtifactMapEntry;
 import org.opensaml.saml.common.binding.artifact.SAMLArtifactMap.SAMLArtifactMapEntryFactory;
+import org.opensaml.saml.common.binding.impl.DeflateCodec;
 import org.opensaml.storage.StorageSerializer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -53,12 +55,33 @@ import org.w3c.dom.Node;
 /**
  * A factory and {@link StorageSerializer} for instances of {@link BasicSAMLArtifactMapEntry}.
  * 
- * <p>This implements serialization of an entry by wrapping the XML-based message
- * in a parent element that tracks the additional associated data.</p>
+ * <p>This implements serialization of an entry as a short header carrying the issuer and relying party, followed
+ * by the serialized message, DEFLATE compressed and Base64 encoded. Deserialized entries only decompress, parse and
+ * unmarshall the message when it is first requested, so that an entry rejected on the basis of its issuer or relying
+ * party costs no XML processing, and an entry stored again unchanged is not serialized again.</p>
+ * 
+ * <p>Entries serialized by earlier versions, by wrapping the XML-based message in a parent element that tracks the
+ * additional associated data, are still deserialized.</p>
  */
 public class StorageServiceSAMLArtifactMapEntryFactory extends AbstractInitializableComponent
         implements SAMLArtifactMapEntryFactory, StorageSerializer<SAMLArtifactMapEntry> {
 
+    /** Prefix identifying the compact serialization format. */
+    @Nonnull @NotEmpty private static final String COMPACT_FORMAT_PREFIX = "D1:";
+
+    /** Separator between the length of a header field and its value. */
+    private static final char LENGTH_SEPARATOR = ':';
+
+    /**
+     * Codec used to compress messages. The messages are written by this class, so the size of an inflated message is
+     * not limited beyond that of the storage service.
+     */
+    @Nonnull private static final DeflateCodec CODEC = new DeflateCodec();
+
+    static {
+        CODEC.setMaxInflatedSize(Long.MAX_VALUE);
+    }
+
     /** Class logger. */
     @Nonnull private final Logger log = LoggerFactory.getLogger(StorageServiceSAMLArtifactMapEntryFactory.class);
 
@@ -109,26 +132,36 @@ public class StorageServiceSAMLArtifactMapEntryFactory extends AbstractInitializ
     @Nonnull public String serialize(@Nonnull final SAMLArtifactMapEntry instance) throws IOException {        
         log.debug("Serializing SAMLArtifactMapEntry for storage");
         
-        final Element marshalledMessage;
-        try {
-            marshalledMessage = XMLObjectSupport.marshall(instance.getSamlMessage());
-        } catch (MarshallingException e) {
-            throw new IOException("Error marshalling SAML message", e);
+        String encodedMessage = null;
+        if (instance instanceof CompactSAMLArtifactMapEntry) {
+            encodedMessage = ((CompactSAMLArtifactMapEntry) instance).encodedMessage;
         }
-        
-        final Element rootElement = marshalledMessage.getOwnerDocument().createElementNS(null, "Mapping");
-        rootElement.setAttributeNS(null, "issuer", instance.getIssuerId());
-        rootElement.setAttributeNS(null, "relyingParty", instance.getRelyingPartyId());
-        rootElement.appendChild(marshalledMessage);
-        
-        final String serializedMessage = SerializeSupport.nodeToString(rootElement);
-        
-        if (log.isTraceEnabled()) {
-            log.trace("Serialized SAMLArtifactMapEntry data is:");
-            log.trace(serializedMessage);
+        if (encodedMessage == null) {
+            final Element marshalledMessage;
+            try {
+                marshalledMessage = XMLObjectSupport.marshall(instance.getSamlMessage());
+            } catch (final MarshallingException e) {
+                throw new IOException("Error marshalling SAML message", e);
+            }
+            
+            final String serializedMessage = SerializeSupport.nodeToString(marshalledMessage);
+            if (log.isTraceEnabled()) {
+                log.trace("Serialized SAML message is:");
+                log.trace(serializedMessage);
+            }
+            encodedMessage = CODEC.deflateAndBase64Encode(serializedMessage);
         }
         
-        return serializedMessage;
+        final String issuer = instance.getIssuerId();
+        final String relyingParty = instance.getRelyingPartyId();
+        final StringBuilder builder = new StringBuilder(COMPACT_FORMAT_PREFIX.length() + issuer.length()
+                + relyingParty.length() + encodedMessage.length() + 16);
+        builder.append(COMPACT_FORMAT_PREFIX);
+        builder.append(issuer.length()).append(LENGTH_SEPARATOR).append(issuer);
+        builder.append(relyingParty.length()).append(LENGTH_SEPARATOR).append(relyingParty);
+        builder.append(encodedMessage);
+        
+        return builder.toString();
     }
 
     /** {@inheritDoc} */
@@ -138,6 +171,10 @@ public class StorageServiceSAMLArtifactMapEntryFactory extends AbstractInitializ
                     throws IOException {
         log.debug("Deserializing artifact mapping data from stored string");
 
+        if (value.startsWith(COMPACT_FORMAT_PREFIX)) {
+            return deserializeCompact(key, value);
+        }
+
         if (log.isTraceEnabled()) {
             log.trace("Serialized SAMLArtifactMapEntry data is:");
             log.trace(value);
@@ -179,4 +216,156 @@ public class StorageServiceSAMLArtifactMapEntryFactory extends AbstractInitializ
     }
     // Checkstyle: CyclomaticComplexity ON
 
-}
\ No newline at end of file
+    /**
+     * Deserialize an entry stored in the compact format, leaving its message to be decoded when first requested.
+     * 
+     * @param key the artifact
+     * @param value the stored entry
+     * 
+     * @return the entry
+     * @throws IOException if the header of the stored entry is malformed
+     */
+    @Nonnull private SAMLArtifactMapEntry deserializeCompact(@Nonnull @NotEmpty final String key,
+            @Nonnull @NotEmpty final String value) throws IOException {
+        
+        final int[] position = {COMPACT_FORMAT_PREFIX.length()};
+        final String issuer = readField(value, position);
+        final String relyingParty = readField(value, position);
+        if (issuer.isEmpty() || relyingParty.isEmpty() || position[0] >= value.length()) {
+            throw new IOException("SAMLArtifactMapEntry missing issuer, relying party or message");
+        }
+        
+        return new CompactSAMLArtifactMapEntry(key, issuer, relyingParty, value.substring(position[0]),
+                getParserPool());
+    }
+
+    /**
+     * Read a length-prefixed header field.
+     * 
+     * @param value the stored entry
+     * @param position the position of the field, advanced past it
+     * 
+     * @return the field
+     * @throws IOException if the field is malformed
+     */
+    @Nonnull private String readField(@Nonnull final String value, @Nonnull final int[] position) throws IOException {
+        final int separator = value.indexOf(LENGTH_SEPARATOR, position[0]);
+        if (separator <= position[0]) {
+            throw new IOException("SAMLArtifactMapEntry header field missing its length");
+        }
+        
+        final int length;
+        try {
+            length = Integer.parseInt(value.substring(position[0], separator));
+        } catch (final NumberFormatException e) {
+            throw new IOException("SAMLArtifactMapEntry header field has an invalid length", e);
+        }
+        if (length < 0 || length > value.length() - separator - 1) {
+            throw new IOException("SAMLArtifactMapEntry header field has an invalid length");
+        }
+        
+        position[0] = separator + 1 + length;
+        return value.substring(separator + 1, position[0]);
+    }
+
+    /**
+     * An entry deserialized from the compact format, which decodes its message when first requested.
+     * 
+     * <p>Until then, the entry retains the encoded message, so that it may be stored again without being serialized
+     * again.</p>
+     */
+    private static final class CompactSAMLArtifactMapEntry implements SAMLArtifactMapEntry {
+        
+        /** SAML artifact being mapped. */
+        @Nonnull @NotEmpty private final String artifact;
+
+        /** EntityID of the issuer of the artifact. */
+        @Nonnull @NotEmpty private final String issuer;
+
+        /** EntityID of the intended recipient of the artifact. */
+        @Nonnull @NotEmpty private final String relyingParty;
+        
+        /** Parser pool used to parse the message. */
+        @Nonnull private final ParserPool parserPool;
+        
+        /** The encoded message, null once decoded. */
+        @Nullable private volatile String encodedMessage;
+
+        /** The decoded message, null until first requested. */
+        @Nullable private volatile SAMLObject message;
+        
+        /**
+         * Constructor.
+         * 
+         * @param samlArtifact artifact associated with the message
+         * @param issuerId issuer of the artifact
+         * @param relyingPartyId intended recipient of the artifact
+         * @param encoded the DEFLATE compressed, Base64 encoded, message
+         * @param pool parser pool used to parse the message
+         */
+        private CompactSAMLArtifactMapEntry(@Nonnull @NotEmpty final String samlArtifact,
+                @Nonnull @NotEmpty final String issuerId, @Nonnull @NotEmpty final String relyingPartyId,
+                @Nonnull @NotEmpty final String encoded, @Nonnull final ParserPool pool) {
+            artifact = samlArtifact;
+            issuer = issuerId;
+            relyingParty = relyingPartyId;
+            encodedMessage = encoded;
+            parserPool = pool;
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        @Nonnull @NotEmpty public String getArtifact() {
+            return artifact;
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        @Nonnull @NotEmpty public String getIssuerId() {
+            return issuer;
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        @Nonnull @NotEmpty public String getRelyingPartyId() {
+            return relyingParty;
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        @Nonnull public SAMLObject getSamlMessage() {
+            SAMLObject decoded = message;
+            if (decoded == null) {
+                synchronized (this) {
+                    decoded = message;
+                    if (decoded == null) {
+                        decoded = decode();
+                        message = decoded;
+                        encodedMessage = null;
+                    }
+                }
+            }
+            return decoded;
+        }
+        
+        /**
+         * Decompress, parse and unmarshall the message.
+         * 
+         * @return the message
+         */
+        @Nonnull private SAMLObject decode() {
+            final XMLObject decoded;
+            try (final InputStream input = CODEC.base64DecodeAndInflate(encodedMessage)) {
+                decoded = XMLObjectSupport.unmarshallFromInputStream(parserPool, input);
+            } catch (final IOException | XMLParserException | UnmarshallingException e) {
+                throw new XMLRuntimeException("Error decoding SAML message of artifact " + artifact, e);
+            }
+            
+            if (!(decoded instanceof SAMLObject)) {
+                throw new XMLRuntimeException("SAMLArtifactMapEntry's XMLObject was not a SAML message");
+            }
+            return (SAMLObject) decoded;
+        }
+    }
+
+}
@@ -17,13 +17,16 @@
 
 package org.opensaml.saml.common.binding.impl;
 
+import java.util.List;
 import java.util.Objects;
 
 import javax.annotation.Nonnull;
 
+import net.shibboleth.utilities.java.support.annotation.constraint.NonnullElements;
 import net.shibboleth.utilities.java.support.resolver.CriteriaSet;
 
 import org.opensaml.saml.common.binding.AbstractEndpointResolver;
+import org.opensaml.saml.common.binding.EndpointIndex;
 import org.opensaml.saml.criterion.BindingCriterion;
 import org.opensaml.saml.criterion.EndpointCriterion;
 import org.opensaml.saml.saml2.metadata.Endpoint;
@@ -44,6 +47,9 @@ import org.slf4j.LoggerFactory;
  *  <dd> Requires that the candidate endpoint's Binding attribute is among the bindings included in the criterion.
  * </dl>
  * 
+ * <p>Candidates in metadata are narrowed by looking up the index, location or binding required by the criteria in
+ * the role's {@link EndpointIndex} before they are checked.</p>
+ * 
  * @param <EndpointType> type of endpoint
  */
 public class DefaultEndpointResolver<EndpointType extends Endpoint> extends AbstractEndpointResolver<EndpointType> {
@@ -51,6 +57,34 @@ public class DefaultEndpointResolver<EndpointType extends Endpoint> extends Abst
     /** Class logger. */
     @Nonnull private Logger log = LoggerFactory.getLogger(DefaultEndpointResolver.class);
 
+    /** {@inheritDoc} */
+    @Override
+    @Nonnull @NonnullElements protected List<Endpoint> selectCandidates(@Nonnull final CriteriaSet criteria,
+            @Nonnull final EndpointIndex.Entry endpoints) {
+        
+        // Look up the most selective attribute of the comparison template, if any.
+        final EndpointCriterion<EndpointType> epCriterion = criteria.get(EndpointCriterion.class);
+        if (epCriterion != null) {
+            final EndpointType comparisonEndpoint = epCriterion.getEndpoint();
+            if (comparisonEndpoint instanceof IndexedEndpoint
+                    && ((IndexedEndpoint) comparisonEndpoint).getIndex() != null) {
+                return endpoints.getEndpointsByIndex(((IndexedEndpoint) comparisonEndpoint).getIndex());
+            } else if (comparisonEndpoint.getLocation() != null) {
+                return endpoints.getEndpointsByLocation(comparisonEndpoint.getLocation());
+            } else if (comparisonEndpoint.getBinding() != null) {
+                return endpoints.getEndpointsByBinding(comparisonEndpoint.getBinding());
+            }
+        }
+        
+        // Otherwise look up the permitted bindings, allowing for candidates without one.
+        final BindingCriterion bindingCriterion = criteria.get(BindingCriterion.class);
+        if (bindingCriterion != null) {
+            return endpoints.getEndpointsByBindings(bindingCriterion.getBindings(), true);
+        }
+        
+        return endpoints.getEndpoints();
+    }
+    
     /** {@inheritDoc} */
     @Override
     protected boolean doCheckEndpoint(@Nonnull final CriteriaSet criteria, @Nonnull final EndpointType endpoint) {
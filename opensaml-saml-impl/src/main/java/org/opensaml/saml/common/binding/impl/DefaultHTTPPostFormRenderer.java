@@ -0,0 +1,197 @@
+/*
+ * Licensed to the University Corporation for Advanced Internet Development,
+ * Inc. (UCAID) under one or more contributor license agreements.  See the
+ * NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The UCAID licenses this file to You under the Apache
+ * License, Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.opensaml.saml.common.binding.impl;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.ThreadSafe;
+
+import net.shibboleth.utilities.java.support.annotation.constraint.NonnullElements;
+import net.shibboleth.utilities.java.support.annotation.constraint.NotEmpty;
+import net.shibboleth.utilities.java.support.codec.HTMLEncoder;
+
+import org.opensaml.saml.common.binding.encoding.HTTPPostFormRenderer;
+
+/**
+ * {@link HTTPPostFormRenderer} which writes the form of the standard POST binding templates from fragments encoded
+ * once, without a template engine.
+ *
+ * <p>
+ * The action, names and values are written as they are if they consist of Base64 characters only, as messages and
+ * signatures do, and are otherwise encoded with {@link HTMLEncoder#encodeForHTMLAttribute(String)}.
+ * </p>
+ *
+ * <p>
+ * Optional HTML content may be added at the end of the document's head and body, in place of the
+ * <code>add-html-head-content.vm</code> and <code>add-html-body-content.vm</code> templates.
+ * </p>
+ */
+@ThreadSafe
+public class DefaultHTTPPostFormRenderer implements HTTPPostFormRenderer {
+
+    /** The document up to the head content. */
+    @Nonnull private static final byte[] DOCUMENT_START = ascii("<!DOCTYPE html>\n<html>\n    <head>\n"
+            + "        <meta charset=\"utf-8\" />\n");
+
+    /** The document from the head content to the form action. */
+    @Nonnull private static final byte[] FORM_START = ascii("    </head>\n"
+            + "    <body onload=\"document.forms[0].submit()\">\n"
+            + "        <noscript>\n"
+            + "            <p>\n"
+            + "                <strong>Note:</strong> Since your browser does not support JavaScript,\n"
+            + "                you must press the Continue button once to proceed.\n"
+            + "            </p>\n"
+            + "        </noscript>\n"
+            + "        \n"
+            + "        <form action=\"");
+
+    /** The document from the form action to the first control. */
+    @Nonnull private static final byte[] CONTROLS_START = ascii("\" method=\"post\">\n            <div>\n");
+
+    /** The start of a hidden control, up to its name. */
+    @Nonnull private static final byte[] CONTROL_START = ascii("                <input type=\"hidden\" name=\"");
+
+    /** The part of a hidden control between its name and its value. */
+    @Nonnull private static final byte[] CONTROL_VALUE = ascii("\" value=\"");
+
+    /** The end of a hidden control. */
+    @Nonnull private static final byte[] CONTROL_END = ascii("\"/>\n");
+
+    /** The document from the last control to the body content. */
+    @Nonnull private static final byte[] FORM_END = ascii("            </div>\n"
+            + "            <noscript>\n"
+            + "                <div>\n"
+            + "                    <input type=\"submit\" value=\"Continue\"/>\n"
+            + "                </div>\n"
+            + "            </noscript>\n"
+            + "        </form>\n");
+
+    /** The document from the body content. */
+    @Nonnull private static final byte[] DOCUMENT_END = ascii("    </body>\n</html>");
+
+    /** Size of the buffer used to write strings. */
+    private static final int BUFFER_SIZE = 2048;
+
+    /** Content added at the end of the head, UTF-8 encoded. */
+    @Nonnull private volatile byte[] headContent = new byte[0];
+
+    /** Content added at the end of the body, UTF-8 encoded. */
+    @Nonnull private volatile byte[] bodyContent = new byte[0];
+
+    /**
+     * Set HTML content added at the end of the document's head.
+     *
+     * @param content the HTML content, or null for none
+     */
+    public void setHeadContent(@Nullable final String content) {
+        headContent = content != null ? content.getBytes(StandardCharsets.UTF_8) : new byte[0];
+    }
+
+    /**
+     * Set HTML content added at the end of the document's body.
+     *
+     * @param content the HTML content, or null for none
+     */
+    public void setBodyContent(@Nullable final String content) {
+        bodyContent = content != null ? content.getBytes(StandardCharsets.UTF_8) : new byte[0];
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void render(@Nonnull final OutputStream output, @Nonnull @NotEmpty final String bindingURI,
+            @Nonnull @NotEmpty final String action, @Nonnull @NonnullElements final Map<String, String> parameters)
+            throws IOException {
+        final byte[] buffer = new byte[BUFFER_SIZE];
+
+        output.write(DOCUMENT_START);
+        output.write(headContent);
+        output.write(FORM_START);
+        writeEncoded(output, action, buffer);
+        output.write(CONTROLS_START);
+        for (final Map.Entry<String, String> parameter : parameters.entrySet()) {
+            output.write(CONTROL_START);
+            writeEncoded(output, parameter.getKey(), buffer);
+            output.write(CONTROL_VALUE);
+            writeEncoded(output, parameter.getValue(), buffer);
+            output.write(CONTROL_END);
+        }
+        output.write(FORM_END);
+        output.write(bodyContent);
+        output.write(DOCUMENT_END);
+    }
+
+    /**
+     * Write a string encoded for use in an HTML attribute.
+     *
+     * @param output the stream to write to
+     * @param value the string
+     * @param buffer scratch buffer
+     *
+     * @throws IOException if the string can not be written
+     */
+    private void writeEncoded(@Nonnull final OutputStream output, @Nonnull final String value,
+            @Nonnull final byte[] buffer) throws IOException {
+        final String encoded = isBase64(value) ? value : HTMLEncoder.encodeForHTMLAttribute(value);
+
+        // Both forms are plain ASCII.
+        int position = 0;
+        while (position < encoded.length()) {
+            final int count = Math.min(buffer.length, encoded.length() - position);
+            for (int i = 0; i < count; i++) {
+                buffer[i] = (byte) encoded.charAt(position + i);
+            }
+            output.write(buffer, 0, count);
+            position += count;
+        }
+    }
+
+    /**
+     * Get whether a string consists of Base64 characters only, and so needs no encoding.
+     *
+     * @param value the string
+     *
+     * @return true if the string consists of Base64 characters only
+     */
+    private static boolean isBase64(@Nonnull final String value) {
+        for (int i = 0; i < value.length(); i++) {
+            final char c = value.charAt(i);
+            if (!(c >= 'A' && c <= 'Z' || c >= 'a' && c <= 'z' || c >= '0' && c <= '9' || c == '+' || c == '/'
+                    || c == '=')) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Encode a fragment of the document.
+     *
+     * @param fragment the fragment
+     *
+     * @return the encoded fragment
+     */
+    @Nonnull private static byte[] ascii(@Nonnull final String fragment) {
+        return fragment.getBytes(StandardCharsets.US_ASCII);
+    }
+
+}
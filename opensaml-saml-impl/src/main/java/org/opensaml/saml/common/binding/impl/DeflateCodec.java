@@ -0,0 +1,354 @@
+/*
+ * Licensed to the University Corporation for Advanced Internet Development,
+ * Inc. (UCAID) under one or more contributor license agreements.  See the
+ * NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The UCAID licenses this file to You under the Apache
+ * License, Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.opensaml.saml.common.binding.impl;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+import javax.annotation.Nonnull;
+import javax.annotation.concurrent.ThreadSafe;
+
+import net.shibboleth.utilities.java.support.logic.Constraint;
+
+import org.apache.commons.codec.binary.Base64InputStream;
+import org.apache.commons.codec.binary.Base64OutputStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Compresses and decompresses messages with raw DEFLATE and Base64 encoding, as used by the HTTP-Redirect binding.
+ *
+ * <p>
+ * {@link Inflater} and {@link Deflater} instances are reset and kept in bounded pools for reuse, and instances which do
+ * not fit in a pool are ended so that their native memory is released at once rather than on finalization.
+ * Decompression is streamed directly from the Base64 encoded message and fails as soon as the inflated message exceeds
+ * a maximum size.
+ * </p>
+ */
+@ThreadSafe
+public class DeflateCodec {
+
+    /** Default maximum number of pooled instances of each of {@link Inflater} and {@link Deflater}. */
+    public static final int DEFAULT_MAX_POOL_SIZE = 16;
+
+    /** Default maximum size, in bytes, of an inflated message: 1 MiB. */
+    public static final long DEFAULT_MAX_INFLATED_SIZE = 1024 * 1024;
+
+    /** Compression level, the one historically used by the HTTP-Redirect encoder so that output is unchanged. */
+    private static final int COMPRESSION_LEVEL = Deflater.DEFLATED;
+
+    /** Size of the buffers used when inflating and deflating. */
+    private static final int BUFFER_SIZE = 1024;
+
+    /** Instance shared by encoders and decoders which are not given one of their own. */
+    @Nonnull private static final DeflateCodec DEFAULT_INSTANCE = new DeflateCodec();
+
+    /** Class logger. */
+    @Nonnull private final Logger log = LoggerFactory.getLogger(DeflateCodec.class);
+
+    /** Pooled inflaters. */
+    @Nonnull private final BlockingQueue<Inflater> inflaters;
+
+    /** Pooled deflaters. */
+    @Nonnull private final BlockingQueue<Deflater> deflaters;
+
+    /** Maximum size, in bytes, of an inflated message. */
+    private volatile long maxInflatedSize;
+
+    /** Constructor. */
+    public DeflateCodec() {
+        this(DEFAULT_MAX_POOL_SIZE);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param maxPoolSize maximum number of pooled instances of each of {@link Inflater} and {@link Deflater}
+     */
+    public DeflateCodec(final int maxPoolSize) {
+        Constraint.isGreaterThan(0, maxPoolSize, "Maximum pool size must be greater than 0");
+        inflaters = new ArrayBlockingQueue<>(maxPoolSize);
+        deflaters = new ArrayBlockingQueue<>(maxPoolSize);
+        maxInflatedSize = DEFAULT_MAX_INFLATED_SIZE;
+    }
+
+    /**
+     * Get the instance shared by encoders and decoders which are not given one of their own.
+     *
+     * @return the shared instance
+     */
+    @Nonnull public static DeflateCodec getDefaultInstance() {
+        return DEFAULT_INSTANCE;
+    }
+
+    /**
+     * Get the maximum size, in bytes, of an inflated message.
+     *
+     * @return the maximum size of an inflated message
+     */
+    public long getMaxInflatedSize() {
+        return maxInflatedSize;
+    }
+
+    /**
+     * Set the maximum size, in bytes, of an inflated message. Defaults to {@link #DEFAULT_MAX_INFLATED_SIZE}.
+     *
+     * @param size the maximum size of an inflated message
+     */
+    public void setMaxInflatedSize(final long size) {
+        maxInflatedSize = Constraint.isGreaterThan(0, size, "Maximum inflated size must be greater than 0");
+    }
+
+    /**
+     * Get a stream which Base64 decodes and inflates a message as it is read.
+     *
+     * <p>
+     * The stream returns its inflater to the pool when it reaches the end of the message or is closed, and throws an
+     * {@link IOException} once more than {@link #getMaxInflatedSize()} bytes have been inflated.
+     * </p>
+     *
+     * @param message the Base64 encoded, DEFLATE compressed, message
+     *
+     * @return the stream of the inflated message
+     */
+    @Nonnull public InputStream base64DecodeAndInflate(@Nonnull final String message) {
+        Constraint.isNotNull(message, "Message cannot be null");
+        return new PooledInflaterInputStream(new Base64InputStream(new StringInputStream(message)), borrowInflater(),
+                maxInflatedSize);
+    }
+
+    /**
+     * Deflate the UTF-8 encoding of a message and Base64 encode the result, without line breaks.
+     *
+     * @param message the message
+     *
+     * @return the Base64 encoded, DEFLATE compressed, message
+     *
+     * @throws IOException if the message can not be compressed
+     */
+    @Nonnull public String deflateAndBase64Encode(@Nonnull final String message) throws IOException {
+        Constraint.isNotNull(message, "Message cannot be null");
+        final ByteArrayOutputStream bytesOut = new ByteArrayOutputStream(message.length() / 2 + BUFFER_SIZE);
+        final Deflater deflater = borrowDeflater();
+        try {
+            final Base64OutputStream base64Out = new Base64OutputStream(bytesOut, true, 0, null);
+            final DeflaterOutputStream deflaterStream = new DeflaterOutputStream(base64Out, deflater, BUFFER_SIZE);
+            final Writer writer = new OutputStreamWriter(deflaterStream, StandardCharsets.UTF_8);
+            writer.write(message);
+            writer.flush();
+            deflaterStream.finish();
+            // Closing the Base64 stream writes its final block, closing the others would end a pooled deflater.
+            base64Out.close();
+        } finally {
+            returnDeflater(deflater);
+        }
+        return new String(bytesOut.toByteArray(), StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * Take an inflater from the pool, or create one if the pool is empty.
+     *
+     * @return the inflater
+     */
+    @Nonnull private Inflater borrowInflater() {
+        final Inflater inflater = inflaters.poll();
+        return inflater != null ? inflater : new Inflater(true);
+    }
+
+    /**
+     * Reset an inflater and return it to the pool, or end it if the pool is full.
+     *
+     * @param inflater the inflater
+     */
+    private void returnInflater(@Nonnull final Inflater inflater) {
+        inflater.reset();
+        if (!inflaters.offer(inflater)) {
+            inflater.end();
+        }
+    }
+
+    /**
+     * Take a deflater from the pool, or create one if the pool is empty.
+     *
+     * @return the deflater
+     */
+    @Nonnull private Deflater borrowDeflater() {
+        final Deflater deflater = deflaters.poll();
+        return deflater != null ? deflater : new Deflater(COMPRESSION_LEVEL, true);
+    }
+
+    /**
+     * Reset a deflater and return it to the pool, or end it if the pool is full.
+     *
+     * @param deflater the deflater
+     */
+    private void returnDeflater(@Nonnull final Deflater deflater) {
+        deflater.reset();
+        if (!deflaters.offer(deflater)) {
+            deflater.end();
+        }
+    }
+
+    /** Stream reading the characters of a string, which must all be ASCII, as bytes. */
+    private static final class StringInputStream extends InputStream {
+
+        /** The string. */
+        @Nonnull private final String string;
+
+        /** Index of the next character to read. */
+        private int position;
+
+        /**
+         * Constructor.
+         *
+         * @param source the string
+         */
+        private StringInputStream(@Nonnull final String source) {
+            string = source;
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public int read() {
+            return position < string.length() ? string.charAt(position++) & 0xff : -1;
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public int read(final byte[] b, final int off, final int len) {
+            if (len == 0) {
+                return 0;
+            }
+            if (position >= string.length()) {
+                return -1;
+            }
+            final int count = Math.min(len, string.length() - position);
+            for (int i = 0; i < count; i++) {
+                b[off + i] = (byte) string.charAt(position++);
+            }
+            return count;
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public int available() {
+            return string.length() - position;
+        }
+    }
+
+    /** Inflating stream which bounds the inflated size and returns its inflater to the pool when done. */
+    private final class PooledInflaterInputStream extends InflaterInputStream {
+
+        /** Maximum number of bytes which may be inflated. */
+        private final long limit;
+
+        /** Number of bytes inflated so far. */
+        private long inflated;
+
+        /** Whether the end of the inflated data has been reached. */
+        private boolean eof;
+
+        /** Whether the stream has been closed. */
+        private boolean closed;
+
+        /** Whether the inflater has been returned to the pool. */
+        private boolean released;
+
+        /**
+         * Constructor.
+         *
+         * @param in the compressed input
+         * @param inflater the pooled inflater
+         * @param maxSize maximum number of bytes which may be inflated
+         */
+        private PooledInflaterInputStream(@Nonnull final InputStream in, @Nonnull final Inflater inflater,
+                final long maxSize) {
+            super(in, inflater, BUFFER_SIZE);
+            limit = maxSize;
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public int read(final byte[] b, final int off, final int len) throws IOException {
+            if (closed) {
+                throw new IOException("Stream closed");
+            } else if (eof) {
+                return -1;
+            }
+
+            final int count = super.read(b, off, len);
+            if (count < 0) {
+                // The inflater is no longer needed, so return it without waiting for the stream to be closed.
+                eof = true;
+                releaseInflater();
+                return count;
+            }
+
+            inflated += count;
+            if (inflated > limit) {
+                log.warn("Inflated message exceeds the maximum size of {} bytes", limit);
+                close();
+                throw new IOException("Inflated message exceeds the maximum size of " + limit + " bytes");
+            }
+            return count;
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public int available() throws IOException {
+            if (closed) {
+                throw new IOException("Stream closed");
+            }
+            return eof ? 0 : super.available();
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public void close() throws IOException {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            try {
+                // A supplied inflater is not ended by the superclass.
+                super.close();
+            } finally {
+                releaseInflater();
+            }
+        }
+
+        /** Return the inflater to the pool, if not already returned. */
+        private void releaseInflater() {
+            if (!released) {
+                released = true;
+                returnInflater(inf);
+            }
+        }
+    }
+
+}
@@ -28,6 +28,7 @@ import org.opensaml.profile.action.EventIds;
 import org.opensaml.profile.context.ProfileRequestContext;
 import org.opensaml.profile.context.navigate.OutboundMessageContextLookup;
 
+import net.shibboleth.utilities.java.support.annotation.constraint.ThreadSafeAfterInit;
 import net.shibboleth.utilities.java.support.component.ComponentInitializationException;
 import net.shibboleth.utilities.java.support.component.ComponentSupport;
 import net.shibboleth.utilities.java.support.logic.Constraint;
@@ -54,6 +55,7 @@ import com.google.common.base.Functions;
  * @event {@link EventIds#PROCEED_EVENT_ID}
  * @event {@link EventIds#INVALID_MSG_CTX}
  */
+@ThreadSafeAfterInit
 public class AddAudienceRestrictionToAssertions extends AbstractConditionalProfileAction {
 
     /** Class logger. */
@@ -71,12 +73,6 @@ public class AddAudienceRestrictionToAssertions extends AbstractConditionalProfi
     /** Strategy used to obtain the audiences to add. */
     @Nullable private Function<ProfileRequestContext,Collection<String>> audienceRestrictionsLookupStrategy;
     
-    /** Response to modify. */
-    @Nullable private SAMLObject response;
-    
-    /** Audiences to add. */
-    @Nullable private Collection<String> audiences; 
-
     /**
      * Constructor.
      */
@@ -138,7 +134,7 @@ public class AddAudienceRestrictionToAssertions extends AbstractConditionalProfi
     @Override
     protected boolean doPreExecute(@Nonnull final ProfileRequestContext profileRequestContext) {
         
-        audiences = audienceRestrictionsLookupStrategy.apply(profileRequestContext);
+        final Collection<String> audiences = audienceRestrictionsLookupStrategy.apply(profileRequestContext);
         if (audiences == null || audiences.isEmpty()) {
             log.debug("{} No audiences to add, nothing to do", getLogPrefix());
             return false;
@@ -147,7 +143,7 @@ public class AddAudienceRestrictionToAssertions extends AbstractConditionalProfi
         log.debug("{} Attempting to add an AudienceRestrictionCondition to every Assertion in Response",
                 getLogPrefix());
 
-        response = responseLookupStrategy.apply(profileRequestContext);
+        final SAMLObject response = responseLookupStrategy.apply(profileRequestContext);
         if (response == null) {
             log.debug("{} No SAML Response located in current profile request context", getLogPrefix());
             ActionSupport.buildEvent(profileRequestContext, EventIds.INVALID_MSG_CTX);
@@ -170,6 +166,7 @@ public class AddAudienceRestrictionToAssertions extends AbstractConditionalProfi
             return false;
         }
         
+        setExecutionState(profileRequestContext, ExecutionState.class, new ExecutionState(response, audiences));
         return super.doPreExecute(profileRequestContext);
     }
     
@@ -177,18 +174,22 @@ public class AddAudienceRestrictionToAssertions extends AbstractConditionalProfi
     @Override
     protected void doExecute(@Nonnull final ProfileRequestContext profileRequestContext) {
         
+        final ExecutionState state = getExecutionState(profileRequestContext, ExecutionState.class);
+        final SAMLObject response = state.response;
+        final Collection<String> audiences = state.audiences;
+        
         if (response instanceof org.opensaml.saml.saml1.core.Response) {
             for (final org.opensaml.saml.saml1.core.Assertion assertion :
                     ((org.opensaml.saml.saml1.core.Response) response).getAssertions()) {
                 addAudienceRestriction(profileRequestContext,
-                        SAML1ActionSupport.addConditionsToAssertion(this, assertion));
+                        SAML1ActionSupport.addConditionsToAssertion(this, assertion), audiences);
                 log.debug("{} Added AudienceRestrictionCondition to Assertion {}", getLogPrefix(), assertion.getID());
             }
         } else if (response instanceof org.opensaml.saml.saml2.core.Response) {
             for (final org.opensaml.saml.saml2.core.Assertion assertion :
                     ((org.opensaml.saml.saml2.core.Response) response).getAssertions()) {
                 addAudienceRestriction(profileRequestContext,
-                        SAML2ActionSupport.addConditionsToAssertion(this, assertion));
+                        SAML2ActionSupport.addConditionsToAssertion(this, assertion), audiences);
                 log.debug("{} Added AudienceRestrictionCondition to Assertion {}", getLogPrefix(), assertion.getID());
             }
         }
@@ -200,9 +201,11 @@ public class AddAudienceRestrictionToAssertions extends AbstractConditionalProfi
      * 
      * @param profileRequestContext current profile request context
      * @param conditions condition that has, or will receive the created, {@link AudienceRestrictionCondition}
+     * @param audiences the audiences to add
      */
     private void addAudienceRestriction(@Nonnull final ProfileRequestContext profileRequestContext,
-            @Nonnull final org.opensaml.saml.saml1.core.Conditions conditions) {
+            @Nonnull final org.opensaml.saml.saml1.core.Conditions conditions,
+            @Nonnull final Collection<String> audiences) {
         final AudienceRestrictionCondition condition = getAudienceRestrictionCondition(conditions);
 
         final SAMLObjectBuilder<org.opensaml.saml.saml1.core.Audience> audienceBuilder =
@@ -224,9 +227,11 @@ public class AddAudienceRestrictionToAssertions extends AbstractConditionalProfi
      * 
      * @param profileRequestContext current profile request context
      * @param conditions condition that has, or will receive the created, {@link AudienceRestriction}
+     * @param audiences the audiences to add
      */
     private void addAudienceRestriction(@Nonnull final ProfileRequestContext profileRequestContext,
-            @Nonnull final org.opensaml.saml.saml2.core.Conditions conditions) {
+            @Nonnull final org.opensaml.saml.saml2.core.Conditions conditions,
+            @Nonnull final Collection<String> audiences) {
         final AudienceRestriction condition = getAudienceRestriction(conditions);
 
         final SAMLObjectBuilder<org.opensaml.saml.saml2.core.Audience> audienceBuilder =
@@ -298,4 +303,26 @@ public class AddAudienceRestrictionToAssertions extends AbstractConditionalProfi
         return condition;
     }
 
+    /** State of an execution, held between its steps. */
+    private static final class ExecutionState {
+
+        /** Response to modify. */
+        @Nonnull private final SAMLObject response;
+
+        /** Audiences to add. */
+        @Nonnull private final Collection<String> audiences;
+
+        /**
+         * Constructor.
+         *
+         * @param theResponse response to modify
+         * @param theAudiences audiences to add
+         */
+        private ExecutionState(@Nonnull final SAMLObject theResponse,
+                @Nonnull final Collection<String> theAudiences) {
+            response = theResponse;
+            audiences = theAudiences;
+        }
+    }
+
 }
\ No newline at end of file
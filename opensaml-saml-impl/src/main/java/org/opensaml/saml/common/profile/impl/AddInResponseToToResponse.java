@@ -32,6 +32,7 @@ import org.opensaml.profile.context.ProfileRequestContext;
 import org.opensaml.profile.context.navigate.OutboundMessageContextLookup;
 
 import net.shibboleth.utilities.java.support.annotation.constraint.NonnullElements;
+import net.shibboleth.utilities.java.support.annotation.constraint.ThreadSafeAfterInit;
 import net.shibboleth.utilities.java.support.component.ComponentSupport;
 import net.shibboleth.utilities.java.support.logic.Constraint;
 import net.shibboleth.utilities.java.support.primitive.StringSupport;
@@ -58,6 +59,7 @@ import com.google.common.base.Functions;
  * @event {@link EventIds#PROCEED_EVENT_ID}
  * @event {@link EventIds#INVALID_MSG_CTX}
  */
+@ThreadSafeAfterInit
 public class AddInResponseToToResponse extends AbstractConditionalProfileAction {
 
     /** Class logger. */
@@ -69,12 +71,6 @@ public class AddInResponseToToResponse extends AbstractConditionalProfileAction
     /** Strategy used to locate request ID to correlate. */
     @Nonnull private Function<ProfileRequestContext,String> requestIdLookupStrategy;
     
-    /** Message to modify. */
-    @Nullable private SAMLObject response;
-    
-    /** Request ID to populate from. */
-    @Nullable private String requestId;
-    
     /** Constructor. */
     public AddInResponseToToResponse() {
         responseLookupStrategy =
@@ -109,19 +105,21 @@ public class AddInResponseToToResponse extends AbstractConditionalProfileAction
     protected boolean doPreExecute(@Nonnull final ProfileRequestContext profileRequestContext) {
         log.debug("{} Attempting to add InResponseTo to outgoing Response", getLogPrefix());
 
-        response = responseLookupStrategy.apply(profileRequestContext);
+        final SAMLObject response = responseLookupStrategy.apply(profileRequestContext);
         if (response == null) {
             log.debug("{} No SAML message located in current profile request context", getLogPrefix());
             ActionSupport.buildEvent(profileRequestContext, EventIds.INVALID_MSG_CTX);
             return false;
         }
 
-        requestId = requestIdLookupStrategy.apply(profileRequestContext);
+        final String requestId = requestIdLookupStrategy.apply(profileRequestContext);
         if (requestId == null) {
             log.debug("{} No request ID, nothing to do", getLogPrefix());
             return false;
         }
                 
+        setExecutionState(profileRequestContext, SAMLObject.class, response);
+        setExecutionState(profileRequestContext, String.class, requestId);
         return super.doPreExecute(profileRequestContext);
     }
     
@@ -129,6 +127,9 @@ public class AddInResponseToToResponse extends AbstractConditionalProfileAction
     @Override
     protected void doExecute(@Nonnull final ProfileRequestContext profileRequestContext) {
 
+        final SAMLObject response = getExecutionState(profileRequestContext, SAMLObject.class);
+        final String requestId = getExecutionState(profileRequestContext, String.class);
+
         if (response instanceof ResponseAbstractType) {
             ((ResponseAbstractType) response).setInResponseTo(requestId);
         } else if (response instanceof StatusResponseType) {
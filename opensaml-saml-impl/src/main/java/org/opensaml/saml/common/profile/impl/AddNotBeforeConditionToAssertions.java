@@ -18,8 +18,8 @@
 package org.opensaml.saml.common.profile.impl;
 
 import javax.annotation.Nonnull;
-import javax.annotation.Nullable;
 
+import net.shibboleth.utilities.java.support.annotation.constraint.ThreadSafeAfterInit;
 import net.shibboleth.utilities.java.support.component.ComponentSupport;
 import net.shibboleth.utilities.java.support.logic.Constraint;
 
@@ -45,6 +45,7 @@ import com.google.common.base.Functions;
  * @event {@link EventIds#PROCEED_EVENT_ID}
  * @event {@link EventIds#INVALID_MSG_CTX}
  */
+@ThreadSafeAfterInit
 public class AddNotBeforeConditionToAssertions extends AbstractConditionalProfileAction {
 
     /** Class logger. */
@@ -53,9 +54,6 @@ public class AddNotBeforeConditionToAssertions extends AbstractConditionalProfil
     /** Strategy used to locate the response to operate on. */
     @Nonnull private Function<ProfileRequestContext,SAMLObject> responseLookupStrategy;
     
-    /** Response to modify. */
-    @Nullable private SAMLObject response;
-    
     /** Constructor. */
     public AddNotBeforeConditionToAssertions() {
         responseLookupStrategy =
@@ -78,7 +76,7 @@ public class AddNotBeforeConditionToAssertions extends AbstractConditionalProfil
     protected boolean doPreExecute(@Nonnull final ProfileRequestContext profileRequestContext) {
         log.debug("{} Attempting to add NotBefore condition to every Assertion in outgoing Response", getLogPrefix());
 
-        response = responseLookupStrategy.apply(profileRequestContext);
+        final SAMLObject response = responseLookupStrategy.apply(profileRequestContext);
         if (response == null) {
             log.debug("{} No SAML Response located in current profile request context", getLogPrefix());
             ActionSupport.buildEvent(profileRequestContext, EventIds.INVALID_MSG_CTX);
@@ -101,6 +99,7 @@ public class AddNotBeforeConditionToAssertions extends AbstractConditionalProfil
             return false;
         }
         
+        setExecutionState(profileRequestContext, SAMLObject.class, response);
         return super.doPreExecute(profileRequestContext);
     }
     
@@ -108,6 +107,8 @@ public class AddNotBeforeConditionToAssertions extends AbstractConditionalProfil
     @Override
     protected void doExecute(@Nonnull final ProfileRequestContext profileRequestContext) {
 
+        final SAMLObject response = getExecutionState(profileRequestContext, SAMLObject.class);
+
         if (response instanceof org.opensaml.saml.saml1.core.Response) {
             for (final org.opensaml.saml.saml1.core.Assertion assertion :
                     ((org.opensaml.saml.saml1.core.Response) response).getAssertions()) {
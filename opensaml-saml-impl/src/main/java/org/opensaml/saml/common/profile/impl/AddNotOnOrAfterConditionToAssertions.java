@@ -28,6 +28,7 @@ import org.opensaml.profile.context.navigate.OutboundMessageContextLookup;
 
 import net.shibboleth.utilities.java.support.annotation.Duration;
 import net.shibboleth.utilities.java.support.annotation.constraint.NonNegative;
+import net.shibboleth.utilities.java.support.annotation.constraint.ThreadSafeAfterInit;
 import net.shibboleth.utilities.java.support.component.ComponentSupport;
 import net.shibboleth.utilities.java.support.logic.Constraint;
 
@@ -49,6 +50,7 @@ import com.google.common.base.Functions;
  * @event {@link EventIds#PROCEED_EVENT_ID}
  * @event {@link EventIds#INVALID_MSG_CTX}
  */
+@ThreadSafeAfterInit
 public class AddNotOnOrAfterConditionToAssertions extends AbstractConditionalProfileAction {
 
     /** Class logger. */
@@ -62,9 +64,6 @@ public class AddNotOnOrAfterConditionToAssertions extends AbstractConditionalPro
     
     /** Default lifetime to use to establish timestamp. */
     @Duration @NonNegative private long defaultAssertionLifetime;
-    
-    /** Response to modify. */
-    @Nullable private SAMLObject response;
 
     /** Constructor. */
     public AddNotOnOrAfterConditionToAssertions() {
@@ -114,7 +113,7 @@ public class AddNotOnOrAfterConditionToAssertions extends AbstractConditionalPro
         log.debug("{} Attempting to add NotOnOrAfter condition to every Assertion in outgoing Response",
                 getLogPrefix());
 
-        response = responseLookupStrategy.apply(profileRequestContext);
+        final SAMLObject response = responseLookupStrategy.apply(profileRequestContext);
         if (response == null) {
             log.debug("{} No SAML Response located in current profile request context", getLogPrefix());
             ActionSupport.buildEvent(profileRequestContext, EventIds.INVALID_MSG_CTX);
@@ -137,6 +136,7 @@ public class AddNotOnOrAfterConditionToAssertions extends AbstractConditionalPro
             return false;
         }
         
+        setExecutionState(profileRequestContext, SAMLObject.class, response);
         return super.doPreExecute(profileRequestContext);
     }
     
@@ -144,6 +144,8 @@ public class AddNotOnOrAfterConditionToAssertions extends AbstractConditionalPro
     @Override
     protected void doExecute(@Nonnull final ProfileRequestContext profileRequestContext) {
 
+        final SAMLObject response = getExecutionState(profileRequestContext, SAMLObject.class);
+
         final Long lifetime = assertionLifetimeStrategy != null ?
                 assertionLifetimeStrategy.apply(profileRequestContext) : null;
         if (lifetime == null) {
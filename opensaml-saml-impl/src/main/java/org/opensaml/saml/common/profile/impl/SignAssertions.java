@@ -20,6 +20,7 @@ package org.opensaml.saml.common.profile.impl;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 
+import net.shibboleth.utilities.java.support.annotation.constraint.ThreadSafeAfterInit;
 import net.shibboleth.utilities.java.support.component.ComponentSupport;
 import net.shibboleth.utilities.java.support.logic.Constraint;
 import net.shibboleth.utilities.java.support.xml.SerializeSupport;
@@ -57,6 +58,7 @@ import com.google.common.base.Functions;
  * @event {@link EventIds#PROCEED_EVENT_ID}
  * @event {@link EventIds#INVALID_MSG_CTX}
  */
+@ThreadSafeAfterInit
 public class SignAssertions extends AbstractProfileAction {
 
     /** Class logger. */
@@ -68,12 +70,6 @@ public class SignAssertions extends AbstractProfileAction {
     /** Strategy used to locate the {@link SecurityParametersContext} to use for signing. */
     @Nonnull private Function<ProfileRequestContext,SecurityParametersContext> securityParametersLookupStrategy;
     
-    /** The signature signing parameters. */
-    @Nullable private SignatureSigningParameters signatureSigningParameters;
-
-    /** The response containing the assertions to be signed. */
-    @Nullable private SAMLObject response;
-
     /** Constructor. */
     public SignAssertions() {
         responseLookupStrategy =
@@ -109,7 +105,7 @@ public class SignAssertions extends AbstractProfileAction {
     @Override
     protected boolean doPreExecute(@Nonnull final ProfileRequestContext profileRequestContext) {
 
-        response = responseLookupStrategy.apply(profileRequestContext);
+        SAMLObject response = responseLookupStrategy.apply(profileRequestContext);
         if (response == null) {
             log.debug("{} No SAML Response located in current profile request context", getLogPrefix());
             ActionSupport.buildEvent(profileRequestContext, EventIds.INVALID_MSG_CTX);
@@ -144,22 +140,27 @@ public class SignAssertions extends AbstractProfileAction {
             return false;
         }
 
-        signatureSigningParameters = secParamCtx.getSignatureSigningParameters();
+        final SignatureSigningParameters signatureSigningParameters = secParamCtx.getSignatureSigningParameters();
         if (signatureSigningParameters == null) {
             log.debug("{} Will not sign assertions because no signature signing parameters available", getLogPrefix());
             return false;
         }
         
+        setExecutionState(profileRequestContext, SAMLObject.class, response);
+        setExecutionState(profileRequestContext, SignatureSigningParameters.class, signatureSigningParameters);
         return super.doPreExecute(profileRequestContext);
     }
 
     /** {@inheritDoc} */
     @Override
     protected void doExecute(@Nonnull final ProfileRequestContext profileRequestContext) {
+        final SAMLObject response = getExecutionState(profileRequestContext, SAMLObject.class);
+        final SignatureSigningParameters signatureSigningParameters =
+                getExecutionState(profileRequestContext, SignatureSigningParameters.class);
         try {
             // TODO Maybe the response should not be logged ?
             if (log.isTraceEnabled()) {
-                logResponse("Response before signing:");
+                logResponse("Response before signing:", response);
             }
 
             if (response instanceof org.opensaml.saml.saml1.core.Response) {
@@ -176,7 +177,7 @@ public class SignAssertions extends AbstractProfileAction {
 
             // TODO Maybe the response should not be logged ?
             if (log.isTraceEnabled()) {
-                logResponse("Response after signing:");
+                logResponse("Response after signing:", response);
             }
         } catch (final SecurityException | MarshallingException | SignatureException e) {
             log.warn("{} Error encountered while signing assertions", getLogPrefix(), e);
@@ -188,8 +189,9 @@ public class SignAssertions extends AbstractProfileAction {
      * Log the Response with the given message at trace level.
      * 
      * @param message the log message
+     * @param response the Response
      */
-    private void logResponse(@Nonnull final String message) {
+    private void logResponse(@Nonnull final String message, @Nullable final SAMLObject response) {
         if (message != null && response != null) {
             try {
                 final Element dom = XMLObjectSupport.marshall(response);
@@ -22,6 +22,7 @@ import java.util.Objects;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 
+import net.shibboleth.utilities.java.support.annotation.constraint.ThreadSafeAfterInit;
 import net.shibboleth.utilities.java.support.component.ComponentSupport;
 import net.shibboleth.utilities.java.support.logic.Constraint;
 import net.shibboleth.utilities.java.support.primitive.StringSupport;
@@ -60,6 +61,7 @@ import com.google.common.base.Functions;
  * @pre {@link ChannelBindingsContext} objects to be returned from lookup functions must be populated.
  * @post Upon successful verification, a {@link ChannelBindingsContext} object will be created as described.
  */
+@ThreadSafeAfterInit
 public class VerifyChannelBindings extends AbstractProfileAction {
 
     /** Class logger. */
@@ -73,12 +75,6 @@ public class VerifyChannelBindings extends AbstractProfileAction {
     
     /** Strategy used to locate or create the context to save the verified result in. */
     @Nonnull private Function<ProfileRequestContext,ChannelBindingsContext> channelBindingsCreationStrategy;
-    
-    /** The first set of bindings. */
-    @Nullable private ChannelBindingsContext channelBindingsContext1;
-
-    /** The second set of bindings. */
-    @Nullable private ChannelBindingsContext channelBindingsContext2;
 
     /** Constructor. */
     public VerifyChannelBindings() {
@@ -139,8 +135,8 @@ public class VerifyChannelBindings extends AbstractProfileAction {
             return false;
         }
 
-        channelBindingsContext1 = channelBindingsLookupStrategy1.apply(profileRequestContext);
-        channelBindingsContext2 = channelBindingsLookupStrategy2.apply(profileRequestContext);
+        ChannelBindingsContext channelBindingsContext1 = channelBindingsLookupStrategy1.apply(profileRequestContext);
+        ChannelBindingsContext channelBindingsContext2 = channelBindingsLookupStrategy2.apply(profileRequestContext);
         
         if (channelBindingsContext1 != null && channelBindingsContext1.getChannelBindings().isEmpty()) {
             channelBindingsContext1 = null;
@@ -155,6 +151,8 @@ public class VerifyChannelBindings extends AbstractProfileAction {
             return false;
         }
      
+        setExecutionState(profileRequestContext, ExecutionState.class,
+                new ExecutionState(channelBindingsContext1, channelBindingsContext2));
         return true;
     }
 
@@ -162,6 +160,10 @@ public class VerifyChannelBindings extends AbstractProfileAction {
     @Override
     protected void doExecute(@Nonnull final ProfileRequestContext profileRequestContext) {
 
+        final ExecutionState state = getExecutionState(profileRequestContext, ExecutionState.class);
+        final ChannelBindingsContext channelBindingsContext1 = state.channelBindingsContext1;
+        final ChannelBindingsContext channelBindingsContext2 = state.channelBindingsContext2;
+
         if (channelBindingsContext1 == null || channelBindingsContext2 == null) {
             log.warn("{} Unable to verify channel bindings sent for comparison", getLogPrefix());
             ActionSupport.buildEvent(profileRequestContext, SAMLEventIds.CHANNEL_BINDINGS_ERROR);
@@ -203,4 +205,26 @@ public class VerifyChannelBindings extends AbstractProfileAction {
         }
     }
     
+    /** State of an execution, held between its steps. */
+    private static final class ExecutionState {
+
+        /** The first set of bindings. */
+        @Nullable private final ChannelBindingsContext channelBindingsContext1;
+
+        /** The second set of bindings. */
+        @Nullable private final ChannelBindingsContext channelBindingsContext2;
+
+        /**
+         * Constructor.
+         *
+         * @param context1 the first set of bindings
+         * @param context2 the second set of bindings
+         */
+        private ExecutionState(@Nullable final ChannelBindingsContext context1,
+                @Nullable final ChannelBindingsContext context2) {
+            channelBindingsContext1 = context1;
+            channelBindingsContext2 = context2;
+        }
+    }
+
 }
\ No newline at end of file
@@ -20,8 +20,10 @@ package org.opensaml.saml.ext.saml2mdui.impl;
 import java.util.ArrayList;
 import java.util.List;
 
+import javax.annotation.Nonnull;
 import javax.xml.namespace.QName;
 
+import org.opensaml.core.xml.DeferrableChildrenXMLObject;
 import org.opensaml.core.xml.XMLObject;
 import org.opensaml.core.xml.util.IndexedXMLObjectChildrenList;
 import org.opensaml.saml.common.AbstractSAMLObject;
@@ -37,7 +39,7 @@ import org.opensaml.saml.ext.saml2mdui.UIInfo;
  * Concrete implementation of {@link org.opensaml.saml.ext.saml2mdui.UIInfo}.
  * @author Rod Widdowson
  */
-public class UIInfoImpl extends AbstractSAMLObject implements UIInfo {
+public class UIInfoImpl extends AbstractSAMLObject implements UIInfo, DeferrableChildrenXMLObject {
     
     /** Children of the UIInfo. */
     private final IndexedXMLObjectChildrenList<XMLObject> uiInfoChildren;
@@ -57,54 +59,69 @@ public class UIInfoImpl extends AbstractSAMLObject implements UIInfo {
     /** {@inheritDoc} */
     @Override
     public List<XMLObject> getXMLObjects() {
+        resolveDeferredChildElements();
         return uiInfoChildren;
     }
 
     /** {@inheritDoc} */
     @Override
     public List<XMLObject> getXMLObjects(QName typeOrName) {
+        resolveDeferredChildElements();
         return (List<XMLObject>) uiInfoChildren.subList(typeOrName);
     }
 
     /** {@inheritDoc} */
     @Override
     public List<Description> getDescriptions() {
+        resolveDeferredChildElements();
         return (List<Description>) uiInfoChildren.subList(Description.DEFAULT_ELEMENT_NAME);
     }
 
     /** {@inheritDoc} */
     @Override
     public List<DisplayName> getDisplayNames() {
+        resolveDeferredChildElements();
         return (List<DisplayName>) uiInfoChildren.subList(DisplayName.DEFAULT_ELEMENT_NAME);
     }
 
     /** {@inheritDoc} */
     @Override
     public List<Keywords> getKeywords() {
+        resolveDeferredChildElements();
         return (List<Keywords>) uiInfoChildren.subList(Keywords.DEFAULT_ELEMENT_NAME);
     }
 
     /** {@inheritDoc} */
     @Override
     public List<InformationURL> getInformationURLs() {
+        resolveDeferredChildElements();
         return (List<InformationURL>) uiInfoChildren.subList(InformationURL.DEFAULT_ELEMENT_NAME);
     }
 
     /** {@inheritDoc} */
     @Override
     public List<Logo> getLogos() {
+        resolveDeferredChildElements();
         return (List<Logo>) uiInfoChildren.subList(Logo.DEFAULT_ELEMENT_NAME);
     }
 
     /** {@inheritDoc} */
     @Override
     public List<PrivacyStatementURL> getPrivacyStatementURLs() {
+        resolveDeferredChildElements();
         return (List<PrivacyStatementURL>) uiInfoChildren.subList(PrivacyStatementURL.DEFAULT_ELEMENT_NAME);
     }
 
+    /** {@inheritDoc} */
+    public boolean isDeferrableChildElement(@Nonnull final QName elementName) {
+        // Every child is held in a single list, exposed only through getters which resolve first.
+        return true;
+    }
+
     /** {@inheritDoc} */
     @Override
     public List<XMLObject> getOrderedChildren() {
+        resolveDeferredChildElements();
         ArrayList<XMLObject> children = new ArrayList<>();
         
         children.addAll(uiInfoChildren);
@@ -22,7 +22,6 @@ import java.io.InputStream;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import javax.xml.transform.dom.DOMSource;
-import javax.xml.validation.Validator;
 
 import net.shibboleth.utilities.java.support.annotation.constraint.NonnullElements;
 import net.shibboleth.utilities.java.support.logic.Constraint;
@@ -31,6 +30,7 @@ import net.shibboleth.utilities.java.support.xml.ClasspathResolver;
 import net.shibboleth.utilities.java.support.xml.SchemaBuilder;
 
 import org.opensaml.core.xml.XMLObject;
+import org.opensaml.core.xml.util.SchemaValidatorPool;
 import org.opensaml.saml.common.xml.SAMLSchemaBuilder;
 import org.opensaml.saml.metadata.resolver.filter.FilterException;
 import org.opensaml.saml.metadata.resolver.filter.MetadataFilter;
@@ -106,16 +106,16 @@ public class SchemaValidationFilter implements MetadataFilter {
             return null;
         }
         
-        final Validator schemaValidator;
+        final SchemaValidatorPool schemaValidators;
         try {
-            schemaValidator = samlSchemaBuilder.getSAMLSchema().newValidator();
+            schemaValidators = samlSchemaBuilder.getSAMLSchemaValidators();
         } catch (final SAXException e) {
             log.error("Unable to build metadata validation schema", e);
             throw new FilterException("Unable to build metadata validation schema", e);
         }
 
         try {
-            schemaValidator.validate(new DOMSource(metadata.getDOM()));
+            schemaValidators.validate(new DOMSource(metadata.getDOM()));
         } catch (final Exception e) {
             log.error("Incoming metadata was not schema valid", e);
             throw new FilterException("Incoming metadata was not schema valid", e);
@@ -53,6 +53,7 @@ import org.apache.http.client.protocol.HttpClientContext;
 import org.apache.http.impl.client.BasicCredentialsProvider;
 import org.opensaml.core.xml.XMLObject;
 import org.opensaml.core.xml.io.UnmarshallingException;
+import org.opensaml.messaging.circuit.EndpointCircuitBreaker;
 import org.opensaml.security.httpclient.HttpClientSecurityConstants;
 import org.opensaml.security.httpclient.HttpClientSecuritySupport;
 import org.opensaml.security.trust.TrustEngine;
@@ -95,6 +96,9 @@ public abstract class AbstractDynamicHTTPMetadataResolver extends AbstractDynami
     /** Optional trust engine used in evaluating server TLS credentials. */
     private TrustEngine<? super X509Credential> tlsTrustEngine;
     
+    /** Optional circuit breaker guarding requests to each metadata source. */
+    @Nullable private EndpointCircuitBreaker circuitBreaker;
+    
     /**
      * Constructor.
      *
@@ -201,6 +205,32 @@ public abstract class AbstractDynamicHTTPMetadataResolver extends AbstractDynami
 
     }
     
+    /**
+     * Get the circuit breaker guarding requests to each metadata source.
+     * 
+     * @return the circuit breaker, or null if none
+     */
+    @Nullable public EndpointCircuitBreaker getCircuitBreaker() {
+        return circuitBreaker;
+    }
+    
+    /**
+     * Set the circuit breaker guarding requests to each metadata source.
+     * 
+     * <p>
+     * If set, no request is made to a source whose circuit is open, and resolution fails at once. A request counts
+     * as a failure of the source only if no HTTP response is received.
+     * </p>
+     * 
+     * @param breaker the circuit breaker, or null for none
+     */
+    public void setCircuitBreaker(@Nullable final EndpointCircuitBreaker breaker) {
+        ComponentSupport.ifInitializedThrowUnmodifiabledComponentException(this);
+        ComponentSupport.ifDestroyedThrowDestroyedComponentException(this);
+
+        circuitBreaker = breaker;
+    }
+    
     /**
      * Get the list of supported MIME types for use in Accept request header and validation of 
      * response Content-Type header.
@@ -254,6 +284,7 @@ public abstract class AbstractDynamicHTTPMetadataResolver extends AbstractDynami
     protected void doDestroy() {
         httpClient = null;
         credentialsProvider = null;
+        circuitBreaker = null;
         
         supportedContentTypes = null;
         supportedContentTypesValue = null;
@@ -273,11 +304,42 @@ public abstract class AbstractDynamicHTTPMetadataResolver extends AbstractDynami
         
         HttpClientContext context = buildHttpClientContext();
         
-        XMLObject result = httpClient.execute(request, responseHandler, context);
+        XMLObject result = execute(request, context);
         HttpClientSecuritySupport.checkTLSCredentialEvaluated(context, request.getURI().getScheme());
         return result;
     }
     
+    /**
+     * Execute the HTTP request, subject to the circuit breaker, if any.
+     * 
+     * @param request the HTTP request
+     * @param context the HTTP client context
+     * 
+     * @return the result of the response handler
+     * 
+     * @throws IOException if the circuit of the source is open, or there is a problem executing the request
+     */
+    @Nullable private XMLObject execute(@Nonnull final HttpUriRequest request, @Nonnull final HttpClientContext context)
+            throws IOException {
+        if (circuitBreaker == null) {
+            return httpClient.execute(request, responseHandler, context);
+        }
+        
+        final String endpoint = request.getURI().toString();
+        final EndpointCircuitBreaker.Permit permit = circuitBreaker.acquire(endpoint);
+        if (permit == null) {
+            throw new IOException("Circuit breaker is open for metadata source: " + endpoint);
+        }
+        boolean responded = false;
+        try {
+            final XMLObject result = httpClient.execute(request, responseHandler, context);
+            responded = true;
+            return result;
+        } finally {
+            permit.release(responded);
+        }
+    }
+    
     /**
      * Check that trust engine evaluation of the server TLS credential was actually performed.
      * 
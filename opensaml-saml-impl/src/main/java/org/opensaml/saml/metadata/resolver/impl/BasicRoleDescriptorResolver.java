@@ -18,6 +18,7 @@
 package org.opensaml.saml.metadata.resolver.impl;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
@@ -36,6 +37,7 @@ import net.shibboleth.utilities.java.support.resolver.ResolverException;
 
 import org.opensaml.core.criterion.EntityIdCriterion;
 import org.opensaml.core.xml.XMLObject;
+import org.opensaml.saml.criterion.BindingCriterion;
 import org.opensaml.saml.criterion.EntityRoleCriterion;
 import org.opensaml.saml.criterion.ProtocolCriterion;
 import org.opensaml.saml.metadata.resolver.MetadataResolver;
@@ -52,6 +54,13 @@ import com.google.common.base.Strings;
  * Simple impl of {@link RoleDescriptorResolver} which wraps an instance of {@link MetadataResolver} to
  * support basic EntityDescriptor resolution, and then performs further role-related filtering over the
  * returned EntityDescriptor.
+ * 
+ * <p>The roles of each EntityDescriptor are indexed by name and supported protocol, with their validity and
+ * endpoint bindings, in the EntityDescriptor's object metadata. The index is built when the entity is first
+ * resolved, and so is replaced along with the EntityDescriptor when metadata is refreshed.</p>
+ * 
+ * <p>If a {@link BindingCriterion} is supplied, only roles with an endpoint supporting one of its bindings
+ * are resolved.</p>
  */
 public class BasicRoleDescriptorResolver extends AbstractIdentifiedInitializableComponent 
         implements RoleDescriptorResolver {
@@ -113,7 +122,7 @@ public class BasicRoleDescriptorResolver extends AbstractIdentifiedInitializable
         EntityIdCriterion entityIdCriterion = criteria.get(EntityIdCriterion.class);
         EntityRoleCriterion entityRoleCriterion = criteria.get(EntityRoleCriterion.class);
         ProtocolCriterion protocolCriterion = criteria.get(ProtocolCriterion.class);
-        // TODO support BindingCriterion
+        BindingCriterion bindingCriterion = criteria.get(BindingCriterion.class);
         
         if (entityIdCriterion == null || Strings.isNullOrEmpty(entityIdCriterion.getEntityId())) {
             //TODO throw or just log?
@@ -126,15 +135,25 @@ public class BasicRoleDescriptorResolver extends AbstractIdentifiedInitializable
         }
         
         if (protocolCriterion != null) {
-            RoleDescriptor role = getRole(entityIdCriterion.getEntityId(), entityRoleCriterion.getRole(), 
-                    protocolCriterion.getProtocol());
+            RoleDescriptor role = null;
+            if (bindingCriterion != null) {
+                role = getRole(entityIdCriterion.getEntityId(), entityRoleCriterion.getRole(),
+                        protocolCriterion.getProtocol(), bindingCriterion.getBindings());
+            } else {
+                role = getRole(entityIdCriterion.getEntityId(), entityRoleCriterion.getRole(), 
+                        protocolCriterion.getProtocol());
+            }
             if (role != null) {
                 return Collections.singletonList(role);
             } else {
                 return Collections.emptyList();
             }
         } else {
-            return getRole(entityIdCriterion.getEntityId(), entityRoleCriterion.getRole());
+            List<RoleDescriptor> roles = getRole(entityIdCriterion.getEntityId(), entityRoleCriterion.getRole());
+            if (bindingCriterion != null) {
+                roles = filterByBinding(roles, bindingCriterion.getBindings());
+            }
+            return roles;
         }
         
     }
@@ -199,8 +218,8 @@ public class BasicRoleDescriptorResolver extends AbstractIdentifiedInitializable
             return Collections.emptyList();
         }
 
-        List<RoleDescriptor> descriptors = entity.getRoleDescriptors(roleName);
-        if (descriptors != null && !descriptors.isEmpty()) {
+        List<RoleDescriptor> descriptors = EntityRoleIndex.getRoles(entity, roleName).getRoles();
+        if (!descriptors.isEmpty()) {
             return new ArrayList<>(descriptors);
         }
 
@@ -263,6 +282,59 @@ public class BasicRoleDescriptorResolver extends AbstractIdentifiedInitializable
         return role;
     }
 
+    /**
+     * Get the first valid role descriptor for a given entityID and role and protocol with an endpoint supporting
+     * one of a set of bindings.
+     * 
+     * @param entityID  entityID to lookup
+     * @param roleName  role to lookup
+     * @param supportedProtocol protocol to lookup
+     * @param bindings  bindings to lookup
+     * 
+     * @return  the role, or null if none was found
+     * @throws ResolverException if an error occurs
+     */
+    @Nullable protected RoleDescriptor getRole(@Nullable final String entityID, @Nullable final QName roleName,
+            @Nullable final String supportedProtocol, @Nonnull @NonnullElements final Collection<String> bindings)
+            throws ResolverException {
+        if (Strings.isNullOrEmpty(supportedProtocol)) {
+            log.debug("Supported protocol was null, skipping search for role.");
+            return null;
+        }
+
+        for (final RoleDescriptor role : filterByBinding(getRole(entityID, roleName), bindings)) {
+            if (role.isSupportedProtocol(supportedProtocol)) {
+                return role;
+            }
+        }
+
+        log.debug("Metadata document does not contain a valid role of type {} supporting protocol {} and bindings {}"
+                + " for entity {}", new Object[] { roleName, supportedProtocol, bindings, entityID });
+        return null;
+    }
+
+    /**
+     * Filter role descriptors to those with an endpoint supporting one of a set of bindings.
+     * 
+     * @param roles the roles to filter
+     * @param bindings the bindings to allow
+     * 
+     * @return the roles with an endpoint supporting one of the bindings
+     */
+    @Nonnull @NonnullElements protected List<RoleDescriptor> filterByBinding(
+            @Nonnull @NonnullElements final List<RoleDescriptor> roles,
+            @Nonnull @NonnullElements final Collection<String> bindings) {
+        final List<RoleDescriptor> filtered = new ArrayList<>(roles.size());
+        for (final RoleDescriptor role : roles) {
+            if (EntityRoleIndex.supportsBinding(role, bindings)) {
+                filtered.add(role);
+            } else {
+                log.debug("Role of type {} has no endpoint supporting bindings {}", role.getElementQName(), bindings);
+            }
+        }
+        return filtered;
+    }
+
     /**
      * Gets the role which supports the given protocol.
      * 
@@ -276,27 +348,25 @@ public class BasicRoleDescriptorResolver extends AbstractIdentifiedInitializable
      */
     protected RoleDescriptor doGetRole(String entityID, QName roleName, String supportedProtocol) 
             throws ResolverException {
-        List<RoleDescriptor> roles = doGetRole(entityID, roleName);
-        if (roles == null || roles.isEmpty()) {
-            log.debug("Metadata document did not contain any role descriptors of type {} for entity {}", roleName,
-                    entityID);
+        EntityDescriptor entity = doGetEntityDescriptor(entityID);
+        if (entity == null) {
+            log.debug("Metadata document did not contain a descriptor for entity {}", entityID);
             return null;
         }
 
-        Iterator<RoleDescriptor> rolesItr = roles.iterator();
-        RoleDescriptor role = null;
-        while (rolesItr.hasNext()) {
-            role = rolesItr.next();
-            if (role != null && role.isSupportedProtocol(supportedProtocol)) {
-                return role;
-            }
+        List<RoleDescriptor> roles = EntityRoleIndex.getRoles(entity, roleName).getRolesByProtocol(supportedProtocol);
+        if (roles.isEmpty()) {
+            log.debug("Metadata document did not contain any role descriptors of type {} supporting protocol {}"
+                    + " for entity {}", new Object[] { roleName, supportedProtocol, entityID });
+            return null;
         }
 
-        return null;
+        return roles.get(0);
     }
     
     /**
      * Returns whether the given descriptor is valid. If valid metadata is not required this method always returns true.
+     * The validity of a role descriptor is taken from the index of its EntityDescriptor.
      * 
      * @param descriptor the descriptor to check
      * 
@@ -311,6 +381,10 @@ public class BasicRoleDescriptorResolver extends AbstractIdentifiedInitializable
             return true;
         }
 
+        if (descriptor instanceof RoleDescriptor) {
+            return EntityRoleIndex.isValid((RoleDescriptor) descriptor);
+        }
+
         return SAML2Support.isValid(descriptor);
     }
 
@@ -0,0 +1,364 @@
+/*
+ * Licensed to the University Corporation for Advanced Internet Development,
+ * Inc. (UCAID) under one or more contributor license agreements.  See the
+ * NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The UCAID licenses this file to You under the Apache
+ * License, Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.opensaml.saml.metadata.resolver.impl;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.locks.ReadWriteLock;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.ThreadSafe;
+import javax.xml.namespace.QName;
+
+import net.shibboleth.utilities.java.support.annotation.constraint.NonnullElements;
+import net.shibboleth.utilities.java.support.annotation.constraint.Unmodifiable;
+import net.shibboleth.utilities.java.support.collection.LockableClassToInstanceMultiMap;
+
+import org.joda.time.DateTime;
+import org.opensaml.core.xml.XMLObject;
+import org.opensaml.saml.saml2.common.TimeBoundSAMLObject;
+import org.opensaml.saml.saml2.metadata.Endpoint;
+import org.opensaml.saml.saml2.metadata.EntityDescriptor;
+import org.opensaml.saml.saml2.metadata.RoleDescriptor;
+
+/**
+ * Index of the roles of an entity, cached in the entity's object metadata.
+ *
+ * <p>For each role name, the index holds the roles in metadata order along with a lookup by supported protocol, and
+ * for each role, the bindings of its endpoints. The validity of each role is resolved to the earliest
+ * <code>validUntil</code> of the role and its ancestors when the index is built.</p>
+ *
+ * <p>Refreshed metadata consists of new objects, which are indexed afresh. The index of an entity is also rebuilt,
+ * as a whole, whenever its roles are no longer the ones it was built from, but changes to the attributes or
+ * endpoints of a role already indexed are not detected.</p>
+ */
+@ThreadSafe
+final class EntityRoleIndex {
+
+    /** The current state of the index. */
+    @Nonnull private volatile Snapshot snapshot;
+
+    /**
+     * Constructor.
+     *
+     * @param entity the entity to index
+     */
+    private EntityRoleIndex(@Nonnull final EntityDescriptor entity) {
+        snapshot = new Snapshot(entity);
+    }
+
+    /**
+     * Get the indexed roles of an entity with a given name, building or rebuilding the index if necessary.
+     *
+     * @param entity the entity
+     * @param roleName the element or schema type name of the roles
+     *
+     * @return the indexed roles
+     */
+    @Nonnull static RoleSet getRoles(@Nonnull final EntityDescriptor entity, @Nonnull final QName roleName) {
+        return getSnapshot(entity).getRoleSet(entity, roleName);
+    }
+
+    /**
+     * Get whether a role is valid at the current time, using the validity resolved when its entity was indexed.
+     *
+     * @param role the role
+     *
+     * @return true iff neither the role nor any of its ancestors has expired
+     */
+    static boolean isValid(@Nonnull final RoleDescriptor role) {
+        final XMLObject parent = role.getParent();
+        if (!(parent instanceof EntityDescriptor)) {
+            return isValid(getExpiration(role));
+        }
+
+        final Snapshot current = getSnapshot((EntityDescriptor) parent);
+        if (!current.expirations.containsKey(role)) {
+            return isValid(getExpiration(role));
+        }
+        return isValid(current.expirations.get(role));
+    }
+
+    /**
+     * Get whether a role has an endpoint with any of the given bindings, using the bindings indexed with its entity.
+     *
+     * @param role the role
+     * @param requested the bindings
+     *
+     * @return true iff the role has an endpoint with one of the bindings
+     */
+    static boolean supportsBinding(@Nonnull final RoleDescriptor role,
+            @Nonnull @NonnullElements final Collection<String> requested) {
+        Set<String> roleBindings = null;
+        if (role.getParent() instanceof EntityDescriptor) {
+            roleBindings = getSnapshot((EntityDescriptor) role.getParent()).bindings.get(role);
+        }
+        if (roleBindings == null) {
+            roleBindings = getBindings(role);
+        }
+        return !Collections.disjoint(roleBindings, requested);
+    }
+
+    /**
+     * Get the current snapshot of the index of an entity, creating or rebuilding it if necessary.
+     *
+     * @param entity the entity
+     *
+     * @return the current snapshot
+     */
+    @Nonnull private static Snapshot getSnapshot(@Nonnull final EntityDescriptor entity) {
+        final EntityRoleIndex index = getIndex(entity);
+        Snapshot current = index.snapshot;
+        if (!current.isBuiltFrom(entity.getRoleDescriptors())) {
+            // Concurrent builders produce equivalent snapshots, so the last one in wins.
+            current = new Snapshot(entity);
+            index.snapshot = current;
+        }
+        return current;
+    }
+
+    /**
+     * Get the index cached in the object metadata of an entity, creating and caching it if necessary.
+     *
+     * @param entity the entity
+     *
+     * @return the index of the entity
+     */
+    @Nonnull private static EntityRoleIndex getIndex(@Nonnull final EntityDescriptor entity) {
+        final LockableClassToInstanceMultiMap<Object> objectMetadata = entity.getObjectMetadata();
+        final ReadWriteLock rwlock = objectMetadata.getReadWriteLock();
+
+        try {
+            rwlock.readLock().lock();
+            final List<EntityRoleIndex> cached = objectMetadata.get(EntityRoleIndex.class);
+            if (!cached.isEmpty()) {
+                return cached.get(0);
+            }
+        } finally {
+            rwlock.readLock().unlock();
+        }
+
+        try {
+            rwlock.writeLock().lock();
+
+            // Need to check again in case another thread cached an index while this one waited on the write lock.
+            final List<EntityRoleIndex> cached = objectMetadata.get(EntityRoleIndex.class);
+            if (!cached.isEmpty()) {
+                return cached.get(0);
+            }
+
+            final EntityRoleIndex index = new EntityRoleIndex(entity);
+            objectMetadata.put(index);
+            return index;
+        } finally {
+            rwlock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Get whether an expiration instant lies in the future.
+     *
+     * @param expiration the expiration instant, or null if none
+     *
+     * @return true iff there is no expiration or it has not yet been reached
+     */
+    private static boolean isValid(@Nullable final DateTime expiration) {
+        return expiration == null || new DateTime().isBefore(expiration);
+    }
+
+    /**
+     * Get the bindings of the endpoints of a role.
+     *
+     * @param role the role
+     *
+     * @return the bindings
+     */
+    @Nonnull @NonnullElements private static Set<String> getBindings(@Nonnull final RoleDescriptor role) {
+        final Set<String> roleBindings = new HashSet<>();
+        for (final Endpoint endpoint : role.getEndpoints()) {
+            if (endpoint.getBinding() != null) {
+                roleBindings.add(endpoint.getBinding());
+            }
+        }
+        return roleBindings;
+    }
+
+    /**
+     * Get the earliest <code>validUntil</code> of an object and its ancestors.
+     *
+     * @param xmlObject the object
+     *
+     * @return the earliest expiration, or null if none
+     */
+    @Nullable private static DateTime getExpiration(@Nonnull final XMLObject xmlObject) {
+        DateTime earliest = null;
+        for (XMLObject current = xmlObject; current != null; current = current.getParent()) {
+            if (current instanceof TimeBoundSAMLObject) {
+                final DateTime validUntil = ((TimeBoundSAMLObject) current).getValidUntil();
+                if (validUntil != null && (earliest == null || validUntil.isBefore(earliest))) {
+                    earliest = validUntil;
+                }
+            }
+        }
+        return earliest;
+    }
+
+    /** The index as built from one set of roles. */
+    private static final class Snapshot {
+
+        /** The roles the snapshot was built from, in metadata order. */
+        @Nonnull @NonnullElements private final List<RoleDescriptor> source;
+
+        /** Earliest expiration of each role, null if none. */
+        @Nonnull private final Map<RoleDescriptor, DateTime> expirations;
+
+        /** Bindings of the endpoints of each role. */
+        @Nonnull private final Map<RoleDescriptor, Set<String>> bindings;
+
+        /** Roles by name, built on demand. */
+        @Nonnull private final ConcurrentMap<QName, RoleSet> roleSets;
+
+        /**
+         * Constructor.
+         *
+         * @param entity the entity to index
+         */
+        private Snapshot(@Nonnull final EntityDescriptor entity) {
+            source = new ArrayList<>(entity.getRoleDescriptors());
+            expirations = new IdentityHashMap<>(source.size());
+            bindings = new IdentityHashMap<>(source.size());
+            roleSets = new ConcurrentHashMap<>();
+
+            final DateTime entityExpiration = getExpiration(entity);
+            for (final RoleDescriptor role : source) {
+                final DateTime validUntil = role.getValidUntil();
+                if (validUntil != null && (entityExpiration == null || validUntil.isBefore(entityExpiration))) {
+                    expirations.put(role, validUntil);
+                } else {
+                    expirations.put(role, entityExpiration);
+                }
+                bindings.put(role, getBindings(role));
+            }
+        }
+
+        /**
+         * Get the indexed roles with a given name, building them if necessary.
+         *
+         * @param entity the entity the snapshot was built from
+         * @param roleName the element or schema type name of the roles
+         *
+         * @return the indexed roles
+         */
+        @Nonnull private RoleSet getRoleSet(@Nonnull final EntityDescriptor entity, @Nonnull final QName roleName) {
+            RoleSet roleSet = roleSets.get(roleName);
+            if (roleSet == null) {
+                roleSet = new RoleSet(entity.getRoleDescriptors(roleName));
+                final RoleSet existing = roleSets.putIfAbsent(roleName, roleSet);
+                if (existing != null) {
+                    roleSet = existing;
+                }
+            }
+            return roleSet;
+        }
+
+        /**
+         * Get whether the snapshot was built from the given roles, in the same order.
+         *
+         * @param roles the roles currently in the entity
+         *
+         * @return true iff the snapshot is still current
+         */
+        private boolean isBuiltFrom(@Nonnull @NonnullElements final List<RoleDescriptor> roles) {
+            if (roles.size() != source.size()) {
+                return false;
+            }
+            for (int i = 0; i < roles.size(); i++) {
+                if (roles.get(i) != source.get(i)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    /** The indexed roles of an entity with one name. All lists returned are unmodifiable and in metadata order. */
+    static final class RoleSet {
+
+        /** The roles. */
+        @Nonnull @NonnullElements private final List<RoleDescriptor> roles;
+
+        /** Roles by supported protocol. */
+        @Nonnull private final Map<String, List<RoleDescriptor>> rolesByProtocol;
+
+        /**
+         * Constructor.
+         *
+         * @param candidates the roles to index
+         */
+        private RoleSet(@Nonnull @NonnullElements final List<RoleDescriptor> candidates) {
+            roles = Collections.unmodifiableList(new ArrayList<>(candidates));
+            rolesByProtocol = new HashMap<>();
+
+            for (final RoleDescriptor role : roles) {
+                for (final String protocol : role.getSupportedProtocols()) {
+                    List<RoleDescriptor> list = rolesByProtocol.get(protocol);
+                    if (list == null) {
+                        list = new ArrayList<>(1);
+                        rolesByProtocol.put(protocol, list);
+                    } else if (list.get(list.size() - 1) == role) {
+                        continue;
+                    }
+                    list.add(role);
+                }
+            }
+        }
+
+        /**
+         * Get all the roles.
+         *
+         * @return the roles
+         */
+        @Nonnull @NonnullElements @Unmodifiable List<RoleDescriptor> getRoles() {
+            return roles;
+        }
+
+        /**
+         * Get the roles which support a given protocol.
+         *
+         * @param protocol the protocol
+         *
+         * @return the roles supporting the protocol
+         */
+        @Nonnull @NonnullElements @Unmodifiable List<RoleDescriptor> getRolesByProtocol(
+                @Nullable final String protocol) {
+            final List<RoleDescriptor> found = protocol != null ? rolesByProtocol.get(protocol) : null;
+            return found != null ? Collections.unmodifiableList(found) : Collections.<RoleDescriptor>emptyList();
+        }
+    }
+
+}
@@ -27,6 +27,7 @@ import net.shibboleth.utilities.java.support.component.ComponentInitializationEx
 import net.shibboleth.utilities.java.support.component.ComponentSupport;
 import net.shibboleth.utilities.java.support.logic.Constraint;
 
+import org.opensaml.core.xml.XMLRuntimeException;
 import org.opensaml.messaging.context.navigate.MessageLookup;
 import org.opensaml.profile.action.AbstractProfileAction;
 import org.opensaml.profile.action.ActionSupport;
@@ -249,7 +250,7 @@ public class ResolveArtifacts extends AbstractProfileAction {
                 
                 response.getAssertions().add((Assertion) entry.getSamlMessage());
             }
-        } catch (final IOException e) {
+        } catch (final IOException | XMLRuntimeException e) {
             log.error("{} Error resolving artifact", getLogPrefix(), e);
             success = false;
         }
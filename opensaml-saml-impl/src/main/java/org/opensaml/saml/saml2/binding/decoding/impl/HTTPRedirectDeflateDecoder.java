@@ -17,17 +17,16 @@
 
 package org.opensaml.saml.saml2.binding.decoding.impl;
 
-import java.io.ByteArrayInputStream;
+import java.io.IOException;
 import java.io.InputStream;
-import java.util.zip.Inflater;
-import java.util.zip.InflaterInputStream;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import javax.servlet.http.HttpServletRequest;
 
 import net.shibboleth.utilities.java.support.annotation.constraint.NotEmpty;
-import net.shibboleth.utilities.java.support.codec.Base64Support;
+import net.shibboleth.utilities.java.support.component.ComponentSupport;
+import net.shibboleth.utilities.java.support.logic.Constraint;
 
 import org.opensaml.messaging.context.MessageContext;
 import org.opensaml.messaging.decoder.MessageDecodingException;
@@ -36,6 +35,7 @@ import org.opensaml.saml.common.SAMLObject;
 import org.opensaml.saml.common.binding.BindingDescriptor;
 import org.opensaml.saml.common.binding.SAMLBindingSupport;
 import org.opensaml.saml.common.binding.decoding.SAMLMessageDecoder;
+import org.opensaml.saml.common.binding.impl.DeflateCodec;
 import org.opensaml.saml.common.messaging.context.SAMLBindingContext;
 import org.opensaml.saml.common.xml.SAMLConstants;
 import org.slf4j.Logger;
@@ -57,6 +57,9 @@ public class HTTPRedirectDeflateDecoder extends BaseHttpServletRequestXMLMessage
     /** Optional {@link BindingDescriptor} to inject into {@link SAMLBindingContext} created. */
     @Nullable private BindingDescriptor bindingDescriptor;
     
+    /** Codec used to inflate the message. */
+    @Nonnull private DeflateCodec deflateCodec = DeflateCodec.getDefaultInstance();
+    
     /** {@inheritDoc} */
     @Nonnull @NotEmpty public String getBindingURI() {
         return SAMLConstants.SAML2_REDIRECT_BINDING_URI;
@@ -79,6 +82,26 @@ public class HTTPRedirectDeflateDecoder extends BaseHttpServletRequestXMLMessage
     public void setBindingDescriptor(@Nullable final BindingDescriptor descriptor) {
         bindingDescriptor = descriptor;
     }
+    
+    /**
+     * Get the codec used to inflate the message.
+     * 
+     * @return the codec
+     */
+    @Nonnull public DeflateCodec getDeflateCodec() {
+        return deflateCodec;
+    }
+    
+    /**
+     * Set the codec used to inflate the message. Defaults to {@link DeflateCodec#getDefaultInstance()}.
+     * 
+     * @param codec the codec
+     */
+    public void setDeflateCodec(@Nonnull final DeflateCodec codec) {
+        ComponentSupport.ifInitializedThrowUnmodifiabledComponentException(this);
+        ComponentSupport.ifDestroyedThrowDestroyedComponentException(this);
+        deflateCodec = Constraint.isNotNull(codec, "DeflateCodec cannot be null");
+    }
 
     /** {@inheritDoc} */
     protected void doDecode() throws MessageDecodingException {
@@ -99,7 +122,16 @@ public class HTTPRedirectDeflateDecoder extends BaseHttpServletRequestXMLMessage
                     "No SAMLRequest or SAMLResponse query path parameter, invalid SAML 2 HTTP Redirect message");
         }
 
-        SAMLObject samlMessage = (SAMLObject) unmarshallMessage(samlMessageIns);
+        SAMLObject samlMessage;
+        try {
+            samlMessage = (SAMLObject) unmarshallMessage(samlMessageIns);
+        } finally {
+            try {
+                samlMessageIns.close();
+            } catch (IOException e) {
+                log.debug("Unable to close inflated SAML message stream", e);
+            }
+        }
         messageContext.setMessage(samlMessage);
         log.debug("Decoded SAML message");
 
@@ -120,16 +152,8 @@ public class HTTPRedirectDeflateDecoder extends BaseHttpServletRequestXMLMessage
     protected InputStream decodeMessage(String message) throws MessageDecodingException {
         log.debug("Base64 decoding and inflating SAML message");
 
-        byte[] decodedBytes = Base64Support.decode(message);
-        if(decodedBytes == null){
-            log.error("Unable to Base64 decode incoming message");
-            throw new MessageDecodingException("Unable to Base64 decode incoming message");
-        }
-        
         try {
-            ByteArrayInputStream bytesIn = new ByteArrayInputStream(decodedBytes);
-            InflaterInputStream inflater = new InflaterInputStream(bytesIn, new Inflater(true));
-            return inflater;
+            return deflateCodec.base64DecodeAndInflate(message);
         } catch (Exception e) {
             log.error("Unable to Base64 decode and inflate SAML message", e);
             throw new MessageDecodingException("Unable to Base64 decode and inflate SAML message", e);
@@ -17,9 +17,12 @@
 
 package org.opensaml.saml.saml2.binding.encoding.impl;
 
+import java.io.ByteArrayOutputStream;
 import java.io.OutputStreamWriter;
 import java.io.UnsupportedEncodingException;
 import java.io.Writer;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 import javax.servlet.http.HttpServletResponse;
 
@@ -32,10 +35,13 @@ import net.shibboleth.utilities.java.support.xml.SerializeSupport;
 
 import org.apache.velocity.VelocityContext;
 import org.apache.velocity.app.VelocityEngine;
+import org.opensaml.core.xml.io.MarshallingException;
+import org.opensaml.core.xml.io.StreamingXMLObjectMarshaller;
 import org.opensaml.messaging.context.MessageContext;
 import org.opensaml.messaging.encoder.MessageEncodingException;
 import org.opensaml.saml.common.SAMLObject;
 import org.opensaml.saml.common.binding.SAMLBindingSupport;
+import org.opensaml.saml.common.binding.encoding.HTTPPostFormRenderer;
 import org.opensaml.saml.common.xml.SAMLConstants;
 import org.opensaml.saml.saml2.core.RequestAbstractType;
 import org.opensaml.saml.saml2.core.StatusResponseType;
@@ -45,6 +51,11 @@ import org.w3c.dom.Element;
 
 /**
  * SAML 2.0 HTTP Post binding message encoder.
+ * 
+ * <p>
+ * The form is rendered by the {@link HTTPPostFormRenderer} if one is set, such as
+ * {@link org.opensaml.saml.common.binding.impl.DefaultHTTPPostFormRenderer}, and otherwise by the Velocity template.
+ * </p>
  */
 public class HTTPPostEncoder extends BaseSAML2MessageEncoder {
     
@@ -60,6 +71,12 @@ public class HTTPPostEncoder extends BaseSAML2MessageEncoder {
     /** ID of the Velocity template used when performing POST encoding. */
     private String velocityTemplateId;
     
+    /** Optional marshaller used to write the Base64 encoded message without serializing it from a DOM. */
+    private StreamingXMLObjectMarshaller streamingMarshaller;
+    
+    /** Optional renderer used instead of the Velocity template to write the form. */
+    private HTTPPostFormRenderer formRenderer;
+    
     /** Constructor. */
     public HTTPPostEncoder() {
         setVelocityTemplateId(DEFAULT_TEMPLATE_ID);
@@ -114,16 +131,65 @@ public class HTTPPostEncoder extends BaseSAML2MessageEncoder {
         velocityTemplateId = newVelocityTemplateId;
     }
     
+    /**
+     * Get the marshaller used to write the Base64 encoded message without serializing it from a DOM.
+     * 
+     * @return the streaming marshaller, or null if the message is marshalled into a DOM and then serialized
+     */
+    public StreamingXMLObjectMarshaller getStreamingMarshaller() {
+        return streamingMarshaller;
+    }
+
+    /**
+     * Set the marshaller used to write the Base64 encoded message without serializing it from a DOM.
+     * 
+     * <p>A signed message is still written from the DOM over which its signature was computed.</p>
+     * 
+     * @param marshaller the streaming marshaller, or null to marshall the message into a DOM and then serialize it
+     */
+    public void setStreamingMarshaller(StreamingXMLObjectMarshaller marshaller) {
+        ComponentSupport.ifInitializedThrowUnmodifiabledComponentException(this);
+        ComponentSupport.ifDestroyedThrowDestroyedComponentException(this);
+        streamingMarshaller = marshaller;
+    }
+    
+    /**
+     * Get the renderer used instead of the Velocity template to write the form.
+     * 
+     * @return the form renderer, or null if the Velocity template is used
+     */
+    public HTTPPostFormRenderer getFormRenderer() {
+        return formRenderer;
+    }
+
+    /**
+     * Set the renderer used instead of the Velocity template to write the form.
+     * 
+     * <p>The Velocity engine and template are not required if a renderer is set.</p>
+     * 
+     * @param renderer the form renderer, or null to use the Velocity template
+     */
+    public void setFormRenderer(HTTPPostFormRenderer renderer) {
+        ComponentSupport.ifInitializedThrowUnmodifiabledComponentException(this);
+        ComponentSupport.ifDestroyedThrowDestroyedComponentException(this);
+        formRenderer = renderer;
+    }
+    
     /** {@inheritDoc} */
     protected void doDestroy() {
         velocityEngine = null;
         velocityTemplateId = null;
+        streamingMarshaller = null;
+        formRenderer = null;
         super.doDestroy();
     }
 
     /** {@inheritDoc} */
     protected void doInitialize() throws ComponentInitializationException {
         super.doInitialize();
+        if (formRenderer != null) {
+            return;
+        }
         if (velocityEngine == null) {
             throw new ComponentInitializationException("VelocityEngine must be supplied");
         }
@@ -156,6 +222,11 @@ public class HTTPPostEncoder extends BaseSAML2MessageEncoder {
      */
     protected void postEncode(MessageContext<SAMLObject> messageContext, String endpointURL) 
             throws MessageEncodingException {
+        if (formRenderer != null) {
+            renderForm(messageContext, endpointURL);
+            return;
+        }
+        
         log.debug("Invoking Velocity template to create POST body");
         try {
             VelocityContext context = new VelocityContext();
@@ -177,9 +248,41 @@ public class HTTPPostEncoder extends BaseSAML2MessageEncoder {
         }
     }
 
+    /**
+     * Write the POST body with the form renderer.
+     * 
+     * @param messageContext current message context
+     * @param endpointURL endpoint URL to which to encode message
+     * 
+     * @throws MessageEncodingException thrown if there is a problem encoding the message
+     */
+    private void renderForm(MessageContext<SAMLObject> messageContext, String endpointURL)
+            throws MessageEncodingException {
+        log.debug("Invoking form renderer to create POST body");
+        Map<String, String> parameters = new LinkedHashMap<>();
+        populateFormParameters(parameters, messageContext, endpointURL);
+        
+        try {
+            HttpServletResponse response = getHttpServletResponse();
+            
+            HttpServletSupport.addNoCacheHeaders(response);
+            HttpServletSupport.setUTF8Encoding(response);
+            HttpServletSupport.setContentType(response, "text/html");
+            
+            formRenderer.render(response.getOutputStream(), getBindingURI(), endpointURL, parameters);
+            response.getOutputStream().flush();
+        } catch (Exception e) {
+            log.error("Error rendering POST form", e);
+            throw new MessageEncodingException("Error creating output document", e);
+        }
+    }
+
     /**
      * Populate the Velocity context instance which will be used to render the POST body.
      * 
+     * <p>The form controls are those added by
+     * {@link #populateFormParameters(Map, MessageContext, String)}, with the RelayState encoded for HTML.</p>
+     * 
      * @param velocityContext the Velocity context instance to populate with data
      * @param messageContext the SAML message context source of data
      * @param endpointURL endpoint URL to which to encode message
@@ -193,18 +296,53 @@ public class HTTPPostEncoder extends BaseSAML2MessageEncoder {
         velocityContext.put("action", encodedEndpointURL);
         velocityContext.put("binding", getBindingURI());
         
+        Map<String, String> parameters = new LinkedHashMap<>();
+        populateFormParameters(parameters, messageContext, endpointURL);
+        for (Map.Entry<String, String> parameter : parameters.entrySet()) {
+            if ("RelayState".equals(parameter.getKey())) {
+                String encodedRelayState = HTMLEncoder.encodeForHTMLAttribute(parameter.getValue());
+                log.debug("Encoded RelayState parameter as '{}'", encodedRelayState);
+                velocityContext.put(parameter.getKey(), encodedRelayState);
+            } else {
+                velocityContext.put(parameter.getKey(), parameter.getValue());
+            }
+        }
+    }
+
+    /**
+     * Populate the names and values of the hidden form controls of the POST body, as they are to be submitted.
+     * 
+     * @param parameters the map of control names to values to populate, in document order
+     * @param messageContext the SAML message context source of data
+     * @param endpointURL endpoint URL to which to encode message
+     * @throws MessageEncodingException thrown if there is a problem encoding the message
+     */
+    protected void populateFormParameters(Map<String, String> parameters, MessageContext<SAMLObject> messageContext,
+            String endpointURL) throws MessageEncodingException {
+
+        String relayState = SAMLBindingSupport.getRelayState(messageContext);
+        if (SAMLBindingSupport.checkRelayState(relayState)) {
+            log.debug("Setting RelayState parameter to: '{}'", relayState);
+            parameters.put("RelayState", relayState);
+        }
+        
         SAMLObject outboundMessage = messageContext.getMessage();
         
         log.debug("Marshalling and Base64 encoding SAML message");
-        Element domMessage = marshallMessage(outboundMessage);
         
         try {
-            String messageXML = SerializeSupport.nodeToString(domMessage);
-            String encodedMessage = Base64Support.encode(messageXML.getBytes("UTF-8"), Base64Support.UNCHUNKED);
+            String encodedMessage;
+            if (streamingMarshaller != null) {
+                encodedMessage = streamMessage(outboundMessage);
+            } else {
+                Element domMessage = marshallMessage(outboundMessage);
+                String messageXML = SerializeSupport.nodeToString(domMessage);
+                encodedMessage = Base64Support.encode(messageXML.getBytes("UTF-8"), Base64Support.UNCHUNKED);
+            }
             if (outboundMessage instanceof RequestAbstractType) {
-                velocityContext.put("SAMLRequest", encodedMessage);
+                parameters.put("SAMLRequest", encodedMessage);
             } else if (outboundMessage instanceof StatusResponseType) {
-                velocityContext.put("SAMLResponse", encodedMessage);
+                parameters.put("SAMLResponse", encodedMessage);
             } else {
                 throw new MessageEncodingException(
                         "SAML message is neither a SAML RequestAbstractType or StatusResponseType");
@@ -213,12 +351,26 @@ public class HTTPPostEncoder extends BaseSAML2MessageEncoder {
             log.error("UTF-8 encoding is not supported, this VM is not Java compliant.");
             throw new MessageEncodingException("Unable to encode message, UTF-8 encoding is not supported");
         }
+    }
 
-        String relayState = SAMLBindingSupport.getRelayState(messageContext);
-        if (SAMLBindingSupport.checkRelayState(relayState)) {
-            String encodedRelayState = HTMLEncoder.encodeForHTMLAttribute(relayState);
-            log.debug("Setting RelayState parameter to: '{}', encoded as '{}'", relayState, encodedRelayState);
-            velocityContext.put("RelayState", encodedRelayState);
+    /**
+     * Marshall the message and Base64 encode it using the streaming marshaller.
+     * 
+     * @param message the message to encode
+     * 
+     * @return the Base64 encoded message
+     * 
+     * @throws MessageEncodingException thrown if the message can not be marshalled
+     * @throws UnsupportedEncodingException never, US-ASCII is always supported
+     */
+    private String streamMessage(SAMLObject message) throws MessageEncodingException, UnsupportedEncodingException {
+        ByteArrayOutputStream encodedBytes = new ByteArrayOutputStream();
+        try {
+            streamingMarshaller.marshallBase64(message, encodedBytes);
+        } catch (MarshallingException e) {
+            log.error("Error marshalling message", e);
+            throw new MessageEncodingException("Error marshalling message", e);
         }
+        return encodedBytes.toString("US-ASCII");
     }
-}
\ No newline at end of file
+}
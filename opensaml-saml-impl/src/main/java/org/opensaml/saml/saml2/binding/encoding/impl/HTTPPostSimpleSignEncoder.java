@@ -18,8 +18,11 @@
 package org.opensaml.saml.saml2.binding.encoding.impl;
 
 import java.io.UnsupportedEncodingException;
+import java.util.HashMap;
+import java.util.Map;
 
 import net.shibboleth.utilities.java.support.codec.Base64Support;
+import net.shibboleth.utilities.java.support.codec.HTMLEncoder;
 import net.shibboleth.utilities.java.support.xml.SerializeSupport;
 
 import org.apache.velocity.VelocityContext;
@@ -66,10 +69,10 @@ public class HTTPPostSimpleSignEncoder extends HTTPPostEncoder {
     }
 
     /** {@inheritDoc} */
-    protected void populateVelocityContext(VelocityContext velocityContext, MessageContext<SAMLObject> messageContext,
+    protected void populateFormParameters(Map<String, String> parameters, MessageContext<SAMLObject> messageContext,
             String endpointURL) throws MessageEncodingException {
 
-        super.populateVelocityContext(velocityContext, messageContext, endpointURL);
+        super.populateFormParameters(parameters, messageContext, endpointURL);
 
         SignatureSigningParameters signingParameters = 
                 SAMLMessageSecuritySupport.getContextSigningParameters(messageContext);
@@ -80,22 +83,50 @@ public class HTTPPostSimpleSignEncoder extends HTTPPostEncoder {
         }
 
         String sigAlgURI = getSignatureAlgorithmURI(signingParameters);
-        velocityContext.put("SigAlg", sigAlgURI);
 
+        // Go through the deprecated variant while it exists, so that subclasses overriding it still take effect.
+        VelocityContext velocityContext = buildVelocityContext(parameters, endpointURL, sigAlgURI);
         String formControlData = buildFormDataToSign(velocityContext, messageContext, sigAlgURI);
-        velocityContext.put("Signature", generateSignature(signingParameters.getSigningCredential(), 
+        parameters.put("Signature", generateSignature(signingParameters.getSigningCredential(), 
                 sigAlgURI, formControlData));
+        parameters.put("SigAlg", sigAlgURI);
 
         
         KeyInfoGenerator kiGenerator = signingParameters.getKeyInfoGenerator();
         if (kiGenerator != null) {
             String kiBase64 = buildKeyInfo(signingParameters.getSigningCredential(), kiGenerator);
             if (!Strings.isNullOrEmpty(kiBase64)) {
-                velocityContext.put("KeyInfo", kiBase64);
+                parameters.put("KeyInfo", kiBase64);
             }
         }
     }
 
+    /**
+     * Build a Velocity context holding what the POST template context held when the form control data to sign was
+     * built from it, for {@link #buildFormDataToSign(VelocityContext, MessageContext, String)}.
+     * 
+     * @param parameters the form controls populated so far
+     * @param endpointURL endpoint URL to which to encode message
+     * @param sigAlgURI the signature algorithm URI
+     * 
+     * @return the Velocity context
+     */
+    private VelocityContext buildVelocityContext(Map<String, String> parameters, String endpointURL,
+            String sigAlgURI) {
+        VelocityContext velocityContext = new VelocityContext();
+        velocityContext.put("action", HTMLEncoder.encodeForHTMLAttribute(endpointURL));
+        velocityContext.put("binding", getBindingURI());
+        for (Map.Entry<String, String> parameter : parameters.entrySet()) {
+            if ("RelayState".equals(parameter.getKey())) {
+                velocityContext.put(parameter.getKey(), HTMLEncoder.encodeForHTMLAttribute(parameter.getValue()));
+            } else {
+                velocityContext.put(parameter.getKey(), parameter.getValue());
+            }
+        }
+        velocityContext.put("SigAlg", sigAlgURI);
+        return velocityContext;
+    }
+
     /**
      * Build the {@link KeyInfo} from the signing credential.
      * 
@@ -139,21 +170,45 @@ public class HTTPPostSimpleSignEncoder extends HTTPPostEncoder {
      * @param sigAlgURI the signature algorithm URI
      * 
      * @return the form control data string for signature computation
+     * 
+     * @deprecated use {@link #buildFormDataToSign(Map, MessageContext, String)}
      */
+    @Deprecated
     protected String buildFormDataToSign(VelocityContext velocityContext, MessageContext<SAMLObject> messageContext,
             String sigAlgURI) {
+        Map<String, String> parameters = new HashMap<>();
+        if (velocityContext.get("SAMLRequest") != null) {
+            parameters.put("SAMLRequest", (String) velocityContext.get("SAMLRequest"));
+        } else {
+            parameters.put("SAMLResponse", (String) velocityContext.get("SAMLResponse"));
+        }
+        return buildFormDataToSign(parameters, messageContext, sigAlgURI);
+    }
+
+    /**
+     * Build the form control data string over which the signature is computed.
+     * 
+     * @param parameters the form controls which are already populated with the values for SAML message and relay
+     *            state
+     * @param messageContext the SAML message context being processed
+     * @param sigAlgURI the signature algorithm URI
+     * 
+     * @return the form control data string for signature computation
+     */
+    protected String buildFormDataToSign(Map<String, String> parameters, MessageContext<SAMLObject> messageContext,
+            String sigAlgURI) {
         StringBuilder builder = new StringBuilder();
 
         boolean isRequest = false;
-        if (velocityContext.get("SAMLRequest") != null) {
+        if (parameters.get("SAMLRequest") != null) {
             isRequest = true;
         }
 
         String msgB64;
         if (isRequest) {
-            msgB64 = (String) velocityContext.get("SAMLRequest");
+            msgB64 = parameters.get("SAMLRequest");
         } else {
-            msgB64 = (String) velocityContext.get("SAMLResponse");
+            msgB64 = parameters.get("SAMLResponse");
         }
 
         String msg = null;
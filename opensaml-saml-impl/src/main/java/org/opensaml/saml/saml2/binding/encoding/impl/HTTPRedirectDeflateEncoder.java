@@ -17,18 +17,17 @@
 
 package org.opensaml.saml.saml2.binding.encoding.impl;
 
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.UnsupportedEncodingException;
 import java.net.MalformedURLException;
 import java.util.List;
-import java.util.zip.Deflater;
-import java.util.zip.DeflaterOutputStream;
 
 import javax.servlet.http.HttpServletResponse;
 
 import net.shibboleth.utilities.java.support.codec.Base64Support;
 import net.shibboleth.utilities.java.support.collection.Pair;
+import net.shibboleth.utilities.java.support.component.ComponentSupport;
+import net.shibboleth.utilities.java.support.logic.Constraint;
 import net.shibboleth.utilities.java.support.net.HttpServletSupport;
 import net.shibboleth.utilities.java.support.net.URLBuilder;
 import net.shibboleth.utilities.java.support.xml.SerializeSupport;
@@ -38,6 +37,7 @@ import org.opensaml.messaging.encoder.MessageEncodingException;
 import org.opensaml.saml.common.SAMLObject;
 import org.opensaml.saml.common.SignableSAMLObject;
 import org.opensaml.saml.common.binding.SAMLBindingSupport;
+import org.opensaml.saml.common.binding.impl.DeflateCodec;
 import org.opensaml.saml.common.messaging.SAMLMessageSecuritySupport;
 import org.opensaml.saml.common.xml.SAMLConstants;
 import org.opensaml.saml.saml2.core.RequestAbstractType;
@@ -60,11 +60,34 @@ public class HTTPRedirectDeflateEncoder extends BaseSAML2MessageEncoder {
     /** Class logger. */
     private final Logger log = LoggerFactory.getLogger(HTTPRedirectDeflateEncoder.class);
 
+    /** Codec used to deflate the message. */
+    private DeflateCodec deflateCodec = DeflateCodec.getDefaultInstance();
+
     /** Constructor. */
     public HTTPRedirectDeflateEncoder() {
         
     }
 
+    /**
+     * Get the codec used to deflate the message.
+     * 
+     * @return the codec
+     */
+    public DeflateCodec getDeflateCodec() {
+        return deflateCodec;
+    }
+
+    /**
+     * Set the codec used to deflate the message. Defaults to {@link DeflateCodec#getDefaultInstance()}.
+     * 
+     * @param codec the codec
+     */
+    public void setDeflateCodec(DeflateCodec codec) {
+        ComponentSupport.ifInitializedThrowUnmodifiabledComponentException(this);
+        ComponentSupport.ifDestroyedThrowDestroyedComponentException(this);
+        deflateCodec = Constraint.isNotNull(codec, "DeflateCodec cannot be null");
+    }
+
     /** {@inheritDoc} */
     public String getBindingURI() {
         return SAMLConstants.SAML2_REDIRECT_BINDING_URI;
@@ -123,13 +146,7 @@ public class HTTPRedirectDeflateEncoder extends BaseSAML2MessageEncoder {
         try {
             String messageStr = SerializeSupport.nodeToString(marshallMessage(message));
 
-            ByteArrayOutputStream bytesOut = new ByteArrayOutputStream();
-            Deflater deflater = new Deflater(Deflater.DEFLATED, true);
-            DeflaterOutputStream deflaterStream = new DeflaterOutputStream(bytesOut, deflater);
-            deflaterStream.write(messageStr.getBytes("UTF-8"));
-            deflaterStream.finish();
-
-            return Base64Support.encode(bytesOut.toByteArray(), Base64Support.UNCHUNKED);
+            return deflateCodec.deflateAndBase64Encode(messageStr);
         } catch (IOException e) {
             throw new MessageEncodingException("Unable to DEFLATE and Base64 encode SAML message", e);
         }
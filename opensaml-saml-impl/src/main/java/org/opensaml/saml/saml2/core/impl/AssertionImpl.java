@@ -25,9 +25,11 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 
+import javax.annotation.Nonnull;
 import javax.xml.namespace.QName;
 
 import org.joda.time.DateTime;
+import org.opensaml.core.xml.DeferrableChildrenXMLObject;
 import org.opensaml.core.xml.XMLObject;
 import org.opensaml.core.xml.util.IndexedXMLObjectChildrenList;
 import org.opensaml.saml.common.AbstractSignableSAMLObject;
@@ -46,7 +48,7 @@ import org.opensaml.saml.saml2.core.Subject;
 /**
  * A concrete implementation of {@link org.opensaml.saml.saml2.core.Assertion}.
  */
-public class AssertionImpl extends AbstractSignableSAMLObject implements Assertion {
+public class AssertionImpl extends AbstractSignableSAMLObject implements Assertion, DeferrableChildrenXMLObject {
 
     /** SAML Version of the assertion. */
     private SAMLVersion version;
@@ -149,6 +151,7 @@ public class AssertionImpl extends AbstractSignableSAMLObject implements Asserti
 
     /** {@inheritDoc} */
     public Advice getAdvice() {
+        resolveDeferredChildElements();
         return advice;
     }
 
@@ -193,8 +196,15 @@ public class AssertionImpl extends AbstractSignableSAMLObject implements Asserti
         return id;
     }
 
+    /** {@inheritDoc} */
+    public boolean isDeferrableChildElement(@Nonnull final QName elementName) {
+        return Advice.DEFAULT_ELEMENT_NAME.equals(elementName);
+    }
+
     /** {@inheritDoc} */
     public List<XMLObject> getOrderedChildren() {
+        resolveDeferredChildElements();
+
         ArrayList<XMLObject> children = new ArrayList<>();
 
         children.add(issuer);
@@ -21,9 +21,11 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 
+import javax.annotation.Nonnull;
 import javax.xml.namespace.QName;
 
 import org.joda.time.DateTime;
+import org.opensaml.core.xml.DeferrableChildrenXMLObject;
 import org.opensaml.core.xml.XMLObject;
 import org.opensaml.core.xml.util.AttributeMap;
 import org.opensaml.core.xml.util.IndexedXMLObjectChildrenList;
@@ -45,7 +47,8 @@ import org.opensaml.saml.saml2.metadata.SPSSODescriptor;
 /**
  * Concretate implementation of {@link org.opensaml.saml.saml2.metadata.EntitiesDescriptor}.
  */
-public class EntityDescriptorImpl extends AbstractSignableSAMLObject implements EntityDescriptor {
+public class EntityDescriptorImpl extends AbstractSignableSAMLObject implements EntityDescriptor,
+        DeferrableChildrenXMLObject {
 
     /** Entity ID of this Entity. */
     private String entityID;
@@ -152,6 +155,7 @@ public class EntityDescriptorImpl extends AbstractSignableSAMLObject implements
 
     /** {@inheritDoc} */
     public Extensions getExtensions() {
+        resolveDeferredChildElements();
         return extensions;
     }
 
@@ -246,6 +250,7 @@ public class EntityDescriptorImpl extends AbstractSignableSAMLObject implements
 
     /** {@inheritDoc} */
     public Organization getOrganization() {
+        resolveDeferredChildElements();
         return organization;
     }
 
@@ -256,6 +261,7 @@ public class EntityDescriptorImpl extends AbstractSignableSAMLObject implements
 
     /** {@inheritDoc} */
     public List<ContactPerson> getContactPersons() {
+        resolveDeferredChildElements();
         return contactPersons;
     }
 
@@ -276,8 +282,17 @@ public class EntityDescriptorImpl extends AbstractSignableSAMLObject implements
         return id;
     }
 
+    /** {@inheritDoc} */
+    public boolean isDeferrableChildElement(@Nonnull final QName elementName) {
+        return Extensions.DEFAULT_ELEMENT_NAME.equals(elementName)
+                || Organization.DEFAULT_ELEMENT_NAME.equals(elementName)
+                || ContactPerson.DEFAULT_ELEMENT_NAME.equals(elementName);
+    }
+
     /** {@inheritDoc} */
     public List<XMLObject> getOrderedChildren() {
+        resolveDeferredChildElements();
+
         ArrayList<XMLObject> children = new ArrayList<>();
 
         if (getSignature() != null) {
@@ -22,10 +22,14 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
 
+import javax.annotation.Nonnull;
+import javax.xml.namespace.QName;
+
 import net.shibboleth.utilities.java.support.collection.LazyList;
 import net.shibboleth.utilities.java.support.primitive.StringSupport;
 
 import org.joda.time.DateTime;
+import org.opensaml.core.xml.DeferrableChildrenXMLObject;
 import org.opensaml.core.xml.XMLObject;
 import org.opensaml.core.xml.util.AttributeMap;
 import org.opensaml.core.xml.util.XMLObjectChildrenList;
@@ -37,7 +41,8 @@ import org.opensaml.saml.saml2.metadata.Organization;
 import org.opensaml.saml.saml2.metadata.RoleDescriptor;
 
 /** Concrete implementation of {@link org.opensaml.saml.saml2.metadata.RoleDescriptor}. */
-public abstract class RoleDescriptorImpl extends AbstractSignableSAMLObject implements RoleDescriptor {
+public abstract class RoleDescriptorImpl extends AbstractSignableSAMLObject implements RoleDescriptor,
+        DeferrableChildrenXMLObject {
 
     /** ID attribute. */
     private String id;
@@ -195,6 +200,7 @@ public abstract class RoleDescriptorImpl extends AbstractSignableSAMLObject impl
     /** {@inheritDoc} */
     @Override
     public Extensions getExtensions() {
+        resolveDeferredChildElements();
         return extensions;
     }
 
@@ -207,6 +213,7 @@ public abstract class RoleDescriptorImpl extends AbstractSignableSAMLObject impl
     /** {@inheritDoc} */
     @Override
     public Organization getOrganization() {
+        resolveDeferredChildElements();
         return organization;
     }
 
@@ -219,12 +226,14 @@ public abstract class RoleDescriptorImpl extends AbstractSignableSAMLObject impl
     /** {@inheritDoc} */
     @Override
     public List<ContactPerson> getContactPersons() {
+        resolveDeferredChildElements();
         return contactPersons;
     }
 
     /** {@inheritDoc} */
     @Override
     public List<KeyDescriptor> getKeyDescriptors() {
+        resolveDeferredChildElements();
         return keyDescriptors;
     }
 
@@ -240,9 +249,19 @@ public abstract class RoleDescriptorImpl extends AbstractSignableSAMLObject impl
         return id;
     }
 
+    /** {@inheritDoc} */
+    public boolean isDeferrableChildElement(@Nonnull final QName elementName) {
+        return Extensions.DEFAULT_ELEMENT_NAME.equals(elementName)
+                || Organization.DEFAULT_ELEMENT_NAME.equals(elementName)
+                || ContactPerson.DEFAULT_ELEMENT_NAME.equals(elementName)
+                || KeyDescriptor.DEFAULT_ELEMENT_NAME.equals(elementName);
+    }
+
     /** {@inheritDoc} */
     @Override
     public List<XMLObject> getOrderedChildren() {
+        resolveDeferredChildElements();
+
         ArrayList<XMLObject> children = new ArrayList<>();
 
         if (getSignature() != null) {
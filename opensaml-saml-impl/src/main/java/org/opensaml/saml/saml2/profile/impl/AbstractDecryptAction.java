@@ -20,6 +20,7 @@ package org.opensaml.saml.saml2.profile.impl;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 
+import net.shibboleth.utilities.java.support.annotation.constraint.ThreadSafeAfterInit;
 import net.shibboleth.utilities.java.support.collection.Pair;
 import net.shibboleth.utilities.java.support.component.ComponentSupport;
 import net.shibboleth.utilities.java.support.logic.Constraint;
@@ -52,9 +53,13 @@ import com.google.common.base.Predicates;
  * <p>The {@link SecurityParametersContext} governing the decryption process is located by a lookup
  * strategy, by default a child of the inbound message context.</p>
  * 
+ * <p>The message and decrypter are kept as execution state rather than in fields, so that an instance may be
+ * shared by concurrent requests once initialized.</p>
+ * 
  * @event {@link EventIds#PROCEED_EVENT_ID}
  * @event {@link EventIds#INVALID_MSG_CTX}
  */
+@ThreadSafeAfterInit
 public abstract class AbstractDecryptAction extends AbstractProfileAction {
 
     /** Class logger. */
@@ -72,11 +77,8 @@ public abstract class AbstractDecryptAction extends AbstractProfileAction {
     /** Predicate determining whether to attempt decryption. */
     @Nonnull private Predicate<Pair<ProfileRequestContext,EncryptedElementType>> decryptionPredicate;
     
-    /** The decryption object. */
-    @Nullable private Decrypter decrypter;
-    
-    /** Message to operate on. */
-    @Nullable private SAMLObject message;
+    /** Context of the execution in progress on each thread, for the deprecated accessors which take none. */
+    @Nonnull private final ThreadLocal<ProfileRequestContext> currentProfileRequestContext = new ThreadLocal<>();
     
     /** Constructor. */
     public AbstractDecryptAction() {
@@ -155,21 +157,51 @@ public abstract class AbstractDecryptAction extends AbstractProfileAction {
     }
     
     /**
-     * Get the decrypter.
+     * Get the decrypter for the execution in progress on the calling thread.
      * 
      * @return  the decrypter
+     * 
+     * @deprecated use {@link #getDecrypter(ProfileRequestContext)}
      */
+    @Deprecated
     @Nullable public Decrypter getDecrypter() {
-        return decrypter;
+        final ProfileRequestContext profileRequestContext = currentProfileRequestContext.get();
+        return profileRequestContext != null ? getDecrypter(profileRequestContext) : null;
     }
     
     /**
-     * Get the object to act on.
+     * Get the decrypter for the current request.
+     * 
+     * @param profileRequestContext current profile request context
+     * 
+     * @return  the decrypter
+     */
+    @Nullable public Decrypter getDecrypter(@Nonnull final ProfileRequestContext profileRequestContext) {
+        return getExecutionState(profileRequestContext, Decrypter.class);
+    }
+    
+    /**
+     * Get the object to act on for the execution in progress on the calling thread.
      * 
      * @return  the object to act on
+     * 
+     * @deprecated use {@link #getSAMLObject(ProfileRequestContext)}
      */
+    @Deprecated
     @Nullable public SAMLObject getSAMLObject() {
-        return message;
+        final ProfileRequestContext profileRequestContext = currentProfileRequestContext.get();
+        return profileRequestContext != null ? getSAMLObject(profileRequestContext) : null;
+    }
+    
+    /**
+     * Get the object to act on for the current request.
+     * 
+     * @param profileRequestContext current profile request context
+     * 
+     * @return  the object to act on
+     */
+    @Nullable public SAMLObject getSAMLObject(@Nonnull final ProfileRequestContext profileRequestContext) {
+        return getExecutionState(profileRequestContext, SAMLObject.class);
     }
     
     /** {@inheritDoc} */
@@ -185,18 +217,31 @@ public abstract class AbstractDecryptAction extends AbstractProfileAction {
             return false;
         }
         
-        message = (SAMLObject) theMessage;
+        setExecutionState(profileRequestContext, SAMLObject.class, (SAMLObject) theMessage);
         
         final SecurityParametersContext paramsCtx = securityParamsLookupStrategy.apply(profileRequestContext);
         if (paramsCtx == null || paramsCtx.getDecryptionParameters() == null) {
             log.debug("{} No security parameter context or decryption parameters", getLogPrefix());
         } else {
             final DecryptionParameters params = paramsCtx.getDecryptionParameters();
-            decrypter = new Decrypter(params.getDataKeyInfoCredentialResolver(),
-                    params.getKEKKeyInfoCredentialResolver(), params.getEncryptedKeyResolver());
+            setExecutionState(profileRequestContext, Decrypter.class,
+                    new Decrypter(params.getDataKeyInfoCredentialResolver(),
+                            params.getKEKKeyInfoCredentialResolver(), params.getEncryptedKeyResolver()));
+        }
+        
+        if (!super.doPreExecute(profileRequestContext)) {
+            return false;
         }
         
-        return super.doPreExecute(profileRequestContext);
+        currentProfileRequestContext.set(profileRequestContext);
+        return true;
+    }
+    
+    /** {@inheritDoc} */
+    @Override
+    protected void doPostExecute(@Nonnull final ProfileRequestContext profileRequestContext) {
+        currentProfileRequestContext.remove();
+        super.doPostExecute(profileRequestContext);
     }
     
 }
\ No newline at end of file
@@ -23,6 +23,7 @@ import java.util.List;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 
+import net.shibboleth.utilities.java.support.annotation.constraint.ThreadSafeAfterInit;
 import net.shibboleth.utilities.java.support.collection.Pair;
 import net.shibboleth.utilities.java.support.component.ComponentSupport;
 import net.shibboleth.utilities.java.support.logic.Constraint;
@@ -56,7 +57,11 @@ import com.google.common.base.Predicates;
  * strategy, by default a child of the outbound message context.</p>
  * 
  * <p>An optional recipient name is also obtained from a lookup strategy.</p> 
+ * 
+ * <p>The encrypter is kept as execution state rather than in a field, so that an instance may be shared by
+ * concurrent requests once initialized.</p>
  */
+@ThreadSafeAfterInit
 public abstract class AbstractEncryptAction extends AbstractConditionalProfileAction {
 
     /** Class logger. */
@@ -81,8 +86,8 @@ public abstract class AbstractEncryptAction extends AbstractConditionalProfileAc
     /** Strategy used to obtain the self recipient value. */
     @Nullable private Function<ProfileRequestContext, String> selfRecipientLookupStrategy;
     
-    /** The encryption object. */
-    @Nullable private Encrypter encrypter;
+    /** Context of the execution in progress on each thread, for the deprecated accessor which takes none. */
+    @Nonnull private final ThreadLocal<ProfileRequestContext> currentProfileRequestContext = new ThreadLocal<>();
     
     /** Constructor. */
     public AbstractEncryptAction() {
@@ -161,12 +166,27 @@ public abstract class AbstractEncryptAction extends AbstractConditionalProfileAc
     }
     
     /**
-     * Get the encrypter.
+     * Get the encrypter for the execution in progress on the calling thread.
      * 
      * @return  the encrypter
+     * 
+     * @deprecated use {@link #getEncrypter(ProfileRequestContext)}
      */
+    @Deprecated
     @Nullable public Encrypter getEncrypter() {
-        return encrypter;
+        final ProfileRequestContext profileRequestContext = currentProfileRequestContext.get();
+        return profileRequestContext != null ? getEncrypter(profileRequestContext) : null;
+    }
+    
+    /**
+     * Get the encrypter for the current request.
+     * 
+     * @param profileRequestContext current profile request context
+     * 
+     * @return  the encrypter
+     */
+    @Nullable public Encrypter getEncrypter(@Nonnull final ProfileRequestContext profileRequestContext) {
+        return getExecutionState(profileRequestContext, Encrypter.class);
     }
     
     /** {@inheritDoc} */
@@ -219,12 +239,21 @@ public abstract class AbstractEncryptAction extends AbstractConditionalProfileAc
             }
         }
         
-        encrypter = new Encrypter(dataParams, keyParams);
+        final Encrypter encrypter = new Encrypter(dataParams, keyParams);
         encrypter.setKeyPlacement(keyPlacementLookupStrategy.apply(profileRequestContext));
+        setExecutionState(profileRequestContext, Encrypter.class, encrypter);
+        currentProfileRequestContext.set(profileRequestContext);
         
         return true;
     }
     
+    /** {@inheritDoc} */
+    @Override
+    protected void doPostExecute(@Nonnull final ProfileRequestContext profileRequestContext) {
+        currentProfileRequestContext.remove();
+        super.doPostExecute(profileRequestContext);
+    }
+    
     /**
      * Return the right set of parameters for the operation to be performed, or none if no encryption should occur.
      * 
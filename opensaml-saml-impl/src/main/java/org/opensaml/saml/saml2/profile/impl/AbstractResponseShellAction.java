@@ -21,6 +21,7 @@ import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import javax.xml.namespace.QName;
 
+import net.shibboleth.utilities.java.support.annotation.constraint.ThreadSafeAfterInit;
 import net.shibboleth.utilities.java.support.component.ComponentSupport;
 import net.shibboleth.utilities.java.support.logic.Constraint;
 import net.shibboleth.utilities.java.support.security.IdentifierGenerationStrategy;
@@ -62,6 +63,7 @@ import com.google.common.base.Function;
  * 
  * @post ProfileRequestContext.getOutboundMessageContext().getMessage() != null
  */
+@ThreadSafeAfterInit
 public abstract class AbstractResponseShellAction<MessageType extends StatusResponseType>
         extends AbstractProfileAction {
 
@@ -77,12 +79,6 @@ public abstract class AbstractResponseShellAction<MessageType extends StatusResp
     /** Strategy used to obtain the response issuer value. */
     @Nullable private Function<ProfileRequestContext,String> issuerLookupStrategy;
     
-    /** The generator to use. */
-    @Nullable private IdentifierGenerationStrategy idGenerator;
-
-    /** EntityID to populate into Issuer element. */
-    @Nullable private String issuerId;
-    
     /** Constructor. */
     public AbstractResponseShellAction() {
         // Default strategy is a 16-byte secure random source.
@@ -143,15 +139,16 @@ public abstract class AbstractResponseShellAction<MessageType extends StatusResp
             return false;
         }
 
-        idGenerator = idGeneratorLookupStrategy.apply(profileRequestContext);
+        final IdentifierGenerationStrategy idGenerator = idGeneratorLookupStrategy.apply(profileRequestContext);
         if (idGenerator == null) {
             log.debug("{} No identifier generation strategy", getLogPrefix());
             ActionSupport.buildEvent(profileRequestContext, EventIds.INVALID_PROFILE_CTX);
             return false;
         }
         
+        setExecutionState(profileRequestContext, IdentifierGenerationStrategy.class, idGenerator);
         if (issuerLookupStrategy != null) {
-            issuerId = issuerLookupStrategy.apply(profileRequestContext);
+            setExecutionState(profileRequestContext, String.class, issuerLookupStrategy.apply(profileRequestContext));
         }
 
         outboundMessageCtx.setMessage(null);
@@ -178,6 +175,9 @@ public abstract class AbstractResponseShellAction<MessageType extends StatusResp
         status.setStatusCode(statusCode);
 
         final MessageType response = responseBuilder.buildObject();
+        final IdentifierGenerationStrategy idGenerator =
+                getExecutionState(profileRequestContext, IdentifierGenerationStrategy.class);
+        final String issuerId = getExecutionState(profileRequestContext, String.class);
 
         response.setID(idGenerator.generateIdentifier());
         response.setIssueInstant(new DateTime(ISOChronology.getInstanceUTC()));
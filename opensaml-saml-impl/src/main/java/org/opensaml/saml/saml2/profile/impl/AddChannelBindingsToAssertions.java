@@ -18,8 +18,8 @@
 package org.opensaml.saml.saml2.profile.impl;
 
 import javax.annotation.Nonnull;
-import javax.annotation.Nullable;
 
+import net.shibboleth.utilities.java.support.annotation.constraint.ThreadSafeAfterInit;
 import net.shibboleth.utilities.java.support.component.ComponentSupport;
 import net.shibboleth.utilities.java.support.logic.Constraint;
 
@@ -55,6 +55,7 @@ import com.google.common.base.Functions;
  * @event {@link EventIds#PROCEED_EVENT_ID}
  * @event {@link EventIds#INVALID_MSG_CTX}
  */
+@ThreadSafeAfterInit
 public class AddChannelBindingsToAssertions extends AbstractConditionalProfileAction {
 
     /** Class logger. */
@@ -66,12 +67,6 @@ public class AddChannelBindingsToAssertions extends AbstractConditionalProfileAc
     /** Strategy used to locate the {@link Response} to operate on. */
     @Nonnull private Function<ProfileRequestContext,Response> responseLookupStrategy;
 
-    /** ChannelBindingsContext to read from. */
-    @Nullable private ChannelBindingsContext channelBindingsContext;
-    
-    /** Response to modify. */
-    @Nullable private Response response;
-
     /** Constructor. */
     public AddChannelBindingsToAssertions() {
         channelBindingsContextLookupStrategy = Functions.compose(new ChildContextLookup<>(ChannelBindingsContext.class),
@@ -112,7 +107,8 @@ public class AddChannelBindingsToAssertions extends AbstractConditionalProfileAc
             return false;
         }
         
-        channelBindingsContext = channelBindingsContextLookupStrategy.apply(profileRequestContext);
+        final ChannelBindingsContext channelBindingsContext =
+                channelBindingsContextLookupStrategy.apply(profileRequestContext);
         if (channelBindingsContext == null || channelBindingsContext.getChannelBindings().isEmpty()) {
             log.debug("{} No ChannelBindings to add, nothing to do", getLogPrefix());
             return false;
@@ -120,7 +116,7 @@ public class AddChannelBindingsToAssertions extends AbstractConditionalProfileAc
         
         log.debug("{} Attempting to add ChannelBindings to every Assertion in Response", getLogPrefix());
 
-        response = responseLookupStrategy.apply(profileRequestContext);
+        final Response response = responseLookupStrategy.apply(profileRequestContext);
         if (response == null) {
             log.debug("{} No SAML response located in current profile request context", getLogPrefix());
             ActionSupport.buildEvent(profileRequestContext, EventIds.INVALID_MSG_CTX);
@@ -130,6 +126,8 @@ public class AddChannelBindingsToAssertions extends AbstractConditionalProfileAc
             return false;
         }
         
+        setExecutionState(profileRequestContext, ChannelBindingsContext.class, channelBindingsContext);
+        setExecutionState(profileRequestContext, Response.class, response);
         return true;
     }
     
@@ -137,6 +135,10 @@ public class AddChannelBindingsToAssertions extends AbstractConditionalProfileAc
     @Override
     protected void doExecute(@Nonnull final ProfileRequestContext profileRequestContext) {
         
+        final ChannelBindingsContext channelBindingsContext =
+                getExecutionState(profileRequestContext, ChannelBindingsContext.class);
+        final Response response = getExecutionState(profileRequestContext, Response.class);
+
         final SAMLObjectBuilder<ChannelBindings> cbBuilder = (SAMLObjectBuilder<ChannelBindings>)
                 XMLObjectProviderRegistrySupport.getBuilderFactory().<ChannelBindings>getBuilderOrThrow(
                         ChannelBindings.DEFAULT_ELEMENT_NAME);
@@ -18,8 +18,8 @@
 package org.opensaml.saml.saml2.profile.impl;
 
 import javax.annotation.Nonnull;
-import javax.annotation.Nullable;
 
+import net.shibboleth.utilities.java.support.annotation.constraint.ThreadSafeAfterInit;
 import net.shibboleth.utilities.java.support.codec.Base64Support;
 import net.shibboleth.utilities.java.support.component.ComponentSupport;
 import net.shibboleth.utilities.java.support.logic.Constraint;
@@ -56,6 +56,7 @@ import com.google.common.base.Functions;
  * @event {@link EventIds#PROCEED_EVENT_ID}
  * @event {@link EventIds#INVALID_MSG_CTX}
  */
+@ThreadSafeAfterInit
 public class AddGeneratedKeyToAssertions extends AbstractConditionalProfileAction {
 
     /** Class logger. */
@@ -67,12 +68,6 @@ public class AddGeneratedKeyToAssertions extends AbstractConditionalProfileActio
     /** Strategy used to locate the {@link Response} to operate on. */
     @Nonnull private Function<ProfileRequestContext,Response> responseLookupStrategy;
 
-    /** ECPContext to read from. */
-    @Nullable private ECPContext ecpContext;
-    
-    /** Response to modify. */
-    @Nullable private Response response;
-
     /** Constructor. */
     public AddGeneratedKeyToAssertions() {
         ecpContextLookupStrategy = Functions.compose(new ChildContextLookup<>(ECPContext.class),
@@ -112,7 +107,7 @@ public class AddGeneratedKeyToAssertions extends AbstractConditionalProfileActio
             return false;
         }
         
-        ecpContext = ecpContextLookupStrategy.apply(profileRequestContext);
+        final ECPContext ecpContext = ecpContextLookupStrategy.apply(profileRequestContext);
         if (ecpContext == null || ecpContext.getSessionKey() == null) {
             log.debug("{} No session key to add, nothing to do", getLogPrefix());
             return false;
@@ -120,7 +115,7 @@ public class AddGeneratedKeyToAssertions extends AbstractConditionalProfileActio
         
         log.debug("{} Attempting to add GeneratedKey to every Assertion in Response", getLogPrefix());
 
-        response = responseLookupStrategy.apply(profileRequestContext);
+        final Response response = responseLookupStrategy.apply(profileRequestContext);
         if (response == null) {
             log.debug("{} No SAML response located in current profile request context", getLogPrefix());
             ActionSupport.buildEvent(profileRequestContext, EventIds.INVALID_MSG_CTX);
@@ -130,6 +125,8 @@ public class AddGeneratedKeyToAssertions extends AbstractConditionalProfileActio
             return false;
         }
         
+        setExecutionState(profileRequestContext, ECPContext.class, ecpContext);
+        setExecutionState(profileRequestContext, Response.class, response);
         return true;
     }
     
@@ -137,6 +134,9 @@ public class AddGeneratedKeyToAssertions extends AbstractConditionalProfileActio
     @Override
     protected void doExecute(@Nonnull final ProfileRequestContext profileRequestContext) {
         
+        final ECPContext ecpContext = getExecutionState(profileRequestContext, ECPContext.class);
+        final Response response = getExecutionState(profileRequestContext, Response.class);
+
         final SAMLObjectBuilder<GeneratedKey> keyBuilder = (SAMLObjectBuilder<GeneratedKey>)
                 XMLObjectProviderRegistrySupport.getBuilderFactory().<GeneratedKey>getBuilderOrThrow(
                         GeneratedKey.DEFAULT_ELEMENT_NAME);
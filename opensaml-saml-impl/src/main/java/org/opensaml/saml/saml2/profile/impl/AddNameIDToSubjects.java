@@ -31,6 +31,7 @@ import org.opensaml.profile.context.navigate.InboundMessageContextLookup;
 
 import net.shibboleth.utilities.java.support.annotation.constraint.NonnullAfterInit;
 import net.shibboleth.utilities.java.support.annotation.constraint.NonnullElements;
+import net.shibboleth.utilities.java.support.annotation.constraint.ThreadSafeAfterInit;
 import net.shibboleth.utilities.java.support.component.ComponentInitializationException;
 import net.shibboleth.utilities.java.support.component.ComponentSupport;
 import net.shibboleth.utilities.java.support.logic.Constraint;
@@ -84,6 +85,7 @@ import com.google.common.base.Strings;
  * @event {@link EventIds#INVALID_PROFILE_CTX}
  * @event {@link SAMLEventIds#INVALID_NAMEID_POLICY}
  */
+@ThreadSafeAfterInit
 public class AddNameIDToSubjects extends AbstractProfileAction {
 
     /** Class logger. */
@@ -119,24 +121,6 @@ public class AddNameIDToSubjects extends AbstractProfileAction {
     /** Generator to use. */
     @NonnullAfterInit private SAML2NameIDGenerator generator;
 
-    /** Formats to try. */
-    @Nonnull @NonnullElements private List<String> formats;
-    
-    /** Format required by requested {@link NameIDPolicy}. */
-    @Nullable private String requiredFormat;
-
-    /** Request to examine. */
-    @Nullable private AuthnRequest request;
-    
-    /** Response to modify. */
-    @Nullable private List<Assertion> assertions;
-    
-    /** The generator to use. */
-    @Nullable private IdentifierGenerationStrategy idGenerator;
-
-    /** EntityID to populate into Issuer element. */
-    @Nullable private String issuerId;
-
     /** Constructor.
      *  
      * @throws ComponentInitializationException if an error occurs initializing default predicate.
@@ -172,7 +156,6 @@ public class AddNameIDToSubjects extends AbstractProfileAction {
         ((DefaultNameIDPolicyPredicate) nameIDPolicyPredicate).initialize();
         
         formatLookupStrategy = new MetadataNameIdentifierFormatStrategy();
-        formats = Collections.emptyList();
     }
     
     /**
@@ -285,18 +268,19 @@ public class AddNameIDToSubjects extends AbstractProfileAction {
         
         log.debug("{} Attempting to add NameID to outgoing Assertion Subjects", getLogPrefix());
         
-        idGenerator = idGeneratorLookupStrategy.apply(profileRequestContext);
+        final IdentifierGenerationStrategy idGenerator = idGeneratorLookupStrategy.apply(profileRequestContext);
         if (idGenerator == null) {
             log.debug("{} No identifier generation strategy", getLogPrefix());
             ActionSupport.buildEvent(profileRequestContext, EventIds.INVALID_PROFILE_CTX);
             return false;
         }
+        setExecutionState(profileRequestContext, IdentifierGenerationStrategy.class, idGenerator);
         
         if (issuerLookupStrategy != null) {
-            issuerId = issuerLookupStrategy.apply(profileRequestContext);
+            setExecutionState(profileRequestContext, String.class, issuerLookupStrategy.apply(profileRequestContext));
         }
         
-        assertions = assertionsLookupStrategy.apply(profileRequestContext);
+        final List<Assertion> assertions = assertionsLookupStrategy.apply(profileRequestContext);
         if (assertions == null || assertions.isEmpty()) {
             log.debug("{} No assertions returned, nothing to do", getLogPrefix());
             return false;
@@ -308,9 +292,8 @@ public class AddNameIDToSubjects extends AbstractProfileAction {
             return false;
         }
         
-        request = requestLookupStrategy.apply(profileRequestContext);
-        
-        requiredFormat = getRequiredFormat(profileRequestContext);
+        final String requiredFormat = getRequiredFormat(requestLookupStrategy.apply(profileRequestContext));
+        final List<String> formats;
         if (requiredFormat != null) {
             formats = Collections.singletonList(requiredFormat);
             log.debug("{} Request specified NameID format: {}", getLogPrefix(), requiredFormat);
@@ -324,6 +307,8 @@ public class AddNameIDToSubjects extends AbstractProfileAction {
             }
         }
         
+        setExecutionState(profileRequestContext, ExecutionState.class,
+                new ExecutionState(requiredFormat, formats, assertions));
         return true;
     }
     
@@ -331,11 +316,13 @@ public class AddNameIDToSubjects extends AbstractProfileAction {
     @Override
     protected void doExecute(@Nonnull final ProfileRequestContext profileRequestContext) {
 
-        final NameID nameId = generateNameID(profileRequestContext);
+        final ExecutionState state = getExecutionState(profileRequestContext, ExecutionState.class);
+
+        final NameID nameId = generateNameID(profileRequestContext, state.formats);
         if (nameId == null) {
-            if (requiredFormat != null) {
+            if (state.requiredFormat != null) {
                 log.warn("{} Request specified use of an unsupportable identifier format: {}", getLogPrefix(),
-                        requiredFormat);
+                        state.requiredFormat);
                 ActionSupport.buildEvent(profileRequestContext, SAMLEventIds.INVALID_NAMEID_POLICY);
             } else {
                 log.debug("{} Unable to generate a NameID, leaving empty", getLogPrefix());
@@ -345,7 +332,7 @@ public class AddNameIDToSubjects extends AbstractProfileAction {
         
         int count = 0;
         
-        for (final Assertion assertion : assertions) {
+        for (final Assertion assertion : state.assertions) {
             final Subject subject = getAssertionSubject(assertion);
             final NameID existing = subject.getNameID();
             if (existing == null || overwriteExisting) {
@@ -362,11 +349,11 @@ public class AddNameIDToSubjects extends AbstractProfileAction {
     /**
      * Extract a format required by the inbound request, if present.
      * 
-     * @param profileRequestContext current profile request context
+     * @param request the inbound request, if any
      * 
      * @return a format dictated by the request, or null 
      */
-    @Nullable private String getRequiredFormat(@Nonnull final ProfileRequestContext profileRequestContext) {
+    @Nullable private String getRequiredFormat(@Nullable final AuthnRequest request) {
         
         if (request != null) {
             final NameIDPolicy policy = request.getNameIDPolicy();
@@ -386,10 +373,12 @@ public class AddNameIDToSubjects extends AbstractProfileAction {
      * Attempt to generate a {@link NameID} using each of the candidate Formats and plugins.
      * 
      * @param profileRequestContext current profile request context
+     * @param formats the formats to try
      * 
      * @return a generated {@link NameID} or null
      */
-    @Nullable private NameID generateNameID(@Nonnull final ProfileRequestContext profileRequestContext) {
+    @Nullable private NameID generateNameID(@Nonnull final ProfileRequestContext profileRequestContext,
+            @Nonnull @NonnullElements final List<String> formats) {
         
         // See if we can generate one.
         for (final String format : formats) {
@@ -460,7 +449,8 @@ public class AddNameIDToSubjects extends AbstractProfileAction {
                 final Object outboundMessage = input.getOutboundMessageContext().getMessage();
                 if (outboundMessage == null) {
                     final Assertion ret = SAML2ActionSupport.buildAssertion(AddNameIDToSubjects.this,
-                            idGenerator, issuerId);
+                            getExecutionState(input, IdentifierGenerationStrategy.class),
+                            getExecutionState(input, String.class));
                     input.getOutboundMessageContext().setMessage(ret);
                     return Collections.singletonList(ret);
                 } else if (outboundMessage instanceof Assertion) {
@@ -555,4 +545,32 @@ public class AddNameIDToSubjects extends AbstractProfileAction {
         
     }
     
+    /** State of an execution, held between its steps. */
+    private static final class ExecutionState {
+
+        /** Format required by requested {@link NameIDPolicy}. */
+        @Nullable private final String requiredFormat;
+
+        /** Formats to try. */
+        @Nonnull @NonnullElements private final List<String> formats;
+
+        /** Assertions to modify. */
+        @Nonnull @NonnullElements private final List<Assertion> assertions;
+
+        /**
+         * Constructor.
+         *
+         * @param theRequiredFormat format required by the request, if any
+         * @param theFormats formats to try
+         * @param theAssertions assertions to modify
+         */
+        private ExecutionState(@Nullable final String theRequiredFormat,
+                @Nonnull @NonnullElements final List<String> theFormats,
+                @Nonnull @NonnullElements final List<Assertion> theAssertions) {
+            requiredFormat = theRequiredFormat;
+            formats = theFormats;
+            assertions = theAssertions;
+        }
+    }
+
 }
\ No newline at end of file
@@ -18,8 +18,8 @@
 package org.opensaml.saml.saml2.profile.impl;
 
 import javax.annotation.Nonnull;
-import javax.annotation.Nullable;
 
+import net.shibboleth.utilities.java.support.annotation.constraint.ThreadSafeAfterInit;
 import net.shibboleth.utilities.java.support.component.ComponentSupport;
 import net.shibboleth.utilities.java.support.logic.Constraint;
 
@@ -49,6 +49,7 @@ import com.google.common.base.Functions;
  * @event {@link EventIds#PROCEED_EVENT_ID}
  * @event {@link EventIds#INVALID_MSG_CTX}
  */
+@ThreadSafeAfterInit
 public class AddOneTimeUseConditionToAssertions extends AbstractConditionalProfileAction {
 
     /** Class logger. */
@@ -57,9 +58,6 @@ public class AddOneTimeUseConditionToAssertions extends AbstractConditionalProfi
     /** Strategy used to locate the {@link Response} to operate on. */
     @Nonnull private Function<ProfileRequestContext,Response> responseLookupStrategy;
 
-    /** Response to modify. */
-    @Nullable private Response response;
-
     /** Constructor. */
     public AddOneTimeUseConditionToAssertions() {
         responseLookupStrategy =
@@ -82,7 +80,7 @@ public class AddOneTimeUseConditionToAssertions extends AbstractConditionalProfi
     protected boolean doPreExecute(@Nonnull final ProfileRequestContext profileRequestContext) {
         log.debug("{} Attempting to add OneTimeUse condition to every Assertion in Response", getLogPrefix());
 
-        response = responseLookupStrategy.apply(profileRequestContext);
+        final Response response = responseLookupStrategy.apply(profileRequestContext);
         if (response == null) {
             log.debug("{} No SAML response located in current profile request context", getLogPrefix());
             ActionSupport.buildEvent(profileRequestContext, EventIds.INVALID_MSG_CTX);
@@ -92,6 +90,7 @@ public class AddOneTimeUseConditionToAssertions extends AbstractConditionalProfi
             return false;
         }
         
+        setExecutionState(profileRequestContext, Response.class, response);
         return super.doPreExecute(profileRequestContext);
     }
     
@@ -99,6 +98,8 @@ public class AddOneTimeUseConditionToAssertions extends AbstractConditionalProfi
     @Override
     protected void doExecute(@Nonnull final ProfileRequestContext profileRequestContext) {
 
+        final Response response = getExecutionState(profileRequestContext, Response.class);
+
         final SAMLObjectBuilder<OneTimeUse> conditionBuilder = (SAMLObjectBuilder<OneTimeUse>)
                 XMLObjectProviderRegistrySupport.getBuilderFactory().<OneTimeUse>getBuilderOrThrow(
                         OneTimeUse.DEFAULT_ELEMENT_NAME);
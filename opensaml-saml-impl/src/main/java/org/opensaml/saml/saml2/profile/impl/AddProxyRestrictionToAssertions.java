@@ -28,6 +28,7 @@ import org.opensaml.profile.action.EventIds;
 import org.opensaml.profile.context.ProfileRequestContext;
 import org.opensaml.profile.context.navigate.OutboundMessageContextLookup;
 
+import net.shibboleth.utilities.java.support.annotation.constraint.ThreadSafeAfterInit;
 import net.shibboleth.utilities.java.support.component.ComponentInitializationException;
 import net.shibboleth.utilities.java.support.component.ComponentSupport;
 import net.shibboleth.utilities.java.support.logic.Constraint;
@@ -55,6 +56,7 @@ import com.google.common.base.Functions;
  * @event {@link EventIds#PROCEED_EVENT_ID}
  * @event {@link EventIds#INVALID_MSG_CTX}
  */
+@ThreadSafeAfterInit
 public class AddProxyRestrictionToAssertions extends AbstractConditionalProfileAction {
 
     /** Class logger. */
@@ -69,12 +71,6 @@ public class AddProxyRestrictionToAssertions extends AbstractConditionalProfileA
     /** Strategy used to obtain the proxy count to add. */
     @Nullable private Function<ProfileRequestContext,Long> proxyCountLookupStrategy;
     
-    /** Response to modify. */
-    @Nullable private Response response;
-
-    /** Audiences to add. */
-    @Nullable private Collection<String> audiences;
-    
     /** Constructor. */
     public AddProxyRestrictionToAssertions() {
         responseLookupStrategy =
@@ -131,7 +127,7 @@ public class AddProxyRestrictionToAssertions extends AbstractConditionalProfileA
     /** {@inheritDoc} */
     @Override
     protected boolean doPreExecute(@Nonnull final ProfileRequestContext profileRequestContext) {
-        audiences = proxyAudiencesLookupStrategy.apply(profileRequestContext);
+        final Collection<String> audiences = proxyAudiencesLookupStrategy.apply(profileRequestContext);
         if (audiences == null || audiences.isEmpty()) {
             log.debug("{} No audiences to add, nothing to do", getLogPrefix());
             return false;
@@ -140,7 +136,7 @@ public class AddProxyRestrictionToAssertions extends AbstractConditionalProfileA
         log.debug("{} Attempting to add an ProxyRestriction to every Assertion in Response",
                 getLogPrefix());
 
-        response = responseLookupStrategy.apply(profileRequestContext);
+        final Response response = responseLookupStrategy.apply(profileRequestContext);
         if (response == null) {
             log.debug("{} No response located", getLogPrefix());
             ActionSupport.buildEvent(profileRequestContext, EventIds.INVALID_MSG_CTX);
@@ -150,6 +146,7 @@ public class AddProxyRestrictionToAssertions extends AbstractConditionalProfileA
             return false;
         }
         
+        setExecutionState(profileRequestContext, ExecutionState.class, new ExecutionState(response, audiences));
         return super.doPreExecute(profileRequestContext);
     }
     
@@ -157,8 +154,10 @@ public class AddProxyRestrictionToAssertions extends AbstractConditionalProfileA
     @Override
     protected void doExecute(@Nonnull final ProfileRequestContext profileRequestContext) {
         
-        for (final Assertion assertion : response.getAssertions()) {
-            addProxyRestriction(profileRequestContext, SAML2ActionSupport.addConditionsToAssertion(this, assertion));
+        final ExecutionState state = getExecutionState(profileRequestContext, ExecutionState.class);
+        for (final Assertion assertion : state.response.getAssertions()) {
+            addProxyRestriction(profileRequestContext, SAML2ActionSupport.addConditionsToAssertion(this, assertion),
+                    state.audiences);
             log.debug("{} Added ProxyRestriction to Assertion {}", getLogPrefix(), assertion.getID());
         }
     }
@@ -169,9 +168,10 @@ public class AddProxyRestrictionToAssertions extends AbstractConditionalProfileA
      * 
      * @param profileRequestContext current profile request context
      * @param conditions condition that has, or will receive the created, {@link ProxyRestriction}
+     * @param audiences the audiences to add
      */
     private void addProxyRestriction(@Nonnull final ProfileRequestContext profileRequestContext,
-            @Nonnull final Conditions conditions) {
+            @Nonnull final Conditions conditions, @Nonnull final Collection<String> audiences) {
         final ProxyRestriction condition = getProxyRestriction(conditions);
 
         final SAMLObjectBuilder<Audience> audienceBuilder = (SAMLObjectBuilder<Audience>)
@@ -214,4 +214,25 @@ public class AddProxyRestrictionToAssertions extends AbstractConditionalProfileA
         return condition;
     }
 
+    /** State of an execution, held between its steps. */
+    private static final class ExecutionState {
+
+        /** Response to modify. */
+        @Nonnull private final Response response;
+
+        /** Audiences to add. */
+        @Nonnull private final Collection<String> audiences;
+
+        /**
+         * Constructor.
+         *
+         * @param theResponse response to modify
+         * @param theAudiences audiences to add
+         */
+        private ExecutionState(@Nonnull final Response theResponse, @Nonnull final Collection<String> theAudiences) {
+            response = theResponse;
+            audiences = theAudiences;
+        }
+    }
+
 }
\ No newline at end of file
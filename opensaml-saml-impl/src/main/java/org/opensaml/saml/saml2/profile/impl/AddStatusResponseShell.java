@@ -22,6 +22,7 @@ import javax.annotation.Nullable;
 import javax.xml.namespace.QName;
 
 import net.shibboleth.utilities.java.support.annotation.constraint.NonnullAfterInit;
+import net.shibboleth.utilities.java.support.annotation.constraint.ThreadSafeAfterInit;
 import net.shibboleth.utilities.java.support.component.ComponentInitializationException;
 import net.shibboleth.utilities.java.support.component.ComponentSupport;
 import net.shibboleth.utilities.java.support.logic.Constraint;
@@ -63,6 +64,7 @@ import com.google.common.base.Function;
  * 
  * @post ProfileRequestContext.getOutboundMessageContext().getMessage() != null
  */
+@ThreadSafeAfterInit
 public class AddStatusResponseShell extends AbstractProfileAction {
 
     /** Class logger. */
@@ -80,12 +82,6 @@ public class AddStatusResponseShell extends AbstractProfileAction {
     /** Strategy used to obtain the response issuer value. */
     @Nullable private Function<ProfileRequestContext,String> issuerLookupStrategy;
     
-    /** The generator to use. */
-    @Nullable private IdentifierGenerationStrategy idGenerator;
-
-    /** EntityID to populate into Issuer element. */
-    @Nullable private String issuerId;
-    
     /** Constructor. */
     public AddStatusResponseShell() {
         // Default strategy is a 16-byte secure random source.
@@ -165,15 +161,16 @@ public class AddStatusResponseShell extends AbstractProfileAction {
             return false;
         }
 
-        idGenerator = idGeneratorLookupStrategy.apply(profileRequestContext);
+        final IdentifierGenerationStrategy idGenerator = idGeneratorLookupStrategy.apply(profileRequestContext);
         if (idGenerator == null) {
             log.debug("{} No identifier generation strategy", getLogPrefix());
             ActionSupport.buildEvent(profileRequestContext, EventIds.INVALID_PROFILE_CTX);
             return false;
         }
         
+        setExecutionState(profileRequestContext, IdentifierGenerationStrategy.class, idGenerator);
         if (issuerLookupStrategy != null) {
-            issuerId = issuerLookupStrategy.apply(profileRequestContext);
+            setExecutionState(profileRequestContext, String.class, issuerLookupStrategy.apply(profileRequestContext));
         }
 
         outboundMessageCtx.setMessage(null);
@@ -207,6 +204,9 @@ public class AddStatusResponseShell extends AbstractProfileAction {
         }
 
         final StatusResponseType response = (StatusResponseType) object;
+        final IdentifierGenerationStrategy idGenerator =
+                getExecutionState(profileRequestContext, IdentifierGenerationStrategy.class);
+        final String issuerId = getExecutionState(profileRequestContext, String.class);
         
         response.setID(idGenerator.generateIdentifier());
         response.setIssueInstant(new DateTime(ISOChronology.getInstanceUTC()));
@@ -37,6 +37,7 @@ import org.opensaml.profile.context.navigate.OutboundMessageContextLookup;
 
 import net.shibboleth.utilities.java.support.annotation.constraint.NonnullElements;
 import net.shibboleth.utilities.java.support.annotation.constraint.NotEmpty;
+import net.shibboleth.utilities.java.support.annotation.constraint.ThreadSafeAfterInit;
 import net.shibboleth.utilities.java.support.component.ComponentSupport;
 import net.shibboleth.utilities.java.support.logic.Constraint;
 import net.shibboleth.utilities.java.support.primitive.StringSupport;
@@ -69,6 +70,7 @@ import com.google.common.collect.Collections2;
  * @event {@link EventIds#PROCEED_EVENT_ID}
  * @event {@link EventIds#INVALID_MSG_CTX}
  */
+@ThreadSafeAfterInit
 public class AddStatusToResponse extends AbstractProfileAction {
 
     /** Class logger. */
@@ -92,19 +94,12 @@ public class AddStatusToResponse extends AbstractProfileAction {
     /** A default status message to include. */
     @Nullable private String statusMessage;
     
-    /** Whether to include detailed status information. */
-    private boolean detailedErrors;
-    
-    /** Response to modify. */
-    @Nullable private StatusResponseType response;
-    
     /** Constructor. */
     public AddStatusToResponse() {
         responseLookupStrategy =
                 Functions.compose(new MessageLookup<>(StatusResponseType.class), new OutboundMessageContextLookup());
         detailedErrorsCondition = Predicates.alwaysFalse();
         defaultStatusCodes = Collections.emptyList();
-        detailedErrors = false;
     }
 
     /**
@@ -183,17 +178,19 @@ public class AddStatusToResponse extends AbstractProfileAction {
     protected boolean doPreExecute(@Nonnull final ProfileRequestContext profileRequestContext) {
         ComponentSupport.ifNotInitializedThrowUninitializedComponentException(this);
 
-        response = responseLookupStrategy.apply(profileRequestContext);
+        final StatusResponseType response = responseLookupStrategy.apply(profileRequestContext);
         if (response == null) {
             log.debug("{} Response message was not returned by lookup strategy", getLogPrefix());
             ActionSupport.buildEvent(profileRequestContext, EventIds.INVALID_MSG_CTX);
             return false;
         }
 
-        detailedErrors = detailedErrorsCondition.apply(profileRequestContext);
+        final boolean detailedErrors = detailedErrorsCondition.apply(profileRequestContext);
         
         log.debug("{} Detailed errors are {}", getLogPrefix(), detailedErrors ? "enabled" : "disabled");
         
+        setExecutionState(profileRequestContext, StatusResponseType.class, response);
+        setExecutionState(profileRequestContext, Boolean.class, detailedErrors);
         return super.doPreExecute(profileRequestContext);
     }
     
@@ -201,6 +198,9 @@ public class AddStatusToResponse extends AbstractProfileAction {
     @Override
     protected void doExecute(@Nonnull final ProfileRequestContext profileRequestContext) {
 
+        final StatusResponseType response = getExecutionState(profileRequestContext, StatusResponseType.class);
+        final boolean detailedErrors = Boolean.TRUE.equals(getExecutionState(profileRequestContext, Boolean.class));
+
         final SAMLObjectBuilder<Status> statusBuilder = (SAMLObjectBuilder<Status>)
                 XMLObjectProviderRegistrySupport.getBuilderFactory().<Status>getBuilderOrThrow(Status.TYPE_NAME);
 
@@ -31,6 +31,7 @@ import org.opensaml.profile.context.navigate.OutboundMessageContextLookup;
 
 import net.shibboleth.utilities.java.support.annotation.constraint.NonnullAfterInit;
 import net.shibboleth.utilities.java.support.annotation.constraint.NotEmpty;
+import net.shibboleth.utilities.java.support.annotation.constraint.ThreadSafeAfterInit;
 import net.shibboleth.utilities.java.support.component.ComponentInitializationException;
 import net.shibboleth.utilities.java.support.component.ComponentSupport;
 import net.shibboleth.utilities.java.support.logic.Constraint;
@@ -67,6 +68,7 @@ import com.google.common.base.Functions;
  * @event {@link EventIds#PROCEED_EVENT_ID}
  * @event {@link EventIds#INVALID_MSG_CTX}
  */
+@ThreadSafeAfterInit
 public class AddSubjectConfirmationToSubjects extends AbstractProfileAction {
 
     /** Class logger. */
@@ -102,9 +104,6 @@ public class AddSubjectConfirmationToSubjects extends AbstractProfileAction {
     /** Method to add. */
     @NonnullAfterInit private String confirmationMethod;
     
-    /** Response to modify. */
-    @Nullable private Response response;
-    
     /** Constructor. */
     public AddSubjectConfirmationToSubjects() {
         subjectBuilder = (SAMLObjectBuilder<Subject>)
@@ -133,6 +132,7 @@ public class AddSubjectConfirmationToSubjects extends AbstractProfileAction {
         // Default pulls from inbound message context and a SAMLMessageInfoContext child.
         inResponseToLookupStrategy = new Function<ProfileRequestContext,String>() {
             public String apply(ProfileRequestContext input) {
+                final Response response = getExecutionState(input, Response.class);
                 if (response != null && response.getInResponseTo() != null) {
                     log.debug("{} Setting confirmation data InResponseTo to {}", getLogPrefix(),
                             response.getInResponseTo());
@@ -266,7 +266,7 @@ public class AddSubjectConfirmationToSubjects extends AbstractProfileAction {
     protected boolean doPreExecute(@Nonnull final ProfileRequestContext profileRequestContext) {
         log.debug("{} Attempting to add SubjectConfirmation to assertions in outgoing Response", getLogPrefix());
 
-        response = responseLookupStrategy.apply(profileRequestContext);
+        final Response response = responseLookupStrategy.apply(profileRequestContext);
         if (response == null) {
             log.debug("{} No SAML response located in current profile request context", getLogPrefix());
             ActionSupport.buildEvent(profileRequestContext, EventIds.INVALID_MSG_CTX);
@@ -276,6 +276,7 @@ public class AddSubjectConfirmationToSubjects extends AbstractProfileAction {
             return false;
         }
         
+        setExecutionState(profileRequestContext, Response.class, response);
         return super.doPreExecute(profileRequestContext);
     }
     
@@ -323,6 +324,7 @@ public class AddSubjectConfirmationToSubjects extends AbstractProfileAction {
         
         int count = 0;
         
+        final Response response = getExecutionState(profileRequestContext, Response.class);
         for (final Assertion assertion : response.getAssertions()) {
             final Subject subject = getAssertionSubject(assertion);
             if (overwriteExisting) {
@@ -18,7 +18,6 @@
 package org.opensaml.saml.saml2.profile.impl;
 
 import javax.annotation.Nonnull;
-import javax.annotation.Nullable;
 
 import org.opensaml.profile.action.AbstractProfileAction;
 import org.opensaml.profile.action.ActionSupport;
@@ -27,6 +26,7 @@ import org.opensaml.profile.context.ProfileRequestContext;
 import org.opensaml.profile.context.navigate.InboundMessageContextLookup;
 import org.opensaml.profile.context.navigate.OutboundMessageContextLookup;
 
+import net.shibboleth.utilities.java.support.annotation.constraint.ThreadSafeAfterInit;
 import net.shibboleth.utilities.java.support.component.ComponentSupport;
 import net.shibboleth.utilities.java.support.logic.Constraint;
 
@@ -59,6 +59,7 @@ import com.google.common.base.Functions;
  * @event {@link EventIds#PROCEED_EVENT_ID}
  * @event {@link EventIds#INVALID_MSG_CTX}
  */
+@ThreadSafeAfterInit
 public class CopyNameIDFromRequest extends AbstractProfileAction {
 
     /** Class logger. */
@@ -80,12 +81,6 @@ public class CopyNameIDFromRequest extends AbstractProfileAction {
     /** Strategy used to locate the {@link Response} to operate on. */
     @Nonnull private Function<ProfileRequestContext,Response> responseLookupStrategy;
 
-    /** NameID to copy. */
-    @Nullable private NameID nameId; 
-    
-    /** Response to modify. */
-    @Nullable private Response response;
-    
     /** Constructor. */
     public CopyNameIDFromRequest() {
         subjectBuilder = (SAMLObjectBuilder<Subject>)
@@ -145,7 +140,7 @@ public class CopyNameIDFromRequest extends AbstractProfileAction {
     protected boolean doPreExecute(@Nonnull final ProfileRequestContext profileRequestContext) {
         log.debug("{} Attempting to add NameID to statements in outgoing Response", getLogPrefix());
 
-        response = responseLookupStrategy.apply(profileRequestContext);
+        final Response response = responseLookupStrategy.apply(profileRequestContext);
         if (response == null) {
             log.debug("{} No SAML response located", getLogPrefix());
             ActionSupport.buildEvent(profileRequestContext, EventIds.INVALID_MSG_CTX);
@@ -162,13 +157,15 @@ public class CopyNameIDFromRequest extends AbstractProfileAction {
             return false;
         }
         
-        nameId = idCtx.getSAML2SubjectNameID();
+        final NameID nameId = idCtx.getSAML2SubjectNameID();
         if (nameId == null) {
             log.debug("{} No SAMLSubjectNameIdentifierContext located", getLogPrefix());
             ActionSupport.buildEvent(profileRequestContext, EventIds.INVALID_MSG_CTX);
             return false;
         }
                 
+        setExecutionState(profileRequestContext, Response.class, response);
+        setExecutionState(profileRequestContext, NameID.class, nameId);
         return super.doPreExecute(profileRequestContext);
     }
     
@@ -176,13 +173,16 @@ public class CopyNameIDFromRequest extends AbstractProfileAction {
     @Override
     protected void doExecute(@Nonnull final ProfileRequestContext profileRequestContext) {
 
+        final Response response = getExecutionState(profileRequestContext, Response.class);
+        final NameID nameId = getExecutionState(profileRequestContext, NameID.class);
+
         int count = 0;
         
         for (final Assertion assertion : response.getAssertions()) {
             final Subject subject = getAssertionSubject(assertion);
             final NameID existing = subject.getNameID();
             if (existing == null || overwriteExisting) {
-                subject.setNameID(cloneNameID());
+                subject.setNameID(cloneNameID(nameId));
                 count ++;
             }
         }
@@ -212,9 +212,11 @@ public class CopyNameIDFromRequest extends AbstractProfileAction {
     /**
      * Create an efficient field-wise copy of a {@link NameID}.
      * 
+     * @param nameId the name identifier to copy
+     * 
      * @return the copy
      */
-    @Nonnull private NameID cloneNameID() {
+    @Nonnull private NameID cloneNameID(@Nonnull final NameID nameId) {
         final NameID clone = nameIdBuilder.buildObject();
         
         clone.setFormat(nameId.getFormat());
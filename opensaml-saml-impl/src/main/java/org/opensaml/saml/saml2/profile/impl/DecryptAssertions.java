@@ -24,6 +24,7 @@ import java.util.Iterator;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 
+import net.shibboleth.utilities.java.support.annotation.constraint.ThreadSafeAfterInit;
 import net.shibboleth.utilities.java.support.collection.Pair;
 
 import org.opensaml.profile.action.ActionSupport;
@@ -34,6 +35,7 @@ import org.opensaml.saml.saml2.core.Assertion;
 import org.opensaml.saml.saml2.core.EncryptedAssertion;
 import org.opensaml.saml.saml2.core.EncryptedElementType;
 import org.opensaml.saml.saml2.core.Response;
+import org.opensaml.saml.saml2.encryption.Decrypter;
 import org.opensaml.xmlsec.encryption.support.DecryptionException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -49,6 +51,7 @@ import org.slf4j.LoggerFactory;
  * @event {@link org.opensaml.profile.action.EventIds#PROCEED_EVENT_ID}
  * @event {@link SAMLEventIds#DECRYPT_ASSERTION_FAILED}
  */
+@ThreadSafeAfterInit
 public class DecryptAssertions extends AbstractDecryptAction {
 
     /** Class logger. */
@@ -58,7 +61,7 @@ public class DecryptAssertions extends AbstractDecryptAction {
     @Override
     protected void doExecute(@Nonnull final ProfileRequestContext profileRequestContext) {
         
-        final SAMLObject message = getSAMLObject();
+        final SAMLObject message = getSAMLObject(profileRequestContext);
         
         try {
             if (message instanceof Response) {
@@ -93,11 +96,12 @@ public class DecryptAssertions extends AbstractDecryptAction {
             return null;
         }
         
-        if (getDecrypter() == null) {
+        final Decrypter decrypter = getDecrypter(profileRequestContext);
+        if (decrypter == null) {
             throw new DecryptionException("No decryption parameters, unable to decrypt EncryptedAssertion");
         }
         
-        return getDecrypter().decrypt(encAssert);
+        return decrypter.decrypt(encAssert);
     }
 
     /**
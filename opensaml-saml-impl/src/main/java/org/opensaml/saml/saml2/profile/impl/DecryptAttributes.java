@@ -24,6 +24,7 @@ import java.util.Iterator;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 
+import net.shibboleth.utilities.java.support.annotation.constraint.ThreadSafeAfterInit;
 import net.shibboleth.utilities.java.support.collection.Pair;
 
 import org.opensaml.profile.action.ActionSupport;
@@ -36,6 +37,7 @@ import org.opensaml.saml.saml2.core.AttributeStatement;
 import org.opensaml.saml.saml2.core.EncryptedAttribute;
 import org.opensaml.saml.saml2.core.EncryptedElementType;
 import org.opensaml.saml.saml2.core.Response;
+import org.opensaml.saml.saml2.encryption.Decrypter;
 import org.opensaml.xmlsec.encryption.support.DecryptionException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -51,6 +53,7 @@ import org.slf4j.LoggerFactory;
  * @event {@link org.opensaml.profile.action.EventIds#PROCEED_EVENT_ID}
  * @event {@link SAMLEventIds#DECRYPT_ATTRIBUTE_FAILED}
  */
+@ThreadSafeAfterInit
 public class DecryptAttributes extends AbstractDecryptAction {
 
     /** Class logger. */
@@ -60,7 +63,7 @@ public class DecryptAttributes extends AbstractDecryptAction {
     @Override
     protected void doExecute(@Nonnull final ProfileRequestContext profileRequestContext) {
         
-        final SAMLObject message = getSAMLObject();
+        final SAMLObject message = getSAMLObject(profileRequestContext);
         
         try {
             if (message instanceof Response) {
@@ -99,11 +102,12 @@ public class DecryptAttributes extends AbstractDecryptAction {
             return null;
         }
         
-        if (getDecrypter() == null) {
+        final Decrypter decrypter = getDecrypter(profileRequestContext);
+        if (decrypter == null) {
             throw new DecryptionException("No decryption parameters, unable to decrypt EncryptedAttribute");
         }
         
-        return getDecrypter().decrypt(encAttr);
+        return decrypter.decrypt(encAttr);
     }
 
     /**
@@ -20,6 +20,7 @@ package org.opensaml.saml.saml2.profile.impl;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 
+import net.shibboleth.utilities.java.support.annotation.constraint.ThreadSafeAfterInit;
 import net.shibboleth.utilities.java.support.collection.Pair;
 
 import org.opensaml.profile.action.ActionSupport;
@@ -44,6 +45,7 @@ import org.opensaml.saml.saml2.core.Response;
 import org.opensaml.saml.saml2.core.Subject;
 import org.opensaml.saml.saml2.core.SubjectConfirmation;
 import org.opensaml.saml.saml2.core.SubjectQuery;
+import org.opensaml.saml.saml2.encryption.Decrypter;
 import org.opensaml.xmlsec.encryption.support.DecryptionException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -59,6 +61,7 @@ import org.slf4j.LoggerFactory;
  * @event {@link org.opensaml.profile.action.EventIds#PROCEED_EVENT_ID}
  * @event {@link SAMLEventIds#DECRYPT_NAMEID_FAILED}
  */
+@ThreadSafeAfterInit
 public class DecryptNameIDs extends AbstractDecryptAction {
 
     /** Class logger. */
@@ -69,7 +72,7 @@ public class DecryptNameIDs extends AbstractDecryptAction {
     @Override
     protected void doExecute(@Nonnull final ProfileRequestContext profileRequestContext) {
         
-        final SAMLObject message = getSAMLObject();
+        final SAMLObject message = getSAMLObject(profileRequestContext);
         
         try {
             if (message instanceof AuthnRequest) {
@@ -122,11 +125,12 @@ public class DecryptNameIDs extends AbstractDecryptAction {
             return null;
         }
         
-        if (getDecrypter() == null) {
+        final Decrypter decrypter = getDecrypter(profileRequestContext);
+        if (decrypter == null) {
             throw new DecryptionException("No decryption parameters, unable to decrypt EncryptedID");
         }
         
-        final SAMLObject object = getDecrypter().decrypt(encID);
+        final SAMLObject object = decrypter.decrypt(encID);
         if (object instanceof NameID) {
             return (NameID) object;
         }
@@ -151,11 +155,12 @@ public class DecryptNameIDs extends AbstractDecryptAction {
             return null;
         }
 
-        if (getDecrypter() == null) {
+        final Decrypter decrypter = getDecrypter(profileRequestContext);
+        if (decrypter == null) {
             throw new DecryptionException("No decryption parameters, unable to decrypt NewEncryptedID");
         }
 
-        return getDecrypter().decrypt(encID);
+        return decrypter.decrypt(encID);
     }
     
 // Checkstyle: CyclomaticComplexity OFF
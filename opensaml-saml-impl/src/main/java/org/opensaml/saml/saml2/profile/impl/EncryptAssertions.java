@@ -23,6 +23,7 @@ import java.util.List;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 
+import net.shibboleth.utilities.java.support.annotation.constraint.ThreadSafeAfterInit;
 import net.shibboleth.utilities.java.support.component.ComponentSupport;
 import net.shibboleth.utilities.java.support.logic.Constraint;
 import net.shibboleth.utilities.java.support.xml.SerializeSupport;
@@ -58,6 +59,7 @@ import com.google.common.base.Functions;
  * 
  * @post All assertions in the response have been replaced with encrypted versions, or no changes are made.
  */
+@ThreadSafeAfterInit
 public class EncryptAssertions extends AbstractEncryptAction {
 
     /** Class logger. */
@@ -66,9 +68,6 @@ public class EncryptAssertions extends AbstractEncryptAction {
     /** Strategy used to locate the {@link Response} to operate on. */
     @Nonnull private Function<ProfileRequestContext,StatusResponseType> responseLookupStrategy;
     
-    /** The message to operate on. */
-    @Nullable private Response response;
-    
     /** Constructor. */
 
     public EncryptAssertions() {
@@ -100,6 +99,7 @@ public class EncryptAssertions extends AbstractEncryptAction {
     @Override
     protected boolean doPreExecute(@Nonnull final ProfileRequestContext profileRequestContext) {
         
+        Response response = null;
         final StatusResponseType message = responseLookupStrategy.apply(profileRequestContext);
         if (message != null) {
             if (message instanceof Response) {
@@ -115,6 +115,7 @@ public class EncryptAssertions extends AbstractEncryptAction {
             return false;
         }
         
+        setExecutionState(profileRequestContext, Response.class, response);
         return super.doPreExecute(profileRequestContext);
     }
     
@@ -122,27 +123,29 @@ public class EncryptAssertions extends AbstractEncryptAction {
     @Override
     protected void doExecute(@Nonnull final ProfileRequestContext profileRequestContext) {
         
-        final List<EncryptedAssertion> accumulator = new ArrayList<>(response.getAssertions().size());
-        
-        for (final Assertion assertion : response.getAssertions()) {
-            try {
-                if (log.isDebugEnabled()) {
-                    try {
-                        final Element dom = XMLObjectSupport.marshall(assertion);
-                        log.debug("{} Assertion before encryption:\n{}", getLogPrefix(),
-                                SerializeSupport.prettyPrintXML(dom));
-                    } catch (final MarshallingException e) {
-                        log.error("{} Unable to marshall message for logging purposes", getLogPrefix(), e);
-                    }
+        final Response response = getExecutionState(profileRequestContext, Response.class);
+
+        if (log.isDebugEnabled()) {
+            for (final Assertion assertion : response.getAssertions()) {
+                try {
+                    final Element dom = XMLObjectSupport.marshall(assertion);
+                    log.debug("{} Assertion before encryption:\n{}", getLogPrefix(),
+                            SerializeSupport.prettyPrintXML(dom));
+                } catch (final MarshallingException e) {
+                    log.error("{} Unable to marshall message for logging purposes", getLogPrefix(), e);
                 }
-                accumulator.add(getEncrypter().encrypt(assertion));
-            } catch (final EncryptionException e) {
-                log.warn("{} Error encrypting assertion", getLogPrefix(), e);
-                ActionSupport.buildEvent(profileRequestContext, EventIds.UNABLE_TO_ENCRYPT);
-                return;
             }
         }
         
+        final List<EncryptedAssertion> accumulator;
+        try {
+            accumulator = getEncrypter(profileRequestContext).encryptAssertions(response.getAssertions());
+        } catch (final EncryptionException e) {
+            log.warn("{} Error encrypting assertion", getLogPrefix(), e);
+            ActionSupport.buildEvent(profileRequestContext, EventIds.UNABLE_TO_ENCRYPT);
+            return;
+        }
+        
         response.getEncryptedAssertions().addAll(accumulator);
         response.getAssertions().clear();
     }
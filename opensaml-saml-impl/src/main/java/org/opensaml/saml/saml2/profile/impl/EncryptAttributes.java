@@ -23,6 +23,7 @@ import java.util.List;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 
+import net.shibboleth.utilities.java.support.annotation.constraint.ThreadSafeAfterInit;
 import net.shibboleth.utilities.java.support.component.ComponentSupport;
 import net.shibboleth.utilities.java.support.logic.Constraint;
 import net.shibboleth.utilities.java.support.xml.SerializeSupport;
@@ -58,10 +59,10 @@ import com.google.common.base.Functions;
  * @event {@link EventIds#PROCEED_EVENT_ID}
  * @event {@link EventIds#UNABLE_TO_ENCRYPT}
  * 
- * @post All SAML attributes in any given statement in the response have been replaced with encrypted versions,
- * or no changes are made to that statement. It's possible for some statements to be modified but others not
- * if an error occurs.
+ * @post All SAML attributes in all statements in the response have been replaced with encrypted versions,
+ * or no changes are made if an error occurs.
  */
+@ThreadSafeAfterInit
 public class EncryptAttributes extends AbstractEncryptAction {
 
     /** Class logger. */
@@ -70,9 +71,6 @@ public class EncryptAttributes extends AbstractEncryptAction {
     /** Strategy used to locate the {@link StatusResponseType} to operate on. */
     @Nonnull private Function<ProfileRequestContext,StatusResponseType> responseLookupStrategy;
     
-    /** The message to operate on. */
-    @Nullable private Response response;
-    
     /** Constructor. */
     public EncryptAttributes() {
         responseLookupStrategy =
@@ -103,6 +101,7 @@ public class EncryptAttributes extends AbstractEncryptAction {
     @Override
     protected boolean doPreExecute(@Nonnull final ProfileRequestContext profileRequestContext) {
         
+        Response response = null;
         final StatusResponseType message = responseLookupStrategy.apply(profileRequestContext);
         if (message != null) {
             if (message instanceof Response) {
@@ -118,6 +117,7 @@ public class EncryptAttributes extends AbstractEncryptAction {
             return false;
         }
         
+        setExecutionState(profileRequestContext, Response.class, response);
         return super.doPreExecute(profileRequestContext);
     }
     
@@ -125,34 +125,49 @@ public class EncryptAttributes extends AbstractEncryptAction {
     @Override
     protected void doExecute(@Nonnull final ProfileRequestContext profileRequestContext) {
         
+        final Response response = getExecutionState(profileRequestContext, Response.class);
+
+        // Attributes from all statements are encrypted as a single batch, sharing one key transport operation.
+        final List<AttributeStatement> statements = new ArrayList<>();
+        final List<Attribute> attributes = new ArrayList<>();
         for (final Assertion assertion : response.getAssertions()) {
             for (final AttributeStatement statement : assertion.getAttributeStatements()) {
-                
-                final List<EncryptedAttribute> accumulator = new ArrayList<>(statement.getAttributes().size());
-                
+                statements.add(statement);
                 for (final Attribute attribute : statement.getAttributes()) {
-                    try {
-                        if (log.isDebugEnabled()) {
-                            try {
-                                final Element dom = XMLObjectSupport.marshall(attribute);
-                                log.debug("{} Attribute before encryption:\n{}", getLogPrefix(),
-                                        SerializeSupport.prettyPrintXML(dom));
-                            } catch (final MarshallingException e) {
-                                log.error("{} Unable to marshall Attribute for logging purposes", getLogPrefix(), e);
-                            }
+                    if (log.isDebugEnabled()) {
+                        try {
+                            final Element dom = XMLObjectSupport.marshall(attribute);
+                            log.debug("{} Attribute before encryption:\n{}", getLogPrefix(),
+                                    SerializeSupport.prettyPrintXML(dom));
+                        } catch (final MarshallingException e) {
+                            log.error("{} Unable to marshall Attribute for logging purposes", getLogPrefix(), e);
                         }
-                        accumulator.add(getEncrypter().encrypt(attribute));
-                    } catch (final EncryptionException e) {
-                        log.warn("{} Error encrypting attribute", getLogPrefix(), e);
-                        ActionSupport.buildEvent(profileRequestContext, EventIds.UNABLE_TO_ENCRYPT);
-                        return;
                     }
+                    attributes.add(attribute);
                 }
-                
-                statement.getEncryptedAttributes().addAll(accumulator);
-                statement.getAttributes().clear();
             }
         }
+        
+        if (attributes.isEmpty()) {
+            return;
+        }
+        
+        final List<EncryptedAttribute> encrypted;
+        try {
+            encrypted = getEncrypter(profileRequestContext).encryptAttributes(attributes);
+        } catch (final EncryptionException e) {
+            log.warn("{} Error encrypting attribute", getLogPrefix(), e);
+            ActionSupport.buildEvent(profileRequestContext, EventIds.UNABLE_TO_ENCRYPT);
+            return;
+        }
+        
+        int index = 0;
+        for (final AttributeStatement statement : statements) {
+            final int count = statement.getAttributes().size();
+            statement.getEncryptedAttributes().addAll(encrypted.subList(index, index + count));
+            statement.getAttributes().clear();
+            index += count;
+        }
     }
     
 }
\ No newline at end of file
@@ -17,20 +17,24 @@
 
 package org.opensaml.saml.saml2.profile.impl;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 
 import net.shibboleth.utilities.java.support.annotation.constraint.NonnullElements;
+import net.shibboleth.utilities.java.support.annotation.constraint.ThreadSafeAfterInit;
 import net.shibboleth.utilities.java.support.component.ComponentSupport;
 import net.shibboleth.utilities.java.support.logic.Constraint;
 import net.shibboleth.utilities.java.support.primitive.StringSupport;
 import net.shibboleth.utilities.java.support.xml.SerializeSupport;
 
+import org.opensaml.core.xml.XMLObject;
 import org.opensaml.core.xml.io.MarshallingException;
 import org.opensaml.core.xml.util.XMLObjectSupport;
 import org.opensaml.messaging.context.navigate.MessageLookup;
@@ -56,6 +60,7 @@ import org.opensaml.saml.saml2.core.Response;
 import org.opensaml.saml.saml2.core.Subject;
 import org.opensaml.saml.saml2.core.SubjectConfirmation;
 import org.opensaml.saml.saml2.core.SubjectQuery;
+import org.opensaml.saml.saml2.encryption.Encrypter;
 import org.opensaml.saml.saml2.profile.context.EncryptionContext;
 import org.opensaml.xmlsec.EncryptionParameters;
 import org.opensaml.xmlsec.encryption.support.EncryptionException;
@@ -75,9 +80,10 @@ import com.google.common.base.Functions;
  * @event {@link EventIds#PROCEED_EVENT_ID}
  * @event {@link EventIds#UNABLE_TO_ENCRYPT}
  * 
- * @post All SAML {@link NameID}s in all locations have been replaced with encrypted versions.
- * It's possible for some to be replaced but others not if an error occurs.
+ * @post All SAML {@link NameID}s in all locations have been replaced with encrypted versions, using a single
+ * data encryption key. It's possible for some to be replaced but others not if an error occurs.
  */
+@ThreadSafeAfterInit
 public class EncryptNameIDs extends AbstractEncryptAction {
 
     /** Class logger. */
@@ -89,9 +95,6 @@ public class EncryptNameIDs extends AbstractEncryptAction {
     /** Formats to exclude from encryption. */
     @Nonnull @NonnullElements private Set<String> excludedFormats;
     
-    /** The message to operate on. */
-    @Nullable private SAMLObject message;
-    
     /** Constructor. */
     public EncryptNameIDs() {
         messageLookupStrategy =
@@ -132,7 +135,7 @@ public class EncryptNameIDs extends AbstractEncryptAction {
     @Override
     protected boolean doPreExecute(@Nonnull final ProfileRequestContext profileRequestContext) {
         
-        message = messageLookupStrategy.apply(profileRequestContext);
+        SAMLObject message = messageLookupStrategy.apply(profileRequestContext);
 
         if (message != null && message instanceof ArtifactResponse) {
             message = ((ArtifactResponse) message).getMessage();
@@ -143,6 +146,7 @@ public class EncryptNameIDs extends AbstractEncryptAction {
             return false;
         }
         
+        setExecutionState(profileRequestContext, SAMLObject.class, message);
         return super.doPreExecute(profileRequestContext);
     }
     
@@ -150,31 +154,46 @@ public class EncryptNameIDs extends AbstractEncryptAction {
     /** {@inheritDoc} */
     @Override
     protected void doExecute(@Nonnull final ProfileRequestContext profileRequestContext) {
+        
+        final SAMLObject message = getExecutionState(profileRequestContext, SAMLObject.class);
+        final Encrypter encrypter = getEncrypter(profileRequestContext);
+        
+        // NameIDs are collected first and then encrypted as a batch, sharing a single key transport operation.
+        final List<NameID> targets = new ArrayList<>();
+        
         try {
             
             if (message instanceof AuthnRequest) {
-                processSubject(((AuthnRequest) message).getSubject());
+                processSubject(((AuthnRequest) message).getSubject(), targets);
             } else if (message instanceof SubjectQuery) {
-                processSubject(((SubjectQuery) message).getSubject());
+                processSubject(((SubjectQuery) message).getSubject(), targets);
             } else if (message instanceof Response) {
                 for (final Assertion a : ((Response) message).getAssertions()) {
-                    processAssertion(a);
+                    processAssertion(a, targets);
                 }
             } else if (message instanceof LogoutRequest) {
-                processLogoutRequest((LogoutRequest) message);
+                collect(((LogoutRequest) message).getNameID(), targets);
             } else if (message instanceof ManageNameIDRequest) {
-                processManageNameIDRequest((ManageNameIDRequest) message);
+                processManageNameIDRequest((ManageNameIDRequest) message, targets, encrypter);
             } else if (message instanceof NameIDMappingRequest) {
-                processNameIDMappingRequest((NameIDMappingRequest) message);
+                collect(((NameIDMappingRequest) message).getNameID(), targets);
             } else if (message instanceof NameIDMappingResponse) {
-                processNameIDMappingResponse((NameIDMappingResponse) message);
+                collect(((NameIDMappingResponse) message).getNameID(), targets);
             } else if (message instanceof Assertion) {
-                processAssertion((Assertion) message);
+                processAssertion((Assertion) message, targets);
             } else {
                 log.debug("{} Message was of unrecognized type {}, nothing to do", getLogPrefix(),
                         message.getClass().getName());
                 return;
             }
+            
+            if (!targets.isEmpty()) {
+                log.debug("{} Encrypting {} NameID(s)", getLogPrefix(), targets.size());
+                final List<EncryptedID> encrypted = encrypter.encryptNameIDs(targets);
+                for (int i = 0; i < targets.size(); i++) {
+                    replace(targets.get(i), encrypted.get(i));
+                }
+            }
         } catch (final EncryptionException e) {
             log.warn("{} Error encrypting NameID", getLogPrefix(), e);
             ActionSupport.buildEvent(profileRequestContext, EventIds.UNABLE_TO_ENCRYPT);
@@ -210,121 +229,118 @@ public class EncryptNameIDs extends AbstractEncryptAction {
         }
         return false;
     }
-
-    /**
-     * Encrypt any {@link NameID}s found in a subject and replace them with the result.
-     * 
-     * @param subject   subject to operate on
-     * 
-     * @throws EncryptionException if an error occurs
-     */
-    private void processSubject(@Nullable final Subject subject) throws EncryptionException {
-        
-        if (subject != null) {
-            if (shouldEncrypt(subject.getNameID())) {
-                log.debug("{} Encrypt NameID in Subject", getLogPrefix());
-                final EncryptedID encrypted = getEncrypter().encrypt(subject.getNameID());
-                subject.setEncryptedID(encrypted);
-                subject.setNameID(null);
-            }
-            
-            for (final SubjectConfirmation sc : subject.getSubjectConfirmations()) {
-                if (shouldEncrypt(sc.getNameID())) {
-                    log.debug("{} Encrypt NameID in SubjectConfirmation", getLogPrefix());
-                    final EncryptedID encrypted = getEncrypter().encrypt(sc.getNameID());
-                    sc.setEncryptedID(encrypted);
-                    sc.setNameID(null);
-                }
-            }
-        }
-    }
     
     /**
-     * Encrypt a {@link NameID} found in a LogoutRequest and replace it with the result.
+     * Add a {@link NameID} to the set of objects to encrypt, if it should be encrypted.
      * 
-     * @param request   request to operate on
-     * 
-     * @throws EncryptionException if an error occurs
+     * @param name  NameID to check
+     * @param targets   accumulator of NameIDs to encrypt
      */
-    private void processLogoutRequest(@Nonnull final LogoutRequest request) throws EncryptionException {
-        
-        if (shouldEncrypt(request.getNameID())) {
-            log.debug("{} Encrypting NameID in LogoutRequest", getLogPrefix());
-            final EncryptedID encrypted = getEncrypter().encrypt(request.getNameID());
-            request.setEncryptedID(encrypted);
-            request.setNameID(null);
+    private void collect(@Nullable final NameID name, @Nonnull @NonnullElements final List<NameID> targets) {
+        if (shouldEncrypt(name)) {
+            targets.add(name);
         }
     }
-    
+
+// Checkstyle: CyclomaticComplexity OFF
     /**
-     * Encrypt a {@link NameID} found in a ManageNameIDRequest and replace it with the result.
+     * Replace a {@link NameID} with its encrypted form in its parent object.
      * 
-     * @param request   request to operate on
+     * @param name  the original NameID
+     * @param encrypted the encrypted form of the NameID
      * 
-     * @throws EncryptionException if an error occurs
+     * @throws EncryptionException if the NameID's parent is of an unexpected type
      */
-    private void processManageNameIDRequest(@Nonnull final ManageNameIDRequest request) throws EncryptionException {
+    private void replace(@Nonnull final NameID name, @Nonnull final EncryptedID encrypted)
+            throws EncryptionException {
         
-        if (shouldEncrypt(request.getNameID())) {
-            log.debug("{} Encrypting NameID in ManageNameIDRequest", getLogPrefix());
-            final EncryptedID encrypted = getEncrypter().encrypt(request.getNameID());
-            request.setEncryptedID(encrypted);
-            request.setNameID(null);
-        }
-        
-        if (request.getNewID() != null) {
-            log.debug("{} Encrypting NewID in ManageNameIDRequest", getLogPrefix());
-            final NewEncryptedID encrypted = getEncrypter().encrypt(request.getNewID());
-            request.setNewEncryptedID(encrypted);
-            request.setNewID(null);
+        final XMLObject parent = name.getParent();
+        if (parent instanceof Subject) {
+            log.debug("{} Replacing NameID in Subject", getLogPrefix());
+            ((Subject) parent).setEncryptedID(encrypted);
+            ((Subject) parent).setNameID(null);
+        } else if (parent instanceof SubjectConfirmation) {
+            log.debug("{} Replacing NameID in SubjectConfirmation", getLogPrefix());
+            ((SubjectConfirmation) parent).setEncryptedID(encrypted);
+            ((SubjectConfirmation) parent).setNameID(null);
+        } else if (parent instanceof LogoutRequest) {
+            log.debug("{} Replacing NameID in LogoutRequest", getLogPrefix());
+            ((LogoutRequest) parent).setEncryptedID(encrypted);
+            ((LogoutRequest) parent).setNameID(null);
+        } else if (parent instanceof ManageNameIDRequest) {
+            log.debug("{} Replacing NameID in ManageNameIDRequest", getLogPrefix());
+            ((ManageNameIDRequest) parent).setEncryptedID(encrypted);
+            ((ManageNameIDRequest) parent).setNameID(null);
+        } else if (parent instanceof NameIDMappingRequest) {
+            log.debug("{} Replacing NameID in NameIDMappingRequest", getLogPrefix());
+            ((NameIDMappingRequest) parent).setEncryptedID(encrypted);
+            ((NameIDMappingRequest) parent).setNameID(null);
+        } else if (parent instanceof NameIDMappingResponse) {
+            log.debug("{} Replacing NameID in NameIDMappingResponse", getLogPrefix());
+            ((NameIDMappingResponse) parent).setEncryptedID(encrypted);
+            ((NameIDMappingResponse) parent).setNameID(null);
+        } else if (parent instanceof Delegate) {
+            log.debug("{} Replacing NameID in Delegate", getLogPrefix());
+            ((Delegate) parent).setEncryptedID(encrypted);
+            ((Delegate) parent).setNameID(null);
+        } else {
+            throw new EncryptionException("NameID had unexpected parent of type "
+                    + (parent != null ? parent.getClass().getName() : "null"));
         }
     }
+// Checkstyle: CyclomaticComplexity ON
 
     /**
-     * Encrypt a {@link NameID} found in a NameIDMappingRequest and replace it with the result.
+     * Collect any {@link NameID}s found in a subject for encryption.
      * 
-     * @param request   request to operate on
-     * 
-     * @throws EncryptionException if an error occurs
+     * @param subject   subject to operate on
+     * @param targets   accumulator of NameIDs to encrypt
      */
-    private void processNameIDMappingRequest(@Nonnull final NameIDMappingRequest request) throws EncryptionException {
+    private void processSubject(@Nullable final Subject subject,
+            @Nonnull @NonnullElements final List<NameID> targets) {
         
-        if (shouldEncrypt(request.getNameID())) {
-            log.debug("{} Encrypting NameID in NameIDMappingRequest", getLogPrefix());
-            final EncryptedID encrypted = getEncrypter().encrypt(request.getNameID());
-            request.setEncryptedID(encrypted);
-            request.setNameID(null);
+        if (subject != null) {
+            collect(subject.getNameID(), targets);
+            
+            for (final SubjectConfirmation sc : subject.getSubjectConfirmations()) {
+                collect(sc.getNameID(), targets);
+            }
         }
     }
-
+    
     /**
-     * Encrypt a {@link NameID} found in a NameIDMappingResponse and replace it with the result.
+     * Collect a {@link NameID} found in a ManageNameIDRequest for encryption, and encrypt any NewID directly.
      * 
-     * @param response   response to operate on
+     * @param request   request to operate on
+     * @param targets   accumulator of NameIDs to encrypt
+     * @param encrypter encrypter for the current request
      * 
      * @throws EncryptionException if an error occurs
      */
-    private void processNameIDMappingResponse(@Nonnull final NameIDMappingResponse response)
+    private void processManageNameIDRequest(@Nonnull final ManageNameIDRequest request,
+            @Nonnull @NonnullElements final List<NameID> targets, @Nonnull final Encrypter encrypter)
             throws EncryptionException {
         
-        if (shouldEncrypt(response.getNameID())) {
-            log.debug("{} Encrypting NameID in NameIDMappingResponse", getLogPrefix());
-            final EncryptedID encrypted = getEncrypter().encrypt(response.getNameID());
-            response.setEncryptedID(encrypted);
-            response.setNameID(null);
+        collect(request.getNameID(), targets);
+        
+        if (request.getNewID() != null) {
+            log.debug("{} Encrypting NewID in ManageNameIDRequest", getLogPrefix());
+            final NewEncryptedID encrypted = encrypter.encrypt(request.getNewID());
+            request.setNewEncryptedID(encrypted);
+            request.setNewID(null);
         }
     }
 
     /**
-     * Decrypt any {@link EncryptedID} found in an assertion and replace it with the result.
+     * Collect any {@link NameID}s found in an assertion for encryption.
      * 
      * @param assertion   assertion to operate on
-     * 
-     * @throws EncryptionException if an error occurs
+     * @param targets   accumulator of NameIDs to encrypt
      */
-    private void processAssertion(@Nonnull final Assertion assertion) throws EncryptionException {
+    private void processAssertion(@Nonnull final Assertion assertion,
+            @Nonnull @NonnullElements final List<NameID> targets) {
 
-        processSubject(assertion.getSubject());            
+        processSubject(assertion.getSubject(), targets);
         
         if (assertion.getConditions() != null) {
             for (final Condition c : assertion.getConditions().getConditions()) {
@@ -332,15 +348,10 @@ public class EncryptNameIDs extends AbstractEncryptAction {
                     continue;
                 }
                 for (final Delegate d : ((DelegationRestrictionType) c).getDelegates()) {
-                    if (shouldEncrypt(d.getNameID())) {
-                        log.debug("{} Encrypting NameID in Delegate", getLogPrefix());
-                        final EncryptedID encrypted = getEncrypter().encrypt(d.getNameID());
-                        d.setEncryptedID(encrypted);
-                        d.setNameID(null);
-                    }
+                    collect(d.getNameID(), targets);
                 }
             }
         }
     }
     
-}
\ No newline at end of file
+}
@@ -20,13 +20,14 @@ package org.opensaml.saml.saml2.profile.impl;
 import java.io.IOException;
 
 import javax.annotation.Nonnull;
-import javax.annotation.Nullable;
 
 import net.shibboleth.utilities.java.support.annotation.constraint.NonnullAfterInit;
+import net.shibboleth.utilities.java.support.annotation.constraint.ThreadSafeAfterInit;
 import net.shibboleth.utilities.java.support.component.ComponentInitializationException;
 import net.shibboleth.utilities.java.support.component.ComponentSupport;
 import net.shibboleth.utilities.java.support.logic.Constraint;
 
+import org.opensaml.core.xml.XMLRuntimeException;
 import org.opensaml.messaging.context.navigate.MessageLookup;
 import org.opensaml.profile.action.AbstractProfileAction;
 import org.opensaml.profile.action.ActionSupport;
@@ -59,6 +60,7 @@ import com.google.common.base.Functions;
  * @event {@link EventIds#INVALID_PROFILE_CTX}
  * @event {@link SAMLEventIds#UNABLE_RESOLVE_ARTIFACT}
  */
+@ThreadSafeAfterInit
 public class ResolveArtifact extends AbstractProfileAction {
 
     /** Class logger. */
@@ -79,18 +81,6 @@ public class ResolveArtifact extends AbstractProfileAction {
     /** Artifact mapper. */
     @NonnullAfterInit private SAMLArtifactMap artifactMap;
 
-    /** Request to process. */
-    @Nullable private ArtifactResolve request;
-    
-    /** Response to populate. */
-    @Nullable private ArtifactResponse response;
-    
-    /** Identity of issuer. */
-    @Nullable private String issuerId;
-
-    /** Identity of requester. */
-    @Nullable private String requesterId;
-    
     /** Constructor. */
     public ResolveArtifact() {
         requestLookupStrategy =
@@ -172,7 +162,7 @@ public class ResolveArtifact extends AbstractProfileAction {
     @Override
     protected boolean doPreExecute(@Nonnull final ProfileRequestContext profileRequestContext) {
         
-        request = requestLookupStrategy.apply(profileRequestContext);
+        final ArtifactResolve request = requestLookupStrategy.apply(profileRequestContext);
         if (request == null) {
             log.debug("{} No request located", getLogPrefix());
             ActionSupport.buildEvent(profileRequestContext, EventIds.INVALID_MSG_CTX);
@@ -183,27 +173,29 @@ public class ResolveArtifact extends AbstractProfileAction {
             return false;
         }
 
-        response = responseLookupStrategy.apply(profileRequestContext);
+        final ArtifactResponse response = responseLookupStrategy.apply(profileRequestContext);
         if (response == null) {
             log.debug("{} No response located", getLogPrefix());
             ActionSupport.buildEvent(profileRequestContext, EventIds.INVALID_MSG_CTX);
             return false;
         }
 
-        issuerId = issuerLookupStrategy.apply(profileRequestContext);
+        final String issuerId = issuerLookupStrategy.apply(profileRequestContext);
         if (issuerId == null) {
             log.debug("{} No issuer identity located", getLogPrefix());
             ActionSupport.buildEvent(profileRequestContext, EventIds.INVALID_PROFILE_CTX);
             return false;
         }
         
-        requesterId = requesterLookupStrategy.apply(profileRequestContext);
+        final String requesterId = requesterLookupStrategy.apply(profileRequestContext);
         if (requesterId == null) {
             log.debug("{} No requester identity located", getLogPrefix());
             ActionSupport.buildEvent(profileRequestContext, EventIds.INVALID_MSG_CTX);
             return false;
         }
         
+        setExecutionState(profileRequestContext, ExecutionState.class,
+                new ExecutionState(request, response, issuerId, requesterId));
         return super.doPreExecute(profileRequestContext);
     }
 
@@ -211,7 +203,8 @@ public class ResolveArtifact extends AbstractProfileAction {
     @Override
     protected void doExecute(@Nonnull final ProfileRequestContext profileRequestContext) {
         
-        final String artifact = request.getArtifact().getArtifact();
+        final ExecutionState state = getExecutionState(profileRequestContext, ExecutionState.class);
+        final String artifact = state.request.getArtifact().getArtifact();
 
         SAMLArtifactMapEntry entry = null;
         
@@ -225,7 +218,7 @@ public class ResolveArtifact extends AbstractProfileAction {
         
         if (entry == null) {
             log.warn("{} Unresolvable Artifact '{}' from relying party '{}'", getLogPrefix(), artifact,
-                    requesterId);
+                    state.requesterId);
             ActionSupport.buildEvent(profileRequestContext, SAMLEventIds.UNABLE_RESOLVE_ARTIFACT);
             return;
         }
@@ -238,16 +231,53 @@ public class ResolveArtifact extends AbstractProfileAction {
             return;
         }
         
-        if (!entry.getIssuerId().equals(issuerId)) {
+        if (!entry.getIssuerId().equals(state.issuerId)) {
             log.warn("{} Artifact issuer mismatch, issued by '{}' but IdP has entityID of '{}'",
-                    getLogPrefix(), entry.getIssuerId(), issuerId);
+                    getLogPrefix(), entry.getIssuerId(), state.issuerId);
             ActionSupport.buildEvent(profileRequestContext, SAMLEventIds.UNABLE_RESOLVE_ARTIFACT);
-        } else if (!entry.getRelyingPartyId().equals(requesterId)) {
+        } else if (!entry.getRelyingPartyId().equals(state.requesterId)) {
             log.warn("{} Artifact relying party mismatch, issued to '{}' but requested by '{}'",
-                    getLogPrefix(), entry.getRelyingPartyId(), requesterId);
+                    getLogPrefix(), entry.getRelyingPartyId(), state.requesterId);
             ActionSupport.buildEvent(profileRequestContext, SAMLEventIds.UNABLE_RESOLVE_ARTIFACT);
         } else {
-            response.setMessage(entry.getSamlMessage());
+            try {
+                state.response.setMessage(entry.getSamlMessage());
+            } catch (final XMLRuntimeException e) {
+                log.error("{} Error decoding message mapped to artifact", getLogPrefix(), e);
+                ActionSupport.buildEvent(profileRequestContext, SAMLEventIds.UNABLE_RESOLVE_ARTIFACT);
+            }
+        }
+    }
+
+    /** State of an execution, held between its steps. */
+    private static final class ExecutionState {
+
+        /** Request to process. */
+        @Nonnull private final ArtifactResolve request;
+
+        /** Response to populate. */
+        @Nonnull private final ArtifactResponse response;
+
+        /** Identity of issuer. */
+        @Nonnull private final String issuerId;
+
+        /** Identity of requester. */
+        @Nonnull private final String requesterId;
+
+        /**
+         * Constructor.
+         *
+         * @param theRequest request to process
+         * @param theResponse response to populate
+         * @param theIssuerId identity of issuer
+         * @param theRequesterId identity of requester
+         */
+        private ExecutionState(@Nonnull final ArtifactResolve theRequest, @Nonnull final ArtifactResponse theResponse,
+                @Nonnull final String theIssuerId, @Nonnull final String theRequesterId) {
+            request = theRequest;
+            response = theResponse;
+            issuerId = theIssuerId;
+            requesterId = theRequesterId;
         }
     }
 
@@ -0,0 +1,265 @@
+/*
+ * Licensed to the University Corporation for Advanced Internet Development, 
+ * Inc. (UCAID) under one or more contributor license agreements.  See the 
+ * NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The UCAID licenses this file to You under the Apache 
+ * License, Version 2.0 (the "License"); you may not use this file except in 
+ * compliance with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.opensaml.saml.saml2.wssecurity.messaging.impl;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.ThreadSafe;
+
+import net.shibboleth.utilities.java.support.annotation.Duration;
+import net.shibboleth.utilities.java.support.annotation.constraint.Positive;
+import net.shibboleth.utilities.java.support.codec.Base64Support;
+import net.shibboleth.utilities.java.support.logic.Constraint;
+import net.shibboleth.utilities.java.support.resolver.CriteriaSet;
+import net.shibboleth.utilities.java.support.resolver.Criterion;
+import net.shibboleth.utilities.java.support.xml.SerializeSupport;
+
+import org.opensaml.saml.saml2.assertion.SAML20AssertionValidator;
+import org.opensaml.saml.saml2.core.Assertion;
+import org.opensaml.saml.saml2.core.Conditions;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.w3c.dom.Element;
+
+import com.google.common.collect.ImmutableSet;
+
+/**
+ * A bounded cache of the signed SAML 2.0 Assertions which have been successfully validated, allowing the signature
+ * evaluation to be skipped when a client presents the same Assertion again.
+ * 
+ * <p>
+ * Entries are keyed by the Assertion ID and a digest of the Assertion's entire serialized content, so that a
+ * presentation of different content under the same ID or signature is never matched. They are only matched for the
+ * validator which produced them, and for signature validation criteria equal to those under which they were
+ * validated, since the criteria built for each message determine which keys are trusted. Criteria which do not
+ * implement equality by value only match the same instances, and otherwise cause the signature to be evaluated again.
+ * </p>
+ * 
+ * <p>
+ * An entry lasts until the Assertion's <code>NotOnOrAfter</code> condition, if any, but no longer than a configured
+ * maximum lifetime, which bounds how long a change in the trust material of the issuer, such as a metadata refresh,
+ * may go unnoticed. Callers may also {@link #clear()} the cache when trust material changes.
+ * </p>
+ * 
+ * <p>
+ * Only the signature evaluation is cached. Checks which depend on the time or on the request, such as the validity
+ * period, audience, recipient and holder-of-key proof, are performed on every presentation.
+ * </p>
+ */
+@ThreadSafe
+public class ValidatedAssertionCache {
+
+    /** Default maximum number of entries. */
+    public static final int DEFAULT_MAX_ENTRIES = 10000;
+
+    /** Default maximum lifetime of an entry in milliseconds, 15 minutes. */
+    @Duration public static final long DEFAULT_MAX_LIFETIME = 15 * 60 * 1000;
+
+    /** Digest algorithm applied to the serialized Assertion. */
+    @Nonnull private static final String DIGEST_ALGORITHM = "SHA-256";
+
+    /** Class logger. */
+    @Nonnull private final Logger log = LoggerFactory.getLogger(ValidatedAssertionCache.class);
+
+    /** Maximum number of entries. */
+    @Positive private final int maxEntries;
+
+    /** Maximum lifetime of an entry in milliseconds. */
+    @Duration @Positive private final long maxLifetime;
+
+    /** The entries, least recently used first. */
+    @Nonnull private final Map<String,Entry> entries;
+
+    /** Constructor. */
+    public ValidatedAssertionCache() {
+        this(DEFAULT_MAX_ENTRIES, DEFAULT_MAX_LIFETIME);
+    }
+
+    /**
+     * Constructor.
+     * 
+     * @param entryLimit maximum number of entries, the least recently used being evicted beyond it
+     * @param lifetime maximum lifetime of an entry in milliseconds
+     */
+    public ValidatedAssertionCache(@Positive final int entryLimit, @Duration @Positive final long lifetime) {
+        maxEntries = (int) Constraint.isGreaterThan(0, entryLimit, "Maximum number of entries must be greater than 0");
+        maxLifetime = Constraint.isGreaterThan(0, lifetime, "Maximum lifetime must be greater than 0");
+        entries = new LinkedHashMap<String,Entry>(16, 0.75f, true) {
+            protected boolean removeEldestEntry(final Map.Entry<String,Entry> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    /**
+     * Get the maximum number of entries.
+     * 
+     * @return the maximum number of entries
+     */
+    @Positive public int getMaxEntries() {
+        return maxEntries;
+    }
+
+    /**
+     * Get the maximum lifetime of an entry in milliseconds.
+     * 
+     * @return the maximum lifetime
+     */
+    @Duration @Positive public long getMaxLifetime() {
+        return maxLifetime;
+    }
+
+    /**
+     * Get the key of an Assertion, from its ID and the digest of its serialized content.
+     * 
+     * <p>
+     * The key is computed once per presentation and passed to {@link #isValidated(String, SAML20AssertionValidator,
+     * CriteriaSet)} and {@link #add(String, Assertion, SAML20AssertionValidator, CriteriaSet)}.
+     * </p>
+     * 
+     * @param assertion the Assertion
+     * 
+     * @return the key, or null if the Assertion has no ID or DOM, in which case its validation cannot be cached
+     */
+    @Nullable public String getKey(@Nonnull final Assertion assertion) {
+        final Element dom = assertion.getDOM();
+        if (assertion.getID() == null || dom == null) {
+            return null;
+        }
+
+        try {
+            final MessageDigest digest = MessageDigest.getInstance(DIGEST_ALGORITHM);
+            final byte[] value = digest.digest(SerializeSupport.nodeToString(dom).getBytes(StandardCharsets.UTF_8));
+            return assertion.getID() + '!' + Base64Support.encode(value, Base64Support.UNCHUNKED);
+        } catch (final NoSuchAlgorithmException e) {
+            log.error("Digest algorithm {} is not supported, Assertion validation will not be cached",
+                    DIGEST_ALGORITHM, e);
+            return null;
+        }
+    }
+
+    /**
+     * Get whether the signature of an Assertion has previously been validated by a given validator, under equal
+     * signature validation criteria.
+     * 
+     * @param key the key of the Assertion
+     * @param validator the validator
+     * @param criteriaSet the signature validation criteria, if any
+     * 
+     * @return true iff an unexpired entry matches the key, validator and criteria
+     */
+    public boolean isValidated(@Nonnull final String key, @Nonnull final SAML20AssertionValidator validator,
+            @Nullable final CriteriaSet criteriaSet) {
+        final Set<Criterion> criteria = copyCriteria(criteriaSet);
+        synchronized (entries) {
+            final Entry entry = entries.get(key);
+            if (entry == null) {
+                return false;
+            } else if (entry.expiration <= System.currentTimeMillis()) {
+                entries.remove(key);
+                return false;
+            }
+            return entry.validator == validator && entry.criteria.equals(criteria);
+        }
+    }
+
+    /**
+     * Record that an Assertion, including its signature, has been successfully validated by a given validator under
+     * the given signature validation criteria.
+     * 
+     * @param key the key of the Assertion
+     * @param assertion the Assertion
+     * @param validator the validator
+     * @param criteriaSet the signature validation criteria, if any
+     */
+    public void add(@Nonnull final String key, @Nonnull final Assertion assertion,
+            @Nonnull final SAML20AssertionValidator validator, @Nullable final CriteriaSet criteriaSet) {
+        final long now = System.currentTimeMillis();
+        long expiration = now + maxLifetime;
+        final Conditions conditions = assertion.getConditions();
+        if (conditions != null && conditions.getNotOnOrAfter() != null) {
+            expiration = Math.min(expiration, conditions.getNotOnOrAfter().getMillis());
+        }
+        if (expiration <= now) {
+            return;
+        }
+
+        log.debug("Caching validation of Assertion '{}' until {}", assertion.getID(), expiration);
+        final Entry entry = new Entry(validator, copyCriteria(criteriaSet), expiration);
+        synchronized (entries) {
+            entries.put(key, entry);
+        }
+    }
+
+    /** Remove all entries. */
+    public void clear() {
+        synchronized (entries) {
+            entries.clear();
+        }
+    }
+
+    /**
+     * Copy signature validation criteria, so that later changes to the set do not affect an entry.
+     * 
+     * @param criteriaSet the criteria, if any
+     * 
+     * @return an immutable copy of the criteria, empty if there are none
+     */
+    @Nonnull private static Set<Criterion> copyCriteria(@Nullable final CriteriaSet criteriaSet) {
+        if (criteriaSet == null) {
+            return Collections.emptySet();
+        }
+        return ImmutableSet.copyOf(criteriaSet);
+    }
+
+    /** A cached validation. */
+    private static final class Entry {
+
+        /** The validator which validated the Assertion. */
+        @Nonnull private final SAML20AssertionValidator validator;
+
+        /** The signature validation criteria under which the Assertion was validated. */
+        @Nonnull private final Set<Criterion> criteria;
+
+        /** Expiration of the entry, in milliseconds since the epoch. */
+        private final long expiration;
+
+        /**
+         * Constructor.
+         * 
+         * @param assertionValidator the validator which validated the Assertion
+         * @param validationCriteria the signature validation criteria under which it was validated
+         * @param entryExpiration expiration of the entry
+         */
+        private Entry(@Nonnull final SAML20AssertionValidator assertionValidator,
+                @Nonnull final Set<Criterion> validationCriteria, final long entryExpiration) {
+            validator = assertionValidator;
+            criteria = validationCriteria;
+            expiration = entryExpiration;
+        }
+    }
+
+}
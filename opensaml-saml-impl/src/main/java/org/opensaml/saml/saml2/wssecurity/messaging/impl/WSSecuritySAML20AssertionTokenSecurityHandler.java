@@ -30,6 +30,7 @@ import net.shibboleth.utilities.java.support.collection.Pair;
 import net.shibboleth.utilities.java.support.component.ComponentInitializationException;
 import net.shibboleth.utilities.java.support.component.ComponentSupport;
 import net.shibboleth.utilities.java.support.logic.Constraint;
+import net.shibboleth.utilities.java.support.resolver.CriteriaSet;
 
 import org.opensaml.core.xml.XMLObject;
 import org.opensaml.messaging.context.MessageContext;
@@ -81,6 +82,9 @@ public class WSSecuritySAML20AssertionTokenSecurityHandler extends AbstractMessa
      * {@link SAML20AssertionTokenValidationInput} instance. */
     @NonnullAfterInit private Function<SAML20AssertionTokenValidationInput, ValidationContext> validationContextBuilder;
     
+    /** Cache of Assertions whose signature has been validated, may be null. */
+    @Nullable private ValidatedAssertionCache validatedAssertionCache;
+    
     
     /** Constructor. */
     public WSSecuritySAML20AssertionTokenSecurityHandler() {
@@ -210,6 +214,32 @@ public class WSSecuritySAML20AssertionTokenSecurityHandler extends AbstractMessa
         assertionValidatorLookup = function;
     }
 
+    /**
+     * Get the cache of Assertions whose signature has been validated.
+     * 
+     * @return the cache, or null
+     */
+    @Nullable public ValidatedAssertionCache getValidatedAssertionCache() {
+        return validatedAssertionCache;
+    }
+
+    /**
+     * Set the cache of Assertions whose signature has been validated.
+     * 
+     * <p>
+     * If set, the signature of an Assertion presented again under equal signature validation criteria is not
+     * evaluated again while its entry lasts. All other validation is still performed on every presentation. Defaults
+     * to null, for no caching.
+     * </p>
+     * 
+     * @param cache the cache, may be null
+     */
+    public void setValidatedAssertionCache(@Nullable final ValidatedAssertionCache cache) {
+        ComponentSupport.ifInitializedThrowUnmodifiabledComponentException(this);
+        ComponentSupport.ifDestroyedThrowDestroyedComponentException(this);
+        validatedAssertionCache = cache;
+    }
+
     /** {@inheritDoc} */
     protected void doInitialize() throws ComponentInitializationException {
         super.doInitialize();
@@ -265,7 +295,7 @@ public class WSSecuritySAML20AssertionTokenSecurityHandler extends AbstractMessa
             ValidationContext validationContext = buildValidationContext(messageContext, assertion);
             
             try { 
-                ValidationResult validationResult = validator.validate(assertion, validationContext);
+                ValidationResult validationResult = validate(validator, assertion, validationContext);
                 SAML20AssertionToken token = new SAML20AssertionToken(assertion);
                 processResult(validationContext, validationResult, token, messageContext);
                 wsContext.getTokens().add(token);
@@ -279,6 +309,46 @@ public class WSSecuritySAML20AssertionTokenSecurityHandler extends AbstractMessa
         
     }
 
+    /**
+     * Validate an Assertion, using and updating the cache of validated Assertions, if any.
+     * 
+     * @param validator the Assertion validator
+     * @param assertion the Assertion to validate
+     * @param validationContext the Assertion validation context
+     * 
+     * @return the validation result
+     * 
+     * @throws AssertionValidationException if there is a fatal error evaluating the validity of the Assertion
+     */
+    @Nonnull protected ValidationResult validate(@Nonnull final SAML20AssertionValidator validator,
+            @Nonnull final Assertion assertion, @Nonnull final ValidationContext validationContext)
+            throws AssertionValidationException {
+        
+        final ValidatedAssertionCache cache = getValidatedAssertionCache();
+        if (cache == null || !assertion.isSigned()) {
+            return validator.validate(assertion, validationContext);
+        }
+        
+        final String key = cache.getKey(assertion);
+        if (key == null) {
+            return validator.validate(assertion, validationContext);
+        }
+        
+        final Object criteria = validationContext.getStaticParameters().get(
+                SAML2AssertionValidationParameters.SIGNATURE_VALIDATION_CRITERIA_SET);
+        final CriteriaSet criteriaSet = criteria instanceof CriteriaSet ? (CriteriaSet) criteria : null;
+        if (cache.isValidated(key, validator, criteriaSet)) {
+            log.debug("Signature of Assertion '{}' was previously validated", assertion.getID());
+            return validator.validate(assertion, validationContext, false);
+        }
+        
+        final ValidationResult validationResult = validator.validate(assertion, validationContext);
+        if (validationResult == ValidationResult.VALID) {
+            cache.add(key, assertion, validator, criteriaSet);
+        }
+        return validationResult;
+    }
+
     /**
      * Process the result of the token validation.
      * 
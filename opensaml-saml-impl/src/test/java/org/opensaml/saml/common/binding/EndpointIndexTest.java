@@ -0,0 +1,136 @@
+/*
+ * Licensed to the University Corporation for Advanced Internet Development,
+ * Inc. (UCAID) under one or more contributor license agreements.  See the
+ * NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The UCAID licenses this file to You under the Apache
+ * License, Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.opensaml.saml.common.binding;
+
+import java.util.Arrays;
+import java.util.List;
+
+import javax.xml.namespace.QName;
+
+import org.opensaml.core.xml.XMLObjectBaseTestCase;
+import org.opensaml.saml.common.xml.SAMLConstants;
+import org.opensaml.saml.saml2.metadata.AssertionConsumerService;
+import org.opensaml.saml.saml2.metadata.Endpoint;
+import org.opensaml.saml.saml2.metadata.SPSSODescriptor;
+import org.opensaml.saml.saml2.metadata.SingleLogoutService;
+import org.opensaml.saml.saml2.metadata.impl.SPSSODescriptorImpl;
+import org.testng.Assert;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+/** Test for {@link EndpointIndex}. */
+public class EndpointIndexTest extends XMLObjectBaseTestCase {
+
+    private SPSSODescriptor role;
+
+    @BeforeMethod
+    public void setUp() {
+        role = buildXMLObject(SPSSODescriptor.DEFAULT_ELEMENT_NAME);
+        final List<AssertionConsumerService> acs = role.getAssertionConsumerServices();
+        acs.add(buildACS(1, SAMLConstants.SAML2_POST_BINDING_URI, "https://sp/POST"));
+        acs.add(buildACS(2, SAMLConstants.SAML2_ARTIFACT_BINDING_URI, "https://sp/Art"));
+        acs.add(buildACS(3, null, "https://sp/Any"));
+        acs.get(1).setIsDefault(true);
+    }
+
+    @Test
+    public void testLookups() {
+        final EndpointIndex.Entry entry =
+                EndpointIndex.getEndpoints(role, AssertionConsumerService.DEFAULT_ELEMENT_NAME);
+        final List<AssertionConsumerService> acs = role.getAssertionConsumerServices();
+
+        Assert.assertEquals(entry.getEndpoints(), Arrays.<Endpoint>asList(acs.get(1), acs.get(0), acs.get(2)));
+        Assert.assertEquals(entry.getEndpointsByIndex(1), Arrays.<Endpoint>asList(acs.get(0)));
+        Assert.assertTrue(entry.getEndpointsByIndex(4).isEmpty());
+        Assert.assertEquals(entry.getEndpointsByBinding(SAMLConstants.SAML2_POST_BINDING_URI),
+                Arrays.<Endpoint>asList(acs.get(0)));
+        Assert.assertEquals(entry.getEndpointsByLocation("https://sp/Art"), Arrays.<Endpoint>asList(acs.get(1)));
+        Assert.assertTrue(entry.getEndpointsByLocation(null).isEmpty());
+        Assert.assertEquals(entry.getEndpointsByBindings(Arrays.asList(SAMLConstants.SAML2_POST_BINDING_URI,
+                SAMLConstants.SAML2_ARTIFACT_BINDING_URI), false), Arrays.<Endpoint>asList(acs.get(1), acs.get(0)));
+        Assert.assertEquals(entry.getEndpointsByBindings(Arrays.asList(SAMLConstants.SAML2_POST_BINDING_URI), true),
+                Arrays.<Endpoint>asList(acs.get(0), acs.get(2)));
+    }
+
+    @Test
+    public void testCaching() {
+        final EndpointIndex.Entry entry =
+                EndpointIndex.getEndpoints(role, AssertionConsumerService.DEFAULT_ELEMENT_NAME);
+        Assert.assertSame(EndpointIndex.getEndpoints(role, AssertionConsumerService.DEFAULT_ELEMENT_NAME), entry);
+        Assert.assertEquals(role.getObjectMetadata().get(EndpointIndex.class).size(), 1);
+
+        Assert.assertTrue(EndpointIndex.getEndpoints(role, SingleLogoutService.DEFAULT_ELEMENT_NAME)
+                .getEndpoints().isEmpty());
+
+        role.getAssertionConsumerServices().remove(0);
+        Assert.assertSame(EndpointIndex.getEndpoints(role, AssertionConsumerService.DEFAULT_ELEMENT_NAME), entry);
+
+        EndpointIndex.clear(role);
+        final EndpointIndex.Entry rebuilt =
+                EndpointIndex.getEndpoints(role, AssertionConsumerService.DEFAULT_ELEMENT_NAME);
+        Assert.assertNotSame(rebuilt, entry);
+        Assert.assertEquals(rebuilt.getEndpoints().size(), 2);
+        Assert.assertTrue(rebuilt.getEndpointsByIndex(1).isEmpty());
+        Assert.assertEquals(role.getObjectMetadata().get(EndpointIndex.class).size(), 1);
+    }
+
+    @Test
+    public void testLookupDoesNotReadRole() {
+        final CountingSPSSODescriptor counting = new CountingSPSSODescriptor();
+        final List<AssertionConsumerService> acs = counting.getAssertionConsumerServices();
+        acs.add(buildACS(1, SAMLConstants.SAML2_POST_BINDING_URI, "https://sp/POST"));
+        acs.add(buildACS(2, null, "https://sp/Any"));
+
+        for (int i = 0; i < 10; i++) {
+            Assert.assertEquals(EndpointIndex.getEndpoints(counting, AssertionConsumerService.DEFAULT_ELEMENT_NAME)
+                    .getEndpoints().size(), 2);
+        }
+        Assert.assertEquals(counting.lookups, 1);
+
+        EndpointIndex.clear(counting);
+        EndpointIndex.getEndpoints(counting, AssertionConsumerService.DEFAULT_ELEMENT_NAME);
+        Assert.assertEquals(counting.lookups, 2);
+    }
+
+    /** Role which counts the lookups of its endpoints by type. */
+    private static class CountingSPSSODescriptor extends SPSSODescriptorImpl {
+
+        /** Number of calls to {@link #getEndpoints(QName)}. */
+        private int lookups;
+
+        /** Constructor. */
+        CountingSPSSODescriptor() {
+            super(SAMLConstants.SAML20MD_NS, SPSSODescriptor.DEFAULT_ELEMENT_LOCAL_NAME, SAMLConstants.SAML20MD_PREFIX);
+        }
+
+        /** {@inheritDoc} */
+        public List<Endpoint> getEndpoints(final QName type) {
+            lookups++;
+            return super.getEndpoints(type);
+        }
+    }
+
+    private AssertionConsumerService buildACS(int index, String binding, String location) {
+        final AssertionConsumerService acs = buildXMLObject(AssertionConsumerService.DEFAULT_ELEMENT_NAME);
+        acs.setIndex(index);
+        acs.setBinding(binding);
+        acs.setLocation(location);
+        return acs;
+    }
+
+}
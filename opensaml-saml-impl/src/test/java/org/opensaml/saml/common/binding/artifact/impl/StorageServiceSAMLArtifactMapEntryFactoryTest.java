@@ -19,15 +19,18 @@ package org.opensaml.saml.common.binding.artifact.impl;
 
 import java.io.IOException;
 
+import net.shibboleth.utilities.java.support.xml.SerializeSupport;
 import net.shibboleth.utilities.java.support.xml.XMLAssertTestNG;
 
 import org.testng.annotations.Test;
 import org.testng.annotations.BeforeMethod;
 import org.testng.Assert;
 import org.w3c.dom.Document;
+import org.w3c.dom.Element;
 import org.custommonkey.xmlunit.Diff;
 import org.opensaml.core.xml.XMLObjectBaseTestCase;
 import org.opensaml.core.xml.io.MarshallingException;
+import org.opensaml.core.xml.util.XMLObjectSupport;
 import org.opensaml.saml.common.SAMLObject;
 import org.opensaml.saml.common.binding.artifact.BasicSAMLArtifactMapEntry;
 import org.opensaml.saml.common.binding.artifact.SAMLArtifactMap.SAMLArtifactMapEntry;
@@ -79,17 +82,50 @@ public class StorageServiceSAMLArtifactMapEntryFactoryTest extends XMLObjectBase
         BasicSAMLArtifactMapEntry basicEntry = (BasicSAMLArtifactMapEntry) entry;
         
         String s = factory.serialize(basicEntry);
-        BasicSAMLArtifactMapEntry newEntry = (BasicSAMLArtifactMapEntry) factory.deserialize(
+        SAMLArtifactMapEntry newEntry = factory.deserialize(
                 1, StorageServiceSAMLArtifactMap.STORAGE_CONTEXT, basicEntry.getArtifact(), s, null);
         
         Assert.assertEquals(basicEntry.getArtifact(), newEntry.getArtifact());
         Assert.assertEquals(basicEntry.getIssuerId(), newEntry.getIssuerId());
         Assert.assertEquals(basicEntry.getRelyingPartyId(), newEntry.getRelyingPartyId());
 
+        // Serialization no longer moves the message's DOM into a wrapper element.
         Document origDocument = samlObject.getDOM().getOwnerDocument();
-        origDocument.appendChild(samlObject.getDOM());
+        Assert.assertSame(origDocument.getDocumentElement(), samlObject.getDOM());
         Document newDocument = newEntry.getSamlMessage().getDOM().getOwnerDocument();
         XMLAssertTestNG.assertXMLIdentical(new Diff(origDocument, newDocument), true);
     }
 
-}
\ No newline at end of file
+    @Test
+    public void testReserializeUndecoded() throws IOException {
+        String s = factory.serialize(factory.newEntry(artifact, issuerId, rpId, samlObject));
+        SAMLArtifactMapEntry newEntry =
+                factory.deserialize(1, StorageServiceSAMLArtifactMap.STORAGE_CONTEXT, artifact, s, null);
+        
+        Assert.assertEquals(factory.serialize(newEntry), s);
+        Assert.assertTrue(newEntry.getSamlMessage() instanceof Assertion);
+        Assert.assertSame(newEntry.getSamlMessage(), newEntry.getSamlMessage());
+    }
+    
+    @Test
+    public void testLegacySerialization() throws IOException, MarshallingException {
+        Element marshalledMessage = XMLObjectSupport.marshall(samlObject);
+        Element rootElement = marshalledMessage.getOwnerDocument().createElementNS(null, "Mapping");
+        rootElement.setAttributeNS(null, "issuer", issuerId);
+        rootElement.setAttributeNS(null, "relyingParty", rpId);
+        rootElement.appendChild(marshalledMessage);
+        String s = SerializeSupport.nodeToString(rootElement);
+        
+        SAMLArtifactMapEntry newEntry =
+                factory.deserialize(1, StorageServiceSAMLArtifactMap.STORAGE_CONTEXT, artifact, s, null);
+        Assert.assertEquals(newEntry.getIssuerId(), issuerId);
+        Assert.assertEquals(newEntry.getRelyingPartyId(), rpId);
+        Assert.assertTrue(newEntry.getSamlMessage() instanceof Assertion);
+    }
+    
+    @Test(expectedExceptions = IOException.class)
+    public void testMalformedHeader() throws IOException {
+        factory.deserialize(1, StorageServiceSAMLArtifactMap.STORAGE_CONTEXT, artifact, "D1:99:issuer", null);
+    }
+
+}
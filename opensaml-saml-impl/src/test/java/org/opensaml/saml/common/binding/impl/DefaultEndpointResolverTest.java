@@ -37,6 +37,7 @@ import net.shibboleth.utilities.java.support.xml.XMLParserException;
 import org.opensaml.core.xml.XMLObjectBaseTestCase;
 import org.opensaml.core.xml.io.Unmarshaller;
 import org.opensaml.core.xml.io.UnmarshallingException;
+import org.opensaml.saml.common.binding.EndpointIndex;
 import org.opensaml.saml.common.binding.impl.DefaultEndpointResolver;
 import org.opensaml.saml.common.xml.SAMLConstants;
 import org.opensaml.saml.criterion.BindingCriterion;
@@ -235,6 +236,42 @@ public class DefaultEndpointResolverTest extends XMLObjectBaseTestCase {
         Assert.assertEquals(eps.size(), 2);
     }
     
+    /** Endpoint with a requested index. */
+    @Test
+    public void testIndex() throws UnmarshallingException, ResolverException {
+        endpointCrit.getEndpoint().setLocation(null);
+        endpointCrit.getEndpoint().setBinding(null);
+        endpointCrit.getEndpoint().setIndex(3);
+        final RoleDescriptorCriterion roleCrit =
+                new RoleDescriptorCriterion(loadMetadata("/org/opensaml/saml/common/binding/SPWithEndpoints.xml"));
+        final CriteriaSet crits = new CriteriaSet(endpointCrit, roleCrit);
+        final AssertionConsumerService ep = resolver.resolveSingle(crits);
+        Assert.assertNotNull(ep);
+        Assert.assertEquals(ep.getBinding(), SAMLConstants.SAML2_ARTIFACT_BINDING_URI);
+        Assert.assertEquals(ep.getLocation(), LOCATION_ART.replace("Art2", "Art"));
+    }
+    
+    /** Endpoints added to metadata after it has been indexed, which are seen once the index is cleared. */
+    @Test
+    public void testAddedEndpoint() throws UnmarshallingException, ResolverException {
+        endpointCrit.getEndpoint().setLocation(LOCATION);
+        final SPSSODescriptor role = loadMetadata("/org/opensaml/saml/common/binding/SPWithEndpoints.xml");
+        final CriteriaSet crits = new CriteriaSet(endpointCrit, new RoleDescriptorCriterion(role));
+        Assert.assertNull(resolver.resolveSingle(crits));
+        
+        final AssertionConsumerService added = (AssertionConsumerService) builderFactory.getBuilderOrThrow(
+                AssertionConsumerService.DEFAULT_ELEMENT_NAME).buildObject(
+                        AssertionConsumerService.DEFAULT_ELEMENT_NAME);
+        added.setBinding(SAMLConstants.SAML2_POST_BINDING_URI);
+        added.setLocation(LOCATION);
+        added.setIndex(5);
+        role.getAssertionConsumerServices().add(added);
+        Assert.assertNull(resolver.resolveSingle(crits));
+        
+        EndpointIndex.clear(role);
+        Assert.assertSame(resolver.resolveSingle(crits), added);
+    }
+    
     @Nonnull private SPSSODescriptor loadMetadata(@Nonnull @NotEmpty final String path) throws UnmarshallingException {
         
         try {
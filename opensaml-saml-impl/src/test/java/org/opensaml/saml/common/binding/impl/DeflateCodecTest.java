@@ -0,0 +1,122 @@
+/*
+ * Licensed to the University Corporation for Advanced Internet Development,
+ * Inc. (UCAID) under one or more contributor license agreements.  See the
+ * NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The UCAID licenses this file to You under the Apache
+ * License, Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.opensaml.saml.common.binding.impl;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+import net.shibboleth.utilities.java.support.codec.Base64Support;
+
+import org.testng.Assert;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+/**
+ * Test for {@link DeflateCodec}.
+ */
+public class DeflateCodecTest {
+
+    private String message;
+
+    private DeflateCodec codec;
+
+    @BeforeMethod
+    public void setUp() {
+        StringBuilder builder = new StringBuilder("<samlp:AuthnRequest xmlns:samlp=\"urn:test\">");
+        for (int i = 0; i < 100; i++) {
+            builder.append("<Foo>Bar ").append(i).append("</Foo>");
+        }
+        message = builder.append("</samlp:AuthnRequest>").toString();
+        codec = new DeflateCodec(1);
+    }
+
+    @Test
+    public void testRoundTrip() throws IOException {
+        // Twice, so that pooled instances are reused.
+        for (int i = 0; i < 2; i++) {
+            String encoded = codec.deflateAndBase64Encode(message);
+            Assert.assertEquals(readFully(codec.base64DecodeAndInflate(encoded)), message);
+        }
+    }
+
+    @Test
+    public void testEncodingUnchanged() throws IOException {
+        ByteArrayOutputStream bytesOut = new ByteArrayOutputStream();
+        DeflaterOutputStream deflaterStream =
+                new DeflaterOutputStream(bytesOut, new Deflater(Deflater.DEFLATED, true));
+        deflaterStream.write(message.getBytes(StandardCharsets.UTF_8));
+        deflaterStream.finish();
+        String expected = Base64Support.encode(bytesOut.toByteArray(), Base64Support.UNCHUNKED);
+
+        Assert.assertEquals(codec.deflateAndBase64Encode(message), expected);
+        Assert.assertEquals(codec.deflateAndBase64Encode(message), expected);
+    }
+
+    @Test(expectedExceptions = IOException.class)
+    public void testMaxInflatedSize() throws IOException {
+        String encoded = codec.deflateAndBase64Encode(message);
+        codec.setMaxInflatedSize(message.length() - 1);
+        readFully(codec.base64DecodeAndInflate(encoded));
+    }
+
+    @Test
+    public void testReadAfterEnd() throws IOException {
+        String encoded = codec.deflateAndBase64Encode(message);
+        InputStream in = codec.base64DecodeAndInflate(encoded);
+        Assert.assertEquals(readFully(in), message);
+        Assert.assertEquals(in.read(), -1);
+        Assert.assertEquals(in.read(new byte[16]), -1);
+        Assert.assertEquals(in.available(), 0);
+
+        // The inflater was returned at the end of the stream, so may be reused before the stream is closed.
+        Assert.assertEquals(readFully(codec.base64DecodeAndInflate(encoded)), message);
+        in.close();
+        Assert.assertEquals(readFully(codec.base64DecodeAndInflate(encoded)), message);
+    }
+
+    @Test(expectedExceptions = IOException.class)
+    public void testReadAfterClose() throws IOException {
+        InputStream in = codec.base64DecodeAndInflate(codec.deflateAndBase64Encode(message));
+        in.close();
+        in.read();
+    }
+
+    /**
+     * Read a stream to its end as UTF-8.
+     *
+     * @param in the stream
+     *
+     * @return the content of the stream
+     *
+     * @throws IOException if the stream can not be read
+     */
+    private String readFully(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[256];
+        int count;
+        while ((count = in.read(buffer)) != -1) {
+            out.write(buffer, 0, count);
+        }
+        return new String(out.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+}
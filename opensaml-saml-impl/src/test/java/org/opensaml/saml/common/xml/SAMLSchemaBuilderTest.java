@@ -0,0 +1,77 @@
+/*
+ * Licensed to the University Corporation for Advanced Internet Development,
+ * Inc. (UCAID) under one or more contributor license agreements.  See the
+ * NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The UCAID licenses this file to You under the Apache
+ * License, Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.opensaml.saml.common.xml;
+
+import javax.xml.transform.dom.DOMSource;
+
+import net.shibboleth.utilities.java.support.xml.ClasspathResolver;
+import net.shibboleth.utilities.java.support.xml.SchemaBuilder;
+
+import org.opensaml.core.xml.XMLObjectBaseTestCase;
+import org.opensaml.core.xml.util.SchemaValidatorPool;
+import org.opensaml.saml.common.xml.SAMLSchemaBuilder.SAML1Version;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+import org.w3c.dom.Document;
+
+/** Test for {@link SAMLSchemaBuilder}. */
+public class SAMLSchemaBuilderTest extends XMLObjectBaseTestCase {
+
+    @Test
+    public void testSharedSchema() throws Exception {
+        final SAMLSchemaBuilder first = new SAMLSchemaBuilder(SAML1Version.SAML_11);
+        final SAMLSchemaBuilder second = new SAMLSchemaBuilder(SAML1Version.SAML_11);
+
+        final SchemaValidatorPool validators = first.getSAMLSchemaValidators();
+        Assert.assertSame(first.getSAMLSchemaValidators(), validators);
+        Assert.assertSame(second.getSAMLSchemaValidators(), validators);
+        Assert.assertSame(second.getSAMLSchema(), validators.getSchema());
+    }
+
+    @Test
+    public void testSchemaSets() throws Exception {
+        final SchemaValidatorPool saml11 = new SAMLSchemaBuilder(SAML1Version.SAML_11).getSAMLSchemaValidators();
+        final SchemaValidatorPool saml10 = new SAMLSchemaBuilder(SAML1Version.SAML_10).getSAMLSchemaValidators();
+
+        Assert.assertNotSame(saml10, saml11);
+        Assert.assertNotSame(saml10.getSchema(), saml11.getSchema());
+        Assert.assertSame(new SAMLSchemaBuilder(SAML1Version.SAML_10).getSAMLSchemaValidators(), saml10);
+    }
+
+    @Test
+    public void testInjectedSchemaBuilder() throws Exception {
+        final SchemaBuilder schemaBuilder = new SchemaBuilder();
+        schemaBuilder.setResourceResolver(new ClasspathResolver());
+        final SAMLSchemaBuilder builder = new SAMLSchemaBuilder(SAML1Version.SAML_11);
+        builder.setSchemaBuilder(schemaBuilder);
+
+        final SchemaValidatorPool validators = builder.getSAMLSchemaValidators();
+        Assert.assertSame(builder.getSAMLSchemaValidators(), validators);
+        Assert.assertNotSame(validators, new SAMLSchemaBuilder(SAML1Version.SAML_11).getSAMLSchemaValidators());
+    }
+
+    @Test
+    public void testValidation() throws Exception {
+        final Document metadata = parserPool.parse(SAMLSchemaBuilderTest.class.getResourceAsStream(
+                "/org/opensaml/saml/saml2/metadata/simple-metadata.xml"));
+
+        new SAMLSchemaBuilder(SAML1Version.SAML_11).getSAMLSchemaValidators().validate(new DOMSource(metadata));
+        new SAMLSchemaBuilder(SAML1Version.SAML_11).getSAMLSchemaValidators().validate(new DOMSource(metadata));
+    }
+
+}
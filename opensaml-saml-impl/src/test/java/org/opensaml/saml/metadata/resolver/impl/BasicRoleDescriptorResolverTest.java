@@ -28,12 +28,15 @@ import net.shibboleth.utilities.java.support.resolver.ResolverException;
 
 import org.opensaml.core.criterion.EntityIdCriterion;
 import org.opensaml.core.xml.XMLObjectBaseTestCase;
+import org.joda.time.DateTime;
 import org.opensaml.saml.common.xml.SAMLConstants;
+import org.opensaml.saml.criterion.BindingCriterion;
 import org.opensaml.saml.criterion.EntityRoleCriterion;
 import org.opensaml.saml.criterion.ProtocolCriterion;
 import org.opensaml.saml.ext.saml2mdquery.AttributeQueryDescriptorType;
 import org.opensaml.saml.metadata.resolver.MetadataResolver;
 import org.opensaml.saml.metadata.resolver.filter.MetadataFilter;
+import org.opensaml.saml.saml2.metadata.AssertionConsumerService;
 import org.opensaml.saml.saml2.metadata.EntityDescriptor;
 import org.opensaml.saml.saml2.metadata.RoleDescriptor;
 import org.opensaml.saml.saml2.metadata.SPSSODescriptor;
@@ -48,11 +51,15 @@ public class BasicRoleDescriptorResolverTest extends XMLObjectBaseTestCase {
     
     private BasicRoleDescriptorResolver roleResolver;
     
+    private EntityDescriptor entityDescriptor;
+    
+    private MetadataResolver metadataResolver;
+    
     @BeforeMethod
     public void setUp() throws ComponentInitializationException {
-        final EntityDescriptor entityDescriptor = buildTestDescriptor();
+        entityDescriptor = buildTestDescriptor();
         
-        MetadataResolver metadataResolver = new MetadataResolver() {
+        metadataResolver = new MetadataResolver() {
             
             @Nullable public String getId() { return "foo"; }
             
@@ -144,6 +151,78 @@ public class BasicRoleDescriptorResolverTest extends XMLObjectBaseTestCase {
        Assert.assertEquals(1, count, "Resolved unexpected number of RoleDescriptors");
     }
     
+    @Test
+    public void testResolveMultiWithBinding() throws ResolverException {
+        Iterable<RoleDescriptor> roleDescriptors = roleResolver.resolve(new CriteriaSet(
+                new EntityIdCriterion("http://www.example.org"), 
+                new EntityRoleCriterion(SPSSODescriptor.DEFAULT_ELEMENT_NAME),
+                new BindingCriterion(Collections.singletonList(SAMLConstants.SAML2_POST_BINDING_URI))));
+        
+        int count = 0;
+        for (RoleDescriptor roleDescriptor : roleDescriptors) {
+            Assert.assertTrue(roleDescriptor.getSupportedProtocols().contains(SAMLConstants.SAML20P_NS),
+                    "Returned RoleDescriptor didn't have an endpoint with the specified binding");
+            count++;
+        }
+        
+        Assert.assertEquals(1, count, "Resolved unexpected number of RoleDescriptors");
+    }
+    
+    @Test
+    public void testResolveSingleWithProtocolAndBinding() throws ResolverException {
+        RoleDescriptor roleDescriptor = roleResolver.resolveSingle(new CriteriaSet(
+                new EntityIdCriterion("http://www.example.org"), 
+                new EntityRoleCriterion(SPSSODescriptor.DEFAULT_ELEMENT_NAME),
+                new ProtocolCriterion(SAMLConstants.SAML20P_NS),
+                new BindingCriterion(Collections.singletonList(SAMLConstants.SAML2_POST_BINDING_URI))));
+        Assert.assertNotNull(roleDescriptor, "Resolved RoleDescriptor was null");
+        
+        roleDescriptor = roleResolver.resolveSingle(new CriteriaSet(
+                new EntityIdCriterion("http://www.example.org"), 
+                new EntityRoleCriterion(SPSSODescriptor.DEFAULT_ELEMENT_NAME),
+                new ProtocolCriterion(SAMLConstants.SAML20P_NS),
+                new BindingCriterion(Collections.singletonList(SAMLConstants.SAML2_ARTIFACT_BINDING_URI))));
+        Assert.assertNull(roleDescriptor, "Resolved RoleDescriptor without an endpoint with the specified binding");
+    }
+    
+    @Test
+    public void testResolveAddedRole() throws ResolverException {
+        RoleDescriptor roleDescriptor = roleResolver.resolveSingle(new CriteriaSet(
+                new EntityIdCriterion("http://www.example.org"), 
+                new EntityRoleCriterion(SPSSODescriptor.DEFAULT_ELEMENT_NAME),
+                new ProtocolCriterion(SAMLConstants.SAML10P_NS)));
+        Assert.assertNull(roleDescriptor);
+        
+        SPSSODescriptor spssoDescriptor3 = buildXMLObject(SPSSODescriptor.DEFAULT_ELEMENT_NAME);
+        spssoDescriptor3.addSupportedProtocol(SAMLConstants.SAML10P_NS);
+        entityDescriptor.getRoleDescriptors().add(spssoDescriptor3);
+        
+        roleDescriptor = roleResolver.resolveSingle(new CriteriaSet(
+                new EntityIdCriterion("http://www.example.org"), 
+                new EntityRoleCriterion(SPSSODescriptor.DEFAULT_ELEMENT_NAME),
+                new ProtocolCriterion(SAMLConstants.SAML10P_NS)));
+        Assert.assertSame(roleDescriptor, spssoDescriptor3);
+    }
+    
+    @Test
+    public void testRequireValidMetadata() throws ResolverException, ComponentInitializationException {
+        BasicRoleDescriptorResolver validatingResolver = new BasicRoleDescriptorResolver(metadataResolver);
+        validatingResolver.setRequireValidMetadata(true);
+        validatingResolver.initialize();
+        
+        CriteriaSet criteria = new CriteriaSet(new EntityIdCriterion("http://www.example.org"), 
+                new EntityRoleCriterion(SPSSODescriptor.DEFAULT_ELEMENT_NAME));
+        ((SPSSODescriptor) entityDescriptor.getRoleDescriptors().get(0)).setValidUntil(new DateTime().minusDays(1));
+        Assert.assertNotNull(validatingResolver.resolveSingle(criteria), "Resolved RoleDescriptor was null");
+        Assert.assertTrue(validatingResolver.resolveSingle(criteria).getSupportedProtocols().contains(
+                SAMLConstants.SAML20P_NS), "Resolved an expired RoleDescriptor");
+        
+        entityDescriptor.setValidUntil(new DateTime().minusDays(1));
+        entityDescriptor.getRoleDescriptors().add(
+                (SPSSODescriptor) buildXMLObject(SPSSODescriptor.DEFAULT_ELEMENT_NAME));
+        Assert.assertNull(validatingResolver.resolveSingle(criteria), "Resolved an expired RoleDescriptor");
+    }
+    
     // Helper methods
     
     private EntityDescriptor buildTestDescriptor() {
@@ -151,6 +230,8 @@ public class BasicRoleDescriptorResolverTest extends XMLObjectBaseTestCase {
         
         SPSSODescriptor spssoDescriptor1 = buildXMLObject(SPSSODescriptor.DEFAULT_ELEMENT_NAME);
         spssoDescriptor1.addSupportedProtocol(SAMLConstants.SAML11P_NS);
+        spssoDescriptor1.getAssertionConsumerServices().add(
+                buildACS(SAMLConstants.SAML1_ARTIFACT_BINDING_URI, "https://sp.example.org/SAML1/Artifact"));
         entityDescriptor.getRoleDescriptors().add(spssoDescriptor1);
         
         AttributeQueryDescriptorType aqDescriptor = buildXMLObject(AttributeQueryDescriptorType.TYPE_NAME);
@@ -159,10 +240,19 @@ public class BasicRoleDescriptorResolverTest extends XMLObjectBaseTestCase {
         
         SPSSODescriptor spssoDescriptor2 = buildXMLObject(SPSSODescriptor.DEFAULT_ELEMENT_NAME);
         spssoDescriptor2.addSupportedProtocol(SAMLConstants.SAML20P_NS);
+        spssoDescriptor2.getAssertionConsumerServices().add(
+                buildACS(SAMLConstants.SAML2_POST_BINDING_URI, "https://sp.example.org/SAML2/POST"));
         entityDescriptor.getRoleDescriptors().add(spssoDescriptor2);
         
         return entityDescriptor;
     }
+    
+    private AssertionConsumerService buildACS(String binding, String location) {
+        AssertionConsumerService acs = buildXMLObject(AssertionConsumerService.DEFAULT_ELEMENT_NAME);
+        acs.setBinding(binding);
+        acs.setLocation(location);
+        return acs;
+    }
 
 
 }
@@ -25,6 +25,7 @@ import java.util.zip.Deflater;
 import java.util.zip.DeflaterOutputStream;
 
 import net.shibboleth.utilities.java.support.codec.Base64Support;
+import net.shibboleth.utilities.java.support.component.UnmodifiableComponentException;
 import net.shibboleth.utilities.java.support.xml.SerializeSupport;
 
 import org.opensaml.core.xml.XMLObjectBaseTestCase;
@@ -34,6 +35,7 @@ import org.opensaml.messaging.decoder.MessageDecodingException;
 import org.opensaml.messaging.encoder.MessageEncodingException;
 import org.opensaml.saml.common.SAMLObject;
 import org.opensaml.saml.common.binding.SAMLBindingSupport;
+import org.opensaml.saml.common.binding.impl.DeflateCodec;
 import org.opensaml.saml.saml2.binding.decoding.impl.HTTPRedirectDeflateDecoder;
 import org.opensaml.saml.saml2.core.AuthnRequest;
 import org.opensaml.saml.saml2.core.RequestAbstractType;
@@ -83,6 +85,11 @@ public class HTTPRedirectDeflateDecoderTest extends XMLObjectBaseTestCase {
         Assert.assertEquals(SAMLBindingSupport.getRelayState(messageContext), expectedRelayValue);
     }
 
+    @Test(expectedExceptions = UnmodifiableComponentException.class)
+    public void testSetDeflateCodecAfterInit() {
+        decoder.setDeflateCodec(new DeflateCodec());
+    }
+
     @Test
     public void testRequestDecoding() throws MessageDecodingException, MessageEncodingException, MarshallingException {
         AuthnRequest samlRequest =
@@ -17,6 +17,12 @@
 
 package org.opensaml.saml.saml2.binding.encoding.impl;
 
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import net.shibboleth.utilities.java.support.codec.Base64Support;
+import net.shibboleth.utilities.java.support.codec.HTMLEncoder;
+
 import org.apache.velocity.app.VelocityEngine;
 import org.apache.velocity.runtime.RuntimeConstants;
 import org.joda.time.DateTime;
@@ -26,6 +32,7 @@ import org.opensaml.saml.common.SAMLObject;
 import org.opensaml.saml.common.SAMLObjectBuilder;
 import org.opensaml.saml.common.SAMLVersion;
 import org.opensaml.saml.common.binding.SAMLBindingSupport;
+import org.opensaml.saml.common.binding.impl.DefaultHTTPPostFormRenderer;
 import org.opensaml.saml.common.binding.impl.SAMLOutboundDestinationHandler;
 import org.opensaml.saml.common.messaging.context.SAMLEndpointContext;
 import org.opensaml.saml.common.messaging.context.SAMLPeerEntityContext;
@@ -165,4 +172,57 @@ public class HTTPPostEncoderTest extends XMLObjectBaseTestCase {
         Assert.assertEquals(response.getContentAsString().hashCode(), 1585035273);
         
     }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testFormRendererEncoding() throws Exception {
+        SAMLObjectBuilder<AuthnRequest> responseBuilder = (SAMLObjectBuilder<AuthnRequest>) builderFactory
+                .getBuilder(AuthnRequest.DEFAULT_ELEMENT_NAME);
+        AuthnRequest samlMessage = responseBuilder.buildObject();
+        samlMessage.setID("foo");
+        samlMessage.setVersion(SAMLVersion.VERSION_20);
+        samlMessage.setIssueInstant(new DateTime(0));
+
+        SAMLObjectBuilder<Endpoint> endpointBuilder = (SAMLObjectBuilder<Endpoint>) builderFactory
+                .getBuilder(AssertionConsumerService.DEFAULT_ELEMENT_NAME);
+        Endpoint samlEndpoint = endpointBuilder.buildObject();
+        samlEndpoint.setLocation("http://example.org");
+        samlEndpoint.setResponseLocation("http://example.org/response");
+        
+        MessageContext<SAMLObject> messageContext = new MessageContext<>();
+        messageContext.setMessage(samlMessage);
+        SAMLBindingSupport.setRelayState(messageContext, "relay\"state");
+        messageContext.getSubcontext(SAMLPeerEntityContext.class, true)
+            .getSubcontext(SAMLEndpointContext.class, true).setEndpoint(samlEndpoint);
+        
+        SAMLOutboundDestinationHandler handler = new SAMLOutboundDestinationHandler();
+        handler.invoke(messageContext);
+        
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        
+        HTTPPostEncoder encoder = new HTTPPostEncoder();
+        encoder.setMessageContext(messageContext);
+        encoder.setHttpServletResponse(response);
+        
+        encoder.setFormRenderer(new DefaultHTTPPostFormRenderer());
+        
+        encoder.initialize();
+        encoder.prepareContext();
+        encoder.encode();
+
+        Assert.assertEquals(response.getContentType(), "text/html", "Unexpected content type");
+        Assert.assertEquals("UTF-8", response.getCharacterEncoding(), "Unexpected character encoding");
+        Assert.assertEquals(response.getHeader("Cache-control"), "no-cache, no-store", "Unexpected cache controls");
+        
+        String content = response.getContentAsString();
+        Assert.assertTrue(content.contains(
+                "<form action=\"" + HTMLEncoder.encodeForHTMLAttribute("http://example.org") + "\" method=\"post\">"));
+        Assert.assertTrue(content.contains("<input type=\"hidden\" name=\"RelayState\" value=\""
+                + HTMLEncoder.encodeForHTMLAttribute("relay\"state") + "\"/>"));
+        
+        Matcher matcher = Pattern.compile("name=\"SAMLRequest\" value=\"([A-Za-z0-9+/=]+)\"").matcher(content);
+        Assert.assertTrue(matcher.find(), "No SAMLRequest form control");
+        String decoded = new String(Base64Support.decode(matcher.group(1)), "UTF-8");
+        Assert.assertTrue(decoded.contains("ID=\"foo\""));
+    }
 }
\ No newline at end of file
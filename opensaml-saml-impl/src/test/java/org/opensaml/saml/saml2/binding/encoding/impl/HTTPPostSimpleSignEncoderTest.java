@@ -19,11 +19,13 @@ package org.opensaml.saml.saml2.binding.encoding.impl;
 
 import java.security.KeyPair;
 
+import org.apache.velocity.VelocityContext;
 import org.apache.velocity.app.VelocityEngine;
 import org.apache.velocity.runtime.RuntimeConstants;
 import org.joda.time.DateTime;
 import org.opensaml.core.xml.XMLObjectBaseTestCase;
 import org.opensaml.messaging.context.MessageContext;
+import org.opensaml.messaging.encoder.MessageEncodingException;
 import org.opensaml.saml.common.SAMLObject;
 import org.opensaml.saml.common.SAMLObjectBuilder;
 import org.opensaml.saml.common.SAMLVersion;
@@ -39,6 +41,7 @@ import org.opensaml.saml.saml2.core.Status;
 import org.opensaml.saml.saml2.core.StatusCode;
 import org.opensaml.saml.saml2.metadata.AssertionConsumerService;
 import org.opensaml.saml.saml2.metadata.Endpoint;
+import org.opensaml.security.credential.Credential;
 import org.opensaml.security.credential.CredentialSupport;
 import org.opensaml.security.crypto.KeySupport;
 import org.opensaml.xmlsec.SignatureSigningParameters;
@@ -232,4 +235,60 @@ public class HTTPPostSimpleSignEncoderTest extends XMLObjectBaseTestCase {
         // Note: to test that actual signature is cryptographically correct, really need a known good test vector.
         // Need to verify that we're signing over the right data in the right byte[] encoded form.
     }
+    
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testLegacyFormDataOverride() throws Exception {
+        SAMLObjectBuilder<AuthnRequest> responseBuilder = (SAMLObjectBuilder<AuthnRequest>) builderFactory
+                .getBuilder(AuthnRequest.DEFAULT_ELEMENT_NAME);
+        AuthnRequest samlMessage = responseBuilder.buildObject();
+        samlMessage.setID("foo");
+        samlMessage.setVersion(SAMLVersion.VERSION_20);
+        samlMessage.setIssueInstant(new DateTime(0));
+
+        SAMLObjectBuilder<Endpoint> endpointBuilder = (SAMLObjectBuilder<Endpoint>) builderFactory
+                .getBuilder(AssertionConsumerService.DEFAULT_ELEMENT_NAME);
+        Endpoint samlEndpoint = endpointBuilder.buildObject();
+        samlEndpoint.setLocation("http://example.org");
+        
+        MessageContext<SAMLObject> messageContext = new MessageContext<>();
+        messageContext.setMessage(samlMessage);
+        SAMLBindingSupport.setRelayState(messageContext, "relay");
+        messageContext.getSubcontext(SAMLPeerEntityContext.class, true)
+            .getSubcontext(SAMLEndpointContext.class, true).setEndpoint(samlEndpoint);
+        
+        KeyPair kp = KeySupport.generateKeyPair("RSA", 1024, null);
+        SignatureSigningParameters signingParameters = new SignatureSigningParameters();
+        signingParameters.setSigningCredential(CredentialSupport.getSimpleCredential(kp.getPublic(), kp.getPrivate()));
+        signingParameters.setSignatureAlgorithm(SignatureConstants.ALGO_ID_SIGNATURE_RSA_SHA256);
+        messageContext.getSubcontext(SecurityParametersContext.class, true).setSignatureSigningParameters(signingParameters);
+        
+        final String[] signed = new String[1];
+        HTTPPostSimpleSignEncoder encoder = new HTTPPostSimpleSignEncoder() {
+            @Deprecated
+            protected String buildFormDataToSign(VelocityContext velocityContext,
+                    MessageContext<SAMLObject> msgContext, String sigAlgURI) {
+                Assert.assertNotNull(velocityContext.get("SAMLRequest"));
+                Assert.assertEquals(velocityContext.get("RelayState"), "relay");
+                Assert.assertEquals(velocityContext.get("SigAlg"), sigAlgURI);
+                signed[0] = "legacy";
+                return signed[0];
+            }
+            
+            protected String generateSignature(Credential signingCredential, String algorithmURI, String formData)
+                    throws MessageEncodingException {
+                Assert.assertEquals(formData, "legacy");
+                return super.generateSignature(signingCredential, algorithmURI, formData);
+            }
+        };
+        encoder.setMessageContext(messageContext);
+        encoder.setHttpServletResponse(new MockHttpServletResponse());
+        encoder.setVelocityEngine(velocityEngine);
+        
+        encoder.initialize();
+        encoder.prepareContext();
+        encoder.encode();
+        
+        Assert.assertEquals(signed[0], "legacy", "Override of deprecated buildFormDataToSign was not called");
+    }
 }
\ No newline at end of file
@@ -353,4 +353,55 @@ public class ComplexEncryptionTest extends XMLObjectBaseTestCase {
                 "Encrypted object was not an instance of the expected type");
     }
 
+    /** Test batch encryption with a single shared key transport operation and peer key placement. */
+    @Test
+    public void testBatchPeer() {
+        Assertion assertion = (Assertion) unmarshallElement("/org/opensaml/saml/saml2/encryption/Assertion.xml");
+        
+        List<Attribute> targets = new ArrayList<>(assertion.getAttributeStatements().get(0).getAttributes());
+        Assert.assertTrue(targets.size() > 1, "Test requires more than one Attribute");
+        
+        kekParamsList.add(kekParamsRSA);
+        
+        encrypter = new Encrypter(encParams, kekParamsList);
+        encrypter.setKeyPlacement(KeyPlacement.PEER);
+        
+        List<EncryptedAttribute> encTargets = null;
+        try {
+            encTargets = encrypter.encryptAttributes(targets);
+        } catch (EncryptionException e) {
+            Assert.fail("Object encryption failed: " + e);
+        }
+        
+        Assert.assertEquals(encTargets.size(), targets.size(), "Number of encrypted objects");
+        
+        String cipherValue = null;
+        for (EncryptedAttribute encTarget : encTargets) {
+            Assert.assertEquals(encTarget.getEncryptedKeys().size(), 1, "Number of peer EncryptedKeys");
+            EncryptedKey encKey = encTarget.getEncryptedKeys().get(0);
+            EncryptedData encData = encTarget.getEncryptedData();
+            
+            Assert.assertFalse(Strings.isNullOrEmpty(encKey.getID()), "EncryptedKey ID attribute was empty");
+            Assert.assertEquals(encData.getKeyInfo().getRetrievalMethods().size(), 1,
+                    "EncryptedData contained invalid number of RetrievalMethods");
+            Assert.assertEquals(encData.getKeyInfo().getRetrievalMethods().get(0).getURI(), "#" + encKey.getID(),
+                    "EncryptedData RetrievalMethod had incorrect URI value");
+            Assert.assertEquals(encKey.getReferenceList().getDataReferences().size(), 1,
+                    "EncryptedKey contained invalid number DataReferences");
+            Assert.assertEquals(encKey.getReferenceList().getDataReferences().get(0).getURI(),
+                    "#" + encData.getID(), "EncryptedKey DataReference had incorrect URI value");
+            
+            // The data key is wrapped only once, so every copy carries the same wrapped value.
+            String value = encKey.getCipherData().getCipherValue().getValue();
+            if (cipherValue == null) {
+                cipherValue = value;
+            } else {
+                Assert.assertEquals(value, cipherValue, "EncryptedKey CipherValue differed across batch");
+            }
+        }
+        
+        Assert.assertFalse(encTargets.get(0).getEncryptedKeys().get(0).getID().equals(
+                encTargets.get(1).getEncryptedKeys().get(0).getID()), "EncryptedKey IDs were not unique");
+    }
+
 }
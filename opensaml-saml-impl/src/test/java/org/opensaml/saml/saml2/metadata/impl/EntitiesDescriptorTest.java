@@ -24,7 +24,9 @@ import javax.xml.namespace.QName;
 
 import org.joda.time.DateTime;
 import org.joda.time.chrono.ISOChronology;
+import org.opensaml.core.xml.AbstractXMLObject;
 import org.opensaml.core.xml.XMLObjectProviderBaseTestCase;
+import org.opensaml.core.xml.config.XMLObjectProviderRegistrySupport;
 import org.opensaml.saml.common.xml.SAMLConstants;
 import org.opensaml.saml.saml2.metadata.Extensions;
 import org.opensaml.saml.saml2.metadata.EntitiesDescriptor;
@@ -126,6 +128,24 @@ public class EntitiesDescriptorTest extends XMLObjectProviderBaseTestCase {
                 .getEntityDescriptors().size(), expectedEntityDescriptorsCount, "Entity Descriptor child elements");
     }
 
+    @Test
+    public void testChildElementsUnmarshallDeferred() {
+        // EntitiesDescriptor does not resolve deferred children, so registered names are not deferred under it.
+        XMLObjectProviderRegistrySupport.registerDeferredElement(Extensions.DEFAULT_ELEMENT_NAME);
+        XMLObjectProviderRegistrySupport.registerDeferredElement(EntityDescriptor.DEFAULT_ELEMENT_NAME);
+        try {
+            EntitiesDescriptor entitiesDescriptor = (EntitiesDescriptor) unmarshallElement(childElementsFile);
+
+            Assert.assertFalse(((AbstractXMLObject) entitiesDescriptor).hasDeferredChildElements());
+            Assert.assertNotNull(entitiesDescriptor.getExtensions(), "Extensions");
+            Assert.assertEquals(entitiesDescriptor.getEntityDescriptors().size(), expectedEntityDescriptorsCount,
+                    "Entity Descriptor child elements");
+        } finally {
+            XMLObjectProviderRegistrySupport.deregisterDeferredElement(Extensions.DEFAULT_ELEMENT_NAME);
+            XMLObjectProviderRegistrySupport.deregisterDeferredElement(EntityDescriptor.DEFAULT_ELEMENT_NAME);
+        }
+    }
+
     /** {@inheritDoc} */
     @Test
     public void testSingleElementMarshall() {
@@ -21,7 +21,12 @@ import javax.xml.namespace.QName;
 
 import org.joda.time.DateTime;
 import org.joda.time.chrono.ISOChronology;
+import org.opensaml.core.xml.AbstractXMLObject;
 import org.opensaml.core.xml.XMLObjectProviderBaseTestCase;
+import org.opensaml.core.xml.XMLRuntimeException;
+import org.opensaml.core.xml.config.XMLObjectProviderRegistrySupport;
+import org.opensaml.core.xml.io.Unmarshaller;
+import org.opensaml.core.xml.io.UnmarshallerFactory;
 import org.opensaml.core.xml.util.AttributeMap;
 import org.opensaml.saml.common.xml.SAMLConstants;
 import org.opensaml.saml.saml2.metadata.Extensions;
@@ -184,6 +189,83 @@ public class EntityDescriptorTest extends XMLObjectProviderBaseTestCase {
         Assert.assertEquals(descriptor.getAdditionalMetadataLocations().size(), 3, "AdditionalMetadataLocation count");
     }
 
+    @Test public void testChildElementsUnmarshallDeferred() {
+        XMLObjectProviderRegistrySupport.registerDeferredElement(Extensions.DEFAULT_ELEMENT_NAME);
+        XMLObjectProviderRegistrySupport.registerDeferredElement(Organization.DEFAULT_ELEMENT_NAME);
+        // Not accepted as deferred by EntityDescriptor, so unmarshalled as usual.
+        XMLObjectProviderRegistrySupport.registerDeferredElement(AdditionalMetadataLocation.DEFAULT_ELEMENT_NAME);
+        try {
+            EntityDescriptor descriptor = (EntityDescriptor) unmarshallElement(childElementsFile);
+            Assert.assertTrue(((AbstractXMLObject) descriptor).hasDeferredChildElements());
+            Assert.assertEquals(descriptor.getAdditionalMetadataLocations().size(), 3,
+                    "AdditionalMetadataLocation count");
+            Assert.assertTrue(((AbstractXMLObject) descriptor).hasDeferredChildElements());
+
+            Assert.assertNotNull(descriptor.getExtensions(), "Extensions child");
+            Assert.assertNotNull(descriptor.getOrganization(), "Organization ");
+            Assert.assertFalse(((AbstractXMLObject) descriptor).hasDeferredChildElements());
+            Assert.assertNotNull(descriptor.getDOM(), "Cached DOM was released by resolution");
+        } finally {
+            XMLObjectProviderRegistrySupport.deregisterDeferredElement(Extensions.DEFAULT_ELEMENT_NAME);
+            XMLObjectProviderRegistrySupport.deregisterDeferredElement(Organization.DEFAULT_ELEMENT_NAME);
+            XMLObjectProviderRegistrySupport.deregisterDeferredElement(AdditionalMetadataLocation.DEFAULT_ELEMENT_NAME);
+        }
+    }
+
+    @Test public void testChildElementsUnmarshallDeferredFailure() {
+        XMLObjectProviderRegistrySupport.registerDeferredElement(Extensions.DEFAULT_ELEMENT_NAME);
+        XMLObjectProviderRegistrySupport.registerDeferredElement(Organization.DEFAULT_ELEMENT_NAME);
+        final UnmarshallerFactory factory = XMLObjectProviderRegistrySupport.getUnmarshallerFactory();
+        final QName defaultQName = XMLObjectProviderRegistrySupport.getDefaultProviderQName();
+        Unmarshaller organizationUnmarshaller = null;
+        Unmarshaller defaultUnmarshaller = null;
+        try {
+            EntityDescriptor descriptor = (EntityDescriptor) unmarshallElement(childElementsFile);
+            Assert.assertTrue(((AbstractXMLObject) descriptor).hasDeferredChildElements());
+
+            // With no unmarshaller for Organization, resolution fails after Extensions has been added.
+            organizationUnmarshaller = factory.deregisterUnmarshaller(Organization.DEFAULT_ELEMENT_NAME);
+            defaultUnmarshaller = factory.deregisterUnmarshaller(defaultQName);
+            for (int i = 0; i < 2; i++) {
+                try {
+                    descriptor.getOrganization();
+                    Assert.fail("Resolution of deferred child elements should have failed");
+                } catch (final XMLRuntimeException e) {
+                    Assert.assertTrue(((AbstractXMLObject) descriptor).hasDeferredChildElements());
+                }
+            }
+
+            // The failure sticks, rather than a retry adding the children which did unmarshall a second time.
+            factory.registerUnmarshaller(Organization.DEFAULT_ELEMENT_NAME, organizationUnmarshaller);
+            organizationUnmarshaller = null;
+            try {
+                descriptor.getOrganization();
+                Assert.fail("Earlier failure to resolve deferred child elements should have been reported");
+            } catch (final XMLRuntimeException e) {
+                Assert.assertTrue(((AbstractXMLObject) descriptor).hasDeferredChildElements());
+            }
+
+            // A fresh unmarshall of the same document resolves as usual.
+            if (defaultUnmarshaller != null) {
+                factory.registerUnmarshaller(defaultQName, defaultUnmarshaller);
+                defaultUnmarshaller = null;
+            }
+            descriptor = (EntityDescriptor) unmarshallElement(childElementsFile);
+            Assert.assertNotNull(descriptor.getOrganization(), "Organization");
+            Assert.assertNotNull(descriptor.getExtensions(), "Extensions child");
+            Assert.assertFalse(((AbstractXMLObject) descriptor).hasDeferredChildElements());
+        } finally {
+            if (organizationUnmarshaller != null) {
+                factory.registerUnmarshaller(Organization.DEFAULT_ELEMENT_NAME, organizationUnmarshaller);
+            }
+            if (defaultUnmarshaller != null) {
+                factory.registerUnmarshaller(defaultQName, defaultUnmarshaller);
+            }
+            XMLObjectProviderRegistrySupport.deregisterDeferredElement(Extensions.DEFAULT_ELEMENT_NAME);
+            XMLObjectProviderRegistrySupport.deregisterDeferredElement(Organization.DEFAULT_ELEMENT_NAME);
+        }
+    }
+
     /** {@inheritDoc} */
     @Test public void testSingleElementMarshall() {
         QName qname =
@@ -0,0 +1,142 @@
+/*
+ * Licensed to the University Corporation for Advanced Internet Development, 
+ * Inc. (UCAID) under one or more contributor license agreements.  See the 
+ * NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The UCAID licenses this file to You under the Apache 
+ * License, Version 2.0 (the "License"); you may not use this file except in 
+ * compliance with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.opensaml.saml.saml2.wssecurity.messaging.impl;
+
+import net.shibboleth.utilities.java.support.resolver.CriteriaSet;
+
+import org.joda.time.DateTime;
+import org.opensaml.core.criterion.EntityIdCriterion;
+import org.opensaml.core.xml.XMLObjectBaseTestCase;
+import org.opensaml.core.xml.io.MarshallingException;
+import org.opensaml.core.xml.util.XMLObjectSupport;
+import org.opensaml.saml.saml2.assertion.SAML20AssertionValidator;
+import org.opensaml.saml.saml2.core.Assertion;
+import org.opensaml.saml.saml2.core.Conditions;
+import org.opensaml.saml.saml2.profile.SAML2ActionTestingSupport;
+import org.opensaml.security.credential.UsageType;
+import org.opensaml.security.criteria.UsageCriterion;
+import org.testng.Assert;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+/**
+ * Test for {@link ValidatedAssertionCache}.
+ */
+public class ValidatedAssertionCacheTest extends XMLObjectBaseTestCase {
+    
+    private SAML20AssertionValidator validator;
+    
+    private CriteriaSet criteria;
+    
+    @BeforeMethod
+    protected void setUp() {
+        validator = new SAML20AssertionValidator(null, null, null, null, null);
+        criteria = new CriteriaSet(new EntityIdCriterion("issuer"));
+    }
+    
+    @Test
+    public void testMatch() throws MarshallingException {
+        final ValidatedAssertionCache cache = new ValidatedAssertionCache();
+        final Assertion assertion = buildAssertion("one", new DateTime().plusMinutes(5));
+        final String key = cache.getKey(assertion);
+        
+        Assert.assertFalse(cache.isValidated(key, validator, criteria));
+        cache.add(key, assertion, validator, criteria);
+        Assert.assertTrue(cache.isValidated(key, validator, criteria));
+        Assert.assertTrue(cache.isValidated(key, validator, new CriteriaSet(new EntityIdCriterion("issuer"))));
+        Assert.assertFalse(cache.isValidated(key, new SAML20AssertionValidator(null, null, null, null, null),
+                criteria));
+        
+        // Same ID, different content.
+        assertion.getConditions().setNotOnOrAfter(new DateTime().plusMinutes(6));
+        XMLObjectSupport.marshall(assertion);
+        Assert.assertFalse(key.equals(cache.getKey(assertion)));
+        Assert.assertFalse(cache.isValidated(cache.getKey(assertion), validator, criteria));
+        
+        cache.clear();
+        Assert.assertFalse(cache.isValidated(key, validator, criteria));
+    }
+    
+    @Test
+    public void testCriteria() throws MarshallingException {
+        final ValidatedAssertionCache cache = new ValidatedAssertionCache();
+        final Assertion assertion = buildAssertion("one", new DateTime().plusMinutes(5));
+        final String key = cache.getKey(assertion);
+        
+        cache.add(key, assertion, validator, criteria);
+        Assert.assertFalse(cache.isValidated(key, validator, new CriteriaSet(new EntityIdCriterion("other"))));
+        Assert.assertFalse(cache.isValidated(key, validator,
+                new CriteriaSet(new EntityIdCriterion("issuer"), new UsageCriterion(UsageType.SIGNING))));
+        Assert.assertFalse(cache.isValidated(key, validator, null));
+        
+        cache.add(key, assertion, validator, null);
+        Assert.assertTrue(cache.isValidated(key, validator, null));
+        Assert.assertTrue(cache.isValidated(key, validator, new CriteriaSet()));
+        Assert.assertFalse(cache.isValidated(key, validator, criteria));
+    }
+    
+    @Test
+    public void testExpiration() throws MarshallingException, InterruptedException {
+        final ValidatedAssertionCache cache = new ValidatedAssertionCache(10, 50);
+        
+        final Assertion expired = buildAssertion("expired", new DateTime().minusMinutes(1));
+        cache.add(cache.getKey(expired), expired, validator, criteria);
+        Assert.assertFalse(cache.isValidated(cache.getKey(expired), validator, criteria));
+        
+        final Assertion assertion = buildAssertion("one", null);
+        final String key = cache.getKey(assertion);
+        cache.add(key, assertion, validator, criteria);
+        Assert.assertTrue(cache.isValidated(key, validator, criteria));
+        Thread.sleep(100);
+        Assert.assertFalse(cache.isValidated(key, validator, criteria));
+    }
+    
+    @Test
+    public void testEviction() throws MarshallingException {
+        final ValidatedAssertionCache cache = new ValidatedAssertionCache(2, ValidatedAssertionCache.DEFAULT_MAX_LIFETIME);
+        final Assertion one = buildAssertion("one", null);
+        final Assertion two = buildAssertion("two", null);
+        final Assertion three = buildAssertion("three", null);
+        
+        cache.add(cache.getKey(one), one, validator, criteria);
+        cache.add(cache.getKey(two), two, validator, criteria);
+        Assert.assertTrue(cache.isValidated(cache.getKey(one), validator, criteria));
+        cache.add(cache.getKey(three), three, validator, criteria);
+        
+        Assert.assertTrue(cache.isValidated(cache.getKey(one), validator, criteria));
+        Assert.assertFalse(cache.isValidated(cache.getKey(two), validator, criteria));
+        Assert.assertTrue(cache.isValidated(cache.getKey(three), validator, criteria));
+    }
+    
+    @Test
+    public void testNoDOM() {
+        final ValidatedAssertionCache cache = new ValidatedAssertionCache();
+        Assert.assertNull(cache.getKey(SAML2ActionTestingSupport.buildAssertion()));
+    }
+    
+    private Assertion buildAssertion(final String id, final DateTime notOnOrAfter) throws MarshallingException {
+        final Assertion assertion = SAML2ActionTestingSupport.buildAssertion();
+        assertion.setID(id);
+        final Conditions conditions = buildXMLObject(Conditions.DEFAULT_ELEMENT_NAME);
+        conditions.setNotOnOrAfter(notOnOrAfter);
+        assertion.setConditions(conditions);
+        XMLObjectSupport.marshall(assertion);
+        return assertion;
+    }
+
+}
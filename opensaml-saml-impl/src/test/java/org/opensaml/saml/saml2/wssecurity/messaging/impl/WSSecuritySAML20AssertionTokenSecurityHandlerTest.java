@@ -20,16 +20,24 @@ package org.opensaml.saml.saml2.wssecurity.messaging.impl;
 import java.net.URISyntaxException;
 import java.security.KeyException;
 import java.security.cert.CertificateException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 
 import net.shibboleth.utilities.java.support.collection.Pair;
 import net.shibboleth.utilities.java.support.component.ComponentInitializationException;
+import net.shibboleth.utilities.java.support.resolver.CriteriaSet;
 
+import org.opensaml.core.criterion.EntityIdCriterion;
 import org.opensaml.core.xml.XMLObject;
 import org.opensaml.core.xml.XMLObjectBaseTestCase;
 import org.opensaml.core.xml.io.MarshallingException;
+import org.opensaml.core.xml.util.XMLObjectSupport;
 import org.opensaml.messaging.context.MessageContext;
 import org.opensaml.messaging.handler.MessageHandlerException;
 import org.opensaml.saml.common.assertion.AssertionValidationException;
@@ -52,13 +60,16 @@ import org.opensaml.soap.soap11.Header;
 import org.opensaml.soap.util.SOAPSupport;
 import org.opensaml.soap.wssecurity.Security;
 import org.opensaml.soap.wssecurity.WSSecurityConstants;
+import org.opensaml.soap.wssecurity.messaging.Token;
 import org.opensaml.soap.wssecurity.messaging.Token.ValidationStatus;
 import org.opensaml.soap.wssecurity.messaging.WSSecurityContext;
+import org.opensaml.xmlsec.signature.support.SignatureConstants;
 import org.opensaml.xmlsec.signature.support.SignatureException;
 import org.springframework.mock.web.MockHttpServletRequest;
 import org.testng.Assert;
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
+import org.w3c.dom.Element;
 
 import com.google.common.base.Function;
 
@@ -249,6 +260,82 @@ public class WSSecuritySAML20AssertionTokenSecurityHandlerTest extends XMLObject
         Assert.assertNull(securityContext);
     }
     
+    @Test
+    public void testValidatedAssertionCache() throws ComponentInitializationException, MessageHandlerException,
+            MarshallingException {
+        final MockAssertionValidator validator =
+                new MockAssertionValidator(ValidationResult.VALID, subjectConfirmation, false);
+        handler.setAssertionValidator(validator);
+        handler.setValidatedAssertionCache(new ValidatedAssertionCache());
+        handler.initialize();
+        
+        final Element dom = XMLObjectSupport.marshall(assertion);
+        dom.appendChild(dom.getOwnerDocument().createElementNS(SignatureConstants.XMLSIG_NS, "ds:Signature"));
+        
+        handler.invoke(messageContext);
+        handler.invoke(messageContext);
+        Assert.assertEquals(validator.signatureEvaluations, Arrays.asList(true, false));
+        
+        // Altered content is not matched.
+        dom.appendChild(dom.getOwnerDocument().createElementNS(SignatureConstants.XMLSIG_NS, "ds:Object"));
+        handler.invoke(messageContext);
+        Assert.assertEquals(validator.signatureEvaluations, Arrays.asList(true, false, true));
+        
+        WSSecurityContext securityContext = messageContext.getSubcontext(WSSecurityContext.class);
+        Assert.assertEquals(securityContext.getTokens().size(), 3);
+        for (final Token token : securityContext.getTokens()) {
+            Assert.assertEquals(token.getValidationStatus(), ValidationStatus.VALID);
+        }
+    }
+    
+    @Test
+    public void testValidatedAssertionCacheCriteria() throws ComponentInitializationException,
+            MessageHandlerException, MarshallingException {
+        final MockAssertionValidator validator =
+                new MockAssertionValidator(ValidationResult.VALID, subjectConfirmation, false);
+        final List<String> trustedEntities = new ArrayList<>(Arrays.asList("one", "one", "two"));
+        handler.setAssertionValidator(validator);
+        handler.setValidatedAssertionCache(new ValidatedAssertionCache());
+        handler.setValidationContextBuilder(new Function<SAML20AssertionTokenValidationInput, ValidationContext>() {
+            public ValidationContext apply(final SAML20AssertionTokenValidationInput input) {
+                final Map<String,Object> staticParams = new HashMap<>();
+                staticParams.put(SAML2AssertionValidationParameters.SIGNATURE_VALIDATION_CRITERIA_SET,
+                        new CriteriaSet(new EntityIdCriterion(trustedEntities.remove(0))));
+                return new ValidationContext(staticParams);
+            }
+        });
+        handler.initialize();
+        
+        final Element dom = XMLObjectSupport.marshall(assertion);
+        dom.appendChild(dom.getOwnerDocument().createElementNS(SignatureConstants.XMLSIG_NS, "ds:Signature"));
+        
+        // Criteria built for a later message differ, so the signature is evaluated again.
+        handler.invoke(messageContext);
+        handler.invoke(messageContext);
+        handler.invoke(messageContext);
+        Assert.assertEquals(validator.signatureEvaluations, Arrays.asList(true, false, true));
+    }
+    
+    @Test
+    public void testInvalidNotCached() throws ComponentInitializationException, MarshallingException {
+        final MockAssertionValidator validator = new MockAssertionValidator(ValidationResult.INVALID, null, false);
+        handler.setAssertionValidator(validator);
+        handler.setInvalidFatal(false);
+        handler.setValidatedAssertionCache(new ValidatedAssertionCache());
+        handler.initialize();
+        
+        final Element dom = XMLObjectSupport.marshall(assertion);
+        dom.appendChild(dom.getOwnerDocument().createElementNS(SignatureConstants.XMLSIG_NS, "ds:Signature"));
+        
+        try {
+            handler.invoke(messageContext);
+            handler.invoke(messageContext);
+        } catch (MessageHandlerException e) {
+            Assert.fail("Invalid Assertion should not have been fatal");
+        }
+        Assert.assertEquals(validator.signatureEvaluations, Arrays.asList(true, true));
+    }
+    
     @Test(expectedExceptions=ComponentInitializationException.class)
     public void testNoValidatorOrLookup() throws ComponentInitializationException, MessageHandlerException {
         handler.setAssertionValidator(null);
@@ -342,6 +429,7 @@ public class WSSecuritySAML20AssertionTokenSecurityHandlerTest extends XMLObject
         private ValidationResult  validationResult;
         private boolean isThrowException;
         private SubjectConfirmation confirmedSubjectConfirmation;
+        private List<Boolean> signatureEvaluations = new ArrayList<>();
         
         public MockAssertionValidator(ValidationResult result, SubjectConfirmation confirmed, boolean throwException) {
             super(null, null, null, null, null);
@@ -350,9 +438,10 @@ public class WSSecuritySAML20AssertionTokenSecurityHandlerTest extends XMLObject
             isThrowException = throwException;
         }
         
-        @Nonnull public ValidationResult validate(@Nonnull Assertion assertion, @Nonnull ValidationContext context)
-                throws AssertionValidationException {
+        @Nonnull public ValidationResult validate(@Nonnull Assertion assertion, @Nonnull ValidationContext context,
+                boolean evaluateSignature) throws AssertionValidationException {
             
+            signatureEvaluations.add(evaluateSignature);
             if (isThrowException) {
                 throw new AssertionValidationException();
             } else {
@@ -0,0 +1,210 @@
+/*
+ * Licensed to the University Corporation for Advanced Internet Development,
+ * Inc. (UCAID) under one or more contributor license agreements.  See the
+ * NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The UCAID licenses this file to You under the Apache
+ * License, Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.opensaml.security.crypto;
+
+import java.security.InvalidKeyException;
+import java.security.Key;
+import java.security.NoSuchAlgorithmException;
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.security.Signature;
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.annotation.Nonnull;
+import javax.crypto.Mac;
+
+import net.shibboleth.utilities.java.support.logic.Constraint;
+
+/**
+ * A per-thread cache of initialized JCA {@link Signature} and {@link Mac} engines, keyed by JCA algorithm ID and the
+ * class of the key the engine is initialized with.
+ *
+ * <p>
+ * Provider lookup and engine instantiation via <code>getInstance</code> can be expensive with some providers.
+ * Engines obtained from this cache are confined to the calling thread, and are always initialized by the cache with
+ * the key to be used for the operation at hand, which fully resets any state left over from a previous operation.
+ * Callers must {@link #evictSignature(String, Key)} or {@link #evictMac(String, Key)} an engine whose operation
+ * failed, since the JCA makes no guarantee about the state of an engine after an exception.
+ * </p>
+ *
+ * <p>
+ * An engine obtained with <code>getInstance</code> selects its provider when it is first initialized, according to
+ * the key, and keeps that provider thereafter. Since the provider chosen depends on the type of key, such as a
+ * software key or a key held by a PKCS#11 token, engines are cached separately for each class of key, so that each is
+ * only ever re-initialized with keys its provider was chosen for. Should a cached engine nonetheless reject a key, as
+ * with keys of the same class held by different tokens, it is replaced by a new engine which selects its provider
+ * afresh.
+ * </p>
+ *
+ * <p>
+ * A cached engine holds a reference to the key it was last initialized with until it is next initialized or evicted,
+ * and so does the calling thread. Callers that must not retain keys beyond an operation, or that change the installed
+ * providers at runtime, may use {@link #clearCurrentThread()} to discard the calling thread's engines.
+ * </p>
+ */
+public final class JCAEngineCache {
+
+    /** Per-thread cache of signature engines. */
+    private static final ThreadLocal<Map<String, Signature>> SIGNATURES =
+            new ThreadLocal<Map<String, Signature>>() {
+                protected Map<String, Signature> initialValue() {
+                    return new HashMap<>();
+                }
+            };
+
+    /** Per-thread cache of MAC engines. */
+    private static final ThreadLocal<Map<String, Mac>> MACS = new ThreadLocal<Map<String, Mac>>() {
+        protected Map<String, Mac> initialValue() {
+            return new HashMap<>();
+        }
+    };
+
+    /** Constructor. */
+    private JCAEngineCache() {
+    }
+
+    /**
+     * Get a {@link Signature} engine for the specified algorithm, owned by the calling thread and initialized for
+     * signing with the specified key.
+     *
+     * @param jcaAlgorithmID the JCA algorithm ID
+     * @param signingKey the key with which to sign
+     * @return the signature engine
+     * @throws NoSuchAlgorithmException if no provider supports the algorithm
+     * @throws InvalidKeyException if no provider supports the key
+     */
+    @Nonnull public static Signature initSign(@Nonnull final String jcaAlgorithmID,
+            @Nonnull final PrivateKey signingKey) throws NoSuchAlgorithmException, InvalidKeyException {
+        final String cacheKey = getCacheKey(jcaAlgorithmID, signingKey);
+        final Map<String, Signature> cache = SIGNATURES.get();
+        Signature signature = cache.get(cacheKey);
+        if (signature != null) {
+            try {
+                signature.initSign(signingKey);
+                return signature;
+            } catch (final InvalidKeyException e) {
+                cache.remove(cacheKey);
+            }
+        }
+        signature = Signature.getInstance(jcaAlgorithmID);
+        signature.initSign(signingKey);
+        cache.put(cacheKey, signature);
+        return signature;
+    }
+
+    /**
+     * Get a {@link Signature} engine for the specified algorithm, owned by the calling thread and initialized for
+     * verification with the specified key.
+     *
+     * @param jcaAlgorithmID the JCA algorithm ID
+     * @param verificationKey the key with which to verify
+     * @return the signature engine
+     * @throws NoSuchAlgorithmException if no provider supports the algorithm
+     * @throws InvalidKeyException if no provider supports the key
+     */
+    @Nonnull public static Signature initVerify(@Nonnull final String jcaAlgorithmID,
+            @Nonnull final PublicKey verificationKey) throws NoSuchAlgorithmException, InvalidKeyException {
+        final String cacheKey = getCacheKey(jcaAlgorithmID, verificationKey);
+        final Map<String, Signature> cache = SIGNATURES.get();
+        Signature signature = cache.get(cacheKey);
+        if (signature != null) {
+            try {
+                signature.initVerify(verificationKey);
+                return signature;
+            } catch (final InvalidKeyException e) {
+                cache.remove(cacheKey);
+            }
+        }
+        signature = Signature.getInstance(jcaAlgorithmID);
+        signature.initVerify(verificationKey);
+        cache.put(cacheKey, signature);
+        return signature;
+    }
+
+    /**
+     * Get a {@link Mac} engine for the specified algorithm, owned by the calling thread and initialized with the
+     * specified key.
+     *
+     * @param jcaAlgorithmID the JCA algorithm ID
+     * @param key the key with which to compute the MAC
+     * @return the MAC engine
+     * @throws NoSuchAlgorithmException if no provider supports the algorithm
+     * @throws InvalidKeyException if no provider supports the key
+     */
+    @Nonnull public static Mac initMac(@Nonnull final String jcaAlgorithmID, @Nonnull final Key key)
+            throws NoSuchAlgorithmException, InvalidKeyException {
+        final String cacheKey = getCacheKey(jcaAlgorithmID, key);
+        final Map<String, Mac> cache = MACS.get();
+        Mac mac = cache.get(cacheKey);
+        if (mac != null) {
+            try {
+                mac.init(key);
+                return mac;
+            } catch (final InvalidKeyException e) {
+                cache.remove(cacheKey);
+            }
+        }
+        mac = Mac.getInstance(jcaAlgorithmID);
+        mac.init(key);
+        cache.put(cacheKey, mac);
+        return mac;
+    }
+
+    /**
+     * Discard the calling thread's cached {@link Signature} engine for the specified algorithm and class of key.
+     *
+     * @param jcaAlgorithmID the JCA algorithm ID
+     * @param key the key the engine was initialized with
+     */
+    public static void evictSignature(@Nonnull final String jcaAlgorithmID, @Nonnull final Key key) {
+        SIGNATURES.get().remove(getCacheKey(jcaAlgorithmID, key));
+    }
+
+    /**
+     * Discard the calling thread's cached {@link Mac} engine for the specified algorithm and class of key.
+     *
+     * @param jcaAlgorithmID the JCA algorithm ID
+     * @param key the key the engine was initialized with
+     */
+    public static void evictMac(@Nonnull final String jcaAlgorithmID, @Nonnull final Key key) {
+        MACS.get().remove(getCacheKey(jcaAlgorithmID, key));
+    }
+
+    /**
+     * Discard all engines cached by the calling thread, and with them the keys they were last initialized with.
+     */
+    public static void clearCurrentThread() {
+        SIGNATURES.remove();
+        MACS.remove();
+    }
+
+    /**
+     * Get the key under which to cache an engine for an algorithm and key.
+     *
+     * @param jcaAlgorithmID the JCA algorithm ID
+     * @param key the key
+     * @return the cache key
+     */
+    @Nonnull private static String getCacheKey(@Nonnull final String jcaAlgorithmID, @Nonnull final Key key) {
+        Constraint.isNotNull(jcaAlgorithmID, "JCA algorithm ID cannot be null");
+        Constraint.isNotNull(key, "Key cannot be null");
+        return jcaAlgorithmID + '/' + key.getClass().getName();
+    }
+
+}
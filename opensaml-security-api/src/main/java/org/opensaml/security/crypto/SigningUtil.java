@@ -102,13 +102,13 @@ public final class SigningUtil {
                 .getAlgorithm(), jcaAlgorithmID);
 
         try {
-            Signature signature = Signature.getInstance(jcaAlgorithmID);
-            signature.initSign(signingKey);
+            Signature signature = JCAEngineCache.initSign(jcaAlgorithmID, signingKey);
             signature.update(input);
             byte[] rawSignature = signature.sign();
             log.debug("Computed signature: {}", Hex.encodeHex(rawSignature));
             return rawSignature;
         } catch (GeneralSecurityException e) {
+            JCAEngineCache.evictSignature(jcaAlgorithmID, signingKey);
             log.error("Error during signature generation", e);
             throw new SecurityException("Error during signature generation", e);
         }
@@ -137,13 +137,13 @@ public final class SigningUtil {
                 jcaAlgorithmID);
 
         try {
-            Mac mac = Mac.getInstance(jcaAlgorithmID);
-            mac.init(signingKey);
+            Mac mac = JCAEngineCache.initMac(jcaAlgorithmID, signingKey);
             mac.update(input);
             byte[] rawMAC = mac.doFinal();
             log.debug("Computed MAC: {}", Hex.encodeHexString(rawMAC));
             return rawMAC;
         } catch (GeneralSecurityException e) {
+            JCAEngineCache.evictMac(jcaAlgorithmID, signingKey);
             log.error("Error during MAC generation", e);
             throw new SecurityException("Error during MAC generation", e);
         }
@@ -211,11 +211,11 @@ public final class SigningUtil {
                 .getAlgorithm(), jcaAlgorithmID);
 
         try {
-            Signature sig = Signature.getInstance(jcaAlgorithmID);
-            sig.initVerify(verificationKey);
+            Signature sig = JCAEngineCache.initVerify(jcaAlgorithmID, verificationKey);
             sig.update(input);
             return sig.verify(signature);
         } catch (GeneralSecurityException e) {
+            JCAEngineCache.evictSignature(jcaAlgorithmID, verificationKey);
             log.error("Error during signature verification", e);
             throw new SecurityException("Error during signature verification", e);
         }
@@ -129,7 +129,34 @@ public class SigningUtilTest {
         
     }
     
-    private byte[] getControlSignature(byte[] data, SecretKey secretKey, String algorithm) 
+    @Test
+    public void testCachedEngineReinitialization() throws SecurityException, NoSuchAlgorithmException,
+            NoSuchProviderException, InvalidKeyException {
+        KeyPair otherKP = KeySupport.generateKeyPair("RSA", 1024, null);
+
+        // Alternate keys and modes on the same thread-cached engine.
+        for (int i = 0; i < 3; i++) {
+            byte[] signature = SigningUtil.sign(keyPairRSA.getPrivate(), rsaJCAAlgorithm, data.getBytes());
+            Assert.assertTrue(Arrays.equals(controlSignatureRSA, signature), "Signature was not the expected value");
+            Assert.assertFalse(SigningUtil.verify(otherKP.getPublic(), rsaJCAAlgorithm, signature, data.getBytes()),
+                    "Signature verified successfully, should have failed due to wrong verification key");
+            Assert.assertTrue(SigningUtil.verify(keyPairRSA.getPublic(), rsaJCAAlgorithm, signature, data.getBytes()),
+                    "Signature failed to verify, should have succeeded");
+
+            byte[] mac = SigningUtil.signMAC(secretKeyAES128, hmacJCAAlgorithm, data.getBytes());
+            Assert.assertTrue(Arrays.equals(controlSignatureHMAC, mac), "MAC was not the expected value");
+        }
+
+        // Engines are reused per class of key, but not across classes of key.
+        Signature signer = JCAEngineCache.initSign(rsaJCAAlgorithm, keyPairRSA.getPrivate());
+        Assert.assertSame(JCAEngineCache.initSign(rsaJCAAlgorithm, otherKP.getPrivate()), signer);
+        Assert.assertNotSame(JCAEngineCache.initVerify(rsaJCAAlgorithm, keyPairRSA.getPublic()), signer);
+        JCAEngineCache.clearCurrentThread();
+        Assert.assertNotSame(JCAEngineCache.initSign(rsaJCAAlgorithm, keyPairRSA.getPrivate()), signer);
+        JCAEngineCache.clearCurrentThread();
+    }
+
+    private byte[] getControlSignature(byte[] data, SecretKey secretKey, String algorithm)
             throws NoSuchAlgorithmException, InvalidKeyException {
         Mac mac = Mac.getInstance(algorithm);
         mac.init(secretKeyAES128);
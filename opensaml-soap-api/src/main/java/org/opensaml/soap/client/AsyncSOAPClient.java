@@ -0,0 +1,57 @@
+/*
+ * Licensed to the University Corporation for Advanced Internet Development, 
+ * Inc. (UCAID) under one or more contributor license agreements.  See the 
+ * NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The UCAID licenses this file to You under the Apache 
+ * License, Version 2.0 (the "License"); you may not use this file except in 
+ * compliance with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.opensaml.soap.client;
+
+import javax.annotation.Nonnull;
+import javax.annotation.concurrent.ThreadSafe;
+
+import net.shibboleth.utilities.java.support.annotation.constraint.NotEmpty;
+
+import org.opensaml.messaging.context.InOutOperationContext;
+
+import com.google.common.util.concurrent.ListenableFuture;
+
+/**
+ * An interface for a SOAP client which sends messages without blocking the caller.
+ * 
+ * <p>
+ * As with {@link SOAPClient}, implementations are strictly meant to shuttle messages to and from an endpoint.
+ * </p>
+ */
+@ThreadSafe
+public interface AsyncSOAPClient {
+
+    /**
+     * Sends a message and returns without waiting for a response.
+     * 
+     * <p>
+     * The returned future completes with the operation context once the response has been received and processed. If
+     * sending or processing fails, it completes with the {@link org.opensaml.soap.common.SOAPException} or
+     * {@link org.opensaml.security.SecurityException} that {@link SOAPClient#send(String, InOutOperationContext)}
+     * would have thrown. Cancelling the future abandons the exchange, and the context must then be disregarded.
+     * </p>
+     * 
+     * @param endpoint the endpoint to which to send the message
+     * @param context the operation context containing the outbound SOAP message
+     * 
+     * @return the future result of the exchange
+     */
+    @Nonnull ListenableFuture<InOutOperationContext> sendAsync(@Nonnull @NotEmpty final String endpoint,
+            @Nonnull final InOutOperationContext context);
+
+}
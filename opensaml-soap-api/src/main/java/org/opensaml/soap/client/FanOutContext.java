@@ -0,0 +1,217 @@
+/*
+ * Licensed to the University Corporation for Advanced Internet Development, 
+ * Inc. (UCAID) under one or more contributor license agreements.  See the 
+ * NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The UCAID licenses this file to You under the Apache 
+ * License, Version 2.0 (the "License"); you may not use this file except in 
+ * compliance with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.opensaml.soap.client;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.NotThreadSafe;
+
+import net.shibboleth.utilities.java.support.annotation.Duration;
+import net.shibboleth.utilities.java.support.annotation.constraint.NonnullElements;
+import net.shibboleth.utilities.java.support.annotation.constraint.NotEmpty;
+import net.shibboleth.utilities.java.support.annotation.constraint.Unmodifiable;
+import net.shibboleth.utilities.java.support.logic.Constraint;
+
+import org.opensaml.messaging.context.BaseContext;
+import org.opensaml.messaging.context.InOutOperationContext;
+
+/**
+ * Context for a set of SOAP exchanges sent concurrently by a {@link FanOutSOAPClient}, holding each exchange's
+ * operation context and outcome.
+ */
+@NotThreadSafe
+public class FanOutContext extends BaseContext {
+
+    /** Outcome of an exchange. */
+    public enum Status {
+        /** The exchange has not been sent, or has not completed. */
+        PENDING,
+
+        /** A response was received and processed. */
+        SUCCEEDED,
+
+        /** Sending the message, or processing the response, failed. */
+        FAILED,
+
+        /** No response was received before the exchange's deadline. */
+        TIMED_OUT,
+
+        /** The exchange was abandoned once the completion policy had been met or could no longer be. */
+        CANCELLED
+    }
+
+    /** The exchanges. */
+    @Nonnull @NonnullElements private final List<Exchange> exchanges;
+
+    /** Constructor. */
+    public FanOutContext() {
+        exchanges = new ArrayList<>();
+    }
+
+    /**
+     * Add an exchange, using the client's default timeout.
+     * 
+     * @param endpoint the endpoint to which to send the message
+     * @param operationContext the operation context containing the outbound SOAP message
+     * 
+     * @return the new exchange
+     */
+    @Nonnull public Exchange addExchange(@Nonnull @NotEmpty final String endpoint,
+            @Nonnull final InOutOperationContext operationContext) {
+        return addExchange(endpoint, operationContext, 0);
+    }
+
+    /**
+     * Add an exchange.
+     * 
+     * @param endpoint the endpoint to which to send the message
+     * @param operationContext the operation context containing the outbound SOAP message
+     * @param timeout the time in milliseconds from sending within which the exchange must complete, or 0 to use the
+     *            client's default
+     * 
+     * @return the new exchange
+     */
+    @Nonnull public Exchange addExchange(@Nonnull @NotEmpty final String endpoint,
+            @Nonnull final InOutOperationContext operationContext, @Duration final long timeout) {
+        final Exchange exchange = new Exchange(Constraint.isNotNull(endpoint, "Endpoint cannot be null"),
+                Constraint.isNotNull(operationContext, "Operation context cannot be null"),
+                Constraint.isGreaterThanOrEqual(0, timeout, "Timeout must be non-negative"));
+        exchanges.add(exchange);
+        return exchange;
+    }
+
+    /**
+     * Get the exchanges, in the order they were added.
+     * 
+     * @return the exchanges
+     */
+    @Nonnull @NonnullElements @Unmodifiable public List<Exchange> getExchanges() {
+        return Collections.unmodifiableList(exchanges);
+    }
+
+    /**
+     * Get the operation contexts of the exchanges which succeeded, in the order the exchanges were added.
+     * 
+     * @return the operation contexts of the successful exchanges
+     */
+    @Nonnull @NonnullElements public List<InOutOperationContext> getSuccessfulOperationContexts() {
+        final List<InOutOperationContext> contexts = new ArrayList<>(exchanges.size());
+        for (final Exchange exchange : exchanges) {
+            if (exchange.getStatus() == Status.SUCCEEDED) {
+                contexts.add(exchange.getOperationContext());
+            }
+        }
+        return contexts;
+    }
+
+    /** One exchange of a fan-out. */
+    @NotThreadSafe
+    public static final class Exchange {
+
+        /** The endpoint to which to send the message. */
+        @Nonnull @NotEmpty private final String endpoint;
+
+        /** The operation context of the exchange. */
+        @Nonnull private final InOutOperationContext operationContext;
+
+        /** Time in milliseconds from sending within which the exchange must complete, or 0 for the default. */
+        @Duration private final long timeout;
+
+        /** The outcome of the exchange. */
+        @Nonnull private Status status;
+
+        /** The cause of a failed exchange. */
+        @Nullable private Throwable failure;
+
+        /**
+         * Constructor.
+         * 
+         * @param exchangeEndpoint the endpoint to which to send the message
+         * @param context the operation context of the exchange
+         * @param exchangeTimeout the time in milliseconds within which the exchange must complete, or 0
+         */
+        private Exchange(@Nonnull @NotEmpty final String exchangeEndpoint,
+                @Nonnull final InOutOperationContext context, @Duration final long exchangeTimeout) {
+            endpoint = exchangeEndpoint;
+            operationContext = context;
+            timeout = exchangeTimeout;
+            status = Status.PENDING;
+        }
+
+        /**
+         * Get the endpoint to which to send the message.
+         * 
+         * @return the endpoint
+         */
+        @Nonnull @NotEmpty public String getEndpoint() {
+            return endpoint;
+        }
+
+        /**
+         * Get the operation context of the exchange.
+         * 
+         * @return the operation context
+         */
+        @Nonnull public InOutOperationContext getOperationContext() {
+            return operationContext;
+        }
+
+        /**
+         * Get the time in milliseconds from sending within which the exchange must complete.
+         * 
+         * @return the timeout, or 0 to use the client's default
+         */
+        @Duration public long getTimeout() {
+            return timeout;
+        }
+
+        /**
+         * Get the outcome of the exchange.
+         * 
+         * @return the outcome
+         */
+        @Nonnull public Status getStatus() {
+            return status;
+        }
+
+        /**
+         * Get the cause of a failed exchange.
+         * 
+         * @return the cause, or null if the exchange did not fail
+         */
+        @Nullable public Throwable getFailure() {
+            return failure;
+        }
+
+        /**
+         * Record the outcome of the exchange.
+         * 
+         * @param outcome the outcome
+         * @param cause the cause of a failure, or null
+         */
+        void setOutcome(@Nonnull final Status outcome, @Nullable final Throwable cause) {
+            status = outcome;
+            failure = cause;
+        }
+    }
+
+}
@@ -0,0 +1,511 @@
+/*
+ * Licensed to the University Corporation for Advanced Internet Development, 
+ * Inc. (UCAID) under one or more contributor license agreements.  See the 
+ * NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The UCAID licenses this file to You under the Apache 
+ * License, Version 2.0 (the "License"); you may not use this file except in 
+ * compliance with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.opensaml.soap.client;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.ThreadSafe;
+
+import net.shibboleth.utilities.java.support.annotation.Duration;
+import net.shibboleth.utilities.java.support.annotation.constraint.NonNegative;
+import net.shibboleth.utilities.java.support.annotation.constraint.NonnullElements;
+import net.shibboleth.utilities.java.support.annotation.constraint.NonnullAfterInit;
+import net.shibboleth.utilities.java.support.annotation.constraint.Positive;
+import net.shibboleth.utilities.java.support.component.AbstractInitializableComponent;
+import net.shibboleth.utilities.java.support.component.ComponentInitializationException;
+import net.shibboleth.utilities.java.support.component.ComponentSupport;
+import net.shibboleth.utilities.java.support.logic.Constraint;
+
+import org.opensaml.messaging.circuit.EndpointCircuitBreaker;
+import org.opensaml.messaging.context.InOutOperationContext;
+import org.opensaml.soap.client.FanOutContext.Exchange;
+import org.opensaml.soap.client.FanOutContext.Status;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
+
+/**
+ * Client which sends several SOAP messages concurrently through an {@link AsyncSOAPClient}, such as queries to a
+ * number of attribute authorities or authorization decision points, so that the time taken is that of the slowest
+ * exchange waited for rather than the sum of them all.
+ * 
+ * <p>
+ * The exchanges are those of the {@link FanOutContext} child of the operation context passed to
+ * {@link #send(InOutOperationContext)}. Each must complete within its timeout, or the client's default, from the time
+ * it is sent; the calling thread waits until the {@link CompletionPolicy} is met, or can no longer be, and any
+ * exchanges still in progress are then cancelled. The outcome of each exchange is recorded on it, and the inbound
+ * message context of the first exchange to succeed becomes that of the operation context, so that a single
+ * response may be processed as if from a single exchange. Where every response is needed, they are available from
+ * {@link FanOutContext#getSuccessfulOperationContexts()}.
+ * </p>
+ * 
+ * <p>
+ * Where the exchanges are alternatives to one another, they may instead be hedged, as described by
+ * {@link #setHedgeDelay(long)}.
+ * </p>
+ */
+@ThreadSafe
+public class FanOutSOAPClient extends AbstractInitializableComponent {
+
+    /** Policies determining when to stop waiting for exchanges. */
+    public enum CompletionPolicy {
+        /** Wait for the first exchange to succeed, cancelling the rest. */
+        FIRST_SUCCESS,
+
+        /** Wait for every exchange to succeed, fail or time out, requiring at least one to succeed. */
+        ALL_COMPLETE,
+
+        /** Wait for the configured quorum of exchanges to succeed, cancelling the rest. */
+        QUORUM
+    }
+
+    /** Default timeout of an exchange in milliseconds: 30 seconds. */
+    @Duration public static final long DEFAULT_TIMEOUT = 30000;
+
+    /** Class logger. */
+    @Nonnull private final Logger log = LoggerFactory.getLogger(FanOutSOAPClient.class);
+
+    /** Client used to send each message. */
+    @NonnullAfterInit private AsyncSOAPClient soapClient;
+
+    /** When to stop waiting for exchanges. */
+    @Nonnull private CompletionPolicy completionPolicy;
+
+    /** Number of exchanges which must succeed under {@link CompletionPolicy#QUORUM}. */
+    @Positive private int quorum;
+
+    /** Default timeout of an exchange in milliseconds. */
+    @Duration @Positive private long timeout;
+
+    /** Delay in milliseconds after which each exchange is followed by the next, or 0 to send all at once. */
+    @Duration @NonNegative private long hedgeDelay;
+
+    /** Circuit breaker by which to rank endpoints, if any. */
+    @Nullable private EndpointCircuitBreaker circuitBreaker;
+
+    /** Constructor. */
+    public FanOutSOAPClient() {
+        completionPolicy = CompletionPolicy.ALL_COMPLETE;
+        quorum = 1;
+        timeout = DEFAULT_TIMEOUT;
+    }
+
+    /**
+     * Get the client used to send each message.
+     * 
+     * @return the client
+     */
+    @NonnullAfterInit public AsyncSOAPClient getSOAPClient() {
+        return soapClient;
+    }
+
+    /**
+     * Set the client used to send each message.
+     * 
+     * @param client the client
+     */
+    public void setSOAPClient(@Nonnull final AsyncSOAPClient client) {
+        ComponentSupport.ifInitializedThrowUnmodifiabledComponentException(this);
+
+        soapClient = Constraint.isNotNull(client, "SOAP client cannot be null");
+    }
+
+    /**
+     * Get when to stop waiting for exchanges.
+     * 
+     * @return the completion policy
+     */
+    @Nonnull public CompletionPolicy getCompletionPolicy() {
+        return completionPolicy;
+    }
+
+    /**
+     * Set when to stop waiting for exchanges.
+     * 
+     * <p>Defaults to {@link CompletionPolicy#ALL_COMPLETE}.</p>
+     * 
+     * @param policy the completion policy
+     */
+    public void setCompletionPolicy(@Nonnull final CompletionPolicy policy) {
+        ComponentSupport.ifInitializedThrowUnmodifiabledComponentException(this);
+
+        completionPolicy = Constraint.isNotNull(policy, "Completion policy cannot be null");
+    }
+
+    /**
+     * Get the number of exchanges which must succeed under {@link CompletionPolicy#QUORUM}.
+     * 
+     * @return the quorum
+     */
+    @Positive public int getQuorum() {
+        return quorum;
+    }
+
+    /**
+     * Set the number of exchanges which must succeed under {@link CompletionPolicy#QUORUM}.
+     * 
+     * <p>Defaults to 1.</p>
+     * 
+     * @param size the quorum
+     */
+    public void setQuorum(@Positive final int size) {
+        ComponentSupport.ifInitializedThrowUnmodifiabledComponentException(this);
+
+        quorum = (int) Constraint.isGreaterThan(0, size, "Quorum must be greater than zero");
+    }
+
+    /**
+     * Get the default timeout of an exchange.
+     * 
+     * @return the timeout in milliseconds
+     */
+    @Duration @Positive public long getTimeout() {
+        return timeout;
+    }
+
+    /**
+     * Set the default timeout of an exchange, applying to those added without one of their own.
+     * 
+     * <p>Defaults to {@link #DEFAULT_TIMEOUT}.</p>
+     * 
+     * @param duration the timeout in milliseconds
+     */
+    public void setTimeout(@Duration @Positive final long duration) {
+        ComponentSupport.ifInitializedThrowUnmodifiabledComponentException(this);
+
+        timeout = Constraint.isGreaterThan(0, duration, "Timeout must be greater than zero");
+    }
+
+    /**
+     * Get the delay after which each exchange is followed by the next.
+     * 
+     * @return the delay in milliseconds, or 0 if all exchanges are sent at once
+     */
+    @Duration @NonNegative public long getHedgeDelay() {
+        return hedgeDelay;
+    }
+
+    /**
+     * Set the delay after which each exchange is followed by the next.
+     * 
+     * <p>
+     * If greater than 0, exchanges are hedged: rather than all being sent at once, each is sent only once the delay
+     * has passed since the last was sent without the completion policy being met, or at once if every exchange sent
+     * so far has failed. This suits exchanges which are alternatives to one another, such as an artifact resolution
+     * request to each of several locations of an artifact resolution service, together with
+     * {@link CompletionPolicy#FIRST_SUCCESS}: a slow endpoint then delays the response by no more than the delay,
+     * while a fast one is the only endpoint called.
+     * </p>
+     * 
+     * <p>
+     * Hedging is done only by this client, over the exchanges it is given. Nothing else in the library hedges across
+     * the locations of an artifact resolution service: to do so, a caller must add one exchange per location to the
+     * {@link FanOutContext} and send them through this client.
+     * </p>
+     * 
+     * <p>Defaults to 0.</p>
+     * 
+     * @param delay the delay in milliseconds, or 0 to send all exchanges at once
+     */
+    public void setHedgeDelay(@Duration @NonNegative final long delay) {
+        ComponentSupport.ifInitializedThrowUnmodifiabledComponentException(this);
+
+        hedgeDelay = Constraint.isGreaterThanOrEqual(0, delay, "Hedge delay must be non-negative");
+    }
+
+    /**
+     * Get the circuit breaker by which to rank endpoints.
+     * 
+     * @return the circuit breaker, or null if none
+     */
+    @Nullable public EndpointCircuitBreaker getCircuitBreaker() {
+        return circuitBreaker;
+    }
+
+    /**
+     * Set the circuit breaker by which to rank endpoints.
+     * 
+     * <p>
+     * If set, exchanges are sent in the order of {@link EndpointCircuitBreaker#rank(List)}, so that when hedging the
+     * fastest endpoint is tried first and those whose circuit is open are tried last. This should be the breaker used
+     * by the underlying client, so that the ranking reflects its requests.
+     * </p>
+     * 
+     * @param breaker the circuit breaker, or null for none
+     */
+    public void setCircuitBreaker(@Nullable final EndpointCircuitBreaker breaker) {
+        ComponentSupport.ifInitializedThrowUnmodifiabledComponentException(this);
+
+        circuitBreaker = breaker;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    protected void doInitialize() throws ComponentInitializationException {
+        super.doInitialize();
+
+        if (soapClient == null) {
+            throw new ComponentInitializationException("SOAP client cannot be null");
+        }
+    }
+
+    /**
+     * Send the messages of the exchanges of an operation context's {@link FanOutContext} concurrently, and wait for
+     * them according to the completion policy.
+     * 
+     * @param operationContext the operation context
+     * 
+     * @throws SOAPClientException if there are no exchanges, if the completion policy is not met, or if interrupted
+     *             while waiting
+     */
+    public void send(@Nonnull final InOutOperationContext operationContext) throws SOAPClientException {
+        ComponentSupport.ifNotInitializedThrowUninitializedComponentException(this);
+        ComponentSupport.ifDestroyedThrowDestroyedComponentException(this);
+        Constraint.isNotNull(operationContext, "Operation context cannot be null");
+
+        final FanOutContext fanOutContext = operationContext.getSubcontext(FanOutContext.class);
+        if (fanOutContext == null || fanOutContext.getExchanges().isEmpty()) {
+            throw new SOAPClientException("Operation context did not contain any exchanges to send");
+        }
+
+        final BlockingQueue<Call> completed = new LinkedBlockingQueue<>();
+        final List<Call> pending = new ArrayList<>(fanOutContext.getExchanges().size());
+        final Queue<Exchange> waiting = new ArrayDeque<>(orderExchanges(fanOutContext.getExchanges()));
+        try {
+            if (hedgeDelay == 0) {
+                while (!waiting.isEmpty()) {
+                    pending.add(new Call(waiting.remove(), completed));
+                }
+            }
+            await(operationContext, pending, waiting, completed);
+        } finally {
+            for (final Call call : pending) {
+                log.debug("Cancelling exchange with {}", call.exchange.getEndpoint());
+                call.exchange.setOutcome(Status.CANCELLED, null);
+                call.result.cancel(true);
+            }
+            for (final Exchange exchange : waiting) {
+                exchange.setOutcome(Status.CANCELLED, null);
+            }
+        }
+
+        int succeeded = 0;
+        Throwable failure = null;
+        for (final Exchange exchange : fanOutContext.getExchanges()) {
+            if (exchange.getStatus() == Status.SUCCEEDED) {
+                succeeded++;
+            } else if (failure == null) {
+                failure = exchange.getFailure();
+            }
+        }
+        if (succeeded < getRequiredSuccesses()) {
+            throw new SOAPClientException(succeeded + " of " + fanOutContext.getExchanges().size()
+                    + " exchanges succeeded, completion policy " + completionPolicy + " not met", failure);
+        }
+    }
+
+    /**
+     * Wait for the exchanges in progress until the completion policy is met, or can no longer be, recording the
+     * outcome of each exchange as it completes or times out, and sending hedged exchanges as they become due.
+     * 
+     * @param operationContext the operation context
+     * @param pending the exchanges in progress, from which each is removed as its outcome is recorded
+     * @param waiting the exchanges yet to be sent, from which each is removed as it is sent
+     * @param completed queue to which each exchange is added as it completes
+     * 
+     * @throws SOAPClientException if interrupted while waiting
+     */
+    private void await(@Nonnull final InOutOperationContext operationContext, @Nonnull final List<Call> pending,
+            @Nonnull final Queue<Exchange> waiting, @Nonnull final BlockingQueue<Call> completed)
+            throws SOAPClientException {
+        final int required = getRequiredSuccesses();
+        int succeeded = 0;
+        long nextSend = System.nanoTime();
+
+        while (!pending.isEmpty() || !waiting.isEmpty()) {
+            if (completionPolicy != CompletionPolicy.ALL_COMPLETE && (succeeded >= required
+                    || succeeded + pending.size() + waiting.size() < required)) {
+                break;
+            }
+
+            final long now = System.nanoTime();
+            if (!waiting.isEmpty() && (pending.isEmpty() || nextSend - now <= 0)) {
+                pending.add(new Call(waiting.remove(), completed));
+                nextSend = now + TimeUnit.MILLISECONDS.toNanos(hedgeDelay);
+            }
+
+            long wait = waiting.isEmpty() ? Long.MAX_VALUE : nextSend - now;
+            for (int i = pending.size() - 1; i >= 0; i--) {
+                final Call call = pending.get(i);
+                if (call.deadline - now <= 0) {
+                    log.debug("Exchange with {} timed out", call.exchange.getEndpoint());
+                    pending.remove(i);
+                    call.exchange.setOutcome(Status.TIMED_OUT, null);
+                    call.result.cancel(true);
+                } else {
+                    wait = Math.min(wait, call.deadline - now);
+                }
+            }
+            if (pending.isEmpty()) {
+                continue;
+            }
+
+            final Call call;
+            try {
+                call = completed.poll(wait, TimeUnit.NANOSECONDS);
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new SOAPClientException("Interrupted while awaiting responses", e);
+            }
+            if (call != null && pending.remove(call) && complete(call)) {
+                succeeded++;
+                if (operationContext.getInboundMessageContext() == null) {
+                    operationContext.setInboundMessageContext(
+                            call.exchange.getOperationContext().getInboundMessageContext());
+                }
+            }
+        }
+    }
+
+    /**
+     * Order the exchanges in which to send them: by the circuit breaker's ranking of their endpoints if there is one,
+     * and otherwise as they were added.
+     * 
+     * @param exchanges the exchanges
+     * 
+     * @return the exchanges in the order in which to send them
+     */
+    @Nonnull @NonnullElements private List<Exchange> orderExchanges(
+            @Nonnull @NonnullElements final List<Exchange> exchanges) {
+        if (circuitBreaker == null) {
+            return exchanges;
+        }
+
+        final List<String> endpoints = new ArrayList<>(exchanges.size());
+        for (final Exchange exchange : exchanges) {
+            endpoints.add(exchange.getEndpoint());
+        }
+        final List<Exchange> unordered = new ArrayList<>(exchanges);
+        final List<Exchange> ordered = new ArrayList<>(exchanges.size());
+        for (final String endpoint : circuitBreaker.rank(endpoints)) {
+            final Iterator<Exchange> iterator = unordered.iterator();
+            while (iterator.hasNext()) {
+                final Exchange exchange = iterator.next();
+                if (exchange.getEndpoint().equals(endpoint)) {
+                    ordered.add(exchange);
+                    iterator.remove();
+                    break;
+                }
+            }
+        }
+        ordered.addAll(unordered);
+        return ordered;
+    }
+
+    /**
+     * Record the outcome of a completed exchange.
+     * 
+     * @param call the exchange
+     * 
+     * @return true iff the exchange succeeded
+     */
+    private boolean complete(@Nonnull final Call call) {
+        try {
+            call.result.get();
+            log.debug("Exchange with {} succeeded", call.exchange.getEndpoint());
+            call.exchange.setOutcome(Status.SUCCEEDED, null);
+            return true;
+        } catch (final ExecutionException e) {
+            log.debug("Exchange with {} failed", call.exchange.getEndpoint(), e.getCause());
+            call.exchange.setOutcome(Status.FAILED, e.getCause());
+        } catch (final CancellationException e) {
+            call.exchange.setOutcome(Status.CANCELLED, null);
+        } catch (final InterruptedException e) {
+            // Cannot happen, as the exchange has completed.
+            Thread.currentThread().interrupt();
+            call.exchange.setOutcome(Status.FAILED, e);
+        }
+        return false;
+    }
+
+    /**
+     * Get the number of exchanges which must succeed for the completion policy to be met.
+     * 
+     * @return the number of exchanges
+     */
+    private int getRequiredSuccesses() {
+        switch (completionPolicy) {
+            case QUORUM:
+                return quorum;
+            default:
+                return 1;
+        }
+    }
+
+    /** An exchange in progress. */
+    private final class Call implements Runnable {
+
+        /** The exchange. */
+        @Nonnull private final Exchange exchange;
+
+        /** The future result of the exchange. */
+        @Nonnull private final ListenableFuture<InOutOperationContext> result;
+
+        /** The {@link System#nanoTime()} by which the exchange must complete. */
+        private final long deadline;
+
+        /** Queue to add the exchange to once completed. */
+        @Nonnull private final BlockingQueue<Call> completed;
+
+        /**
+         * Constructor.
+         * 
+         * @param fanOutExchange the exchange
+         * @param completedQueue queue to add the exchange to once completed
+         */
+        private Call(@Nonnull final Exchange fanOutExchange, @Nonnull final BlockingQueue<Call> completedQueue) {
+            exchange = fanOutExchange;
+            completed = completedQueue;
+            deadline = System.nanoTime()
+                    + TimeUnit.MILLISECONDS.toNanos(exchange.getTimeout() > 0 ? exchange.getTimeout() : timeout);
+            log.debug("Sending message to {}", exchange.getEndpoint());
+            result = soapClient.sendAsync(exchange.getEndpoint(), exchange.getOperationContext());
+            result.addListener(this, MoreExecutors.directExecutor());
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public void run() {
+            completed.add(this);
+        }
+    }
+
+}
@@ -0,0 +1,420 @@
+/*
+ * Licensed to the University Corporation for Advanced Internet Development, 
+ * Inc. (UCAID) under one or more contributor license agreements.  See the 
+ * NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The UCAID licenses this file to You under the Apache 
+ * License, Version 2.0 (the "License"); you may not use this file except in 
+ * compliance with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.opensaml.soap.client;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.ThreadSafe;
+
+import net.shibboleth.utilities.java.support.annotation.constraint.NonnullAfterInit;
+import net.shibboleth.utilities.java.support.annotation.constraint.NotEmpty;
+import net.shibboleth.utilities.java.support.annotation.constraint.Positive;
+import net.shibboleth.utilities.java.support.component.AbstractInitializableComponent;
+import net.shibboleth.utilities.java.support.component.ComponentInitializationException;
+import net.shibboleth.utilities.java.support.component.ComponentSupport;
+import net.shibboleth.utilities.java.support.logic.Constraint;
+
+import org.opensaml.messaging.circuit.EndpointSupport;
+import org.opensaml.messaging.context.InOutOperationContext;
+import org.opensaml.security.SecurityException;
+import org.opensaml.soap.common.SOAPException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.util.concurrent.AbstractFuture;
+import com.google.common.util.concurrent.ListenableFuture;
+
+/**
+ * SOAP client which sends messages through another, blocking, {@link SOAPClient} on the threads of an
+ * {@link Executor}, limiting the number of exchanges in progress with each endpoint.
+ * 
+ * <p>
+ * Endpoints are distinguished by scheme, host and port. Once the limit is reached for an endpoint, further messages
+ * for it are queued, without holding a thread, and sent in order as earlier exchanges complete. A slow endpoint thus
+ * occupies no more than its share of the executor's threads, and of the connections of the underlying HTTP client,
+ * while messages for other endpoints proceed. The limit should not exceed the number of connections per route
+ * allowed by the HTTP client's connection manager, or the excess exchanges will simply wait for a connection.
+ * </p>
+ * 
+ * <p>
+ * Cancelling a future interrupts the thread sending its message, if any, so the underlying client should be one which
+ * aborts its exchange when interrupted, or is configured with a socket timeout.
+ * </p>
+ */
+@ThreadSafe
+public class PooledAsyncSOAPClient extends AbstractInitializableComponent implements SOAPClient, AsyncSOAPClient {
+
+    /** Default maximum number of exchanges in progress with an endpoint. */
+    public static final int DEFAULT_MAX_CONCURRENT_PER_ENDPOINT = 10;
+
+    /** Class logger. */
+    @Nonnull private final Logger log = LoggerFactory.getLogger(PooledAsyncSOAPClient.class);
+
+    /** Client used to send each message. */
+    @NonnullAfterInit private SOAPClient soapClient;
+
+    /** Executor on whose threads messages are sent. */
+    @NonnullAfterInit private Executor executor;
+
+    /** Maximum number of exchanges in progress with an endpoint. */
+    @Positive private int maxConcurrentPerEndpoint;
+
+    /** Exchanges in progress and queued, by endpoint key. */
+    @Nonnull private final Map<String, EndpointExchanges> endpointExchanges;
+
+    /** Constructor. */
+    public PooledAsyncSOAPClient() {
+        maxConcurrentPerEndpoint = DEFAULT_MAX_CONCURRENT_PER_ENDPOINT;
+        endpointExchanges = new HashMap<>();
+    }
+
+    /**
+     * Get the client used to send each message.
+     * 
+     * @return the client
+     */
+    @NonnullAfterInit public SOAPClient getSOAPClient() {
+        return soapClient;
+    }
+
+    /**
+     * Set the client used to send each message.
+     * 
+     * @param client the client
+     */
+    public void setSOAPClient(@Nonnull final SOAPClient client) {
+        ComponentSupport.ifInitializedThrowUnmodifiabledComponentException(this);
+
+        soapClient = Constraint.isNotNull(client, "SOAP client cannot be null");
+    }
+
+    /**
+     * Get the executor on whose threads messages are sent.
+     * 
+     * @return the executor
+     */
+    @NonnullAfterInit public Executor getExecutor() {
+        return executor;
+    }
+
+    /**
+     * Set the executor on whose threads messages are sent.
+     * 
+     * <p>The executor is not shut down by this client, and may be shared with other objects.</p>
+     * 
+     * @param exec the executor
+     */
+    public void setExecutor(@Nonnull final Executor exec) {
+        ComponentSupport.ifInitializedThrowUnmodifiabledComponentException(this);
+
+        executor = Constraint.isNotNull(exec, "Executor cannot be null");
+    }
+
+    /**
+     * Get the maximum number of exchanges in progress with an endpoint.
+     * 
+     * @return the maximum number of exchanges
+     */
+    @Positive public int getMaxConcurrentPerEndpoint() {
+        return maxConcurrentPerEndpoint;
+    }
+
+    /**
+     * Set the maximum number of exchanges in progress with an endpoint.
+     * 
+     * <p>Defaults to {@link #DEFAULT_MAX_CONCURRENT_PER_ENDPOINT}.</p>
+     * 
+     * @param max the maximum number of exchanges
+     */
+    public void setMaxConcurrentPerEndpoint(@Positive final int max) {
+        ComponentSupport.ifInitializedThrowUnmodifiabledComponentException(this);
+
+        maxConcurrentPerEndpoint = (int) Constraint.isGreaterThan(0, max,
+                "Maximum exchanges per endpoint must be greater than zero");
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    protected void doInitialize() throws ComponentInitializationException {
+        super.doInitialize();
+
+        if (soapClient == null) {
+            throw new ComponentInitializationException("SOAP client cannot be null");
+        } else if (executor == null) {
+            throw new ComponentInitializationException("Executor cannot be null");
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * 
+     * <p>The message is sent as by {@link #sendAsync(String, InOutOperationContext)}, subject to the same limit.</p>
+     */
+    @Override
+    public void send(@Nonnull @NotEmpty final String endpoint, @Nonnull final InOutOperationContext context)
+            throws SOAPException, SecurityException {
+        final ListenableFuture<InOutOperationContext> result = sendAsync(endpoint, context);
+        try {
+            result.get();
+        } catch (final InterruptedException e) {
+            result.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new SOAPClientException("Interrupted while awaiting response from " + endpoint, e);
+        } catch (final ExecutionException e) {
+            final Throwable cause = e.getCause();
+            if (cause instanceof SOAPException) {
+                throw (SOAPException) cause;
+            } else if (cause instanceof SecurityException) {
+                throw (SecurityException) cause;
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new SOAPClientException("Unable to send request to " + endpoint, cause);
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    @Nonnull public ListenableFuture<InOutOperationContext> sendAsync(@Nonnull @NotEmpty final String endpoint,
+            @Nonnull final InOutOperationContext context) {
+        ComponentSupport.ifNotInitializedThrowUninitializedComponentException(this);
+        ComponentSupport.ifDestroyedThrowDestroyedComponentException(this);
+        Constraint.isNotNull(endpoint, "Endpoint cannot be null");
+        Constraint.isNotNull(context, "Operation context cannot be null");
+
+        final Exchange exchange = new Exchange(endpoint, getEndpointKey(endpoint), context);
+        final boolean start;
+        synchronized (endpointExchanges) {
+            EndpointExchanges exchanges = endpointExchanges.get(exchange.key);
+            if (exchanges == null) {
+                exchanges = new EndpointExchanges();
+                endpointExchanges.put(exchange.key, exchanges);
+            }
+            start = exchanges.active < maxConcurrentPerEndpoint;
+            if (start) {
+                exchanges.active++;
+            } else {
+                log.debug("Limit of {} exchanges reached for {}, queueing message", maxConcurrentPerEndpoint,
+                        exchange.key);
+                exchanges.queued.add(exchange);
+            }
+        }
+
+        if (start && !submit(exchange)) {
+            release(exchange.key);
+        }
+        return exchange;
+    }
+
+    /**
+     * Get the number of exchanges with an endpoint in progress.
+     * 
+     * @param endpoint the endpoint
+     * 
+     * @return the number of exchanges in progress
+     */
+    public int getActiveExchanges(@Nonnull @NotEmpty final String endpoint) {
+        synchronized (endpointExchanges) {
+            final EndpointExchanges exchanges = endpointExchanges.get(getEndpointKey(endpoint));
+            return exchanges != null ? exchanges.active : 0;
+        }
+    }
+
+    /**
+     * Get the key by which the exchanges with an endpoint are limited.
+     * 
+     * <p>
+     * The default implementation uses {@link EndpointSupport#getEndpointKey(String)}.
+     * </p>
+     * 
+     * @param endpoint the endpoint
+     * 
+     * @return the key of the endpoint
+     */
+    @Nonnull @NotEmpty protected String getEndpointKey(@Nonnull @NotEmpty final String endpoint) {
+        return EndpointSupport.getEndpointKey(endpoint);
+    }
+
+    /**
+     * Submit an exchange to the executor, failing it if rejected.
+     * 
+     * @param exchange the exchange
+     * 
+     * @return true iff the exchange was accepted by the executor
+     */
+    private boolean submit(@Nonnull final Exchange exchange) {
+        try {
+            executor.execute(exchange);
+            return true;
+        } catch (final RejectedExecutionException e) {
+            log.warn("Executor rejected message for {}", exchange.endpoint);
+            exchange.setException(new SOAPClientException("Unable to send request to " + exchange.endpoint, e));
+            return false;
+        }
+    }
+
+    /**
+     * Release the place of a completed exchange with an endpoint, starting the next queued exchange, if any.
+     * 
+     * @param key the endpoint key
+     */
+    private void release(@Nonnull final String key) {
+        start(key, takeNext(key));
+    }
+
+    /**
+     * Start an exchange which has been handed the place of a completed exchange with an endpoint, passing the place
+     * on to the next queued exchange if it cannot be started.
+     * 
+     * @param key the endpoint key
+     * @param exchange the exchange to start, or null if none
+     */
+    private void start(@Nonnull final String key, @Nullable final Exchange exchange) {
+        Exchange next = exchange;
+        while (next != null && !submit(next)) {
+            next = takeNext(key);
+        }
+    }
+
+    /**
+     * Hand the place of a completed exchange with an endpoint to the next queued exchange, if any.
+     * 
+     * @param key the endpoint key
+     * 
+     * @return the next exchange to start, or null if none is queued
+     */
+    @Nullable private Exchange takeNext(@Nonnull final String key) {
+        synchronized (endpointExchanges) {
+            final EndpointExchanges exchanges = endpointExchanges.get(key);
+            // Skip exchanges cancelled while queued, rather than handing them a place only to give it up.
+            Exchange next = exchanges.queued.poll();
+            while (next != null && next.isDone()) {
+                next = exchanges.queued.poll();
+            }
+            if (next == null && --exchanges.active == 0) {
+                endpointExchanges.remove(key);
+            }
+            return next;
+        }
+    }
+
+    /** Exchanges in progress and queued with an endpoint. */
+    private static final class EndpointExchanges {
+
+        /** Number of exchanges in progress. */
+        private int active;
+
+        /** Exchanges waiting to start. */
+        @Nonnull private final Queue<Exchange> queued = new ArrayDeque<>();
+    }
+
+    /** An exchange with an endpoint, and its result. */
+    private final class Exchange extends AbstractFuture<InOutOperationContext> implements Runnable {
+
+        /** The endpoint. */
+        @Nonnull private final String endpoint;
+
+        /** The endpoint key. */
+        @Nonnull private final String key;
+
+        /** The operation context. */
+        @Nonnull private final InOutOperationContext context;
+
+        /** Thread sending the message, if in progress. Guarded by this. */
+        @Nullable private Thread sender;
+
+        /**
+         * Constructor.
+         * 
+         * @param exchangeEndpoint the endpoint
+         * @param endpointKey the endpoint key
+         * @param operationContext the operation context
+         */
+        private Exchange(@Nonnull final String exchangeEndpoint, @Nonnull final String endpointKey,
+                @Nonnull final InOutOperationContext operationContext) {
+            endpoint = exchangeEndpoint;
+            key = endpointKey;
+            context = operationContext;
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public void run() {
+            synchronized (this) {
+                if (isDone()) {
+                    release(key);
+                    return;
+                }
+                sender = Thread.currentThread();
+            }
+            Throwable failure = null;
+            try {
+                soapClient.send(endpoint, context);
+            } catch (final SOAPException | SecurityException | RuntimeException | Error e) {
+                failure = e;
+            } finally {
+                synchronized (this) {
+                    sender = null;
+                }
+                if (isCancelled()) {
+                    // Clear any interrupt raised by the cancellation, now that it can no longer be acted on.
+                    Thread.interrupted();
+                }
+            }
+
+            // Give up the endpoint's place before completing, so a caller woken by the result sees it released.
+            final Exchange next = takeNext(key);
+            if (failure == null) {
+                set(context);
+            } else {
+                setException(failure);
+            }
+            start(key, next);
+            if (failure instanceof Error) {
+                throw (Error) failure;
+            }
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        protected boolean setException(@Nonnull final Throwable throwable) {
+            return super.setException(throwable);
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        protected void interruptTask() {
+            synchronized (this) {
+                if (sender != null) {
+                    sender.interrupt();
+                }
+            }
+        }
+    }
+
+}
@@ -42,6 +42,8 @@ import org.apache.http.client.HttpClient;
 import org.apache.http.client.methods.HttpPost;
 import org.apache.http.client.methods.HttpUriRequest;
 import org.apache.http.client.protocol.HttpClientContext;
+import org.apache.http.util.EntityUtils;
+import org.opensaml.messaging.circuit.EndpointCircuitBreaker;
 import org.opensaml.messaging.context.InOutOperationContext;
 import org.opensaml.messaging.context.httpclient.HttpClientRequestContext;
 import org.opensaml.messaging.decoder.MessageDecodingException;
@@ -57,6 +59,7 @@ import org.opensaml.security.httpclient.HttpClientSecurityParameters;
 import org.opensaml.security.httpclient.HttpClientSecuritySupport;
 import org.opensaml.security.messaging.HttpClientSecurityContext;
 import org.opensaml.soap.client.SOAPClient;
+import org.opensaml.soap.client.SOAPClientException;
 import org.opensaml.soap.client.SOAPFaultException;
 import org.opensaml.soap.common.SOAP11FaultDecodingException;
 import org.opensaml.soap.common.SOAPException;
@@ -86,6 +89,9 @@ public abstract class AbstractPipelineHttpSOAPClient<OutboundMessageType, Inboun
     
     /** Strategy for building the criteria set which is input to the TLS trust engine. */
     @Nullable private Function<InOutOperationContext<?, ?>, CriteriaSet> tlsCriteriaSetStrategy;
+
+    /** Circuit breaker guarding requests to each endpoint, if any. */
+    @Nullable private EndpointCircuitBreaker circuitBreaker;
     
     /** Constructor. */
     public AbstractPipelineHttpSOAPClient() {
@@ -108,6 +114,7 @@ public abstract class AbstractPipelineHttpSOAPClient<OutboundMessageType, Inboun
         httpClient = null;
         httpClientSecurityParameters = null;
         tlsCriteriaSetStrategy = null;
+        circuitBreaker = null;
         
         super.doDestroy();
     }
@@ -181,6 +188,33 @@ public abstract class AbstractPipelineHttpSOAPClient<OutboundMessageType, Inboun
         tlsCriteriaSetStrategy = function;
     }
     
+    /**
+     * Get the circuit breaker guarding requests to each endpoint.
+     * 
+     * @return the circuit breaker, or null if none
+     */
+    @Nullable public EndpointCircuitBreaker getCircuitBreaker() {
+        return circuitBreaker;
+    }
+
+    /**
+     * Set the circuit breaker guarding requests to each endpoint.
+     * 
+     * <p>
+     * If set, a message is not sent to an endpoint whose circuit is open, and the exchange fails at once. An exchange
+     * counts as a failure of the endpoint only if no HTTP response is received; SOAP faults and other errors in the
+     * response show the endpoint to be working.
+     * </p>
+     * 
+     * @param breaker the circuit breaker, or null for none
+     */
+    public void setCircuitBreaker(@Nullable final EndpointCircuitBreaker breaker) {
+        ComponentSupport.ifInitializedThrowUnmodifiabledComponentException(this);
+        ComponentSupport.ifDestroyedThrowDestroyedComponentException(this);
+        
+        circuitBreaker = breaker;
+    }
+    
     /** {@inheritDoc} */
     // Checkstyle: CyclomaticComplexity OFF
     public void send(@Nonnull @NotEmpty final String endpoint, @Nonnull final InOutOperationContext operationContext)
@@ -189,6 +223,7 @@ public abstract class AbstractPipelineHttpSOAPClient<OutboundMessageType, Inboun
         Constraint.isNotNull(operationContext, "Operation context cannot be null");
         
         HttpClientMessagePipeline<InboundMessageType, OutboundMessageType> pipeline = null;
+        HttpResponse httpResponse = null;
         try {
             // Pipeline resolution
             pipeline = resolvePipeline(operationContext);
@@ -213,7 +248,7 @@ public abstract class AbstractPipelineHttpSOAPClient<OutboundMessageType, Inboun
             encoder.encode();
             
             // HttpClient execution
-            HttpResponse httpResponse = getHttpClient().execute(httpRequest, httpContext);
+            httpResponse = execute(endpoint, httpRequest, httpContext);
             HttpClientSecuritySupport.checkTLSCredentialEvaluated(httpContext, httpRequest.getURI().getScheme());
             
             // Response decoding
@@ -247,6 +282,9 @@ public abstract class AbstractPipelineHttpSOAPClient<OutboundMessageType, Inboun
         } catch (IOException e) {
             throw new SOAPException("I/O problem with SOAP message exchange with: " + endpoint, e);
         } finally {
+            if (httpResponse != null) {
+                consumeResponse(httpResponse);
+            }
             if (pipeline != null) {
                 pipeline.getEncoder().destroy();
                 pipeline.getDecoder().destroy();
@@ -254,6 +292,53 @@ public abstract class AbstractPipelineHttpSOAPClient<OutboundMessageType, Inboun
         }
     }
     // Checkstyle: CyclomaticComplexity ON
+
+    /**
+     * Execute the HTTP request, subject to the circuit breaker, if any.
+     * 
+     * @param endpoint the endpoint to which the message is sent
+     * @param httpRequest the HTTP request
+     * @param httpContext the HTTP client context
+     * 
+     * @return the HTTP response
+     * 
+     * @throws SOAPClientException if the circuit of the endpoint is open
+     * @throws IOException if there is a problem executing the request
+     */
+    @Nonnull private HttpResponse execute(@Nonnull @NotEmpty final String endpoint,
+            @Nonnull final HttpUriRequest httpRequest, @Nonnull final HttpClientContext httpContext)
+            throws SOAPClientException, IOException {
+        if (circuitBreaker == null) {
+            return getHttpClient().execute(httpRequest, httpContext);
+        }
+        
+        final EndpointCircuitBreaker.Permit permit = circuitBreaker.acquire(endpoint);
+        if (permit == null) {
+            throw new SOAPClientException("Circuit breaker is open for endpoint: " + endpoint);
+        }
+        boolean responded = false;
+        try {
+            final HttpResponse httpResponse = getHttpClient().execute(httpRequest, httpContext);
+            responded = true;
+            return httpResponse;
+        } finally {
+            permit.release(responded);
+        }
+    }
+
+    /**
+     * Read and discard whatever remains of the response body, so that the connection is returned to the pool
+     * for reuse rather than being held until it is garbage collected.
+     * 
+     * @param httpResponse the HTTP response
+     */
+    protected void consumeResponse(@Nonnull final HttpResponse httpResponse) {
+        try {
+            EntityUtils.consume(httpResponse.getEntity());
+        } catch (final IOException e) {
+            log.debug("Unable to read remainder of HTTP response, connection will not be reused", e);
+        }
+    }
     
     /**
      * Resolve and return a new instance of the {@link HttpClientMessagePipeline} to be processed.
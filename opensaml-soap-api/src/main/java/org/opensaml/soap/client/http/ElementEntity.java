@@ -0,0 +1,115 @@
+/*
+ * Licensed to the University Corporation for Advanced Internet Development, 
+ * Inc. (UCAID) under one or more contributor license agreements.  See the 
+ * NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The UCAID licenses this file to You under the Apache 
+ * License, Version 2.0 (the "License"); you may not use this file except in 
+ * compliance with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.opensaml.soap.client.http;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.NotThreadSafe;
+
+import net.shibboleth.utilities.java.support.logic.Constraint;
+import net.shibboleth.utilities.java.support.xml.SerializeSupport;
+
+import org.apache.http.entity.AbstractHttpEntity;
+import org.apache.http.entity.ContentType;
+import org.w3c.dom.Element;
+
+/**
+ * HTTP entity which serializes a DOM element straight to the connection's output stream as the request is sent.
+ * 
+ * <p>
+ * Unlike an entity built from a byte array, no serialized copy of the message is held in memory. As the length of
+ * the serialized element is not known in advance, the entity is sent using chunked transfer encoding, so it should
+ * only be used where the receiving server is known to accept that. The SOAP clients use it only when request
+ * streaming is enabled.
+ * </p>
+ */
+@NotThreadSafe
+public class ElementEntity extends AbstractHttpEntity {
+
+    /** The element to serialize. */
+    @Nonnull private final Element element;
+
+    /**
+     * Constructor.
+     * 
+     * @param source the element to serialize
+     * @param contentType the content type of the entity, or null
+     */
+    public ElementEntity(@Nonnull final Element source, @Nullable final ContentType contentType) {
+        element = Constraint.isNotNull(source, "Element cannot be null");
+        if (contentType != null) {
+            setContentType(contentType.toString());
+        }
+        setChunked(true);
+    }
+
+    /**
+     * Get the element serialized by this entity.
+     * 
+     * @return the element
+     */
+    @Nonnull public Element getElement() {
+        return element;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public boolean isRepeatable() {
+        return true;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public long getContentLength() {
+        return -1;
+    }
+
+    /**
+     * {@inheritDoc}
+     * 
+     * <p>
+     * This serializes the element into memory, and is intended only for consumers of the entity other than the
+     * client sending it.
+     * </p>
+     */
+    @Override
+    @Nonnull public InputStream getContent() {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        SerializeSupport.writeNode(element, out);
+        return new ByteArrayInputStream(out.toByteArray());
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void writeTo(@Nonnull final OutputStream outStream) {
+        Constraint.isNotNull(outStream, "Output stream cannot be null");
+        SerializeSupport.writeNode(element, outStream);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public boolean isStreaming() {
+        return false;
+    }
+
+}
@@ -44,6 +44,7 @@ import org.apache.http.client.HttpClient;
 import org.apache.http.client.methods.HttpPost;
 import org.apache.http.entity.ByteArrayEntity;
 import org.apache.http.entity.ContentType;
+import org.apache.http.util.EntityUtils;
 import org.opensaml.core.xml.XMLObject;
 import org.opensaml.core.xml.config.XMLObjectProviderRegistrySupport;
 import org.opensaml.core.xml.io.Marshaller;
@@ -95,6 +96,9 @@ public class HttpSOAPClient extends AbstractInitializableComponent implements SO
      */
     @Nonnull private Function<MessageContext, SOAP11Context> soap11ContextLookupStrategy;
     
+    /** Whether to serialize requests straight to the connection rather than buffering them. */
+    private boolean streamingRequests;
+    
     /** Constructor. */
     public HttpSOAPClient() {
         soapClientContextLookupStrategy =
@@ -142,6 +146,32 @@ public class HttpSOAPClient extends AbstractInitializableComponent implements SO
 
 
 
+    /**
+     * Get whether requests are serialized straight to the connection rather than buffered.
+     * 
+     * @return whether requests are streamed
+     */
+    public boolean isStreamingRequests() {
+        return streamingRequests;
+    }
+
+    /**
+     * Set whether requests are serialized straight to the connection rather than buffered.
+     * 
+     * <p>
+     * By default, each request is serialized into memory and sent with a Content-Length header. If streaming is
+     * enabled, no serialized copy of the request is held, but it is sent with chunked transfer encoding, which not
+     * every server accepts.
+     * </p>
+     * 
+     * @param flag whether to stream requests
+     */
+    public void setStreamingRequests(final boolean flag) {
+        ComponentSupport.ifInitializedThrowUnmodifiabledComponentException(this);
+        
+        streamingRequests = flag;
+    }
+
     /**
      * Get the strategy used to look up the {@link SOAPClientContext} associated with the outbound message
      * context.
@@ -211,10 +241,11 @@ public class HttpSOAPClient extends AbstractInitializableComponent implements SO
         }
         
         HttpPost post = null;
+        HttpResponse result = null;
         try {
             post = createPostMethod(endpoint, soapRequestParams, soapCtx.getEnvelope());
 
-            final HttpResponse result = httpClient.execute(post);
+            result = httpClient.execute(post);
             final int code = result.getStatusLine().getStatusCode();
             log.debug("Received HTTP status code of {} when POSTing SOAP message to {}", code, endpoint);
 
@@ -229,12 +260,29 @@ public class HttpSOAPClient extends AbstractInitializableComponent implements SO
         } catch (final IOException e) {
             throw new SOAPClientException("Unable to send request to " + endpoint, e);
         } finally {
+            if (result != null) {
+                consumeResponse(result);
+            }
             if (post != null) {
                 post.reset();
             }
         }
     }
 
+    /**
+     * Read and discard whatever remains of the response body, so that the connection is returned to the pool
+     * for reuse rather than being closed.
+     * 
+     * @param httpResponse the HTTP response
+     */
+    protected void consumeResponse(@Nonnull final HttpResponse httpResponse) {
+        try {
+            EntityUtils.consume(httpResponse.getEntity());
+        } catch (final IOException e) {
+            log.debug("Unable to read remainder of HTTP response, connection will not be reused", e);
+        }
+    }
+
     /**
      * Create the post method used to send the SOAP request.
      * 
@@ -263,6 +311,9 @@ public class HttpSOAPClient extends AbstractInitializableComponent implements SO
     /**
      * Create the request entity that makes up the POST message body.
      * 
+     * <p>If requests are streamed, the envelope is marshalled here, but only serialized as the request is written
+     * to the connection.</p>
+     * 
      * @param message message to be sent
      * @param charset character set used for the message
      * 
@@ -276,13 +327,16 @@ public class HttpSOAPClient extends AbstractInitializableComponent implements SO
             final Marshaller marshaller = Constraint.isNotNull(
                     XMLObjectProviderRegistrySupport.getMarshallerFactory().getMarshaller(message),
                     "SOAP Envelope marshaller not available");
-            final ByteArrayOutputStream arrayOut = new ByteArrayOutputStream();
+            final Element messageElem = marshaller.marshall(message);
 
             if (log.isDebugEnabled()) {
-                log.debug("Outbound SOAP message is:\n" +
-                        SerializeSupport.prettyPrintXML(marshaller.marshall(message)));
+                log.debug("Outbound SOAP message is:\n" + SerializeSupport.prettyPrintXML(messageElem));
+            }
+            if (streamingRequests) {
+                return new ElementEntity(messageElem, ContentType.create("text/xml", charset));
             }
-            SerializeSupport.writeNode(marshaller.marshall(message), arrayOut);
+            final ByteArrayOutputStream arrayOut = new ByteArrayOutputStream();
+            SerializeSupport.writeNode(messageElem, arrayOut);
             return new ByteArrayEntity(arrayOut.toByteArray(), ContentType.create("text/xml", charset));
         } catch (final MarshallingException e) {
             throw new SOAPClientException("Unable to marshall SOAP envelope", e);
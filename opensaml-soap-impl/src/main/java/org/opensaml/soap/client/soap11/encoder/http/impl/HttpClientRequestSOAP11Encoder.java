@@ -24,6 +24,7 @@ import java.util.List;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 
+import net.shibboleth.utilities.java.support.component.ComponentSupport;
 import net.shibboleth.utilities.java.support.logic.Constraint;
 import net.shibboleth.utilities.java.support.xml.SerializeSupport;
 
@@ -37,9 +38,11 @@ import org.opensaml.core.xml.XMLObjectBuilderFactory;
 import org.opensaml.core.xml.config.XMLObjectProviderRegistrySupport;
 import org.opensaml.core.xml.io.MarshallingException;
 import org.opensaml.core.xml.util.XMLObjectSupport;
+import org.w3c.dom.Element;
 import org.opensaml.messaging.context.MessageContext;
 import org.opensaml.messaging.encoder.MessageEncodingException;
 import org.opensaml.messaging.encoder.httpclient.BaseHttpClientRequestXMLMessageEncoder;
+import org.opensaml.soap.client.http.ElementEntity;
 import org.opensaml.soap.common.SOAPObjectBuilder;
 import org.opensaml.soap.messaging.context.SOAP11Context;
 import org.opensaml.soap.soap11.Body;
@@ -66,6 +69,9 @@ public class HttpClientRequestSOAP11Encoder<MessageType extends XMLObject>
     /** SOAP Body builder. */
     private SOAPObjectBuilder<Body> bodyBuilder;
     
+    /** Whether to serialize the request straight to the connection rather than buffering it. */
+    private boolean streamingRequest;
+    
     /** Constructor. */
     public HttpClientRequestSOAP11Encoder() {
         super();
@@ -77,6 +83,32 @@ public class HttpClientRequestSOAP11Encoder<MessageType extends XMLObject>
         Constraint.isNotNull(bodyBuilder, "Body Builder cannot be null");
     }
     
+    /**
+     * Get whether the request is serialized straight to the connection rather than buffered.
+     * 
+     * @return whether the request is streamed
+     */
+    public boolean isStreamingRequest() {
+        return streamingRequest;
+    }
+
+    /**
+     * Set whether the request is serialized straight to the connection rather than buffered.
+     * 
+     * <p>
+     * By default, the request is serialized into memory and sent with a Content-Length header. If streaming is
+     * enabled, no serialized copy of the request is held, but it is sent with chunked transfer encoding, which not
+     * every server accepts.
+     * </p>
+     * 
+     * @param flag whether to stream the request
+     */
+    public void setStreamingRequest(final boolean flag) {
+        ComponentSupport.ifInitializedThrowUnmodifiabledComponentException(this);
+        
+        streamingRequest = flag;
+    }
+
     /** {@inheritDoc}
      * 
      * <p>This encoder implementation only operates on instances of {@link HttpPost}.</p>
@@ -125,6 +157,9 @@ public class HttpClientRequestSOAP11Encoder<MessageType extends XMLObject>
     /**
      * Create the request entity that makes up the POST message body.
      * 
+     * <p>If the request is streamed, the envelope is marshalled here, but only serialized as the request is
+     * written to the connection.</p>
+     * 
      * @param message message to be sent
      * @param charset character set used for the message
      * 
@@ -135,8 +170,12 @@ public class HttpClientRequestSOAP11Encoder<MessageType extends XMLObject>
     protected HttpEntity createRequestEntity(@Nonnull final Envelope message, @Nullable final Charset charset)
             throws MessageEncodingException {
         try {
+            final Element messageElem = XMLObjectSupport.marshall(message);
+            if (streamingRequest) {
+                return new ElementEntity(messageElem, ContentType.create("text/xml", charset));
+            }
             final ByteArrayOutputStream arrayOut = new ByteArrayOutputStream();
-            SerializeSupport.writeNode(XMLObjectSupport.marshall(message), arrayOut);
+            SerializeSupport.writeNode(messageElem, arrayOut);
             return new ByteArrayEntity(arrayOut.toByteArray(), ContentType.create("text/xml", charset));
         } catch (final MarshallingException e) {
             throw new MessageEncodingException("Unable to marshall SOAP envelope", e);
@@ -0,0 +1,240 @@
+/*
+ * Licensed to the University Corporation for Advanced Internet Development, 
+ * Inc. (UCAID) under one or more contributor license agreements.  See the 
+ * NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The UCAID licenses this file to You under the Apache 
+ * License, Version 2.0 (the "License"); you may not use this file except in 
+ * compliance with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.opensaml.soap.client;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import net.shibboleth.utilities.java.support.component.ComponentInitializationException;
+
+import org.opensaml.messaging.circuit.EndpointCircuitBreaker;
+import org.opensaml.messaging.context.InOutOperationContext;
+import org.opensaml.messaging.context.MessageContext;
+import org.opensaml.soap.client.FanOutContext.Exchange;
+import org.opensaml.soap.client.FanOutContext.Status;
+import org.opensaml.soap.client.FanOutSOAPClient.CompletionPolicy;
+import org.opensaml.soap.common.SOAPException;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+/**
+ * Test of {@link FanOutSOAPClient}, with endpoints whose names determine how the mock client responds.
+ */
+public class FanOutSOAPClientTest {
+
+    private ExecutorService executor;
+
+    private PooledAsyncSOAPClient asyncClient;
+
+    private FanOutSOAPClient client;
+
+    private InOutOperationContext operationContext;
+
+    private FanOutContext fanOutContext;
+
+    @BeforeClass
+    public void setUpExecutor() throws ComponentInitializationException {
+        executor = Executors.newCachedThreadPool();
+        asyncClient = new PooledAsyncSOAPClient();
+        asyncClient.setSOAPClient(new MockSOAPClient());
+        asyncClient.setExecutor(executor);
+        asyncClient.initialize();
+    }
+
+    @AfterClass
+    public void tearDownExecutor() {
+        executor.shutdownNow();
+    }
+
+    @BeforeMethod
+    public void setUp() {
+        client = new FanOutSOAPClient();
+        client.setSOAPClient(asyncClient);
+        client.setTimeout(1000);
+
+        operationContext = new InOutOperationContext<>(null, new MessageContext<>());
+        fanOutContext = operationContext.getSubcontext(FanOutContext.class, true);
+    }
+
+    @Test
+    public void testAllComplete() throws Exception {
+        addExchanges("ok", "delay", "fail", "hang");
+        client.initialize();
+        client.send(operationContext);
+
+        assertStatuses(Status.SUCCEEDED, Status.SUCCEEDED, Status.FAILED, Status.TIMED_OUT);
+        Assert.assertTrue(fanOutContext.getExchanges().get(2).getFailure() instanceof SOAPClientException);
+        Assert.assertEquals(fanOutContext.getSuccessfulOperationContexts().size(), 2);
+        Assert.assertSame(operationContext.getInboundMessageContext(),
+                fanOutContext.getExchanges().get(0).getOperationContext().getInboundMessageContext());
+    }
+
+    @Test
+    public void testFirstSuccess() throws Exception {
+        addExchanges("delay", "fail", "hang", "ok");
+        client.setCompletionPolicy(CompletionPolicy.FIRST_SUCCESS);
+        client.initialize();
+        final long start = System.currentTimeMillis();
+        client.send(operationContext);
+
+        Assert.assertTrue(System.currentTimeMillis() - start < 1000, "Stragglers were awaited");
+        Assert.assertEquals(fanOutContext.getExchanges().get(3).getStatus(), Status.SUCCEEDED);
+        Assert.assertEquals(fanOutContext.getExchanges().get(2).getStatus(), Status.CANCELLED);
+        Assert.assertSame(operationContext.getInboundMessageContext(),
+                fanOutContext.getExchanges().get(3).getOperationContext().getInboundMessageContext());
+    }
+
+    @Test
+    public void testQuorum() throws Exception {
+        addExchanges("ok", "delay", "hang", "hang");
+        client.setCompletionPolicy(CompletionPolicy.QUORUM);
+        client.setQuorum(2);
+        client.initialize();
+        client.send(operationContext);
+
+        assertStatuses(Status.SUCCEEDED, Status.SUCCEEDED, Status.CANCELLED, Status.CANCELLED);
+    }
+
+    @Test
+    public void testQuorumUnreachable() throws Exception {
+        addExchanges("ok", "fail", "fail", "hang");
+        client.setCompletionPolicy(CompletionPolicy.QUORUM);
+        client.setQuorum(3);
+        client.initialize();
+        try {
+            client.send(operationContext);
+            Assert.fail("Quorum should not have been met");
+        } catch (final SOAPClientException e) {
+            Assert.assertTrue(e.getCause() instanceof SOAPClientException);
+        }
+
+        assertStatuses(Status.SUCCEEDED, Status.FAILED, Status.FAILED, Status.CANCELLED);
+    }
+
+    @Test
+    public void testPerExchangeTimeout() throws Exception {
+        fanOutContext.addExchange("delay", new InOutOperationContext<>(null, new MessageContext<>()), 50);
+        fanOutContext.addExchange("delay", new InOutOperationContext<>(null, new MessageContext<>()));
+        client.initialize();
+        client.send(operationContext);
+
+        assertStatuses(Status.TIMED_OUT, Status.SUCCEEDED);
+    }
+
+    @Test
+    public void testHedging() throws Exception {
+        addExchanges("hang", "ok", "ok");
+        client.setCompletionPolicy(CompletionPolicy.FIRST_SUCCESS);
+        client.setHedgeDelay(100);
+        client.initialize();
+        final long start = System.currentTimeMillis();
+        client.send(operationContext);
+
+        Assert.assertTrue(System.currentTimeMillis() - start < 1000, "Hung exchange was awaited");
+        // The last is never sent, as the second succeeds first.
+        assertStatuses(Status.CANCELLED, Status.SUCCEEDED, Status.CANCELLED);
+    }
+
+    @Test
+    public void testHedgingAfterFailure() throws Exception {
+        addExchanges("fail", "fail", "ok");
+        client.setCompletionPolicy(CompletionPolicy.FIRST_SUCCESS);
+        client.setHedgeDelay(5000);
+        client.initialize();
+        final long start = System.currentTimeMillis();
+        client.send(operationContext);
+
+        Assert.assertTrue(System.currentTimeMillis() - start < 1000, "Hedge delay was awaited after failure");
+        assertStatuses(Status.FAILED, Status.FAILED, Status.SUCCEEDED);
+    }
+
+    @Test
+    public void testRankedHedging() throws Exception {
+        addExchanges("hang", "ok");
+        client.setCompletionPolicy(CompletionPolicy.FIRST_SUCCESS);
+        client.setHedgeDelay(5000);
+        client.setCircuitBreaker(new EndpointCircuitBreaker() {
+            public Permit acquire(final String endpoint) {
+                return null;
+            }
+
+            public State getState(final String endpoint) {
+                return "hang".equals(endpoint) ? State.OPEN : State.CLOSED;
+            }
+
+            public List<String> rank(final List<String> endpoints) {
+                final List<String> ranked = new ArrayList<>(endpoints);
+                Collections.reverse(ranked);
+                return ranked;
+            }
+        });
+        client.initialize();
+        final long start = System.currentTimeMillis();
+        client.send(operationContext);
+
+        Assert.assertTrue(System.currentTimeMillis() - start < 1000, "Lower ranked exchange was sent first");
+        assertStatuses(Status.CANCELLED, Status.SUCCEEDED);
+    }
+
+    @Test(expectedExceptions = SOAPClientException.class)
+    public void testNoExchanges() throws Exception {
+        client.initialize();
+        client.send(operationContext);
+    }
+
+    private void addExchanges(final String... endpoints) {
+        for (final String endpoint : endpoints) {
+            fanOutContext.addExchange(endpoint, new InOutOperationContext<>(null, new MessageContext<>()));
+        }
+    }
+
+    private void assertStatuses(final Status... statuses) {
+        final List<Exchange> exchanges = fanOutContext.getExchanges();
+        Assert.assertEquals(exchanges.size(), statuses.length);
+        for (int i = 0; i < statuses.length; i++) {
+            Assert.assertEquals(exchanges.get(i).getStatus(), statuses[i], exchanges.get(i).getEndpoint());
+        }
+    }
+
+    /** Client which responds at once, after a delay, never, or with a failure, according to the endpoint. */
+    private static class MockSOAPClient implements SOAPClient {
+
+        /** {@inheritDoc} */
+        public void send(final String endpoint, final InOutOperationContext context) throws SOAPException {
+            try {
+                if ("delay".equals(endpoint)) {
+                    Thread.sleep(200);
+                } else if ("hang".equals(endpoint)) {
+                    Thread.sleep(60000);
+                } else if ("fail".equals(endpoint)) {
+                    throw new SOAPClientException("Failed");
+                }
+            } catch (final InterruptedException e) {
+                throw new SOAPClientException("Interrupted", e);
+            }
+            context.setInboundMessageContext(new MessageContext<>());
+        }
+    }
+
+}
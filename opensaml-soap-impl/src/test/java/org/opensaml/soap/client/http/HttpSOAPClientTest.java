@@ -0,0 +1,239 @@
+/*
+ * Licensed to the University Corporation for Advanced Internet Development, 
+ * Inc. (UCAID) under one or more contributor license agreements.  See the 
+ * NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The UCAID licenses this file to You under the Apache 
+ * License, Version 2.0 (the "License"); you may not use this file except in 
+ * compliance with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.opensaml.soap.client.http;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import net.shibboleth.utilities.java.support.component.ComponentInitializationException;
+
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.opensaml.core.xml.XMLObject;
+import org.opensaml.core.xml.XMLObjectBaseTestCase;
+import org.opensaml.core.xml.mock.SimpleXMLObject;
+import org.opensaml.messaging.context.InOutOperationContext;
+import org.opensaml.messaging.context.MessageContext;
+import org.opensaml.soap.client.PooledAsyncSOAPClient;
+import org.opensaml.soap.client.SOAPClientException;
+import org.opensaml.soap.messaging.context.SOAP11Context;
+import org.opensaml.soap.soap11.Body;
+import org.opensaml.soap.soap11.Envelope;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.google.common.util.concurrent.ListenableFuture;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Test of {@link HttpSOAPClient} and {@link PooledAsyncSOAPClient} against an embedded HTTP server which echoes
+ * each request.
+ */
+public class HttpSOAPClientTest extends XMLObjectBaseTestCase {
+
+    private HttpServer server;
+
+    private ExecutorService serverExecutor;
+
+    private ExecutorService clientExecutor;
+
+    private PoolingHttpClientConnectionManager connectionManager;
+
+    private CloseableHttpClient httpClient;
+
+    private HttpSOAPClient client;
+
+    private String endpoint;
+
+    private final List<String> transferEncodings = Collections.synchronizedList(new ArrayList<String>());
+
+    private final List<Integer> remotePorts = Collections.synchronizedList(new ArrayList<Integer>());
+
+    private final AtomicInteger active = new AtomicInteger();
+
+    private final AtomicInteger peak = new AtomicInteger();
+
+    @BeforeClass
+    public void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/soap", new EchoHandler());
+        serverExecutor = Executors.newCachedThreadPool();
+        server.setExecutor(serverExecutor);
+        server.start();
+        endpoint = "http://127.0.0.1:" + server.getAddress().getPort() + "/soap";
+
+        connectionManager = new PoolingHttpClientConnectionManager();
+        connectionManager.setDefaultMaxPerRoute(4);
+        httpClient = HttpClients.custom().setConnectionManager(connectionManager).build();
+        clientExecutor = Executors.newFixedThreadPool(8);
+    }
+
+    @AfterClass
+    public void stopServer() throws IOException {
+        clientExecutor.shutdownNow();
+        httpClient.close();
+        server.stop(0);
+        serverExecutor.shutdownNow();
+    }
+
+    @BeforeMethod
+    public void setUp() throws ComponentInitializationException {
+        transferEncodings.clear();
+        remotePorts.clear();
+        peak.set(0);
+
+        client = new HttpSOAPClient();
+        client.setHttpClient(httpClient);
+        client.setParserPool(parserPool);
+        client.initialize();
+    }
+
+    @Test
+    public void testSend() throws Exception {
+        final InOutOperationContext context = buildOperationContext();
+        client.send(endpoint, context);
+
+        assertEchoed(context);
+        Assert.assertNull(transferEncodings.get(0));
+    }
+
+    @Test
+    public void testSendStreaming() throws Exception {
+        client = new HttpSOAPClient();
+        client.setHttpClient(httpClient);
+        client.setParserPool(parserPool);
+        client.setStreamingRequests(true);
+        client.initialize();
+
+        final InOutOperationContext context = buildOperationContext();
+        client.send(endpoint, context);
+
+        assertEchoed(context);
+        Assert.assertEquals(transferEncodings.get(0), "chunked");
+    }
+
+    @Test
+    public void testConnectionReuse() throws Exception {
+        client.send(endpoint, buildOperationContext());
+        client.send(endpoint, buildOperationContext());
+
+        Assert.assertEquals(remotePorts.size(), 2);
+        Assert.assertEquals(remotePorts.get(1), remotePorts.get(0));
+    }
+
+    @Test(expectedExceptions = SOAPClientException.class)
+    public void testErrorStatus() throws Exception {
+        client.send(endpoint.replace("/soap", "/missing"), buildOperationContext());
+    }
+
+    @Test
+    public void testSendAsync() throws Exception {
+        final PooledAsyncSOAPClient asyncClient = new PooledAsyncSOAPClient();
+        asyncClient.setSOAPClient(client);
+        asyncClient.setExecutor(clientExecutor);
+        asyncClient.setMaxConcurrentPerEndpoint(2);
+        asyncClient.initialize();
+
+        final List<ListenableFuture<InOutOperationContext>> results = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            results.add(asyncClient.sendAsync(endpoint, buildOperationContext()));
+        }
+        for (final ListenableFuture<InOutOperationContext> result : results) {
+            assertEchoed(result.get(10, TimeUnit.SECONDS));
+        }
+
+        Assert.assertEquals(remotePorts.size(), 8);
+        Assert.assertTrue(peak.get() <= 2, "Endpoint limit exceeded");
+        Assert.assertEquals(asyncClient.getActiveExchanges(endpoint), 0);
+    }
+
+    private InOutOperationContext buildOperationContext() {
+        final Envelope envelope = buildXMLObject(Envelope.DEFAULT_ELEMENT_NAME);
+        final Body body = buildXMLObject(Body.DEFAULT_ELEMENT_NAME);
+        envelope.setBody(body);
+        body.getUnknownXMLObjects().add(buildXMLObject(SimpleXMLObject.ELEMENT_NAME));
+
+        final MessageContext<XMLObject> outbound = new MessageContext<>();
+        outbound.getSubcontext(SOAP11Context.class, true).setEnvelope(envelope);
+        return new InOutOperationContext<>(null, outbound);
+    }
+
+    private void assertEchoed(final InOutOperationContext context) {
+        Assert.assertNotNull(context.getInboundMessageContext());
+        final Envelope response =
+                context.getInboundMessageContext().getSubcontext(SOAP11Context.class).getEnvelope();
+        Assert.assertNotNull(response);
+        Assert.assertEquals(response.getBody().getUnknownXMLObjects().size(), 1);
+        Assert.assertTrue(response.getBody().getUnknownXMLObjects().get(0) instanceof SimpleXMLObject);
+    }
+
+    /** Handler which echoes the request body, recording details of the request. */
+    private class EchoHandler implements HttpHandler {
+
+        public void handle(final HttpExchange exchange) throws IOException {
+            final int current = active.incrementAndGet();
+            try {
+                transferEncodings.add(exchange.getRequestHeaders().getFirst("Transfer-Encoding"));
+                remotePorts.add(exchange.getRemoteAddress().getPort());
+                int max = peak.get();
+                while (current > max && !peak.compareAndSet(max, current)) {
+                    max = peak.get();
+                }
+
+                final ByteArrayOutputStream body = new ByteArrayOutputStream();
+                try (final InputStream in = exchange.getRequestBody()) {
+                    final byte[] buffer = new byte[1024];
+                    int read;
+                    while ((read = in.read(buffer)) != -1) {
+                        body.write(buffer, 0, read);
+                    }
+                }
+                // Give concurrent requests the chance to overlap.
+                Thread.sleep(50);
+
+                exchange.getResponseHeaders().set("Content-Type", "text/xml; charset=UTF-8");
+                exchange.sendResponseHeaders(200, body.size());
+                try (final OutputStream out = exchange.getResponseBody()) {
+                    body.writeTo(out);
+                }
+            } catch (final InterruptedException e) {
+                exchange.sendResponseHeaders(500, -1);
+            } finally {
+                active.decrementAndGet();
+                exchange.close();
+            }
+        }
+    }
+
+}
@@ -87,9 +87,14 @@ public abstract class AbstractMapBackedStorageService extends AbstractStorageSer
                 }
                 
                 // It's dead, so we can just remove it now and create the new record.
+                cancelExpiration(context, key);
             }
             
-            dataMap.put(key, new MutableStorageRecord(value, expiration));
+            final MutableStorageRecord newRecord = new MutableStorageRecord(value, expiration);
+            dataMap.put(key, newRecord);
+            if (expiration != null) {
+                scheduleExpiration(context, key, newRecord);
+            }
             log.trace("Inserted record '{}' in context '{}' with expiration '{}'",
                     new Object[] { key, context, expiration });
             
@@ -178,10 +183,16 @@ public abstract class AbstractMapBackedStorageService extends AbstractStorageSer
             if (dataMap != null) {    
                 setDirty();
                 Long now = System.currentTimeMillis();
-                for (MutableStorageRecord record : dataMap.values()) {
+                for (Entry<String, MutableStorageRecord> entry : dataMap.entrySet()) {
+                    final MutableStorageRecord record = entry.getValue();
                     final Long exp = record.getExpiration();
                     if (exp == null || now < exp) {
                         record.setExpiration(expiration);
+                        if (isEarlier(expiration, exp)) {
+                            scheduleExpiration(context, entry.getKey(), record);
+                        } else if (expiration == null && exp != null) {
+                            cancelExpiration(context, entry.getKey());
+                        }
                     }
                 }
                 log.debug("Updated expiration of valid records in context '{}' to '{}'", context, expiration);
@@ -200,7 +211,12 @@ public abstract class AbstractMapBackedStorageService extends AbstractStorageSer
         try {
             writeLock.lock();
             setDirty();
-            getContextMap().remove(context);
+            final Map<String, MutableStorageRecord> dataMap = getContextMap().remove(context);
+            if (dataMap != null) {
+                for (final String key : dataMap.keySet()) {
+                    cancelExpiration(context, key);
+                }
+            }
         } finally {
             writeLock.unlock();
         }
@@ -362,7 +378,13 @@ public abstract class AbstractMapBackedStorageService extends AbstractStorageSer
                 record.incrementVersion();
             }
     
+            final Long previous = record.getExpiration();
             record.setExpiration(expiration);
+            if (isEarlier(expiration, previous)) {
+                scheduleExpiration(context, key, record);
+            } else if (expiration == null && previous != null) {
+                cancelExpiration(context, key);
+            }
     
             log.trace("Updated record '{}' in context '{}' with expiration '{}'",
                     new Object[] { key, context, expiration });
@@ -410,6 +432,7 @@ public abstract class AbstractMapBackedStorageService extends AbstractStorageSer
             } else {
                 setDirty();
                 dataMap.remove(key);
+                cancelExpiration(context, key);
                 log.trace("Deleted record '{}' in context '{}'", key, context);
                 if (dataMap.isEmpty()) {
                     contextMap.remove(context);
@@ -421,6 +444,40 @@ public abstract class AbstractMapBackedStorageService extends AbstractStorageSer
         }
     }
     
+    /**
+     * Called whenever a record is given an expiration earlier than it had before, including when it is created with
+     * one, so that the record may be removed once it expires.
+     * 
+     * <p>A record may since have been given a later expiration, or have been removed by means other than
+     * {@link #cancelExpiration(String, String)}, by the time it is due to expire. The default implementation does
+     * nothing, leaving removal to a cleanup task.</p>
+     * 
+     * <p>This method is called while holding a write lock, if locking is required.</p>
+     * 
+     * @param context       the context of the record
+     * @param key           the key of the record
+     * @param record        the record
+     */
+    protected void scheduleExpiration(@Nonnull @NotEmpty final String context, @Nonnull @NotEmpty final String key,
+            @Nonnull final MutableStorageRecord record) {
+
+    }
+
+    /**
+     * Called whenever a record is deleted or replaced, or loses its expiration, so that any removal scheduled by
+     * {@link #scheduleExpiration(String, String, MutableStorageRecord)} may be cancelled.
+     * 
+     * <p>The default implementation does nothing.</p>
+     * 
+     * <p>This method is called while holding a write lock, if locking is required.</p>
+     * 
+     * @param context       the context of the record
+     * @param key           the key of the record
+     */
+    protected void cancelExpiration(@Nonnull @NotEmpty final String context, @Nonnull @NotEmpty final String key) {
+
+    }
+
     /**
      * Locates and removes expired records from the input map.
      * 
@@ -443,4 +500,16 @@ public abstract class AbstractMapBackedStorageService extends AbstractStorageSer
         );
     }
     
-}
\ No newline at end of file
+    /**
+     * Get whether a new expiration is earlier than a previous one.
+     * 
+     * @param expiration    the new expiration, or null for none
+     * @param previous      the previous expiration, or null for none
+     * 
+     * @return true iff there is a new expiration and it is earlier than the previous one, if any
+     */
+    private static boolean isEarlier(@Nullable final Long expiration, @Nullable final Long previous) {
+        return expiration != null && (previous == null || expiration < previous);
+    }
+
+}
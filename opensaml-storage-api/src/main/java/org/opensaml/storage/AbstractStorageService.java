@@ -119,7 +119,9 @@ public abstract class AbstractStorageService extends AbstractIdentifiableInitial
      * Returns a cleanup task function to schedule for background cleanup.
      * 
      * <p>
-     * The default implementation does not supply one.
+     * The default implementation does not supply one. A subclass which removes expired records by other means, such
+     * as an {@link ExpirationScheduler}, need not supply one either, in which case the cleanup interval serves only to
+     * enable that removal.
      * </p>
      * 
      * @return a task object, or null
@@ -167,14 +169,14 @@ public abstract class AbstractStorageService extends AbstractIdentifiableInitial
 
         if (cleanupInterval > 0) {
             cleanupTask = getCleanupTask();
-            if (cleanupTask == null) {
-                throw new ComponentInitializationException("Cleanup task cannot be null if cleanupInterval is set.");
-            } else if (cleanupTaskTimer == null) {
-                internalTaskTimer = new Timer(true);
-            } else {
-                internalTaskTimer = cleanupTaskTimer;
+            if (cleanupTask != null) {
+                if (cleanupTaskTimer == null) {
+                    internalTaskTimer = new Timer(true);
+                } else {
+                    internalTaskTimer = cleanupTaskTimer;
+                }
+                internalTaskTimer.schedule(cleanupTask, cleanupInterval, cleanupInterval);
             }
-            internalTaskTimer.schedule(cleanupTask, cleanupInterval, cleanupInterval);
         }
     }
 
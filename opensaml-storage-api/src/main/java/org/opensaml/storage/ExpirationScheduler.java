@@ -0,0 +1,326 @@
+/*
+ * Licensed to the University Corporation for Advanced Internet Development,
+ * Inc. (UCAID) under one or more contributor license agreements.  See the
+ * NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The UCAID licenses this file to You under the Apache
+ * License, Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.opensaml.storage;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.ThreadSafe;
+
+import net.shibboleth.utilities.java.support.annotation.Duration;
+import net.shibboleth.utilities.java.support.annotation.constraint.Positive;
+import net.shibboleth.utilities.java.support.logic.Constraint;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Runs actions when the items they expire reach their expiration, using a hierarchical timing wheel.
+ *
+ * <p>
+ * Actions are placed in one of several levels of 64 slots each, the slots of each level spanning 64 times the time of
+ * those of the level below, and are moved down a level as their expiration draws near. Scheduling and cancelling are
+ * constant time operations, and each tick only visits the actions that are due or are moving down, so that expiring
+ * structures need neither a thread of their own nor a periodic scan of all their entries.
+ * </p>
+ *
+ * <p>
+ * Actions run no earlier than their expiration and normally within one tick of it, on a single daemon thread shared
+ * by all users of the {@link #getSharedInstance() shared instance}. They must therefore be short and must not block;
+ * an action that finds its item has since been removed or given a later expiration should simply do nothing, or
+ * schedule itself again. Users should cancel their outstanding actions when they are destroyed, so that the wheel
+ * does not keep them reachable.
+ * </p>
+ *
+ * <p>
+ * The thread is started when an action is first scheduled. An environment which unloads this class, such as a
+ * servlet container undeploying a web application, should {@link #shutdown()} the shared instance, so that the
+ * thread does not keep the class loader reachable.
+ * </p>
+ */
+@ThreadSafe
+public final class ExpirationScheduler {
+
+    /** Default tick duration in milliseconds. */
+    @Duration public static final long DEFAULT_TICK_DURATION = 1000;
+
+    /** Number of bits of the tick count resolved by each level. */
+    private static final int WHEEL_BITS = 6;
+
+    /** Number of slots in each level. */
+    private static final int WHEEL_SIZE = 1 << WHEEL_BITS;
+
+    /** Mask to extract a slot index. */
+    private static final int WHEEL_MASK = WHEEL_SIZE - 1;
+
+    /** Number of levels. */
+    private static final int LEVELS = 4;
+
+    /** Largest number of ticks ahead that can be placed directly, later actions are placed again when moved down. */
+    private static final long MAX_DELTA = (1L << (WHEEL_BITS * LEVELS)) - 1;
+
+    /** The instance shared by all expiring structures. */
+    @Nonnull private static final ExpirationScheduler SHARED = new ExpirationScheduler(DEFAULT_TICK_DURATION, true);
+
+    /** Class logger. */
+    @Nonnull private final Logger log = LoggerFactory.getLogger(ExpirationScheduler.class);
+
+    /** Duration of a tick in milliseconds. */
+    @Duration @Positive private final long tickDuration;
+
+    /** Whether to advance the wheel on a thread of its own. */
+    private final boolean startThread;
+
+    /** The slots of each level. */
+    @Nonnull private final List<List<Registration>> slots;
+
+    /** The last tick processed. */
+    private long currentTick;
+
+    /** Number of actions in the wheel, including cancelled ones not yet reached. */
+    private int size;
+
+    /** Executor advancing the wheel, started on first use. */
+    @Nullable private ScheduledExecutorService executor;
+
+    /**
+     * Constructor.
+     *
+     * @param duration duration of a tick in milliseconds
+     * @param thread whether to advance the wheel on a thread of its own, rather than by calls to {@link #advance(long)}
+     */
+    ExpirationScheduler(@Duration @Positive final long duration, final boolean thread) {
+        tickDuration = Constraint.isGreaterThan(0, duration, "Tick duration must be greater than zero");
+        startThread = thread;
+        slots = new ArrayList<>(LEVELS * WHEEL_SIZE);
+        for (int i = 0; i < LEVELS * WHEEL_SIZE; i++) {
+            slots.add(new ArrayList<Registration>());
+        }
+        currentTick = System.currentTimeMillis() / tickDuration;
+    }
+
+    /**
+     * Get the instance shared by all expiring structures.
+     *
+     * @return the shared instance
+     */
+    @Nonnull public static ExpirationScheduler getSharedInstance() {
+        return SHARED;
+    }
+
+    /**
+     * Get the duration of a tick in milliseconds.
+     *
+     * @return the tick duration
+     */
+    @Duration @Positive public long getTickDuration() {
+        return tickDuration;
+    }
+
+    /**
+     * Schedule an action to run once a given expiration has been reached.
+     *
+     * @param expiration the expiration, in milliseconds since the epoch
+     * @param action the action to run
+     *
+     * @return a registration through which the action may be cancelled
+     */
+    @Nonnull public Registration schedule(final long expiration, @Nonnull final Runnable action) {
+        Constraint.isNotNull(action, "Action cannot be null");
+
+        // Rounding up ensures an action never runs before its expiration.
+        final long tick = expiration / tickDuration + (expiration % tickDuration > 0 ? 1 : 0);
+        final Registration registration = new Registration(action);
+
+        synchronized (this) {
+            if (startThread && executor == null) {
+                startExecutor();
+            }
+            // An action already due runs on the next tick, as the current one has been processed.
+            registration.tick = Math.max(tick, currentTick + 1);
+            place(registration);
+            size++;
+        }
+
+        return registration;
+    }
+
+    /**
+     * Stop the thread advancing the wheel, if any, and discard every scheduled action without running it.
+     *
+     * <p>The wheel remains usable; the thread is started again if another action is scheduled.</p>
+     */
+    public void shutdown() {
+        synchronized (this) {
+            if (executor != null) {
+                executor.shutdownNow();
+                executor = null;
+            }
+            for (final List<Registration> slot : slots) {
+                for (final Registration registration : slot) {
+                    registration.cancel();
+                }
+                slot.clear();
+            }
+            size = 0;
+        }
+    }
+
+    /**
+     * Process every tick up to the given time, running the actions that have become due.
+     *
+     * @param now the current time, in milliseconds since the epoch
+     */
+    void advance(final long now) {
+        final List<Registration> due = new ArrayList<>();
+
+        synchronized (this) {
+            final long nowTick = now / tickDuration;
+            if (size == 0 && nowTick > currentTick) {
+                currentTick = nowTick;
+            }
+            while (currentTick < nowTick) {
+                currentTick++;
+
+                // Move actions down from the highest level first, so they may move more than one level at once.
+                for (int level = LEVELS - 1; level > 0; level--) {
+                    if ((currentTick & ((1L << (WHEEL_BITS * level)) - 1)) == 0) {
+                        final List<Registration> slot = getSlot(level, currentTick);
+                        final List<Registration> moving = new ArrayList<>(slot);
+                        slot.clear();
+                        for (final Registration registration : moving) {
+                            if (registration.isCancelled()) {
+                                size--;
+                            } else {
+                                place(registration);
+                            }
+                        }
+                    }
+                }
+
+                final List<Registration> slot = getSlot(0, currentTick);
+                for (final Registration registration : slot) {
+                    size--;
+                    if (!registration.isCancelled()) {
+                        due.add(registration);
+                    }
+                }
+                slot.clear();
+            }
+        }
+
+        for (final Registration registration : due) {
+            final Runnable action = registration.action;
+            if (action != null) {
+                try {
+                    action.run();
+                } catch (final Throwable t) {
+                    // Nothing may escape, or the executor would stop advancing the wheel for every user.
+                    log.error("Expiration action failed", t);
+                }
+            }
+        }
+    }
+
+    /**
+     * Place an action in the slot for its tick. Must be called while synchronized.
+     *
+     * @param registration the registration of the action
+     */
+    private void place(@Nonnull final Registration registration) {
+        final long delta = registration.tick - currentTick;
+        for (int level = 0; level < LEVELS; level++) {
+            if (delta < 1L << (WHEEL_BITS * (level + 1))) {
+                getSlot(level, registration.tick).add(registration);
+                return;
+            }
+        }
+        // Beyond the span of the wheel, so park it as far out as possible and let it be placed again from there.
+        getSlot(LEVELS - 1, currentTick + MAX_DELTA).add(registration);
+    }
+
+    /**
+     * Get the slot of a level that holds a given tick.
+     *
+     * @param level the level
+     * @param tick the tick
+     *
+     * @return the slot
+     */
+    @Nonnull private List<Registration> getSlot(final int level, final long tick) {
+        return slots.get(level * WHEEL_SIZE + (int) ((tick >>> (WHEEL_BITS * level)) & WHEEL_MASK));
+    }
+
+    /** Start the executor that advances the wheel. Must be called while synchronized. */
+    private void startExecutor() {
+        executor = new ScheduledThreadPoolExecutor(1, new ThreadFactory() {
+            public Thread newThread(final Runnable r) {
+                final Thread thread = new Thread(r, "ExpirationScheduler");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        executor.scheduleWithFixedDelay(new Runnable() {
+            public void run() {
+                advance(System.currentTimeMillis());
+            }
+        }, tickDuration, tickDuration, TimeUnit.MILLISECONDS);
+    }
+
+    /** The registration of a scheduled action. */
+    public static final class Registration {
+
+        /** The action, null once cancelled. */
+        @Nullable private volatile Runnable action;
+
+        /** The tick on which the action is due. */
+        private long tick;
+
+        /**
+         * Constructor.
+         *
+         * @param scheduled the action
+         */
+        private Registration(@Nonnull final Runnable scheduled) {
+            action = scheduled;
+        }
+
+        /**
+         * Cancel the action, if it has not yet run. The registration is discarded when its slot is next reached.
+         */
+        public void cancel() {
+            action = null;
+        }
+
+        /**
+         * Get whether the action has been cancelled.
+         *
+         * @return true iff the action has been cancelled
+         */
+        public boolean isCancelled() {
+            return action == null;
+        }
+    }
+
+}
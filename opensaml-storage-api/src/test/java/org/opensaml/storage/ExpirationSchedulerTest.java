@@ -0,0 +1,156 @@
+/*
+ * Licensed to the University Corporation for Advanced Internet Development,
+ * Inc. (UCAID) under one or more contributor license agreements.  See the
+ * NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The UCAID licenses this file to You under the Apache
+ * License, Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.opensaml.storage;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.testng.Assert;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+/**
+ * Test of {@link ExpirationScheduler}.
+ */
+public class ExpirationSchedulerTest {
+
+    private ExpirationScheduler scheduler;
+
+    private long start;
+
+    private List<String> fired;
+
+    @BeforeMethod
+    public void setUp() {
+        scheduler = new ExpirationScheduler(10, false);
+        // Align to a tick as the scheduler rounds expirations up to one.
+        start = (System.currentTimeMillis() / 10 + 1) * 10;
+        fired = new ArrayList<>();
+    }
+
+    @Test
+    public void testOrder() {
+        scheduler.schedule(start + 50, new Record("b"));
+        scheduler.schedule(start + 10, new Record("a"));
+        scheduler.schedule(start + 1000, new Record("c"));
+
+        scheduler.advance(start + 9);
+        Assert.assertTrue(fired.isEmpty());
+        scheduler.advance(start + 10);
+        Assert.assertEquals(fired, Arrays.asList("a"));
+        scheduler.advance(start + 999);
+        Assert.assertEquals(fired, Arrays.asList("a", "b"));
+        scheduler.advance(start + 1000);
+        Assert.assertEquals(fired, Arrays.asList("a", "b", "c"));
+    }
+
+    @Test
+    public void testHigherLevels() {
+        // Spans the second, third and fourth levels, and beyond the wheel.
+        final long[] delays = {64 * 10 + 5, 64 * 64 * 10 + 5, 64 * 64 * 64 * 10 + 5, 64L * 64 * 64 * 64 * 10 + 5};
+        for (int i = 0; i < delays.length; i++) {
+            scheduler.schedule(start + delays[i], new Record(Integer.toString(i)));
+        }
+
+        for (int i = 0; i < delays.length; i++) {
+            // Due on the tick after, since the expirations fall between ticks.
+            scheduler.advance(start + delays[i]);
+            Assert.assertEquals(fired.size(), i);
+            scheduler.advance(start + delays[i] + 5);
+            Assert.assertEquals(fired.size(), i + 1);
+            Assert.assertEquals(fired.get(i), Integer.toString(i));
+        }
+    }
+
+    @Test
+    public void testCancel() {
+        final ExpirationScheduler.Registration registration = scheduler.schedule(start + 10, new Record("a"));
+        scheduler.schedule(start + 20, new Record("b"));
+        registration.cancel();
+        Assert.assertTrue(registration.isCancelled());
+
+        scheduler.advance(start + 20);
+        Assert.assertEquals(fired, Arrays.asList("b"));
+    }
+
+    @Test
+    public void testShutdown() {
+        final ExpirationScheduler.Registration registration = scheduler.schedule(start + 10, new Record("a"));
+        scheduler.shutdown();
+        Assert.assertTrue(registration.isCancelled());
+
+        scheduler.schedule(start + 20, new Record("b"));
+        scheduler.advance(start + 20);
+        Assert.assertEquals(fired, Arrays.asList("b"));
+    }
+
+    @Test
+    public void testPastExpiration() {
+        scheduler.advance(start);
+        scheduler.schedule(start - 1000, new Record("a"));
+        Assert.assertTrue(fired.isEmpty());
+
+        scheduler.advance(start + 10);
+        Assert.assertEquals(fired, Arrays.asList("a"));
+    }
+
+    @Test
+    public void testFailedAction() {
+        scheduler.schedule(start + 10, new Runnable() {
+            public void run() {
+                throw new IllegalStateException();
+            }
+        });
+        scheduler.schedule(start + 10, new Record("a"));
+
+        scheduler.advance(start + 10);
+        Assert.assertEquals(fired, Arrays.asList("a"));
+    }
+
+    @Test
+    public void testFailedActionError() {
+        scheduler.schedule(start + 10, new Runnable() {
+            public void run() {
+                throw new NoClassDefFoundError();
+            }
+        });
+        scheduler.schedule(start + 10, new Record("a"));
+        scheduler.schedule(start + 20, new Record("b"));
+
+        scheduler.advance(start + 10);
+        Assert.assertEquals(fired, Arrays.asList("a"));
+        scheduler.advance(start + 20);
+        Assert.assertEquals(fired, Arrays.asList("a", "b"));
+    }
+
+    /** Action which records its name when run. */
+    private class Record implements Runnable {
+
+        private final String name;
+
+        private Record(final String recordName) {
+            name = recordName;
+        }
+
+        public void run() {
+            fired.add(name);
+        }
+    }
+
+}
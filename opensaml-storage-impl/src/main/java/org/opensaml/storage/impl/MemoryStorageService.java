@@ -17,11 +17,8 @@
 
 package org.opensaml.storage.impl;
 
-import java.util.Collection;
 import java.util.HashMap;
-import java.util.Iterator;
 import java.util.Map;
-import java.util.TimerTask;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
@@ -32,9 +29,11 @@ import javax.annotation.Nullable;
 import net.shibboleth.utilities.java.support.annotation.constraint.Live;
 import net.shibboleth.utilities.java.support.annotation.constraint.NonnullAfterInit;
 import net.shibboleth.utilities.java.support.annotation.constraint.NonnullElements;
+import net.shibboleth.utilities.java.support.annotation.constraint.NotEmpty;
 import net.shibboleth.utilities.java.support.component.ComponentInitializationException;
 
 import org.opensaml.storage.AbstractMapBackedStorageService;
+import org.opensaml.storage.ExpirationScheduler;
 import org.opensaml.storage.MutableStorageRecord;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -42,6 +41,10 @@ import org.slf4j.LoggerFactory;
 /**
  * Implementation of {@link AbstractMapBackedStorageService} that stores data in-memory in a shared data structure 
  * with no persistence.
+ * 
+ * <p>If a cleanup interval is set, each record is removed as it expires by the shared {@link ExpirationScheduler},
+ * rather than by a periodic scan of every context, and no cleanup task timer is used. Removals are cancelled as
+ * records are deleted or replaced, and when the service is destroyed.</p>
  */
 public class MemoryStorageService extends AbstractMapBackedStorageService {
 
@@ -54,19 +57,45 @@ public class MemoryStorageService extends AbstractMapBackedStorageService {
     /** A shared lock to synchronize access. */
     @NonnullAfterInit private ReadWriteLock lock;
 
+    /** Scheduler used to remove records as they expire, null if cleanup is disabled. */
+    @Nullable private ExpirationScheduler expirationScheduler;
+
+    /** Scheduled removals by context and key, guarded by the write lock. */
+    @NonnullAfterInit @NonnullElements private Map<String, Map<String, Removal>> removals;
+
     /** {@inheritDoc} */
     @Override
     protected void doInitialize() throws ComponentInitializationException {
         super.doInitialize();
         contextMap = new HashMap<>();
         lock = new ReentrantReadWriteLock(true);
+        removals = new HashMap<>();
+        if (getCleanupInterval() > 0) {
+            expirationScheduler = ExpirationScheduler.getSharedInstance();
+        }
     }
 
     /** {@inheritDoc} */
     @Override
     protected void doDestroy() {
-        contextMap = null;
-        lock = null;
+        if (lock != null) {
+            final Lock writeLock = lock.writeLock();
+            try {
+                writeLock.lock();
+                // Cancel what is still scheduled, so the shared scheduler no longer refers to this service.
+                for (final Map<String, Removal> contextRemovals : removals.values()) {
+                    for (final Removal removal : contextRemovals.values()) {
+                        removal.cancel();
+                    }
+                }
+                removals = null;
+                expirationScheduler = null;
+                contextMap = null;
+            } finally {
+                writeLock.unlock();
+            }
+            lock = null;
+        }
         super.doDestroy();
     }
 
@@ -85,44 +114,131 @@ public class MemoryStorageService extends AbstractMapBackedStorageService {
     
     /** {@inheritDoc} */
     @Override
-    @Nullable protected TimerTask getCleanupTask() {
-        return new TimerTask() {
-            
-            /** {@inheritDoc} */
-            @Override
-            public void run() {
-                log.debug("Running cleanup task");
-                
-                final Long now = System.currentTimeMillis();
-                final Lock writeLock = getLock().writeLock();
-                boolean purged = false;
-                
-                try {
-                    writeLock.lock();
-                    
-                    Collection<Map<String, MutableStorageRecord>> contexts = getContextMap().values();
-                    Iterator<Map<String, MutableStorageRecord>> i = contexts.iterator();
-                    while (i.hasNext()) {
-                        final Map<String, MutableStorageRecord> context = i.next(); 
-                        if (reapWithLock(context, now)) {
-                            purged = true;
-                            if (context.isEmpty()) {
-                                i.remove();
-                            }
-                        }
-                    }
-                    
-                } finally {
-                    writeLock.unlock();
+    protected void scheduleExpiration(@Nonnull @NotEmpty final String context, @Nonnull @NotEmpty final String key,
+            @Nonnull final MutableStorageRecord record) {
+        final Long expiration = record.getExpiration();
+        if (expirationScheduler == null || expiration == null) {
+            return;
+        }
+
+        Map<String, Removal> contextRemovals = removals.get(context);
+        if (contextRemovals == null) {
+            contextRemovals = new HashMap<>();
+            removals.put(context, contextRemovals);
+        }
+        final Removal removal = new Removal(context, key);
+        final Removal previous = contextRemovals.put(key, removal);
+        if (previous != null) {
+            previous.cancel();
+        }
+        removal.registration = expirationScheduler.schedule(expiration, removal);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    protected void cancelExpiration(@Nonnull @NotEmpty final String context, @Nonnull @NotEmpty final String key) {
+        final Map<String, Removal> contextRemovals = removals.get(context);
+        if (contextRemovals != null) {
+            final Removal removal = contextRemovals.remove(key);
+            if (removal != null) {
+                removal.cancel();
+                if (contextRemovals.isEmpty()) {
+                    removals.remove(context);
+                }
+            }
+        }
+    }
+
+    /**
+     * Removes a record when it expires. A record given a later expiration is scheduled again.
+     * 
+     * <p>Only the context and key are held, so that a record which is deleted in the meantime is not kept
+     * reachable.</p>
+     */
+    private class Removal implements Runnable {
+
+        /** The context of the record. */
+        @Nonnull @NotEmpty private final String context;
+
+        /** The key of the record. */
+        @Nonnull @NotEmpty private final String key;
+
+        /**
+         * The registration of this removal with the scheduler. Replaced without the lock when a removal is retried,
+         * in which case a cancelled removal may still run once, and then does nothing.
+         */
+        @Nullable private volatile ExpirationScheduler.Registration registration;
+
+        /**
+         * Constructor.
+         *
+         * @param recordContext the context of the record
+         * @param recordKey the key of the record
+         */
+        private Removal(@Nonnull @NotEmpty final String recordContext, @Nonnull @NotEmpty final String recordKey) {
+            context = recordContext;
+            key = recordKey;
+        }
+
+        /** Cancel this removal. Must be called while holding the write lock. */
+        private void cancel() {
+            if (registration != null) {
+                registration.cancel();
+            }
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public void run() {
+            final ReadWriteLock currentLock = lock;
+            if (currentLock == null) {
+                return;
+            }
+
+            final Lock writeLock = currentLock.writeLock();
+
+            // Waiting for the lock would hold up every other action on the shared scheduler thread, so try again
+            // on the next tick instead.
+            if (!writeLock.tryLock()) {
+                final ExpirationScheduler scheduler = expirationScheduler;
+                if (scheduler != null) {
+                    log.trace("Storage busy, retrying purge of record '{}' in context '{}'", key, context);
+                    registration = scheduler.schedule(System.currentTimeMillis(), this);
                 }
-                
-                if (purged) {
-                    log.debug("Purged expired record(s) from storage");
+                return;
+            }
+
+            try {
+                // Give up if cancelled or superseded while waiting for the lock.
+                final Map<String, Removal> contextRemovals = removals != null ? removals.get(context) : null;
+                if (contextRemovals == null || contextRemovals.get(key) != this) {
+                    return;
+                }
+                contextRemovals.remove(key);
+                if (contextRemovals.isEmpty()) {
+                    removals.remove(context);
+                }
+
+                final Map<String, MutableStorageRecord> dataMap = contextMap.get(context);
+                final MutableStorageRecord record = dataMap != null ? dataMap.get(key) : null;
+                final Long expiration = record != null ? record.getExpiration() : null;
+                if (expiration == null) {
+                    return;
+                } else if (expiration <= System.currentTimeMillis()) {
+                    dataMap.remove(key);
+                    if (dataMap.isEmpty()) {
+                        contextMap.remove(context);
+                    }
+                    log.trace("Purged expired record '{}' in context '{}'", key, context);
                 } else {
-                    log.debug("No expired records found in storage");
+                    // Only earlier expirations are scheduled as they are set, so follow a later one.
+                    scheduleExpiration(context, key, record);
                 }
+
+            } finally {
+                writeLock.unlock();
             }
-        };
+        }
     }
-    
-}
\ No newline at end of file
+
+}
@@ -17,13 +17,20 @@
 
 package org.opensaml.storage.impl;
 
+import java.io.IOException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+
 import javax.annotation.Nonnull;
 
 import net.shibboleth.utilities.java.support.component.ComponentInitializationException;
 
+import org.opensaml.storage.ExpirationScheduler;
 import org.opensaml.storage.StorageService;
 import org.opensaml.storage.StorageServiceTest;
 import org.opensaml.storage.impl.MemoryStorageService;
+import org.testng.Assert;
 import org.testng.annotations.Test;
 
 /**
@@ -48,4 +55,45 @@ public class MemoryStorageServiceTest extends StorageServiceTest {
         ss.destroy();
     }
     
+    @Test
+    public void testPurgeDoesNotBlockScheduler() throws ComponentInitializationException, IOException,
+            InterruptedException {
+        final MemoryStorageService ss = (MemoryStorageService) getStorageService();
+        ss.initialize();
+        try {
+            ss.create("context", "key", "value", System.currentTimeMillis() + 100);
+            
+            final CountDownLatch later = new CountDownLatch(1);
+            final Lock readLock = ss.getLock().readLock();
+            readLock.lock();
+            try {
+                // Due after the purge, which cannot take the lock while it is held.
+                ExpirationScheduler.getSharedInstance().schedule(System.currentTimeMillis() + 1500, new Runnable() {
+                    public void run() {
+                        later.countDown();
+                    }
+                });
+                Assert.assertTrue(later.await(5, TimeUnit.SECONDS));
+                Assert.assertNotNull(ss.getContextMap().get("context"));
+            } finally {
+                readLock.unlock();
+            }
+            
+            final long deadline = System.currentTimeMillis() + 5000;
+            boolean present = true;
+            while (present && System.currentTimeMillis() < deadline) {
+                Thread.sleep(100);
+                readLock.lock();
+                try {
+                    present = ss.getContextMap().containsKey("context");
+                } finally {
+                    readLock.unlock();
+                }
+            }
+            Assert.assertFalse(present, "Expired record was not purged once the lock was released");
+        } finally {
+            ss.destroy();
+        }
+    }
+    
 }
\ No newline at end of file
@@ -187,6 +187,9 @@ import com.google.common.base.Strings;
  */
 public class Decrypter {
 
+    /** ParserPool shared by all instances which do not override {@link #buildParserPool()}, built on first use. */
+    @Nullable private static volatile ParserPool sharedParserPool;
+
     /** ParserPool used in parsing decrypted data. */
     private final ParserPool parserPool;
 
@@ -449,31 +452,31 @@ public class Decrypter {
             boolean rootInNewDocument) throws DecryptionException {
         List<XMLObject> xmlObjects = new LinkedList<>();
 
-        DocumentFragment docFragment = decryptDataToDOM(encryptedData);
+        // The decrypted content is parsed into a Document of its own. If the caller wants the result rooted
+        // in a new Document, that one is used as is, rather than being adopted into the EncryptedData's
+        // Document and then adopted again into yet another new Document.
+        Document decryptedDocument = decryptDataToDocument(encryptedData);
+        
+        List<Node> nodes = new LinkedList<>();
+        if (rootInNewDocument) {
+            nodes.add(decryptedDocument.getDocumentElement());
+        } else {
+            NodeList children = buildDocumentFragment(decryptedDocument,
+                    encryptedData.getDOM().getOwnerDocument()).getChildNodes();
+            for (int i = 0; i < children.getLength(); i++) {
+                nodes.add(children.item(i));
+            }
+        }
 
         XMLObject xmlObject;
-        Node node;
         Element element;
 
-        NodeList children = docFragment.getChildNodes();
-        for (int i = 0; i < children.getLength(); i++) {
-            node = children.item(i);
+        for (Node node : nodes) {
             if (node.getNodeType() != Node.ELEMENT_NODE) {
                 log.error("Decryption returned a top-level node that was not of type Element: " + node.getNodeType());
                 throw new DecryptionException("Top-level node was not of type Element");
             } else {
                 element = (Element) node;
-                if (rootInNewDocument) {
-                    Document newDoc = null;
-                    try {
-                        newDoc = parserPool.newDocument();
-                    } catch (XMLParserException e) {
-                        log.error("There was an error creating a new DOM Document", e);
-                        throw new DecryptionException("Error creating new DOM Document", e);
-                    }
-                    newDoc.adoptNode(element);
-                    newDoc.appendChild(element);
-                }
             }
 
             try {
@@ -511,6 +514,20 @@ public class Decrypter {
      */
     @Nonnull public DocumentFragment decryptDataToDOM(@Nonnull final EncryptedData encryptedData)
             throws DecryptionException {
+        Document decryptedDocument = decryptDataToDocument(encryptedData);
+        return buildDocumentFragment(decryptedDocument, encryptedData.getDOM().getOwnerDocument());
+    }
+
+    /**
+     * Decrypts the supplied EncryptedData and returns the resulting DOM {@link Document}, as parsed from the
+     * decrypted data.
+     * 
+     * @param encryptedData encrypted data element containing the data to be decrypted
+     * @return the decrypted DOM {@link Document}
+     * @throws DecryptionException exception indicating a decryption error
+     */
+    @Nonnull private Document decryptDataToDocument(@Nonnull final EncryptedData encryptedData)
+            throws DecryptionException {
         Constraint.isNotNull(encryptedData, "EncryptedData cannot be null");
         
         if (resolver == null && encKeyResolver == null) {
@@ -518,12 +535,12 @@ public class Decrypter {
             throw new DecryptionException("Unable to decrypt EncryptedData, required resolvers are not available");
         }
 
-        DocumentFragment docFrag = null;
+        Document decryptedDocument = null;
 
         if (resolver != null) {
-            docFrag = decryptUsingResolvedKey(encryptedData);
-            if (docFrag != null) {
-                return docFrag;
+            decryptedDocument = decryptUsingResolvedKey(encryptedData);
+            if (decryptedDocument != null) {
+                return decryptedDocument;
             } else {
                 log.debug("Failed to decrypt EncryptedData using standard KeyInfo resolver");
             }
@@ -536,9 +553,9 @@ public class Decrypter {
             log.error(msg);
             throw new DecryptionException(msg);
         } else if (encKeyResolver != null) {
-            docFrag = decryptUsingResolvedEncryptedKey(encryptedData, algorithm);
-            if (docFrag != null) {
-                return docFrag;
+            decryptedDocument = decryptUsingResolvedEncryptedKey(encryptedData, algorithm);
+            if (decryptedDocument != null) {
+                return decryptedDocument;
             } else {
                 log.debug("Failed to decrypt EncryptedData using EncryptedKeyResolver");
             }
@@ -561,6 +578,21 @@ public class Decrypter {
      */
     @Nonnull public DocumentFragment decryptDataToDOM(@Nonnull final EncryptedData encryptedData,
             @Nonnull final Key dataEncKey) throws DecryptionException {
+        Document decryptedDocument = decryptDataToDocument(encryptedData, dataEncKey);
+        return buildDocumentFragment(decryptedDocument, encryptedData.getDOM().getOwnerDocument());
+    }
+
+    /**
+     * Decrypts the supplied EncryptedData using the specified key, and returns the resulting DOM {@link Document},
+     * as parsed from the decrypted data.
+     * 
+     * @param encryptedData encrypted data element containing the data to be decrypted
+     * @param dataEncKey Java Key with which to attempt decryption of the encrypted data
+     * @return the decrypted DOM {@link Document}
+     * @throws DecryptionException exception indicating a decryption error
+     */
+    @Nonnull private Document decryptDataToDocument(@Nonnull final EncryptedData encryptedData,
+            @Nonnull final Key dataEncKey) throws DecryptionException {
         Constraint.isNotNull(encryptedData, "EncryptedData cannot be null");
         Constraint.isNotNull(dataEncKey, "Data decryption key cannot be null");
         
@@ -611,9 +643,7 @@ public class Decrypter {
         if (bytes == null) {
             throw new DecryptionException("EncryptedData could not be decrypted");
         }
-        ByteArrayInputStream input = new ByteArrayInputStream(bytes);
-        DocumentFragment docFragment = parseInputStream(input, encryptedData.getDOM().getOwnerDocument());
-        return docFragment;
+        return parseInputStream(new ByteArrayInputStream(bytes));
     }
 
     /**
@@ -743,15 +773,15 @@ public class Decrypter {
      * Attempt to decrypt by resolving the decryption key using the standard credential resolver.
      * 
      * @param encryptedData the encrypted data to decrypt
-     * @return the decrypted document fragment, or null if decryption key could not be resolved or decryption failed
+     * @return the decrypted document, or null if decryption key could not be resolved or decryption failed
      */
-    @Nullable private DocumentFragment decryptUsingResolvedKey(@Nonnull final EncryptedData encryptedData) {
+    @Nullable private Document decryptUsingResolvedKey(@Nonnull final EncryptedData encryptedData) {
         if (resolver != null) {
             CriteriaSet criteriaSet = buildCredentialCriteria(encryptedData, resolverCriteria);
             try {
                 for (Credential cred : resolver.resolve(criteriaSet)) {
                     try {
-                        return decryptDataToDOM(encryptedData, CredentialSupport.extractDecryptionKey(cred));
+                        return decryptDataToDocument(encryptedData, CredentialSupport.extractDecryptionKey(cred));
                     } catch (DecryptionException e) {
                         String msg = "Decryption attempt using credential from standard KeyInfo resolver failed: ";
                         log.debug(msg, e);
@@ -771,15 +801,15 @@ public class Decrypter {
      * 
      * @param encryptedData the encrypted data to decrypt
      * @param algorithm the algorithm of the key to be decrypted
-     * @return the decrypted document fragment, or null if decryption key could not be resolved or decryption failed
+     * @return the decrypted document, or null if decryption key could not be resolved or decryption failed
      */
-    @Nullable private DocumentFragment decryptUsingResolvedEncryptedKey(@Nonnull final EncryptedData encryptedData,
+    @Nullable private Document decryptUsingResolvedEncryptedKey(@Nonnull final EncryptedData encryptedData,
             @Nonnull final String algorithm) {
         if (encKeyResolver != null) {
             for (EncryptedKey encryptedKey : encKeyResolver.resolve(encryptedData)) {
                 try {
                     Key decryptedKey = decryptKey(encryptedKey, algorithm);
-                    return decryptDataToDOM(encryptedData, decryptedKey);
+                    return decryptDataToDocument(encryptedData, decryptedKey);
                 } catch (DecryptionException e) {
                     String msg = "Attempt to decrypt EncryptedData using key extracted from EncryptedKey failed: ";
                     log.debug(msg, e);
@@ -791,29 +821,37 @@ public class Decrypter {
     }
 
     /**
-     * Parse the specified input stream in a DOM DocumentFragment, owned by the specified Document.
+     * Parse the specified input stream into a new DOM Document.
      * 
      * @param input the InputStream to parse
-     * @param owningDocument the Document which will own the returned DocumentFragment
-     * @return a DocumentFragment
+     * @return a Document
      * @throws DecryptionException thrown if there is an error parsing the input stream
      */
-    @Nonnull private DocumentFragment parseInputStream(@Nonnull final InputStream input,
-            @Nonnull final Document owningDocument) throws DecryptionException {
-        // Since Xerces currently seems not to handle parsing into a DocumentFragment
-        // without a bit hackery, use this to simulate, so we can keep the API
-        // the way it hopefully will look in the future. Obviously this only works for
-        // input streams containing valid XML instances, not fragments.
-
-        Document newDocument = null;
+    @Nonnull private Document parseInputStream(@Nonnull final InputStream input) throws DecryptionException {
         try {
-            newDocument = parserPool.parse(input);
+            return parserPool.parse(input);
         } catch (XMLParserException e) {
             log.error("Error parsing decrypted input stream", e);
             throw new DecryptionException("Error parsing input stream", e);
         }
+    }
+
+    /**
+     * Move the document element of a Document parsed from decrypted data into a DOM DocumentFragment, owned by the
+     * specified Document.
+     * 
+     * @param decryptedDocument the Document parsed from the decrypted data
+     * @param owningDocument the Document which will own the returned DocumentFragment
+     * @return a DocumentFragment
+     */
+    @Nonnull private DocumentFragment buildDocumentFragment(@Nonnull final Document decryptedDocument,
+            @Nonnull final Document owningDocument) {
+        // Since Xerces currently seems not to handle parsing into a DocumentFragment
+        // without a bit hackery, use this to simulate, so we can keep the API
+        // the way it hopefully will look in the future. Obviously this only works for
+        // input streams containing valid XML instances, not fragments.
 
-        Element element = newDocument.getDocumentElement();
+        Element element = decryptedDocument.getDocumentElement();
         owningDocument.adoptNode(element);
 
         DocumentFragment container = owningDocument.createDocumentFragment();
@@ -969,7 +1007,46 @@ public class Decrypter {
     }
     
     /**
-     * Build the internal parser pool instance used to parse decrypted XML.
+     * Obtain the internal parser pool instance used to parse decrypted XML.
+     * 
+     * <p>
+     * The default implementation returns {@link #getSharedParserPool()}, so constructing a decrypter does not
+     * build and initialize a new pool each time. Subclasses which need a private pool may override this to
+     * return {@link #buildDefaultParserPool()} or a pool of their own.
+     * </p>
+     * 
+     * @return the parser pool instance
+     */
+    protected ParserPool buildParserPool() {
+        return getSharedParserPool();
+    }
+    
+    /**
+     * Get a parser pool suitable for parsing decrypted XML which is shared by all callers.
+     * 
+     * <p>
+     * The pool is built on first use. If building it fails, the {@link XMLRuntimeException} from
+     * {@link #buildDefaultParserPool()} is thrown to the caller and the next call tries again.
+     * </p>
+     * 
+     * @return the shared parser pool instance
+     */
+    @Nonnull protected static ParserPool getSharedParserPool() {
+        ParserPool pool = sharedParserPool;
+        if (pool == null) {
+            synchronized (Decrypter.class) {
+                pool = sharedParserPool;
+                if (pool == null) {
+                    pool = buildDefaultParserPool();
+                    sharedParserPool = pool;
+                }
+            }
+        }
+        return pool;
+    }
+    
+    /**
+     * Build a new parser pool instance suitable for parsing decrypted XML.
      * 
      * <p>
      * Note: When using a Xerces parser or derivative, the following feature must be set to false: 
@@ -978,7 +1055,7 @@ public class Decrypter {
      * 
      * @return a new parser pool instance
      */
-    protected ParserPool buildParserPool() {
+    @Nonnull protected static ParserPool buildDefaultParserPool() {
         BasicParserPool pp = new BasicParserPool();
         HashMap<String, Boolean> features = new HashMap<>();
         
@@ -1120,4 +1197,4 @@ public class Decrypter {
         }
     }
 
-}
\ No newline at end of file
+}
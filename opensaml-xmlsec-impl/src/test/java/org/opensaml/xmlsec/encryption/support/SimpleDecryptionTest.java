@@ -27,6 +27,7 @@ import java.util.Collections;
 
 import javax.crypto.SecretKey;
 
+import net.shibboleth.utilities.java.support.xml.ParserPool;
 import net.shibboleth.utilities.java.support.xml.XMLParserException;
 
 import org.opensaml.core.xml.XMLObject;
@@ -470,4 +471,47 @@ public class SimpleDecryptionTest extends XMLObjectBaseTestCase {
         
     }
     
+    /**
+     *  Test that decrypters share one parser pool unless a subclass builds its own.
+     */
+    @Test
+    public void testParserPool() {
+        final PoolRecordingDecrypter first = new PoolRecordingDecrypter();
+        final PoolRecordingDecrypter second = new PoolRecordingDecrypter();
+        Assert.assertNotNull(first.pool);
+        Assert.assertSame(first.pool, second.pool);
+        
+        final PrivatePoolDecrypter own = new PrivatePoolDecrypter();
+        Assert.assertNotNull(own.pool);
+        Assert.assertNotSame(own.pool, first.pool);
+    }
+    
+    /** Decrypter which records the parser pool it was built with. */
+    private static class PoolRecordingDecrypter extends Decrypter {
+        
+        /** The pool returned from {@link #buildParserPool()}. */
+        protected ParserPool pool;
+        
+        /** Constructor. */
+        public PoolRecordingDecrypter() {
+            super(null, null, null);
+        }
+        
+        /** {@inheritDoc} */
+        protected ParserPool buildParserPool() {
+            pool = super.buildParserPool();
+            return pool;
+        }
+    }
+    
+    /** Decrypter which builds a parser pool of its own. */
+    private static class PrivatePoolDecrypter extends PoolRecordingDecrypter {
+        
+        /** {@inheritDoc} */
+        protected ParserPool buildParserPool() {
+            pool = buildDefaultParserPool();
+            return pool;
+        }
+    }
+    
 }